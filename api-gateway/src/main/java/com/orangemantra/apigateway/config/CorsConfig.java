@@ -38,6 +38,7 @@ public class CorsConfig {
         
         config.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
         config.setAllowedHeaders(List.of("*"));
+        config.setExposedHeaders(List.of("ETag", "X-Ride-Changes-Cursor", "X-Ride-Availability-Topic")); // conditional reads, /ride/active/changes, live seat topic
         config.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,86 @@
+package com.orangemantra.apigateway.config;
+
+import com.orangemantra.apigateway.filter.WebSocketAffinityFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Round robin, except for requests carrying an affinity key (see WebSocketAffinityFilter): those go to the instance
+ * with the highest rendezvous score for the key, so one key always lands on the same instance while the instance
+ * set holds. When an instance leaves, only its keys move; when one joins, it takes about 1/n of the keys from the
+ * others and nothing else moves. The instance list needs no ordering or bookkeeping, which suits discovery
+ * snapshots better than jump hashing would.
+ */
+public class RendezvousLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+    private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+    private final String serviceId;
+    private final AtomicInteger position = new AtomicInteger();
+
+    public RendezvousLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> suppliers, String serviceId) {
+        this.suppliers = suppliers;
+        this.serviceId = serviceId;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = suppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        String key = affinityKey(request);
+        return supplier.get(request).next().map(instances -> choose(instances, key));
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances, String key) {
+        if (instances.isEmpty()) return new EmptyResponse();
+        if (key == null) {
+            int pos = position.getAndUpdate(p -> (p + 1) & Integer.MAX_VALUE);
+            return new DefaultResponse(instances.get(pos % instances.size()));
+        }
+        ServiceInstance best = null;
+        long bestScore = 0;
+        for (ServiceInstance instance : instances) {
+            long score = score(key, instance.getHost() + ':' + instance.getPort());
+            if (best == null || Long.compareUnsigned(score, bestScore) > 0) {
+                best = instance;
+                bestScore = score;
+            }
+        }
+        return new DefaultResponse(best);
+    }
+
+    private static String affinityKey(Request<?> request) {
+        if (request.getContext() instanceof RequestDataContext context && context.getClientRequest() != null) {
+            Object key = context.getClientRequest().getAttributes().get(WebSocketAffinityFilter.AFFINITY_KEY);
+            if (key instanceof String s) return s;
+        }
+        return null;
+    }
+
+    // FNV-1a over key and node, finished with the splitmix64 mixer so near-identical nodes score independently
+    static long score(String key, String node) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : (key + '\n' + node).getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    @Override
+    public String toString() {
+        return "RendezvousLoadBalancer[" + serviceId + "]";
+    }
+}
@@ -0,0 +1,28 @@
+package com.orangemantra.apigateway.config;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * ride-service holds STOMP sessions, so its WebSocket traffic is balanced by employee (RendezvousLoadBalancer);
+ * everything else to it stays round robin.
+ */
+@Configuration
+@LoadBalancerClient(name = "ride-service", configuration = WebSocketAffinityConfig.RideServiceLoadBalancer.class)
+public class WebSocketAffinityConfig {
+
+    // Instantiated in ride-service's own load balancer context, not by component scanning.
+    static class RideServiceLoadBalancer {
+        @Bean
+        public ReactorLoadBalancer<ServiceInstance> rideServiceLoadBalancer(Environment environment, LoadBalancerClientFactory factory) {
+            String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+            return new RendezvousLoadBalancer(factory.getLazyProvider(name, ServiceInstanceListSupplier.class), name);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.orangemantra.apigateway.filter;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Gives every WebSocket/SockJS request to ride-service an affinity key, which RendezvousLoadBalancer hashes to pick
+ * the replica, so all of an employee's sessions end up on the same node.
+ * <p>
+ * The key is the JWT's empId, taken from the Authorization header or, since browsers cannot set headers on a
+ * WebSocket handshake, from an {@code access_token} query parameter. Without a valid token it is the SockJS session
+ * id ({@code /ws/{server}/{session}/{transport}}), which at least keeps the requests of one SockJS session together.
+ * Requests without either (e.g. {@code /ws/info}) are balanced as usual. The token is not required here: ride-service
+ * still authenticates the STOMP CONNECT frame.
+ */
+@Component
+public class WebSocketAffinityFilter implements GlobalFilter, Ordered {
+    public static final String AFFINITY_KEY = WebSocketAffinityFilter.class.getName() + ".key";
+
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getURI().getPath();
+        if (path.startsWith("/ws") || path.startsWith("/api/ws")) {
+            String key = empIdOf(request);
+            if (key == null) key = sockJsSession(path);
+            if (key != null) exchange.getAttributes().put(AFFINITY_KEY, key);
+        }
+        return chain.filter(exchange);
+    }
+
+    private String empIdOf(ServerHttpRequest request) {
+        String token = request.getQueryParams().getFirst("access_token");
+        String authHeader = request.getHeaders().getFirst("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) token = authHeader.substring(7);
+        if (token == null || token.isBlank()) return null;
+        try {
+            Claims claims = Jwts.parser()
+                    .verifyWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload();
+            String empId = claims.get("empId", String.class);
+            return empId == null || empId.isBlank() ? null : "emp:" + empId;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // /ws/{server}/{session}/{transport}, optionally under /api
+    static String sockJsSession(String path) {
+        String[] parts = path.split("/");
+        int ws = parts.length > 1 && "api".equals(parts[1]) ? 2 : 1;
+        return parts.length == ws + 4 ? "sockjs:" + parts[ws + 2] : null;
+    }
+
+    @Override
+    public int getOrder() { return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1; }
+}
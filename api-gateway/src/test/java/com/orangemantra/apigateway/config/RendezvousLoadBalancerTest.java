@@ -0,0 +1,68 @@
+package com.orangemantra.apigateway.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RendezvousLoadBalancerTest {
+    private final RendezvousLoadBalancer balancer = new RendezvousLoadBalancer(null, "ride-service");
+
+    private static List<ServiceInstance> nodes(int n) {
+        List<ServiceInstance> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) out.add(new DefaultServiceInstance("ride-" + i, "ride-service", "10.0.0." + i, 8083, false));
+        return out;
+    }
+
+    private Map<String, String> assign(List<ServiceInstance> nodes, int keys) {
+        Map<String, String> out = new HashMap<>();
+        for (int k = 0; k < keys; k++) out.put("emp:E" + k, balancer.choose(nodes, "emp:E" + k).getServer().getInstanceId());
+        return out;
+    }
+
+    @Test
+    void keyStaysOnItsNodeWhateverTheListOrder() {
+        List<ServiceInstance> nodes = nodes(4);
+        String first = balancer.choose(nodes, "emp:E42").getServer().getInstanceId();
+        List<ServiceInstance> reversed = new ArrayList<>(nodes);
+        Collections.reverse(reversed);
+        assertEquals(first, balancer.choose(reversed, "emp:E42").getServer().getInstanceId());
+    }
+
+    @Test
+    void scalingOnlyMovesTheKeysOfTheChangedNode() {
+        Map<String, String> four = assign(nodes(4), 4000);
+        Map<String, String> five = assign(nodes(5), 4000);
+
+        int moved = 0;
+        for (Map.Entry<String, String> e : four.entrySet()) {
+            String now = five.get(e.getKey());
+            if (!now.equals(e.getValue())) {
+                moved++;
+                assertEquals("ride-4", now); // only ever to the new node
+            }
+        }
+        assertTrue(moved > 600 && moved < 1000, "about a fifth of the keys move: " + moved);
+
+        // and the four-node spread is even enough
+        Map<String, Integer> load = new HashMap<>();
+        four.values().forEach(n -> load.merge(n, 1, Integer::sum));
+        load.values().forEach(c -> assertTrue(c > 800 && c < 1200, "load " + load));
+    }
+
+    @Test
+    void requestsWithoutAKeyAreRoundRobin() {
+        List<ServiceInstance> nodes = nodes(3);
+        assertEquals("ride-0", balancer.choose(nodes, null).getServer().getInstanceId());
+        assertEquals("ride-1", balancer.choose(nodes, null).getServer().getInstanceId());
+        assertEquals("ride-2", balancer.choose(nodes, null).getServer().getInstanceId());
+        assertFalse(balancer.choose(List.of(), "emp:E1").hasServer());
+    }
+}
@@ -34,6 +34,9 @@ import java.util.List;
 @Slf4j
 public class JwtAuthFilter extends OncePerRequestFilter {
 
+    static final String SERVICE_ROLE = "SERVICE";
+    static final String SERVICE_AUDIENCE = "employee-service";
+
     private final JwtUtil jwtUtil;
 
     @Override
@@ -48,6 +51,13 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                 Claims claims = jwtUtil.extractAllClaims(token);
                 String role = claims.get("role", String.class);
                 String empId = claims.get("empId", String.class); // Add this line
+                if (SERVICE_ROLE.equals(role)) {
+                    // service credentials are only valid when minted for this service; SecurityConfig limits where they go
+                    if (claims.getAudience() == null || !claims.getAudience().contains(SERVICE_AUDIENCE)) {
+                        throw new IllegalArgumentException("service token not issued for " + SERVICE_AUDIENCE);
+                    }
+                    empId = claims.getSubject();
+                }
 
                 UsernamePasswordAuthenticationToken authToken =
                         new UsernamePasswordAuthenticationToken(
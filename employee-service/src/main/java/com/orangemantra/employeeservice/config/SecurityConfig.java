@@ -3,6 +3,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -23,10 +24,14 @@ public class SecurityConfig {
                     .csrf(AbstractHttpConfigurer::disable)
                     .authorizeHttpRequests(auth -> auth
                             .requestMatchers("/employee/save").permitAll()
+                            // ride-service directory sync and lookups; the only places a SERVICE token is accepted
+                            .requestMatchers(HttpMethod.GET, "/employee/directory").hasAnyRole("ADMIN", "EMPLOYEE", "SERVICE")
+                            .requestMatchers(HttpMethod.POST, "/employee/batch").hasAnyRole("ADMIN", "EMPLOYEE", "SERVICE")
                             .requestMatchers("/employee/all").hasAnyRole("ADMIN", "EMPLOYEE")
                             .requestMatchers("/employee/**").hasAnyRole("ADMIN","EMPLOYEE")
                             .requestMatchers("/vehicle/my").hasRole("EMPLOYEE")
                             .requestMatchers("/vehicle/{id}/verify").hasRole("ADMIN")
+                            .requestMatchers(HttpMethod.GET, "/vehicle/{empId}").hasAnyRole("ADMIN", "EMPLOYEE", "SERVICE")
                             .requestMatchers("/vehicle/**").hasAnyRole("ADMIN","EMPLOYEE")
                             .requestMatchers("/notifications/**").hasAnyRole("ADMIN", "EMPLOYEE")
                             .anyRequest().authenticated()
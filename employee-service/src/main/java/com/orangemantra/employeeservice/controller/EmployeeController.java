@@ -1,14 +1,18 @@
 package com.orangemantra.employeeservice.controller;
 
 import com.orangemantra.employeeservice.dto.EmployeeRegisterRequest;
+import com.orangemantra.employeeservice.dto.EmployeeSummary;
 import com.orangemantra.employeeservice.dto.RouteRequest;
+import com.orangemantra.employeeservice.messaging.DirectoryChangePublisher;
 import com.orangemantra.employeeservice.model.Employee;
 import com.orangemantra.employeeservice.repository.EmployeeRepository;
 import com.orangemantra.employeeservice.service.EmployeeService;
 import com.orangemantra.employeeservice.util.HashUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
@@ -19,6 +23,9 @@ public class EmployeeController {
 
     private final EmployeeService employeeService;
     private final EmployeeRepository repository;
+    private final DirectoryChangePublisher directoryChanges;
+    private static final int MAX_BATCH = 500;
+    private static final int MAX_DIRECTORY_PAGE = 1000;
     @GetMapping("/health")
     public java.util.Map<String,Object> health(){
         return java.util.Map.of("status","UP","service","employee-service","timestamp",System.currentTimeMillis());
@@ -32,6 +39,23 @@ public class EmployeeController {
     public Employee getProfile(@PathVariable("empId") String empId) {
         return employeeService.getProfile(empId);
     }
+    // Bulk profile lookup used by ride-service to assemble lists without one call per employee
+    @PostMapping("/batch")
+    public List<EmployeeSummary> getBatch(@RequestBody List<String> empIds) {
+        if (empIds != null && empIds.size() > MAX_BATCH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_BATCH + " empIds per batch");
+        }
+        return employeeService.getSummaries(empIds);
+    }
+    // Paged snapshot of directory fields (empId, name, email, phone) for services that keep a local copy
+    @GetMapping("/directory")
+    public List<EmployeeSummary> getDirectory(@RequestParam(name = "page", defaultValue = "0") int page,
+                                              @RequestParam(name = "size", defaultValue = "500") int size) {
+        if (page < 0 || size < 1 || size > MAX_DIRECTORY_PAGE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "page must be >= 0 and size between 1 and " + MAX_DIRECTORY_PAGE);
+        }
+        return employeeService.getDirectoryPage(page, size);
+    }
     @PostMapping("/save")
     public ResponseEntity<String> saveEmployee(@RequestBody EmployeeRegisterRequest req) {
         // Prevent duplicate creation (empId or email)
@@ -54,7 +78,7 @@ public class EmployeeController {
         employee.setOfficeLocation(req.getOfficeLocation());
         employee.setGender(req.getGender());
         employee.setBio(req.getBio());
-        repository.save(employee);
+        directoryChanges.employeeChanged(repository.save(employee));
         return ResponseEntity.ok("Employee saved successfully");
     }
     @GetMapping("/all")
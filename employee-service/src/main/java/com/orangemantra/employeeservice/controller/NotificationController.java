@@ -2,10 +2,15 @@ package com.orangemantra.employeeservice.controller;
 
 import com.orangemantra.employeeservice.model.Notification;
 import com.orangemantra.employeeservice.service.NotificationService;
+import com.orangemantra.employeeservice.service.NotificationVersions;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 @RequiredArgsConstructor
 @RestController
@@ -14,6 +19,7 @@ public class NotificationController {
 
     private final NotificationService notificationService;
     private final org.springframework.kafka.core.KafkaTemplate<String, com.orangemantra.employeeservice.messaging.NotificationEvent> kafkaTemplate;
+    private final NotificationVersions versions;
     @org.springframework.beans.factory.annotation.Value("${spring.kafka.topic.notifications:notifications}")
     private String notificationsTopic;
 
@@ -23,14 +29,15 @@ public class NotificationController {
     }
 
     @GetMapping("/{userId}")
-    public List<Notification> getNotifications(@PathVariable("userId") String userId,
-                                              org.springframework.security.core.Authentication authentication) {
+    public ResponseEntity<List<Notification>> getNotifications(@PathVariable("userId") String userId,
+                                              org.springframework.security.core.Authentication authentication,
+                                              WebRequest request) {
         // Ensure user can only access their own notifications
         String authenticatedUserId = authentication.getName();
         if (!authenticatedUserId.equals(userId)) {
             throw new org.springframework.security.access.AccessDeniedException("Access denied: Cannot access other user's notifications");
         }
-        return notificationService.getNotifications(userId);
+        return conditional(request, userId, () -> notificationService.getNotifications(userId));
     }
 
     @DeleteMapping("/{id}")
@@ -39,14 +46,15 @@ public class NotificationController {
     }
 
     @GetMapping("/{userId}/count")
-    public long getNotificationCount(@PathVariable("userId") String userId, 
-                                   org.springframework.security.core.Authentication authentication) {
+    public ResponseEntity<Long> getNotificationCount(@PathVariable("userId") String userId,
+                                   org.springframework.security.core.Authentication authentication,
+                                   WebRequest request) {
         // Ensure user can only access their own notification count
         String authenticatedUserId = authentication.getName();
         if (!authenticatedUserId.equals(userId)) {
             throw new org.springframework.security.access.AccessDeniedException("Access denied: Cannot access other user's notifications");
         }
-        return notificationService.getNotificationCount(userId);
+        return conditional(request, userId, () -> notificationService.getNotificationCount(userId));
     }
 
     @PostMapping("/{userId}/mark-all-read")
@@ -59,4 +67,13 @@ public class NotificationController {
         }
         notificationService.markAllAsRead(userId);
     }
-}
\ No newline at end of file
+
+    // Polled reads: 304 without a query while the user's notifications are unchanged. The tag is taken before the
+    // read, so a concurrent change can only make the body newer than its tag. Cache-Control replaces Spring
+    // Security's default no-store, which would stop clients from revalidating at all.
+    private <T> ResponseEntity<T> conditional(WebRequest request, String userId, Supplier<T> body) {
+        String etag = versions.etag(userId);
+        if (request.checkNotModified(etag)) return null;
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).body(body.get());
+    }
+}
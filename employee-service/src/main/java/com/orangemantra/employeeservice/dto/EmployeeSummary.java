@@ -0,0 +1,18 @@
+package com.orangemantra.employeeservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Slim directory view returned by bulk lookups (no profile extras)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeSummary {
+    private String empId;
+    private String name;
+    private String email;
+    private String phone;
+}
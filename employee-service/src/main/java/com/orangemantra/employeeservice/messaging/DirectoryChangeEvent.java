@@ -0,0 +1,22 @@
+package com.orangemantra.employeeservice.messaging;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * Compact change signal: which employee changed and when, nothing else. Email and phone are encrypted at rest here,
+ * so they never travel on the topic; consumers that keep a copy fetch it through the authenticated directory API.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DirectoryChangeEvent {
+    public static final String EMPLOYEE_CHANGED = "EmployeeChanged";
+    public static final String EMPLOYEE_DELETED = "EmployeeDeleted";
+    public static final String VEHICLE_CHANGED = "VehicleChanged";
+
+    private String type;
+    private String empId;
+    private long changedAt;
+}
@@ -0,0 +1,43 @@
+package com.orangemantra.employeeservice.messaging;
+
+import com.orangemantra.employeeservice.model.Employee;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class DirectoryChangePublisher {
+    private static final Logger log = LoggerFactory.getLogger(DirectoryChangePublisher.class);
+
+    private final KafkaTemplate<String, DirectoryChangeEvent> kafkaTemplate;
+
+    @Value("${spring.kafka.topic.directory-changes:directory-changes}")
+    private String directoryChangesTopic;
+
+    public void employeeChanged(Employee e) {
+        if (e == null) return;
+        publish(new DirectoryChangeEvent(DirectoryChangeEvent.EMPLOYEE_CHANGED, e.getEmpId(), System.currentTimeMillis()));
+    }
+
+    public void employeeDeleted(String empId) {
+        publish(new DirectoryChangeEvent(DirectoryChangeEvent.EMPLOYEE_DELETED, empId, System.currentTimeMillis()));
+    }
+
+    public void vehicleChanged(String empId) {
+        publish(new DirectoryChangeEvent(DirectoryChangeEvent.VEHICLE_CHANGED, empId, System.currentTimeMillis()));
+    }
+
+    // Best effort: the write already succeeded, consumers fall back to their cache TTL if an event is lost
+    private void publish(DirectoryChangeEvent event) {
+        if (event.getEmpId() == null || event.getEmpId().isBlank()) return;
+        try {
+            kafkaTemplate.send(directoryChangesTopic, event.getEmpId(), event);
+        } catch (Exception e) {
+            log.warn("Failed to publish {} for {}: {}", event.getType(), event.getEmpId(), e.getMessage());
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.orangemantra.employeeservice.messaging;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
@@ -12,6 +14,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
@@ -30,6 +33,15 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id:employee-service}")
     private String consumerGroupId;
 
+    @Value("${spring.kafka.topic.directory-changes:directory-changes}")
+    private String directoryChangesTopicName;
+
+    @Value("${spring.kafka.topic.notification-changes:notification-changes}")
+    private String notificationChangesTopicName;
+
+    @Value("${spring.application.name:employee-service}")
+    private String applicationName;
+
     @Bean
     public ProducerFactory<String, NotificationEvent> notificationProducerFactory() {
         Map<String, Object> props = new HashMap<>();
@@ -45,6 +57,29 @@ public class KafkaConfig {
         return new KafkaTemplate<>(notificationProducerFactory());
     }
 
+    @Bean
+    public ProducerFactory<String, DirectoryChangeEvent> directoryChangeProducerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        // consumers in other services bind to their own event class
+        props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        // don't hold a profile/vehicle update for a minute when the broker is away
+        props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 5_000);
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    @Bean
+    public KafkaTemplate<String, DirectoryChangeEvent> directoryChangeKafkaTemplate() {
+        return new KafkaTemplate<>(directoryChangeProducerFactory());
+    }
+
+    @Bean
+    public NewTopic directoryChangesTopic() {
+        return TopicBuilder.name(directoryChangesTopicName).partitions(3).replicas(1).build();
+    }
+
     @Bean
     public ConsumerFactory<String, NotificationEvent> notificationConsumerFactory() {
         JsonDeserializer<NotificationEvent> deserializer = new JsonDeserializer<>(NotificationEvent.class);
@@ -63,4 +98,28 @@ public class KafkaConfig {
         factory.setConsumerFactory(notificationConsumerFactory());
         return factory;
     }
+
+    @Bean
+    public NewTopic notificationChangesTopic() {
+        return TopicBuilder.name(notificationChangesTopicName).partitions(3).replicas(1).build();
+    }
+
+    // A group per instance: every replica has to see every change, and only changes made after it started
+    @Bean
+    public ConsumerFactory<String, NotificationEvent> notificationChangeConsumerFactory() {
+        JsonDeserializer<NotificationEvent> deserializer = new JsonDeserializer<>(NotificationEvent.class);
+        deserializer.addTrustedPackages("*");
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, applicationName + "-notification-changes-" + UUID.randomUUID());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), deserializer);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, NotificationEvent> notificationChangeListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, NotificationEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(notificationChangeConsumerFactory());
+        return factory;
+    }
 }
@@ -0,0 +1,22 @@
+package com.orangemantra.employeeservice.messaging;
+
+import com.orangemantra.employeeservice.service.NotificationVersions;
+import lombok.RequiredArgsConstructor;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the notification ETags of users whose notifications changed on any replica. Every replica consumes with
+ * its own group (see KafkaConfig) so all of them see every change.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationChangeListener {
+    private final NotificationVersions versions;
+
+    @KafkaListener(topics = "${spring.kafka.topic.notification-changes:notification-changes}", containerFactory = "notificationChangeListenerContainerFactory")
+    public void onChange(@Payload NotificationEvent event) {
+        if (event != null) versions.changed(event.getUserId());
+    }
+}
@@ -0,0 +1,30 @@
+package com.orangemantra.employeeservice.messaging;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+/** Tells every employee-service replica that a user's notifications changed (see NotificationChangeListener). */
+@Component
+@RequiredArgsConstructor
+public class NotificationChangePublisher {
+    private static final Logger log = LoggerFactory.getLogger(NotificationChangePublisher.class);
+
+    private final KafkaTemplate<String, NotificationEvent> kafkaTemplate;
+
+    @Value("${spring.kafka.topic.notification-changes:notification-changes}")
+    private String notificationChangesTopic;
+
+    // Best effort: the write already succeeded, other replicas just keep answering 304 for the old list until the next change
+    public void notificationsChanged(String userId) {
+        if (userId == null || userId.isBlank()) return;
+        try {
+            kafkaTemplate.send(notificationChangesTopic, userId, new NotificationEvent(userId, null));
+        } catch (Exception e) {
+            log.warn("Failed to publish notification change for {}: {}", userId, e.getMessage());
+        }
+    }
+}
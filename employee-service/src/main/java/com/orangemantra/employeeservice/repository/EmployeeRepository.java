@@ -3,6 +3,7 @@ package com.orangemantra.employeeservice.repository;
 import com.orangemantra.employeeservice.model.Employee;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -13,4 +14,6 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long> {
 
     // Use list-based accessors to guard against unexpected duplicates
     List<Employee> findAllByEmpId(String empId);
+
+    List<Employee> findAllByEmpIdIn(Collection<String> empIds);
 }
@@ -1,5 +1,7 @@
 package com.orangemantra.employeeservice.service;
+import com.orangemantra.employeeservice.dto.EmployeeSummary;
 import com.orangemantra.employeeservice.dto.RouteRequest;
+import com.orangemantra.employeeservice.messaging.DirectoryChangePublisher;
 import com.orangemantra.employeeservice.model.Employee;
 import com.orangemantra.employeeservice.repository.EmployeeRepository;
 import lombok.RequiredArgsConstructor;
@@ -7,17 +9,23 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import com.orangemantra.employeeservice.exception.EmployeeNotFoundException;
 
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class EmployeeService {
 
     private final EmployeeRepository repository;
+    private final DirectoryChangePublisher directoryChanges;
     private final RestTemplate restTemplate = new RestTemplate();
 
     public String assignRoute(RouteRequest request) {
@@ -30,6 +38,24 @@ public class EmployeeService {
     public Employee getProfile(String empId) {
         return getSingleByEmpIdOrThrow(empId);
     }
+    /* Bulk lookup for other services; unknown ids are simply absent from the result */
+    public List<EmployeeSummary> getSummaries(Collection<String> empIds) {
+        if (empIds == null || empIds.isEmpty()) return List.of();
+        List<Employee> rows = repository.findAllByEmpIdIn(empIds.stream().distinct().toList());
+        Map<String, Employee> byEmpId = new LinkedHashMap<>();
+        rows.stream()
+                .sorted(Comparator.comparingLong(Employee::getId)) // same duplicate rule as getSingleByEmpIdOrThrow
+                .forEach(e -> byEmpId.putIfAbsent(e.getEmpId(), e));
+        return byEmpId.values().stream()
+                .map(e -> EmployeeSummary.builder().empId(e.getEmpId()).name(e.getName()).email(e.getEmail()).phone(e.getPhone()).build())
+                .toList();
+    }
+    /* Stable id-ordered page of directory fields; ride-service bootstraps its local copy from this */
+    public List<EmployeeSummary> getDirectoryPage(int page, int size) {
+        return repository.findAll(PageRequest.of(page, size, Sort.by("id"))).stream()
+                .map(e -> EmployeeSummary.builder().empId(e.getEmpId()).name(e.getName()).email(e.getEmail()).phone(e.getPhone()).build())
+                .toList();
+    }
     public List<Employee> getAllEmployees() {
         return repository.findAll();
     }
@@ -39,6 +65,7 @@ public class EmployeeService {
             throw new EmployeeNotFoundException("Employee with ID " + empId + " not found");
         }
         repository.deleteAll(matches); // remove all duplicates if any
+        directoryChanges.employeeDeleted(empId);
     }
     public Employee updateEmployee(String empId, Employee updated) {
         Employee emp = getSingleByEmpIdOrThrow(empId);
@@ -53,6 +80,7 @@ public class EmployeeService {
     emp.setBio(updated.getBio());
         // set other fields as needed
         Employee saved = repository.save(emp);
+        directoryChanges.employeeChanged(saved);
         // Propagate name change to auth-service user table ONLY if name changed
         if (updated.getName() != null && !updated.getName().isBlank() && !updated.getName().equals(oldName)) {
             try {
@@ -1,5 +1,6 @@
 package com.orangemantra.employeeservice.service;
 
+import com.orangemantra.employeeservice.messaging.NotificationChangePublisher;
 import com.orangemantra.employeeservice.model.Notification;
 import com.orangemantra.employeeservice.repository.NotificationRepository;
 import lombok.AllArgsConstructor;
@@ -12,12 +13,15 @@ import java.util.List;
 public class NotificationService {
 
     private NotificationRepository notificationRepository;
+    private NotificationVersions versions;
+    private NotificationChangePublisher changes;
 
     public void saveNotification(String userId, String message) {
         Notification notification = new Notification();
         notification.setUserId(userId);
         notification.setMessage(message);
         notificationRepository.save(notification);
+        changed(userId);
     }
 
     public List<Notification> getNotifications(String userId) {
@@ -25,7 +29,9 @@ public class NotificationService {
     }
 
     public void deleteNotification(Long id) {
+        String userId = notificationRepository.findById(id).map(Notification::getUserId).orElse(null);
         notificationRepository.deleteById(id);
+        changed(userId);
     }
 
     public long getNotificationCount(String userId) {
@@ -36,5 +42,12 @@ public class NotificationService {
         List<Notification> notifications = notificationRepository.findByUserId(userId);
         notifications.forEach(notification -> notification.setRead(true));
         notificationRepository.saveAll(notifications);
+        changed(userId);
+    }
+
+    // This replica's ETags move right away, the others when the change event reaches them
+    private void changed(String userId) {
+        versions.changed(userId);
+        changes.notificationsChanged(userId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.orangemantra.employeeservice.service;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-user change counters for notification reads, so /notifications/{userId} and its count can answer a
+ * revalidation with 304 without a query. Bumped locally by NotificationService and, for writes on other replicas,
+ * by NotificationChangeListener. Counters live in this instance only; the instance id in the tag makes a client
+ * that lands on another replica get one full response instead of a wrong 304.
+ */
+@Component
+public class NotificationVersions {
+    private final String instance = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+
+    public void changed(String userId) {
+        if (userId != null) versions.put(userId, clock.incrementAndGet());
+    }
+
+    public String etag(String userId) {
+        return "W/\"" + instance + '.' + versions.getOrDefault(userId, 0L) + '.' + Integer.toHexString(Objects.hashCode(userId)) + '"';
+    }
+}
@@ -3,6 +3,7 @@ package com.orangemantra.employeeservice.service;
 import com.orangemantra.employeeservice.dto.VehicleRequest;
 import com.orangemantra.employeeservice.dto.VehicleResponse;
 import com.orangemantra.employeeservice.dto.VehicleVerifyRequest;
+import com.orangemantra.employeeservice.messaging.DirectoryChangePublisher;
 import com.orangemantra.employeeservice.model.Vehicle;
 import com.orangemantra.employeeservice.repository.VehicleRepository;
 import lombok.RequiredArgsConstructor;
@@ -18,6 +19,7 @@ import java.util.List;
 public class VehicleService {
 
     private final VehicleRepository vehicleRepository;
+    private final DirectoryChangePublisher directoryChanges;
 
     public VehicleResponse submitOrUpdate(VehicleRequest request, String empId) {
         Vehicle vehicle = vehicleRepository.findByEmpId(empId).orElseGet(() -> Vehicle.builder()
@@ -44,6 +46,7 @@ public class VehicleService {
             vehicle.setProofImageUrl(vehicle.getProofImageUrl().substring(0, 2_000_000));
         }
         Vehicle saved = vehicleRepository.save(vehicle);
+        directoryChanges.vehicleChanged(saved.getEmpId());
         return toResponse(saved);
     }
 
@@ -85,6 +88,7 @@ public class VehicleService {
         }
         vehicle.setUpdatedAt(LocalDateTime.now());
         Vehicle saved = vehicleRepository.save(vehicle);
+        directoryChanges.vehicleChanged(saved.getEmpId());
         return toResponse(saved);
     }
 
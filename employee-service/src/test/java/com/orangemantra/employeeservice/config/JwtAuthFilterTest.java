@@ -15,6 +15,7 @@ import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.io.IOException;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -88,5 +89,44 @@ class JwtAuthFilterTest {
         assertEquals(401, res.getStatus());
         verify(chain, never()).doFilter(any(), any());
     }
-}
 
+    @Test
+    void doFilter_serviceTokenForThisService_authenticatesAsService() throws ServletException, IOException {
+        MockHttpServletRequest req = new MockHttpServletRequest();
+        req.addHeader("Authorization", "Bearer svc");
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        FilterChain chain = mock(FilterChain.class);
+
+        Claims claims = mock(Claims.class);
+        when(jwtUtil.extractAllClaims("svc")).thenReturn(claims);
+        when(claims.get("role", String.class)).thenReturn("SERVICE");
+        when(claims.getSubject()).thenReturn("ride-service");
+        when(claims.getAudience()).thenReturn(Set.of("employee-service"));
+
+        filter.doFilterInternal(req, res, chain);
+
+        var auth = SecurityContextHolder.getContext().getAuthentication();
+        assertEquals("ride-service", auth.getPrincipal());
+        assertEquals("ROLE_SERVICE", auth.getAuthorities().iterator().next().getAuthority());
+        verify(chain).doFilter(req, res);
+    }
+
+    @Test
+    void doFilter_serviceTokenWithoutAudience_returns401() throws ServletException, IOException {
+        MockHttpServletRequest req = new MockHttpServletRequest();
+        req.addHeader("Authorization", "Bearer svc");
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        FilterChain chain = mock(FilterChain.class);
+
+        Claims claims = mock(Claims.class);
+        when(jwtUtil.extractAllClaims("svc")).thenReturn(claims);
+        when(claims.get("role", String.class)).thenReturn("SERVICE");
+        when(claims.getAudience()).thenReturn(Set.of("notification-service"));
+
+        filter.doFilterInternal(req, res, chain);
+
+        assertEquals(401, res.getStatus());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(chain, never()).doFilter(any(), any());
+    }
+}
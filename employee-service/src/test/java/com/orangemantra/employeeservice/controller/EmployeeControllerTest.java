@@ -1,7 +1,9 @@
 package com.orangemantra.employeeservice.controller;
 
 import com.orangemantra.employeeservice.dto.EmployeeRegisterRequest;
+import com.orangemantra.employeeservice.dto.EmployeeSummary;
 import com.orangemantra.employeeservice.dto.RouteRequest;
+import com.orangemantra.employeeservice.messaging.DirectoryChangePublisher;
 import com.orangemantra.employeeservice.model.Employee;
 import com.orangemantra.employeeservice.repository.EmployeeRepository;
 import com.orangemantra.employeeservice.service.EmployeeService;
@@ -26,12 +28,14 @@ class EmployeeControllerTest {
     private EmployeeService employeeService;
     @Mock
     private EmployeeRepository repository;
+    @Mock
+    private DirectoryChangePublisher directoryChanges;
 
     private EmployeeController controller;
 
     @BeforeEach
     void setup() {
-        controller = new EmployeeController(employeeService, repository);
+        controller = new EmployeeController(employeeService, repository, directoryChanges);
     }
 
     @Test
@@ -85,6 +89,7 @@ class EmployeeControllerTest {
         ResponseEntity<String> res = controller.saveEmployee(req);
         assertEquals(200, res.getStatusCode().value());
         assertEquals("Employee saved successfully", res.getBody());
+        verify(directoryChanges).employeeChanged(argThat(e -> "E3".equals(e.getEmpId())));
     }
 
     @Test
@@ -116,5 +121,27 @@ class EmployeeControllerTest {
         assertEquals(200, res.getStatusCode().value());
         assertEquals("Alice", res.getBody());
     }
-}
 
+    @Test
+    void getBatch_delegates() {
+        List<EmployeeSummary> summaries = List.of(EmployeeSummary.builder().empId("E1").name("Alice").build());
+        when(employeeService.getSummaries(List.of("E1"))).thenReturn(summaries);
+        assertEquals(summaries, controller.getBatch(List.of("E1")));
+    }
+
+    @Test
+    void getBatch_rejectsOversizedRequest() {
+        List<String> ids = java.util.stream.IntStream.range(0, 501).mapToObj(i -> "E" + i).toList();
+        assertThrows(org.springframework.web.server.ResponseStatusException.class, () -> controller.getBatch(ids));
+        verifyNoInteractions(employeeService);
+    }
+
+    @Test
+    void getDirectory_validatesPageBounds() {
+        List<EmployeeSummary> page = List.of(EmployeeSummary.builder().empId("E1").build());
+        when(employeeService.getDirectoryPage(2, 100)).thenReturn(page);
+        assertEquals(page, controller.getDirectory(2, 100));
+        assertThrows(org.springframework.web.server.ResponseStatusException.class, () -> controller.getDirectory(0, 1001));
+        assertThrows(org.springframework.web.server.ResponseStatusException.class, () -> controller.getDirectory(-1, 10));
+    }
+}
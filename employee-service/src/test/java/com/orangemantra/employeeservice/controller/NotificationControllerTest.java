@@ -3,12 +3,21 @@ package com.orangemantra.employeeservice.controller;
 import com.orangemantra.employeeservice.messaging.NotificationEvent;
 import com.orangemantra.employeeservice.model.Notification;
 import com.orangemantra.employeeservice.service.NotificationService;
+import com.orangemantra.employeeservice.service.NotificationVersions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 
@@ -24,11 +33,14 @@ class NotificationControllerTest {
     @Mock
     private KafkaTemplate<String, NotificationEvent> kafkaTemplate;
 
+    private final NotificationVersions versions = new NotificationVersions();
+    private final Authentication auth = new UsernamePasswordAuthenticationToken("U1", null);
+
     private NotificationController controller;
 
     @BeforeEach
     void setup() {
-        controller = new NotificationController(notificationService, kafkaTemplate);
+        controller = new NotificationController(notificationService, kafkaTemplate, versions);
     }
 
     @Test
@@ -37,14 +49,42 @@ class NotificationControllerTest {
         n.setUserId("U1");
         n.setMessage("hello");
         controller.createNotification(n);
-        verify(kafkaTemplate).send(eq("notifications"), eq("U1"), any(NotificationEvent.class));
+        verify(kafkaTemplate).send(any(), eq("U1"), any(NotificationEvent.class));
     }
 
     @Test
-    void getNotifications_delegates() {
+    void getNotifications_returnsBodyWithETag() {
         List<Notification> list = List.of(new Notification());
         when(notificationService.getNotifications("U1")).thenReturn(list);
-        assertEquals(list, controller.getNotifications("U1"));
+        ResponseEntity<List<Notification>> res = controller.getNotifications("U1", auth, get(null));
+        assertEquals(HttpStatus.OK, res.getStatusCode());
+        assertEquals(list, res.getBody());
+        assertEquals(versions.etag("U1"), res.getHeaders().getETag());
+    }
+
+    @Test
+    void getNotifications_answers304WhenTheTagMatches() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertNull(controller.getNotifications("U1", auth, new ServletWebRequest(request(versions.etag("U1")), response)));
+        assertEquals(304, response.getStatus());
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void getNotifications_issuesANewTagAfterAChange() {
+        String before = versions.etag("U1");
+        versions.changed("U1");
+        when(notificationService.getNotifications("U1")).thenReturn(List.of());
+        ResponseEntity<List<Notification>> res = controller.getNotifications("U1", auth, get(before));
+        assertEquals(HttpStatus.OK, res.getStatusCode());
+        assertNotEquals(before, res.getHeaders().getETag());
+        assertEquals(versions.etag("U1"), res.getHeaders().getETag());
+    }
+
+    @Test
+    void getNotifications_rejectsOtherUsers() {
+        assertThrows(AccessDeniedException.class, () -> controller.getNotifications("U2", auth, get(null)));
+        verifyNoInteractions(notificationService);
     }
 
     @Test
@@ -52,5 +92,14 @@ class NotificationControllerTest {
         controller.deleteNotification(5L);
         verify(notificationService).deleteNotification(5L);
     }
-}
 
+    private static ServletWebRequest get(String ifNoneMatch) {
+        return new ServletWebRequest(request(ifNoneMatch), new MockHttpServletResponse());
+    }
+
+    private static MockHttpServletRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/notifications/U1");
+        if (ifNoneMatch != null) request.addHeader("If-None-Match", ifNoneMatch);
+        return request;
+    }
+}
@@ -9,6 +9,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 
 import java.util.List;
 
@@ -22,6 +24,7 @@ class VehicleControllerTest {
     private VehicleService vehicleService;
 
     private VehicleController controller;
+    private final Authentication auth = new UsernamePasswordAuthenticationToken("E1", null);
 
     @BeforeEach
     void setup() {
@@ -32,15 +35,15 @@ class VehicleControllerTest {
     void submitOrUpdate_delegates() {
         VehicleRequest req = new VehicleRequest();
         VehicleResponse res = VehicleResponse.builder().empId("E1").build();
-        when(vehicleService.submitOrUpdate(req)).thenReturn(res);
-        assertEquals(res, controller.submitOrUpdate(req));
+        when(vehicleService.submitOrUpdate(req, "E1")).thenReturn(res);
+        assertEquals(res, controller.submitOrUpdate(req, auth));
     }
 
     @Test
     void myVehicle_delegates() {
         VehicleResponse res = VehicleResponse.builder().empId("E1").build();
-        when(vehicleService.myVehicle()).thenReturn(res);
-        assertEquals(res, controller.myVehicle());
+        when(vehicleService.myVehicle("E1")).thenReturn(res);
+        assertEquals(res, controller.myVehicle(auth));
     }
 
     @Test
@@ -2,6 +2,7 @@ package com.orangemantra.employeeservice.service;
 
 import com.orangemantra.employeeservice.dto.RouteRequest;
 import com.orangemantra.employeeservice.exception.EmployeeNotFoundException;
+import com.orangemantra.employeeservice.messaging.DirectoryChangePublisher;
 import com.orangemantra.employeeservice.model.Employee;
 import com.orangemantra.employeeservice.repository.EmployeeRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -28,6 +29,9 @@ class EmployeeServiceTest {
     @Mock
     private EmployeeRepository repository;
 
+    @Mock
+    private DirectoryChangePublisher directoryChanges;
+
     private EmployeeService service;
 
     @Mock
@@ -35,7 +39,7 @@ class EmployeeServiceTest {
 
     @BeforeEach
     void setUp() {
-        service = new EmployeeService(repository);
+        service = new EmployeeService(repository, directoryChanges);
         // Replace internal RestTemplate with a mock to avoid real HTTP calls
         ReflectionTestUtils.setField(service, "restTemplate", restTemplate);
     }
@@ -97,6 +101,7 @@ class EmployeeServiceTest {
         when(repository.findAllByEmpId("E404")).thenReturn(List.of());
         assertThrows(EmployeeNotFoundException.class, () -> service.deleteEmployee("E404"));
         verify(repository, never()).deleteAll(anyList());
+        verifyNoInteractions(directoryChanges);
     }
 
     @Test
@@ -111,6 +116,7 @@ class EmployeeServiceTest {
         service.deleteEmployee(empId);
 
         verify(repository).deleteAll(matches);
+        verify(directoryChanges).employeeDeleted(empId);
     }
 
     @Test
@@ -141,8 +147,9 @@ class EmployeeServiceTest {
         assertEquals("Loc2", result.getOfficeLocation());
         assertEquals("bio2", result.getBio());
 
-        // No external call when name unchanged
+        // No external call when name unchanged, but ride-service caches are still told about the new phone
         verify(restTemplate, never()).put(anyString(), any());
+        verify(directoryChanges).employeeChanged(result);
     }
 
     @Test
@@ -175,4 +182,24 @@ class EmployeeServiceTest {
         assertEquals(MediaType.APPLICATION_JSON, sent.getHeaders().getContentType());
         assertEquals("{\"name\":\"Bob\"}", sent.getBody());
     }
+
+    @Test
+    void getSummaries_dedupesAndKeepsSmallestIdPerEmpId() {
+        Employee newer = Employee.builder().id(5L).empId("E1").name("Dup").phone("9").build();
+        Employee older = Employee.builder().id(1L).empId("E1").name("Alice").email("a@x").phone("1").build();
+        Employee other = Employee.builder().id(2L).empId("E2").name("Bob").build();
+        when(repository.findAllByEmpIdIn(List.of("E1", "E2", "E404"))).thenReturn(List.of(newer, other, older));
+
+        var result = service.getSummaries(List.of("E1", "E2", "E1", "E404"));
+
+        assertEquals(2, result.size());
+        assertEquals("Alice", result.stream().filter(s -> s.getEmpId().equals("E1")).findFirst().orElseThrow().getName());
+        assertTrue(result.stream().noneMatch(s -> s.getEmpId().equals("E404")));
+    }
+
+    @Test
+    void getSummaries_emptyInputSkipsRepository() {
+        assertTrue(service.getSummaries(List.of()).isEmpty());
+        verify(repository, never()).findAllByEmpIdIn(any());
+    }
 }
@@ -1,5 +1,6 @@
 package com.orangemantra.employeeservice.service;
 
+import com.orangemantra.employeeservice.messaging.NotificationChangePublisher;
 import com.orangemantra.employeeservice.model.Notification;
 import com.orangemantra.employeeservice.repository.NotificationRepository;
 import org.junit.jupiter.api.Test;
@@ -20,6 +21,12 @@ class NotificationServiceTest {
     @Mock
     private NotificationRepository repository;
 
+    @Mock
+    private NotificationVersions versions;
+
+    @Mock
+    private NotificationChangePublisher changes;
+
     @InjectMocks
     private NotificationService service;
 
@@ -34,6 +41,8 @@ class NotificationServiceTest {
         Notification n = captor.getValue();
         assertEquals("U1", n.getUserId());
         assertEquals("hello", n.getMessage());
+        verify(versions).changed("U1");
+        verify(changes).notificationsChanged("U1");
     }
 
     @Test
@@ -46,8 +55,12 @@ class NotificationServiceTest {
 
     @Test
     void deleteNotification_callsRepository() {
+        Notification n = new Notification();
+        n.setUserId("U3");
+        when(repository.findById(5L)).thenReturn(java.util.Optional.of(n));
         service.deleteNotification(5L);
         verify(repository).deleteById(5L);
+        verify(versions).changed("U3");
     }
 }
 
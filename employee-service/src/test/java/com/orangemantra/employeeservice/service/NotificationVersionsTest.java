@@ -0,0 +1,28 @@
+package com.orangemantra.employeeservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotificationVersionsTest {
+
+    private final NotificationVersions versions = new NotificationVersions();
+
+    @Test
+    void etagMovesOnlyForTheChangedUser() {
+        String u1 = versions.etag("U1"), u2 = versions.etag("U2");
+        assertTrue(u1.startsWith("W/\""));
+        assertNotEquals(u1, u2);
+
+        versions.changed("U1");
+        assertNotEquals(u1, versions.etag("U1"));
+        assertEquals(u2, versions.etag("U2"));
+        versions.changed(null); // deleting an unknown notification
+        assertEquals(u2, versions.etag("U2"));
+    }
+
+    @Test
+    void etagsAreNotSharedAcrossInstances() {
+        assertNotEquals(versions.etag("U1"), new NotificationVersions().etag("U1"));
+    }
+}
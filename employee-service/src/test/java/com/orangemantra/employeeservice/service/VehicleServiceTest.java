@@ -3,6 +3,7 @@ package com.orangemantra.employeeservice.service;
 import com.orangemantra.employeeservice.dto.VehicleRequest;
 import com.orangemantra.employeeservice.dto.VehicleResponse;
 import com.orangemantra.employeeservice.dto.VehicleVerifyRequest;
+import com.orangemantra.employeeservice.messaging.DirectoryChangePublisher;
 import com.orangemantra.employeeservice.model.Vehicle;
 import com.orangemantra.employeeservice.repository.VehicleRepository;
 import org.junit.jupiter.api.AfterEach;
@@ -29,11 +30,14 @@ class VehicleServiceTest {
     @Mock
     private VehicleRepository vehicleRepository;
 
+    @Mock
+    private DirectoryChangePublisher directoryChanges;
+
     private VehicleService service;
 
     @BeforeEach
     void setUp() {
-        service = new VehicleService(vehicleRepository);
+        service = new VehicleService(vehicleRepository, directoryChanges);
     }
 
     @AfterEach
@@ -64,7 +68,7 @@ class VehicleServiceTest {
         req.setProofImageName("rc.png");
         req.setProofImageUrl("a".repeat(2_000_100));
 
-        VehicleResponse res = service.submitOrUpdate(req);
+        VehicleResponse res = service.submitOrUpdate(req, "E123");
 
         Vehicle saved = vehicleCaptor.getValue();
         assertEquals("E123", saved.getEmpId());
@@ -103,7 +107,7 @@ class VehicleServiceTest {
         req.setRegistrationNumber("MH12AB1234");
         req.setCapacity(4);
 
-        VehicleResponse res = service.submitOrUpdate(req);
+        VehicleResponse res = service.submitOrUpdate(req, "E1");
 
         assertEquals("PENDING", res.getStatus());
         // ensure the entity passed to save had verifiedAt cleared
@@ -120,12 +124,12 @@ class VehicleServiceTest {
         Vehicle v = Vehicle.builder().id(1L).empId("E9").make("T").model("3").status("PENDING").build();
         when(vehicleRepository.findByEmpId("E9")).thenReturn(Optional.of(v));
 
-        VehicleResponse ok = service.myVehicle();
+        VehicleResponse ok = service.myVehicle("E9");
         assertEquals("E9", ok.getEmpId());
 
         setAuth("E10");
         when(vehicleRepository.findByEmpId("E10")).thenReturn(Optional.empty());
-        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.myVehicle());
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> service.myVehicle("E10"));
         assertEquals(404, ex.getStatusCode().value());
     }
 
@@ -151,7 +155,7 @@ class VehicleServiceTest {
 
     @Test
     void verify_approve_setsVerifiedAtAndClearsReason() {
-        Vehicle v = Vehicle.builder().id(5L).status("PENDING").rejectionReason("bad").build();
+        Vehicle v = Vehicle.builder().id(5L).empId("E5").status("PENDING").rejectionReason("bad").build();
         when(vehicleRepository.findById(5L)).thenReturn(Optional.of(v));
         when(vehicleRepository.save(any(Vehicle.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
@@ -164,6 +168,7 @@ class VehicleServiceTest {
         verify(vehicleRepository).save(captor.capture());
         assertNull(captor.getValue().getRejectionReason());
         assertNotNull(captor.getValue().getVerifiedAt());
+        verify(directoryChanges).vehicleChanged("E5");
     }
 
     @Test
@@ -1,20 +1,16 @@
 package com.orangemantra.rideservice.config;
 
-import com.github.benmanes.caffeine.cache.Caffeine;
-import org.springframework.cache.CacheManager;
-import org.springframework.cache.caffeine.CaffeineCacheManager;
-import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
-import java.time.Duration;
-
 @Configuration
-@EnableCaching
 @EnableAsync
+@EnableScheduling
 public class AppConfig {
 
     @Bean
@@ -23,13 +19,15 @@ public class AppConfig {
         return new RestTemplate();
     }
 
+    /** Loads and refreshes the employee/vehicle caches off the request threads. */
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager mgr = new CaffeineCacheManager("employeeProfile", "vehicleInfo");
-        mgr.setCaffeine(Caffeine.newBuilder()
-                .maximumSize(5_000)
-                .expireAfterWrite(Duration.ofMinutes(10))
-                .recordStats());
-        return mgr;
+    public ThreadPoolTaskExecutor directoryExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(1_000);
+        executor.setThreadNamePrefix("directory-");
+        executor.initialize();
+        return executor;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package com.orangemantra.rideservice.config;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Builds chat_conversation from the chat_messages written before the summary table existed.
+ * <p>
+ * Runs before the replica takes traffic and is recorded in schema_migration, so it happens once. The previous
+ * release writes chat_messages without touching chat_conversation, so messages it sent after this pass would never
+ * be counted: the release is deployed stop-then-start, and the pass waits until none of its replicas is registered.
+ * chat_messages is the source of truth: a pair that already has a summary row gets the recomputed counters and last
+ * message (a merge), it is never skipped. Pairs are ordered in Java, exactly like ChatService; the last message's
+ * content is copied as stored (already encrypted).
+ */
+@Slf4j
+@Component
+public class ChatConversationMigration implements SchemaMigration {
+    private static final int BATCH = 200;
+
+    @Override
+    public String version() {
+        return "0003";
+    }
+
+    @Override
+    public String description() {
+        return "build chat_conversation summaries from chat_messages";
+    }
+
+    @Override
+    public boolean requiresPreviousReleaseStopped() {
+        return true;
+    }
+
+    private static final class Summary {
+        long unreadA, unreadB, lastId;
+        Timestamp lastTs;
+        String lastContent;
+    }
+
+    @Override
+    public void apply(JdbcTemplate jdbc) {
+        int inserted = 0, merged = 0;
+        long after = Long.MIN_VALUE;
+        while (true) {
+            List<Long> rides = jdbc.queryForList("SELECT DISTINCT ride_id FROM chat_messages WHERE ride_id > ? ORDER BY ride_id LIMIT " + BATCH, Long.class, after);
+            if (rides.isEmpty()) break;
+            long lo = rides.get(0), hi = rides.get(rides.size() - 1);
+            after = hi;
+
+            Map<List<Object>, Summary> pairs = new LinkedHashMap<>();
+            jdbc.query("SELECT ride_id, from_emp_id, to_emp_id, SUM(CASE WHEN read_flag = FALSE THEN 1 ELSE 0 END) "
+                    + "FROM chat_messages WHERE ride_id BETWEEN ? AND ? AND from_emp_id IS NOT NULL AND to_emp_id IS NOT NULL "
+                    + "GROUP BY ride_id, from_emp_id, to_emp_id", rs -> {
+                String from = rs.getString(2), to = rs.getString(3);
+                Summary s = pairs.computeIfAbsent(key(rs.getLong(1), from, to), k -> new Summary());
+                // unread counts belong to the recipient
+                if (to.compareTo(from) <= 0) s.unreadA += rs.getLong(4); else s.unreadB += rs.getLong(4);
+            }, lo, hi);
+            jdbc.query("SELECT ride_id, from_emp_id, to_emp_id, id, ts, content FROM chat_messages WHERE id IN ("
+                    + "SELECT MAX(id) FROM chat_messages WHERE ride_id BETWEEN ? AND ? AND from_emp_id IS NOT NULL AND to_emp_id IS NOT NULL "
+                    + "GROUP BY ride_id, from_emp_id, to_emp_id)", rs -> {
+                Summary s = pairs.get(key(rs.getLong(1), rs.getString(2), rs.getString(3)));
+                if (s != null && rs.getLong(4) > s.lastId) {
+                    s.lastId = rs.getLong(4);
+                    s.lastTs = rs.getTimestamp(5);
+                    s.lastContent = rs.getString(6);
+                }
+            }, lo, hi);
+
+            List<Object[]> updates = new ArrayList<>(pairs.size());
+            pairs.forEach((k, s) -> updates.add(new Object[]{s.unreadA, s.unreadB, s.lastId, s.lastTs, s.lastContent, k.get(0), k.get(1), k.get(2)}));
+            int[] counts = jdbc.batchUpdate("UPDATE chat_conversation SET unread_a = ?, unread_b = ?, last_message_id = ?, last_ts = ?, last_preview = ? "
+                    + "WHERE ride_id = ? AND participant_a = ? AND participant_b = ?", updates);
+            List<Object[]> inserts = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) { merged++; continue; }
+                Object[] u = updates.get(i);
+                inserts.add(new Object[]{u[5], u[6], u[7], u[0], u[1], u[2], u[3], u[4]});
+            }
+            if (!inserts.isEmpty()) {
+                jdbc.batchUpdate("INSERT INTO chat_conversation (ride_id, participant_a, participant_b, unread_a, unread_b, last_message_id, last_ts, last_preview) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", inserts);
+                inserted += inserts.size();
+            }
+        }
+        log.info("Chat conversation summaries: {} created, {} merged", inserted, merged);
+    }
+
+    /** The pair as ChatService stores it: lesser empId first. */
+    private static List<Object> key(long rideId, String x, String y) {
+        return x.compareTo(y) <= 0 ? List.of(rideId, x, y) : List.of(rideId, y, x);
+    }
+}
@@ -0,0 +1,47 @@
+package com.orangemantra.rideservice.config;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ride.db.pool.utilization: share of the connection pool checked out right now (0..1). Spring Boot already publishes
+ * the raw hikaricp.connections.* meters; this one is the number to alert on, since with open-session-in-view off a
+ * connection should only be out for the length of a query or a short transaction.
+ */
+@Slf4j
+@Component
+public class ConnectionPoolMetrics {
+
+    public ConnectionPoolMetrics(DataSource dataSource, MeterRegistry meterRegistry) {
+        HikariDataSource hikari;
+        try {
+            hikari = dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            hikari = null;
+        }
+        if (hikari == null) {
+            log.info("DataSource is not a Hikari pool; ride.db.pool.utilization not registered");
+            return;
+        }
+        Gauge.builder("ride.db.pool.utilization", hikari, ConnectionPoolMetrics::utilization)
+                .description("Active connections / maximum pool size")
+                .register(meterRegistry);
+    }
+
+    static double utilization(HikariDataSource hikari) {
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean(); // null until the pool has started
+        int max = hikari.getMaximumPoolSize();
+        if (pool == null || max <= 0) return 0;
+        return (double) pool.getActiveConnections() / max;
+    }
+}
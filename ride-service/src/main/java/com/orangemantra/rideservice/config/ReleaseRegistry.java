@@ -0,0 +1,56 @@
+package com.orangemantra.rideservice.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.stereotype.Component;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+
+/**
+ * The schema version of each ride-service replica, as Eureka instance metadata: this replica publishes the newest
+ * migration it knows, and {@link SchemaMigrator} asks which other replicas are still registered on an older one.
+ * Releases from before the version was published carry none and count as older than every migration.
+ */
+@Component
+public class ReleaseRegistry {
+    static final String SCHEMA_VERSION = "schema-version";
+
+    private final String serviceId;
+    private final ObjectProvider<DiscoveryClient> discovery;
+    private final ObjectProvider<ApplicationInfoManager> eureka;
+
+    public ReleaseRegistry(@Value("${spring.application.name}") String serviceId,
+                           ObjectProvider<DiscoveryClient> discovery,
+                           ObjectProvider<ApplicationInfoManager> eureka) {
+        this.serviceId = serviceId;
+        this.discovery = discovery;
+        this.eureka = eureka;
+    }
+
+    /** Sent with this replica's registration, which happens after the context has started. */
+    public void publish(String schemaVersion) {
+        ApplicationInfoManager info = eureka.getIfAvailable();
+        if (info != null) info.registerAppMetadata(Map.of(SCHEMA_VERSION, schemaVersion));
+    }
+
+    /** Instance ids of the other registered replicas whose schema version is below {@code version}. */
+    public List<String> replicasBelow(String version) {
+        DiscoveryClient client = discovery.getIfAvailable();
+        if (client == null) return List.of();
+        ApplicationInfoManager info = eureka.getIfAvailable();
+        String self = info == null ? null : info.getInfo().getInstanceId();
+        List<String> older = new ArrayList<>();
+        for (ServiceInstance instance : client.getInstances(serviceId)) {
+            if (instance.getInstanceId() != null && instance.getInstanceId().equals(self)) continue; // an earlier run of this replica
+            String v = instance.getMetadata().get(SCHEMA_VERSION);
+            if (v == null || v.compareTo(version) < 0) older.add(instance.getInstanceId());
+        }
+        return older;
+    }
+}
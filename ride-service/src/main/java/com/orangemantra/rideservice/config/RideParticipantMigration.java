@@ -0,0 +1,59 @@
+package com.orangemantra.rideservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copies the old element-collection tables (ride_joined_emp_ids, ride_joined_seats, ride_pending_emp_ids) into
+ * ride_participant.
+ * <p>
+ * The previous release writes joins and leaves only to the legacy tables while sharing ride.available_seats with
+ * this one, so the two cannot run side by side: a join there would hold seats with no participant row here, a leave
+ * there would keep a passenger whose seat was already returned. This release is therefore deployed stop-then-start;
+ * the copy waits until no replica of the previous release is registered and then sees every write it made. The
+ * legacy tables are left in place (no longer written) and are dropped by a later release.
+ */
+@Slf4j
+@Component
+public class RideParticipantMigration implements SchemaMigration {
+    private static final String LEGACY_JOINED = "ride_joined_emp_ids";
+    private static final String LEGACY_SEATS = "ride_joined_seats";
+    private static final String LEGACY_PENDING = "ride_pending_emp_ids";
+
+    @Override
+    public String version() {
+        return "0001";
+    }
+
+    @Override
+    public String description() {
+        return "copy legacy ride passenger collections into ride_participant";
+    }
+
+    @Override
+    public boolean requiresPreviousReleaseStopped() {
+        return true;
+    }
+
+    @Override
+    public void apply(JdbcTemplate jdbc) {
+        int joined = 0, pending = 0;
+        if (SchemaMigrator.tableExists(jdbc, LEGACY_JOINED)) {
+            boolean seats = SchemaMigrator.tableExists(jdbc, LEGACY_SEATS);
+            joined = jdbc.update("INSERT INTO ride_participant (ride_id, emp_id, seats, state, created_at) "
+                    + "SELECT DISTINCT j.ride_id, j.joined_emp_ids, " + (seats ? "COALESCE(s.seats, 1)" : "1") + ", 'JOINED', COALESCE(r.updated_at, CURRENT_TIMESTAMP) "
+                    + "FROM " + LEGACY_JOINED + " j JOIN ride r ON r.id = j.ride_id "
+                    + (seats ? "LEFT JOIN " + LEGACY_SEATS + " s ON s.ride_id = j.ride_id AND s.emp_id = j.joined_emp_ids " : "")
+                    + "WHERE j.joined_emp_ids IS NOT NULL AND NOT EXISTS "
+                    + "(SELECT 1 FROM ride_participant p WHERE p.ride_id = j.ride_id AND p.emp_id = j.joined_emp_ids)");
+        }
+        if (SchemaMigrator.tableExists(jdbc, LEGACY_PENDING)) {
+            pending = jdbc.update("INSERT INTO ride_participant (ride_id, emp_id, seats, state, created_at) "
+                    + "SELECT DISTINCT p.ride_id, p.pending_emp_ids, 1, 'PENDING', COALESCE(r.updated_at, CURRENT_TIMESTAMP) "
+                    + "FROM " + LEGACY_PENDING + " p JOIN ride r ON r.id = p.ride_id WHERE p.pending_emp_ids IS NOT NULL "
+                    + "AND NOT EXISTS (SELECT 1 FROM ride_participant x WHERE x.ride_id = p.ride_id AND x.emp_id = p.pending_emp_ids)");
+        }
+        log.info("Copied ride participants: {} joined, {} pending", joined, pending);
+    }
+}
@@ -0,0 +1,75 @@
+package com.orangemantra.rideservice.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.orangemantra.rideservice.service.RouteGeometryService;
+import com.orangemantra.rideservice.util.RoutePolyline;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Copies the old ride.route_geometry text column into ride_route, re-encoded, for rides that have no ride_route
+ * row yet.
+ * <p>
+ * The column is kept: the previous release still maps it, and geometries that cannot be decoded are not copied
+ * and stay there. Their ride ids are logged next to the read/copied counts. Dropping the column is a later
+ * migration in a later release, after a copy pass that also picks up rides the old release wrote in the meantime.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RouteGeometryMigration implements SchemaMigration {
+    private static final int BATCH = 500;
+
+    private final RouteGeometryService routeGeometry;
+    private final EntityManager em;
+
+    @Override
+    public String version() {
+        return "0002";
+    }
+
+    @Override
+    public String description() {
+        return "copy ride.route_geometry into ride_route";
+    }
+
+    @Override
+    public void apply(JdbcTemplate jdbc) {
+        if (!SchemaMigrator.columnExists(jdbc, "ride", "route_geometry")) return;
+        long lastId = 0;
+        int read = 0, copied = 0;
+        List<Long> unreadable = new ArrayList<>();
+        while (true) {
+            List<Map<String, Object>> rows = jdbc.queryForList("SELECT r.id, r.route_geometry FROM ride r WHERE r.id > ? "
+                    + "AND r.route_geometry IS NOT NULL AND NOT EXISTS (SELECT 1 FROM ride_route rr WHERE rr.ride_id = r.id) "
+                    + "ORDER BY r.id LIMIT " + BATCH, lastId);
+            if (rows.isEmpty()) break;
+            for (Map<String, Object> row : rows) {
+                lastId = ((Number) row.get("id")).longValue();
+                String geometry = (String) row.get("route_geometry");
+                read++;
+                // store() treats an unreadable route as "no route"; here it must not count as copied
+                if (RoutePolyline.decode(geometry).length < 4) {
+                    unreadable.add(lastId);
+                    continue;
+                }
+                routeGeometry.store(lastId, geometry);
+                copied++;
+            }
+            em.flush();
+            em.clear();
+        }
+        log.info("Route geometries: {} read, {} copied to ride_route", read, copied);
+        if (!unreadable.isEmpty()) {
+            log.warn("{} route geometries could not be decoded and were left in ride.route_geometry, ride ids {}", unreadable.size(), unreadable);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.orangemantra.rideservice.config;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * One run-once change to existing data or schema, applied by {@link SchemaMigrator} before the app serves traffic.
+ * Hibernate's schema update has already created new tables and columns; a migration moves data into them.
+ * Migrations must not break the previous release, which may still be running beside this one: they copy, they
+ * never drop or rename what the old code reads. Removing the old structures is a later migration in a later release.
+ * A copy of data the previous release keeps writing is only complete once that release is gone: such a migration
+ * says so with {@link #requiresPreviousReleaseStopped()}, and its release is deployed stop-then-start.
+ */
+public interface SchemaMigration {
+
+    /** Applied in ascending order; never change a released one. */
+    String version();
+
+    String description();
+
+    /** Runs in a transaction; throwing fails startup and leaves the version unrecorded for the next attempt. */
+    void apply(JdbcTemplate jdbc);
+
+    /**
+     * True when the previous release writes the data this migration copies, so a copy taken while one of its
+     * replicas is still up would miss those writes. The migrator then waits until no such replica is registered.
+     */
+    default boolean requiresPreviousReleaseStopped() {
+        return false;
+    }
+}
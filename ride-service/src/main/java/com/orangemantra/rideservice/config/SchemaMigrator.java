@@ -0,0 +1,126 @@
+package com.orangemantra.rideservice.config;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.orangemantra.rideservice.service.SchedulerLeaseService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies pending {@link SchemaMigration}s while the context starts, i.e. before the web server opens and before the
+ * instance registers with Eureka, so no request ever sees a half-migrated database. Applied versions are recorded in
+ * schema_migration. One replica migrates at a time (scheduler lease); the others wait until the versions they know
+ * are recorded. A pending migration that needs the previous release stopped first is held until no replica on an
+ * older schema is registered. Any failure, or waiting longer than MAX_WAIT, fails startup.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory") // Hibernate's schema update runs first, so the target tables exist
+@RequiredArgsConstructor
+public class SchemaMigrator implements InitializingBean {
+    private static final String LEASE = "schema-migration";
+    private static final Duration LEASE_TTL = Duration.ofMinutes(10);
+    private static final Duration MAX_WAIT = Duration.ofMinutes(15);
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final SchedulerLeaseService leases;
+    private final List<SchemaMigration> migrations;
+    private final ReleaseRegistry releases;
+
+    @Override
+    public void afterPropertiesSet() throws InterruptedException {
+        if (migrations.isEmpty()) return;
+        jdbc.execute("CREATE TABLE IF NOT EXISTS schema_migration (version VARCHAR(64) NOT NULL PRIMARY KEY, "
+                + "description VARCHAR(255), applied_at TIMESTAMP NOT NULL)");
+        Instant deadline = Instant.now().plus(MAX_WAIT);
+        awaitPreviousReleaseStopped(deadline);
+        while (!pending().isEmpty()) {
+            if (leases.tryAcquire(LEASE, LEASE_TTL)) {
+                for (SchemaMigration m : pending()) apply(m);
+                break;
+            }
+            if (Instant.now().isAfter(deadline)) throw new IllegalStateException("Timed out waiting for another replica to migrate the schema");
+            Thread.sleep(1000);
+        }
+        releases.publish(migrations.stream().map(SchemaMigration::version).max(Comparator.naturalOrder()).orElseThrow());
+    }
+
+    // Waits outside the lease, so a replica blocked here never holds up one that could migrate
+    private void awaitPreviousReleaseStopped(Instant deadline) throws InterruptedException {
+        String required = pending().stream().filter(SchemaMigration::requiresPreviousReleaseStopped)
+                .map(SchemaMigration::version).max(Comparator.naturalOrder()).orElse(null);
+        if (required == null) return;
+        boolean logged = false;
+        while (true) {
+            List<String> older = releases.replicasBelow(required);
+            if (older.isEmpty()) return;
+            if (Instant.now().isAfter(deadline)) {
+                throw new IllegalStateException("Schema migration " + required + " needs the previous release stopped first; still registered: " + older);
+            }
+            if (!logged) {
+                log.warn("Schema migration {} waits for replicas of the previous release to stop: {}", required, older);
+                logged = true;
+            }
+            Thread.sleep(1000);
+        }
+    }
+
+    private List<SchemaMigration> pending() {
+        Set<String> applied = new HashSet<>(jdbc.queryForList("SELECT version FROM schema_migration", String.class));
+        return migrations.stream().filter(m -> !applied.contains(m.version()))
+                .sorted(Comparator.comparing(SchemaMigration::version)).toList();
+    }
+
+    private void apply(SchemaMigration m) {
+        log.info("Applying schema migration {}: {}", m.version(), m.description());
+        try {
+            tx.executeWithoutResult(status -> {
+                m.apply(jdbc);
+                jdbc.update("INSERT INTO schema_migration (version, description, applied_at) VALUES (?, ?, CURRENT_TIMESTAMP)",
+                        m.version(), m.description());
+            });
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Schema migration " + m.version() + " failed", e);
+        }
+    }
+
+    static boolean tableExists(JdbcTemplate jdbc, String table) {
+        return Boolean.TRUE.equals(jdbc.execute((ConnectionCallback<Boolean>) con -> {
+            DatabaseMetaData meta = con.getMetaData();
+            for (String name : new String[]{table, table.toUpperCase()}) {
+                try (ResultSet rs = meta.getTables(con.getCatalog(), null, name, new String[]{"TABLE"})) {
+                    if (rs.next()) return true;
+                }
+            }
+            return false;
+        }));
+    }
+
+    static boolean columnExists(JdbcTemplate jdbc, String table, String column) {
+        return Boolean.TRUE.equals(jdbc.execute((ConnectionCallback<Boolean>) con -> {
+            DatabaseMetaData meta = con.getMetaData();
+            for (String[] name : new String[][]{{table, column}, {table.toUpperCase(), column.toUpperCase()}}) {
+                try (ResultSet rs = meta.getColumns(con.getCatalog(), null, name[0], name[1])) {
+                    if (rs.next()) return true;
+                }
+            }
+            return false;
+        }));
+    }
+}
@@ -1,18 +1,41 @@
 package com.orangemantra.rideservice.controller;
 
 import com.orangemantra.rideservice.model.Location;
-import com.orangemantra.rideservice.repository.LocationRepository;
+import com.orangemantra.rideservice.routing.RoadRouter;
+import com.orangemantra.rideservice.routing.RoutingEngine;
+import com.orangemantra.rideservice.service.LocationCatalog;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequiredArgsConstructor
 public class LocationController {
-    private final LocationRepository locationRepository;
+    private final LocationCatalog locationCatalog;
+    private final RoutingEngine routingEngine;
 
+    // Revalidated with If-None-Match; the list rarely changes, so most loads end in a 304
     @GetMapping("/locations")
-    public List<Location> getAllLocations() {
-        return locationRepository.findAll();
+    public ResponseEntity<List<Location>> getAllLocations(WebRequest request) {
+        LocationCatalog.Snapshot catalog = locationCatalog.get();
+        if (request.checkNotModified(catalog.etag())) return null;
+        return ResponseEntity.ok().eTag(catalog.etag()).cacheControl(CacheControl.noCache()).body(catalog.locations());
+    }
+
+    // Driving distance/ETA from the offline road graph
+    @GetMapping("/locations/route")
+    public Map<String, Integer> route(@RequestParam("fromLat") double fromLat, @RequestParam("fromLng") double fromLng,
+                                      @RequestParam("toLat") double toLat, @RequestParam("toLng") double toLng) {
+        if (!routingEngine.isAvailable()) throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Routing is not configured");
+        RoadRouter.Leg leg = routingEngine.estimate(fromLat, fromLng, toLat, toLng)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No road route between these points"));
+        return Map.of("distanceMeters", leg.meters(), "durationSeconds", leg.seconds());
     }
 }
@@ -0,0 +1,35 @@
+package com.orangemantra.rideservice.controller;
+
+import com.orangemantra.rideservice.dto.RideAlertDtos;
+import com.orangemantra.rideservice.service.RideAlertService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Saved commutes; RideService.offerRide notifies their owners when a matching ride is published
+@RestController
+@RequestMapping("/ride/alerts")
+@RequiredArgsConstructor
+public class RideAlertController {
+    private final RideAlertService alertService;
+
+    @PostMapping
+    public RideAlertDtos.AlertDTO create(@RequestBody RideAlertDtos.CreateRequest req) {
+        String me = SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
+        return alertService.create(me, req);
+    }
+
+    @GetMapping
+    public List<RideAlertDtos.AlertDTO> mine() {
+        String me = SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
+        return alertService.list(me);
+    }
+
+    @DeleteMapping("/{id}")
+    public void delete(@PathVariable("id") Long id) {
+        String me = SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
+        alertService.delete(me, id);
+    }
+}
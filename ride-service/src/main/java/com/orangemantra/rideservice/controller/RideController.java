@@ -3,7 +3,10 @@ package com.orangemantra.rideservice.controller;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Supplier;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -15,13 +18,24 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.orangemantra.rideservice.dto.JoinRequest;
+import com.orangemantra.rideservice.dto.NearbyQuery;
 import com.orangemantra.rideservice.dto.OfferRideRequest;
+import com.orangemantra.rideservice.dto.RideChangesDTO;
+import com.orangemantra.rideservice.dto.RideDetailDTO;
 import com.orangemantra.rideservice.dto.RideResponseDTO;
+import com.orangemantra.rideservice.dto.RideRouteDTO;
+import com.orangemantra.rideservice.dto.RideSearchFilter;
 import com.orangemantra.rideservice.model.Ride;
 import com.orangemantra.rideservice.service.NotificationService;
+import com.orangemantra.rideservice.service.ResponseETags;
+import com.orangemantra.rideservice.service.RideAvailabilityPublisher;
+import com.orangemantra.rideservice.service.RideChangeFeed;
 import com.orangemantra.rideservice.service.RideService;
+import com.orangemantra.rideservice.util.GeoUtils;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -33,6 +47,14 @@ public class RideController {
 
     private final RideService rideService;
     private final NotificationService notificationService;
+    private final ResponseETags etags;
+    private final RideChangeFeed changeFeed;
+    private static final int MAX_NEARBY_RADIUS_METERS = 50_000;
+    private static final int MAX_CORRIDOR_METERS = 5_000;
+    private static final int MAX_ZOOM = 22;
+    private static final int MAX_CHANGES = 1000;
+    private static final String CHANGES_CURSOR_HEADER = "X-Ride-Changes-Cursor";
+    private static final String AVAILABILITY_TOPIC_HEADER = "X-Ride-Availability-Topic";
 
     @GetMapping("/health")
     public java.util.Map<String,Object> health(){
@@ -52,7 +74,7 @@ public class RideController {
     }
 
     @PostMapping("/offer")
-    public Ride offerRide(@Valid @RequestBody OfferRideRequest request) {
+    public RideDetailDTO offerRide(@Valid @RequestBody OfferRideRequest request) {
         String empId = SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
 
         Ride ride = Ride.builder()
@@ -104,7 +126,7 @@ public class RideController {
     }
 
     @GetMapping("/search")
-    public List<Ride> getRidesByOriginDestination(
+    public List<RideDetailDTO> getRidesByOriginDestination(
             @RequestParam(name = "origin") String origin,
             @RequestParam(name = "destination") String destination) {
         return rideService.getRidesByOriginAndDestination(origin, destination);
@@ -113,15 +135,12 @@ public class RideController {
     @GetMapping("/all")
     public List<RideResponseDTO> allRides(@RequestParam(name = "page", defaultValue = "0") int page,
                                           @RequestParam(name = "size", defaultValue = "50") int size) {
-        rideService.expirePastRidesInternal();
-        List<RideResponseDTO> all = rideService.getAllRidesWithEmployeeDetails();
-        int from = Math.min(page * size, all.size());
-        int to = Math.min(from + size, all.size());
-        return all.subList(from, to);
+        return rideService.getAllRidesWithEmployeeDetails(page, size);
     }
 
     @GetMapping("/active")
-    public List<RideResponseDTO> activeRides(@RequestParam(name = "page", defaultValue = "0") int page,
+    public ResponseEntity<List<RideResponseDTO>> activeRides(WebRequest request,
+                                             @RequestParam(name = "page", defaultValue = "0") int page,
                                              @RequestParam(name = "size", defaultValue = "50") int size,
                                              @RequestParam(name = "origin", required = false) String origin,
                                              @RequestParam(name = "destination", required = false) String destination,
@@ -132,83 +151,133 @@ public class RideController {
                                              @RequestParam(name = "minFare", required = false) String minFare,
                                              @RequestParam(name = "maxFare", required = false) String maxFare,
                                              @RequestParam(name = "passengers", required = false) Integer passengers,
-                                             @RequestParam(name = "sort", required = false) String sort) {
-        rideService.expirePastRidesInternal();
-        List<RideResponseDTO> list = rideService.getActiveRidesWithEmployeeDetails();
-        // Filtering (in-memory for now)
+                                             @RequestParam(name = "sort", required = false) String sort,
+                                             @RequestParam(name = "mode", required = false) String mode,
+                                             @RequestParam(name = "pickupLat", required = false) Double pickupLat,
+                                             @RequestParam(name = "pickupLng", required = false) Double pickupLng,
+                                             @RequestParam(name = "dropLat", required = false) Double dropLat,
+                                             @RequestParam(name = "dropLng", required = false) Double dropLng,
+                                             @RequestParam(name = "corridorMeters", defaultValue = "1000") double corridorMeters) {
+        // Malformed optional filters are ignored (same leniency as before); filtering/sorting/paging run in SQL
         java.math.BigDecimal minF = null, maxF = null;
         try { if (minFare != null && !minFare.isBlank()) minF = new java.math.BigDecimal(minFare.trim()); } catch (Exception ignored) {}
         try { if (maxFare != null && !maxFare.isBlank()) maxF = new java.math.BigDecimal(maxFare.trim()); } catch (Exception ignored) {}
         java.time.LocalTime after = null, before = null;
         try { if (afterTime != null && !afterTime.isBlank()) after = java.time.LocalTime.parse(afterTime); } catch (Exception ignored) {}
         try { if (beforeTime != null && !beforeTime.isBlank()) before = java.time.LocalTime.parse(beforeTime); } catch (Exception ignored) {}
-        final java.time.LocalDate filterDate = (date != null && !date.isBlank()) ? java.time.LocalDate.parse(date) : null;
-        final int neededSeats = passengers != null && passengers > 0 ? passengers : 1;
-
-        BigDecimal finalMinF = minF;
-        BigDecimal finalMaxF = maxF;
-        java.time.LocalTime finalAfter = after;
-        java.time.LocalTime finalBefore = before;
-        list = list.stream().filter(r -> {
-            if (origin != null && !origin.isBlank() && !origin.equals(r.getOrigin())) return false;
-            if (destination != null && !destination.isBlank() && !destination.equals(r.getDestination())) return false;
-            if (filterDate != null && (r.getDate() == null || !filterDate.toString().equals(r.getDate()))) return false;
-            if (instant != null && instant != r.isInstantBookingEnabled()) return false;
-            if (r.getArrivalTime() != null) {
-                try {
-                    java.time.LocalTime t = java.time.LocalTime.parse(r.getArrivalTime());
-                    if (finalAfter != null && t.isBefore(finalAfter)) return false;
-                    if (finalBefore != null && t.isAfter(finalBefore)) return false;
-                } catch (Exception ignored) {}
+        RideSearchFilter filter = RideSearchFilter.builder()
+                .origin(origin)
+                .destination(destination)
+                .date((date != null && !date.isBlank()) ? LocalDate.parse(date) : null)
+                .instant(instant)
+                .after(after)
+                .before(before)
+                .minFare(minF)
+                .maxFare(maxF)
+                .passengers(passengers != null && passengers > 0 ? passengers : 1)
+                .sort(sort)
+                .build();
+        if ("route".equalsIgnoreCase(mode)) {
+            // Rides passing by the pickup (then the drop) along their route, whatever their origin string says
+            if (pickupLat == null || pickupLng == null || !GeoUtils.isValid(pickupLat, pickupLng)
+                    || (dropLat == null) != (dropLng == null) || (dropLat != null && !GeoUtils.isValid(dropLat, dropLng))) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "mode=route needs valid pickupLat/pickupLng and optionally dropLat/dropLng");
             }
-            if (r.getAvailableSeats() < neededSeats) return false;
-            if (r.getFare() != null) {
-                try {
-                    java.math.BigDecimal f = new java.math.BigDecimal(r.getFare());
-                    if (finalMinF != null && f.compareTo(finalMinF) < 0) return false;
-                    if (finalMaxF != null && f.compareTo(finalMaxF) > 0) return false;
-                } catch (Exception ignored) {}
-            } else {
-                // treat free rides as 0 for minFare filter
-                return finalMinF == null || finalMinF.compareTo(BigDecimal.ZERO) <= 0;
+            if (corridorMeters < 1 || corridorMeters > MAX_CORRIDOR_METERS) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "corridorMeters must be between 1 and " + MAX_CORRIDOR_METERS);
             }
-            return true;
-        }).toList();
+            filter.setPickupLat(pickupLat);
+            filter.setPickupLng(pickupLng);
+            filter.setDropLat(dropLat);
+            filter.setDropLng(dropLng);
+            filter.setCorridorMeters(corridorMeters);
+        }
+        String viewer = SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
+        String cursor = changeFeed.currentCursor(); // where /ride/active/changes picks up after this page
+        // live seat deltas for exactly this search; only origin + destination + date searches have a topic
+        String topic = origin == null || origin.isBlank() || destination == null || destination.isBlank() || filter.getDate() == null ? null
+                : RideAvailabilityPublisher.destination(origin, destination, filter.getDate());
+        return conditional(request, etags.activeRides(filter, viewer), cursor, topic, () -> rideService.searchActiveRides(filter, page, size));
+    }
 
-        if (sort != null) {
-            switch (sort) {
-                case "earliest" -> list = list.stream().sorted(java.util.Comparator.comparing(RideResponseDTO::getArrivalTime, java.util.Comparator.nullsLast(String::compareTo))).toList();
-                case "price" -> list = list.stream().sorted((a,b)->{
-                    java.math.BigDecimal af = a.getFare()==null? java.math.BigDecimal.ZERO : new java.math.BigDecimal(a.getFare());
-                    java.math.BigDecimal bf = b.getFare()==null? java.math.BigDecimal.ZERO : new java.math.BigDecimal(b.getFare());
-                    return af.compareTo(bf);
-                }).toList();
-                default -> {}
-            }
+    // Deltas since a cursor from /ride/active (X-Ride-Changes-Cursor) or from the previous call
+    @GetMapping("/active/changes")
+    public RideChangesDTO activeRideChanges(@RequestParam(name = "since", required = false) String since,
+                                            @RequestParam(name = "limit", defaultValue = "200") int limit) {
+        if (limit < 1 || limit > MAX_CHANGES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_CHANGES);
         }
-        int from = Math.min(page * size, list.size());
-        int to = Math.min(from + size, list.size());
-        return list.subList(from, to);
+        return rideService.activeRideChanges(since, limit);
+    }
+
+    @GetMapping("/nearby")
+    public List<RideResponseDTO> nearbyRides(@RequestParam(name = "lat") double lat,
+                                             @RequestParam(name = "lng") double lng,
+                                             @RequestParam(name = "radiusMeters", defaultValue = "2000") double radiusMeters,
+                                             @RequestParam(name = "destLat", required = false) Double destLat,
+                                             @RequestParam(name = "destLng", required = false) Double destLng,
+                                             @RequestParam(name = "destRadiusMeters", required = false) Double destRadiusMeters,
+                                             @RequestParam(name = "date", required = false) String date,
+                                             @RequestParam(name = "passengers", required = false) Integer passengers,
+                                             @RequestParam(name = "page", defaultValue = "0") int page,
+                                             @RequestParam(name = "size", defaultValue = "50") int size) {
+        if (!GeoUtils.isValid(lat, lng) || (destLat != null && destLng != null && !GeoUtils.isValid(destLat, destLng))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid coordinates");
+        }
+        if (!validRadius(radiusMeters) || (destRadiusMeters != null && !validRadius(destRadiusMeters))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Radius must be between 1 and " + MAX_NEARBY_RADIUS_METERS + " meters");
+        }
+        LocalDate day = null;
+        try { if (date != null && !date.isBlank()) day = LocalDate.parse(date); } catch (Exception ignored) {}
+        NearbyQuery query = NearbyQuery.builder()
+                .lat(lat).lng(lng).radiusMeters(radiusMeters)
+                .destLat(destLat).destLng(destLng).destRadiusMeters(destRadiusMeters)
+                .date(day)
+                .passengers(passengers != null && passengers > 0 ? passengers : 1)
+                .build();
+        return rideService.nearbyActiveRides(query, page, size);
+    }
+
+    private static boolean validRadius(double meters) {
+        return meters >= 1 && meters <= MAX_NEARBY_RADIUS_METERS;
     }
 
     @GetMapping("/my-rides")
-    public List<RideResponseDTO> myRides(@RequestParam(name = "page", defaultValue = "0") int page,
-                                         @RequestParam(name = "size", defaultValue = "50") int size) {
+    public ResponseEntity<List<RideResponseDTO>> myRides(WebRequest request,
+                                                         @RequestParam(name = "page", defaultValue = "0") int page,
+                                                         @RequestParam(name = "size", defaultValue = "50") int size) {
         String empId = SecurityContextHolder.getContext().getAuthentication().getPrincipal().toString();
-        rideService.expirePastRidesInternal();
-        List<RideResponseDTO> list = rideService.getRidesWithEmployeeDetailsByOwner(empId);
-        int from = Math.min(page * size, list.size());
-        int to = Math.min(from + size, list.size());
-        return list.subList(from, to);
+        return conditional(request, etags.myRides(empId), null, null, () -> rideService.getRidesWithEmployeeDetailsByOwner(empId, page, size));
+    }
+
+    // If-None-Match still matching: 304 without running the read. The tag is taken before the body is built, so a
+    // concurrent write can only make the body newer than its tag (costing one extra full response), never older.
+    // Cache-Control is set here so the default no-store from Spring Security does not stop clients from revalidating.
+    private static <T> ResponseEntity<T> conditional(WebRequest request, String etag, String changesCursor, String availabilityTopic, Supplier<T> body) {
+        if (etag != null && request.checkNotModified(etag)) return null;
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate());
+        if (etag != null) ok.eTag(etag);
+        if (changesCursor != null) ok.header(CHANGES_CURSOR_HEADER, changesCursor);
+        if (availabilityTopic != null) ok.header(AVAILABILITY_TOPIC_HEADER, availabilityTopic);
+        return ok.body(body.get());
     }
     @PutMapping("/edit/{id}")
-    public Ride updateRide(@PathVariable("id") Long id, @RequestBody Ride updatedRide) {
+    public RideDetailDTO updateRide(@PathVariable("id") Long id, @RequestBody Ride updatedRide) {
         return rideService.updateRide(id, updatedRide);
     }
     @GetMapping("/edit/{id}")
-    public Ride getRideById(@PathVariable("id") Long id) {
-        return rideService.getRideById(id);
+    public RideDetailDTO getRideById(@PathVariable("id") Long id) {
+        return rideService.getRideForEdit(id);
+
+    }
 
+    // Route simplified for a web-map zoom level (0-22); full resolution without one
+    @GetMapping("/{id}/route")
+    public RideRouteDTO getRoute(@PathVariable("id") Long id, @RequestParam(name = "zoom", required = false) Integer zoom) {
+        if (zoom != null && (zoom < 0 || zoom > MAX_ZOOM)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "zoom must be between 0 and " + MAX_ZOOM);
+        }
+        return rideService.getRoute(id, zoom);
     }
     @DeleteMapping("/{id}")
     public void deleteRide(@PathVariable("id") Long id) {
@@ -219,11 +288,7 @@ public class RideController {
     public List<RideResponseDTO> getJoinedRides(@PathVariable("empId") String empId,
                                                 @RequestParam(name = "page", defaultValue = "0") int page,
                                                 @RequestParam(name = "size", defaultValue = "50") int size) {
-        rideService.expirePastRidesInternal();
-        List<RideResponseDTO> list = rideService.getJoinedRidesWithEmployeeDetails(empId);
-        int from = Math.min(page * size, list.size());
-        int to = Math.min(from + size, list.size());
-        return list.subList(from, to);
+        return rideService.getJoinedRidesWithEmployeeDetails(empId, page, size);
     }
 
     @PostMapping("/leave/{rideId}")
@@ -0,0 +1,16 @@
+package com.orangemantra.rideservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Slim employee-service directory entry (GET /employee/{id}, POST /employee/batch)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeProfile {
+    private String empId;
+    private String name;
+    private String email;
+    private String phone;
+}
@@ -0,0 +1,27 @@
+package com.orangemantra.rideservice.dto;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Parsed /ride/nearby parameters. The drop constraint applies only when both dest coordinates are set.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NearbyQuery {
+    private double lat;
+    private double lng;
+    private double radiusMeters;
+    private Double destLat;
+    private Double destLng;
+    private Double destRadiusMeters; // defaults to radiusMeters
+    private LocalDate date;
+    @Builder.Default
+    private int passengers = 1;
+}
@@ -0,0 +1,36 @@
+package com.orangemantra.rideservice.dto;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+public class RideAlertDtos {
+    @Data @NoArgsConstructor @AllArgsConstructor @Builder
+    public static class CreateRequest {
+        private String origin;             // by place name (both or neither)
+        private String destination;
+        private Double pickupLat;          // or by points (all four), within radiusMeters
+        private Double pickupLng;
+        private Double dropLat;
+        private Double dropLng;
+        private Integer radiusMeters;      // default 1000
+        private String earliest;           // HH:mm arrival window
+        private String latest;
+        private List<DayOfWeek> weekdays;  // empty = every day
+    }
+
+    @Data @NoArgsConstructor @AllArgsConstructor @Builder
+    public static class AlertDTO {
+        private Long id;
+        private String origin; private String destination;
+        private Double pickupLat; private Double pickupLng; private Double dropLat; private Double dropLng; private Integer radiusMeters;
+        private String earliest; private String latest;
+        private List<DayOfWeek> weekdays;
+        private Instant createdAt;
+    }
+}
@@ -0,0 +1,22 @@
+package com.orangemantra.rideservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pushed on the search's /topic/rides/{key} (see RideAvailabilityPublisher) when a ride of that search changes.
+ * Deltas of one ride may arrive out of order: keep the one with the highest version. Every delta carries the
+ * version of the write that caused it, REMOVED included, so a removal always outranks the ride's earlier deltas.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RideAvailabilityDelta {
+    private Long rideId;
+    private long version;
+    private String type;            // CREATED, SEATS_CHANGED, UPDATED (re-read the ride) or REMOVED (no longer in this search)
+    private Integer availableSeats; // null for REMOVED
+}
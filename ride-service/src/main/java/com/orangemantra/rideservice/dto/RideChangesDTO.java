@@ -0,0 +1,30 @@
+package com.orangemantra.rideservice.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** One /ride/active/changes response: pass {@code cursor} as {@code since} on the next call. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RideChangesDTO {
+    private String cursor;
+    private boolean resyncRequired; // the changes since the given cursor are no longer known: reload /ride/active
+    private boolean hasMore;        // more changes are waiting; call again right away
+    private List<Change> changes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Change {
+        private Long rideId;
+        private String type;          // CREATED, SEATS_CHANGED, UPDATED, CANCELLED, EXPIRED or REMOVED
+        private RideResponseDTO ride; // current state while the ride is active, else null
+    }
+}
@@ -0,0 +1,49 @@
+package com.orangemantra.rideservice.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single ride as the offer, edit and exact-match search endpoints return it. Same JSON as the Ride entity used to
+ * serialize to, but filled inside the service transaction so nothing is lazily loaded while the response is written.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RideDetailDTO {
+    private Long id;
+    private String ownerEmpId;
+    private String origin;
+    private String destination;
+    private Double originLat;
+    private Double originLng;
+    private Double destinationLat;
+    private Double destinationLng;
+    private String routeGeometry; // full route on the edit form only
+    private Integer routeDistanceMeters;
+    private Integer routeDurationSeconds;
+    private LocalDate date;
+    private String arrivalTime;
+    private String carDetails;
+    private int totalSeats;
+    private int availableSeats;
+    private BigDecimal fare;
+    private String driverNote;
+    private boolean instantBookingEnabled;
+    private String status;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Long version;
+    private List<String> joinedEmpIds;
+    private List<String> pendingEmpIds;
+    private Map<String, Integer> joinedSeats;
+}
@@ -2,6 +2,8 @@ package com.orangemantra.rideservice.dto;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -10,7 +12,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class RideResponseDTO {
     private Long id;
     private String ownerEmpId;
@@ -34,6 +36,21 @@ public class RideResponseDTO {
     private List<JoinedEmployeeDTO> pendingEmployees; // when instantBookingEnabled=false
     private Integer routeDistanceMeters;
     private Integer routeDurationSeconds;
-    private String routeGeometry;
+    // Route outline for lists: [minLat, minLng, maxLat, maxLng] and an encoded polyline of a few dozen points.
+    // The full route is served by /ride/{id}/route.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private double[] routeBounds;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String routePreview;
     private String driverNote;
+    // Only set by /ride/nearby and mode=route searches
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer pickupDistanceMeters;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer dropDistanceMeters;
+    // Only set by mode=route&sort=best: estimated extra driving the pickup/drop adds to the driver's trip
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer detourMeters;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer detourSeconds;
 }
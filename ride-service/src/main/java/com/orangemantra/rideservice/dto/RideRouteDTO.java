@@ -0,0 +1,19 @@
+package com.orangemantra.rideservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RideRouteDTO {
+    private Long rideId;
+    private int level;               // 0 = every stored point
+    private double toleranceMeters;  // Douglas-Peucker tolerance of this level
+    private int pointCount;
+    private double[] bounds;         // minLat, minLng, maxLat, maxLng of the full route
+    private String polyline;         // encoded polyline, precision 5
+}
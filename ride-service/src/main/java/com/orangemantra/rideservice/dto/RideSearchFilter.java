@@ -0,0 +1,41 @@
+package com.orangemantra.rideservice.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Parsed /ride/active search parameters. Null fields mean "no constraint".
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RideSearchFilter {
+    private String origin;
+    private String destination;
+    private LocalDate date;
+    private Boolean instant;
+    private LocalTime after;
+    private LocalTime before;
+    private BigDecimal minFare;
+    private BigDecimal maxFare;
+    @Builder.Default
+    private int passengers = 1;
+    private String sort; // earliest | price | best (mode=route only)
+    // mode=route: rides whose route passes within corridorMeters of the pickup (and then the drop)
+    private Double pickupLat;
+    private Double pickupLng;
+    private Double dropLat;
+    private Double dropLng;
+    private Double corridorMeters;
+
+    public boolean isAlongRoute() {
+        return pickupLat != null && pickupLng != null;
+    }
+}
@@ -0,0 +1,15 @@
+package com.orangemantra.rideservice.dto;
+
+import lombok.Data;
+
+// employee-service GET /vehicle/{empId} response (fields ride-service reads)
+@Data
+public class VehicleInfo {
+    private Long id;
+    private String status;
+    private Integer capacity;
+    private String registrationNumber;
+    private String make;
+    private String model;
+    private String color;
+}
@@ -0,0 +1,98 @@
+package com.orangemantra.rideservice.messaging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends user-destination STOMP frames (chat messages, read receipts, closures) to an employee's sessions.
+ * <p>
+ * Single instance (the default) this is just convertAndSendToUser. With {@code ride.chat.cluster.enabled} the
+ * recipient may be connected to any replica: the frame is rendered to JSON once and published on the chat-delivery
+ * topic keyed by recipient, so one employee's frames stay in order; every replica consumes the topic with its own
+ * group and hands the frame to the sessions it holds. ChatPresence lets the common cases skip Kafka: a recipient
+ * connected only here is sent to directly, and one connected nowhere is not sent at all (chat messages are stored,
+ * so the conversation shows them on next load).
+ * <p>
+ * Deliveries are counted as {@code ride.chat.deliveries} tagged {@code route=local|relayed|offline}.
+ */
+@Slf4j
+@Component
+public class ChatDelivery {
+    private final SimpMessagingTemplate messagingTemplate;
+    private final KafkaTemplate<String, ChatDeliveryEvent> kafkaTemplate;
+    private final ChatPresence presence;
+    private final ObjectMapper objectMapper;
+    private final String topic;
+    private final Counter local, relayed, offline;
+
+    public ChatDelivery(SimpMessagingTemplate messagingTemplate,
+                        KafkaTemplate<String, ChatDeliveryEvent> kafkaTemplate,
+                        ChatPresence presence,
+                        ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry,
+                        @Value("${spring.kafka.topic.chat-delivery:chat-delivery}") String topic) {
+        this.messagingTemplate = messagingTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.presence = presence;
+        this.objectMapper = objectMapper;
+        this.topic = topic;
+        this.local = Counter.builder("ride.chat.deliveries").tag("route", "local").register(meterRegistry);
+        this.relayed = Counter.builder("ride.chat.deliveries").tag("route", "relayed").register(meterRegistry);
+        this.offline = Counter.builder("ride.chat.deliveries").tag("route", "offline").register(meterRegistry);
+    }
+
+    public void toUser(String empId, String destination, Object payload) {
+        if (empId == null) return;
+        if (!presence.isClustered()) {
+            messagingTemplate.convertAndSendToUser(empId, destination, payload);
+            return;
+        }
+        boolean here = presence.isLocal(empId);
+        if (!presence.isRemote(empId)) {
+            if (here) sendLocally(empId, destination, payload);
+            else offline.increment();
+            return;
+        }
+        try {
+            ChatDeliveryEvent event = new ChatDeliveryEvent(empId, destination, objectMapper.writeValueAsString(payload));
+            kafkaTemplate.send(topic, empId, event).whenComplete((result, e) -> {
+                if (e != null) failed(empId, destination, payload, here, e);
+            });
+            relayed.increment();
+        } catch (Exception e) {
+            failed(empId, destination, payload, here, e);
+        }
+    }
+
+    @KafkaListener(topics = "${spring.kafka.topic.chat-delivery:chat-delivery}", containerFactory = "chatDeliveryListenerContainerFactory",
+            autoStartup = "${ride.chat.cluster.enabled:false}")
+    public void onDelivery(@Payload ChatDeliveryEvent event) {
+        if (event == null || event.getEmpId() == null || event.getPayload() == null || !presence.isLocal(event.getEmpId())) return;
+        try {
+            messagingTemplate.convertAndSendToUser(event.getEmpId(), event.getDestination(), objectMapper.readTree(event.getPayload()));
+        } catch (Exception e) {
+            log.warn("Chat relay to {} failed: {}", event.getEmpId(), e.getMessage());
+        }
+    }
+
+    private void sendLocally(String empId, String destination, Object payload) {
+        messagingTemplate.convertAndSendToUser(empId, destination, payload);
+        local.increment();
+    }
+
+    // the relay is down: at least reach the sessions held here
+    private void failed(String empId, String destination, Object payload, boolean here, Throwable e) {
+        log.warn("Chat relay publish for {} failed: {}", empId, e.getMessage());
+        if (here) sendLocally(empId, destination, payload);
+    }
+}
@@ -0,0 +1,16 @@
+package com.orangemantra.rideservice.messaging;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** One user-destination chat frame, relayed between replicas; keyed (and so partitioned) by recipient. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatDeliveryEvent {
+    private String empId;
+    private String destination;
+    // the STOMP payload, already rendered as JSON so every replica sends the same bytes
+    private String payload;
+}
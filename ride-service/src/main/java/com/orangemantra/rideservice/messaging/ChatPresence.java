@@ -0,0 +1,128 @@
+package com.orangemantra.rideservice.messaging;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Which employees have a STOMP session on which replica, for ChatDelivery. Local sessions come straight from the
+ * broker's user registry. Each replica publishes a snapshot of its own on the presence topic every
+ * {@code ride.chat.cluster.presence-ms}, adds an employee at once when they connect, and sends an empty snapshot on
+ * shutdown; a replica not heard from for three intervals is forgotten. Disconnects are only picked up by the next
+ * snapshot, so for a short while a relay may go to a replica that no longer has the session, which is harmless.
+ * <p>
+ * Does nothing unless {@code ride.chat.cluster.enabled} is set.
+ */
+@Slf4j
+@Component
+public class ChatPresence {
+
+    record Remote(Set<String> empIds, long expiresAt) {}
+
+    private final String instance = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final SimpUserRegistry localUsers;
+    private final KafkaTemplate<String, ChatPresenceEvent> kafkaTemplate;
+    private final boolean clustered;
+    private final String topic;
+    private final long ttlMillis;
+    private final Map<String, Remote> remotes = new ConcurrentHashMap<>(); // other replica -> who is connected there
+
+    public ChatPresence(SimpUserRegistry localUsers,
+                        KafkaTemplate<String, ChatPresenceEvent> kafkaTemplate,
+                        MeterRegistry meterRegistry,
+                        @Value("${ride.chat.cluster.enabled:false}") boolean clustered,
+                        @Value("${spring.kafka.topic.chat-presence:chat-presence}") String topic,
+                        @Value("${ride.chat.cluster.presence-ms:10000}") long presenceMillis) {
+        this.localUsers = localUsers;
+        this.kafkaTemplate = kafkaTemplate;
+        this.clustered = clustered;
+        this.topic = topic;
+        this.ttlMillis = Duration.ofMillis(presenceMillis).multipliedBy(3).toMillis();
+        Gauge.builder("ride.chat.cluster.peers", remotes, Map::size).register(meterRegistry);
+    }
+
+    public boolean isClustered() {
+        return clustered;
+    }
+
+    /** Connected to this replica. */
+    public boolean isLocal(String empId) {
+        return localUsers.getUser(empId) != null;
+    }
+
+    /** Connected to some other replica, as far as it last told us. */
+    public boolean isRemote(String empId) {
+        long now = System.currentTimeMillis();
+        for (Remote r : remotes.values()) {
+            if (r.expiresAt() > now && r.empIds().contains(empId)) return true;
+        }
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${ride.chat.cluster.presence-ms:10000}")
+    public void announce() {
+        if (!clustered) return;
+        long now = System.currentTimeMillis();
+        remotes.values().removeIf(r -> r.expiresAt() <= now);
+        Set<String> empIds = new HashSet<>();
+        for (SimpUser u : localUsers.getUsers()) empIds.add(u.getName());
+        publish(empIds, true);
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        if (clustered && user != null) publish(Set.of(user.getName()), false);
+    }
+
+    @PreDestroy
+    public void leave() {
+        if (clustered) publish(Set.of(), true);
+    }
+
+    @KafkaListener(topics = "${spring.kafka.topic.chat-presence:chat-presence}", containerFactory = "chatPresenceListenerContainerFactory",
+            autoStartup = "${ride.chat.cluster.enabled:false}")
+    public void onPresence(@Payload ChatPresenceEvent event) {
+        if (event == null || event.getInstance() == null || instance.equals(event.getInstance())) return;
+        Set<String> empIds = event.getEmpIds() == null ? Set.of() : event.getEmpIds();
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        if (event.isSnapshot()) {
+            if (empIds.isEmpty()) remotes.remove(event.getInstance());
+            else remotes.put(event.getInstance(), new Remote(Set.copyOf(empIds), expiresAt));
+        } else {
+            remotes.compute(event.getInstance(), (k, r) -> {
+                Set<String> merged = new HashSet<>(empIds);
+                if (r != null) merged.addAll(r.empIds());
+                return new Remote(Set.copyOf(merged), r == null ? expiresAt : r.expiresAt());
+            });
+        }
+    }
+
+    private void publish(Set<String> empIds, boolean snapshot) {
+        try {
+            kafkaTemplate.send(topic, instance, new ChatPresenceEvent(instance, empIds, snapshot));
+        } catch (Exception e) {
+            log.warn("Chat presence publish failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.orangemantra.rideservice.messaging;
+
+import java.util.Set;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Employees with a STOMP session on one replica. A snapshot replaces everything known about that replica (an empty
+ * one means it has nobody, or is going away); otherwise the ids are added to it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatPresenceEvent {
+    private String instance;
+    private Set<String> empIds;
+    private boolean snapshot;
+}
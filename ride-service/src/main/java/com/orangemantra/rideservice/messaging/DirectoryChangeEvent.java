@@ -0,0 +1,22 @@
+package com.orangemantra.rideservice.messaging;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Published by employee-service whenever an employee profile or vehicle is written. Carries no directory fields;
+ * the replica fetches the current profile through the authenticated API.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DirectoryChangeEvent {
+    public static final String EMPLOYEE_CHANGED = "EmployeeChanged";
+    public static final String EMPLOYEE_DELETED = "EmployeeDeleted";
+    public static final String VEHICLE_CHANGED = "VehicleChanged";
+
+    private String type;
+    private String empId;
+    private long changedAt;
+}
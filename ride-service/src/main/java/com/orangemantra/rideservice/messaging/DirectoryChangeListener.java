@@ -0,0 +1,48 @@
+package com.orangemantra.rideservice.messaging;
+
+import com.orangemantra.rideservice.service.EmployeeDirectoryReplica;
+import com.orangemantra.rideservice.service.EmployeeDirectoryService;
+import com.orangemantra.rideservice.service.ResponseETags;
+import com.orangemantra.rideservice.service.RideViewCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the local directory replica, the employee/vehicle caches, the cached ride list views and the ride list ETags
+ * in step with employee-service.
+ * Every replica consumes with its own group (see KafkaConfig) so all of them see every change.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DirectoryChangeListener {
+    private final EmployeeDirectoryService employeeDirectory;
+    private final EmployeeDirectoryReplica replica;
+    private final RideViewCache rideViews;
+    private final ResponseETags etags;
+
+    @KafkaListener(topics = "${spring.kafka.topic.directory-changes:directory-changes}", containerFactory = "directoryChangeListenerContainerFactory")
+    public void onChange(@Payload DirectoryChangeEvent event) {
+        try {
+            if (event == null || event.getEmpId() == null || event.getEmpId().isBlank()) return;
+            if (DirectoryChangeEvent.EMPLOYEE_CHANGED.equals(event.getType())) {
+                replica.refresh(event.getEmpId());
+                employeeDirectory.employeeChanged(event.getEmpId());
+                rideViews.employeeChanged(event.getEmpId());
+                etags.directoryChanged();
+            } else if (DirectoryChangeEvent.EMPLOYEE_DELETED.equals(event.getType())) {
+                replica.remove(event.getEmpId());
+                employeeDirectory.employeeChanged(event.getEmpId());
+                rideViews.employeeChanged(event.getEmpId());
+                etags.directoryChanged();
+            } else if (DirectoryChangeEvent.VEHICLE_CHANGED.equals(event.getType())) {
+                employeeDirectory.vehicleChanged(event.getEmpId());
+            }
+        } catch (Exception e) {
+            log.error("Failed to apply directory change {}: {}", event, e.getMessage());
+        }
+    }
+}
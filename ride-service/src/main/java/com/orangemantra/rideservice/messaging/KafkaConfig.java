@@ -2,20 +2,29 @@ package com.orangemantra.rideservice.messaging;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
 @Configuration
+@EnableKafka
 public class KafkaConfig {
 
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
@@ -24,6 +33,15 @@ public class KafkaConfig {
     @Value("${spring.kafka.topic.notifications:notifications}")
     private String notificationsTopicName;
 
+    @Value("${spring.kafka.topic.chat-delivery:chat-delivery}")
+    private String chatDeliveryTopicName;
+
+    @Value("${spring.kafka.topic.chat-presence:chat-presence}")
+    private String chatPresenceTopicName;
+
+    @Value("${spring.application.name:ride-service}")
+    private String applicationName;
+
     @Bean
     public ProducerFactory<String, NotificationEvent> notificationProducerFactory() {
         Map<String, Object> props = new HashMap<>();
@@ -44,4 +62,71 @@ public class KafkaConfig {
     public NewTopic notificationsTopic() {
         return TopicBuilder.name(notificationsTopicName).partitions(3).replicas(1).build();
     }
+
+    @Bean
+    public ConsumerFactory<String, DirectoryChangeEvent> directoryChangeConsumerFactory() {
+        return broadcastConsumerFactory(DirectoryChangeEvent.class, "directory");
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, DirectoryChangeEvent> directoryChangeListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, DirectoryChangeEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(directoryChangeConsumerFactory());
+        return factory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, ChatDeliveryEvent> chatDeliveryKafkaTemplate() {
+        return new KafkaTemplate<>(jsonProducerFactory());
+    }
+
+    @Bean
+    public KafkaTemplate<String, ChatPresenceEvent> chatPresenceKafkaTemplate() {
+        return new KafkaTemplate<>(jsonProducerFactory());
+    }
+
+    // keyed by recipient, so each employee's frames stay in order
+    @Bean
+    public NewTopic chatDeliveryTopic() {
+        return TopicBuilder.name(chatDeliveryTopicName).partitions(3).replicas(1).build();
+    }
+
+    @Bean
+    public NewTopic chatPresenceTopic() {
+        return TopicBuilder.name(chatPresenceTopicName).partitions(1).replicas(1).build();
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, ChatDeliveryEvent> chatDeliveryListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, ChatDeliveryEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(broadcastConsumerFactory(ChatDeliveryEvent.class, "chat"));
+        return factory;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, ChatPresenceEvent> chatPresenceListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, ChatPresenceEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(broadcastConsumerFactory(ChatPresenceEvent.class, "presence"));
+        return factory;
+    }
+
+    private <V> ProducerFactory<String, V> jsonProducerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    private <V> ConsumerFactory<String, V> broadcastConsumerFactory(Class<V> type, String purpose) {
+        JsonDeserializer<V> deserializer = new JsonDeserializer<>(type, false);
+        deserializer.addTrustedPackages("*");
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        // one group per instance: cache invalidations and chat relays are a broadcast, not a work queue
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, applicationName + "-" + purpose + "-" + UUID.randomUUID());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), deserializer);
+    }
 }
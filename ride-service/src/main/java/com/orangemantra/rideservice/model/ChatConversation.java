@@ -0,0 +1,78 @@
+package com.orangemantra.rideservice.model;
+
+import java.time.Instant;
+
+import com.orangemantra.rideservice.util.StringCryptoConverter;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Inbox summary of one chat (a ride and two employees), kept next to chat_messages so the conversation list is
+ * one indexed read instead of an aggregate over every message. participantA is the lesser empId (String order),
+ * so each pair has exactly one row; unreadA counts messages to A that A has not read, unreadB likewise.
+ * Maintained by ChatService in the transaction that writes the messages.
+ */
+@Entity
+@Table(name = "chat_conversation",
+        uniqueConstraints = @UniqueConstraint(name = "uk_chat_conversation_pair", columnNames = {"ride_id", "participant_a", "participant_b"}),
+        indexes = {
+                @Index(name = "idx_chat_conversation_a", columnList = "participant_a,last_ts"),
+                @Index(name = "idx_chat_conversation_b", columnList = "participant_b,last_ts")
+        })
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChatConversation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long rideId;
+
+    @Column(name = "participant_a", nullable = false)
+    private String participantA;
+
+    @Column(name = "participant_b", nullable = false)
+    private String participantB;
+
+    // null until the first message commits
+    private Long lastMessageId;
+
+    private Instant lastTs;
+
+    @Column(length = 2000)
+    @Convert(converter = StringCryptoConverter.class)
+    private String lastPreview;
+
+    @Column(name = "unread_a")
+    private long unreadA;
+
+    @Column(name = "unread_b")
+    private long unreadB;
+
+    /** The other participant, seen from {@code me}. */
+    public String otherThan(String me) {
+        return participantA.equals(me) ? participantB : participantA;
+    }
+
+    /** Unread messages addressed to {@code me}. */
+    public long unreadFor(String me) {
+        return participantA.equals(me) ? unreadA : unreadB;
+    }
+}
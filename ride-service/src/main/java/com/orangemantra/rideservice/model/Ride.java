@@ -4,26 +4,31 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.proxy.HibernateProxy;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.orangemantra.rideservice.util.StringCryptoConverter;
 
-import jakarta.persistence.CollectionTable;
+import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Convert;
-import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.Lob;
-import jakarta.persistence.MapKeyColumn;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -35,7 +40,8 @@ import lombok.ToString;
 @Table(indexes = {
         @Index(name = "idx_ride_owner_status", columnList = "ownerEmpId,status"),
         @Index(name = "idx_ride_status", columnList = "status"),
-        @Index(name = "idx_ride_date_status", columnList = "date,status")
+        @Index(name = "idx_ride_date_status", columnList = "date,status"),
+        @Index(name = "idx_ride_updated_at", columnList = "updatedAt")
 })
 @Getter
 @Setter
@@ -60,8 +66,9 @@ public class Ride {
     private Double destinationLat;
     private Double destinationLng;
 
-    // Selected route polyline (encoded polyline or geojson simplified). For now store as text (encoded polyline or JSON string)
-    @Lob
+    // Route as submitted (encoded polyline or GeoJSON). Not a column: it is stored compressed in ride_route
+    // (see RouteGeometryService) and only carried here between the request and the service.
+    @Transient
     private String routeGeometry;
     // Distance (meters) and duration (seconds) from routing engine
     private Integer routeDistanceMeters;
@@ -83,31 +90,58 @@ public class Ride {
     @Column(length = 500)
     private String driverNote;
 
-    @ElementCollection
+    // Joined and pending passengers, one row each (see RideParticipant). Batch-fetched so a page of rides costs one query.
+    @OneToMany(mappedBy = "ride", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("createdAt ASC, id ASC")
+    @BatchSize(size = 64)
     @Builder.Default
-    private List<String> joinedEmpIds = new ArrayList<>();
-
-    // Seats booked per joined employee (empId -> seats). Aligns with joinedEmpIds list.
-    @ElementCollection
-    @CollectionTable(name = "ride_joined_seats", joinColumns = @JoinColumn(name = "ride_id"))
-    @MapKeyColumn(name = "emp_id")
-    @Column(name = "seats")
-    @Builder.Default
-    private java.util.Map<String, Integer> joinedSeats = new java.util.HashMap<>();
+    @ToString.Exclude
+    @JsonIgnore // exposed to API clients through joinedEmpIds / pendingEmpIds / joinedSeats
+    private List<RideParticipant> participants = new ArrayList<>();
 
     // If true passengers are auto-added. If false owner must approve each request.
     @Builder.Default
     private boolean instantBookingEnabled = true;
 
-    // Pending employee IDs waiting for owner approval (used when instantBookingEnabled = false)
-    @ElementCollection
-    @Builder.Default
-    private List<String> pendingEmpIds = new ArrayList<>();
-
     private String status; // Active, Expired, Cancelled
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Optimistic lock; the column default backfills rows created before versioning
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private Long version;
+
+    // PARTICIPANT VIEWS (read-only; mutate through add/removeParticipant) --------------------
+    public List<String> getJoinedEmpIds() {
+        return participants.stream().filter(RideParticipant::isJoined).map(RideParticipant::getEmpId).toList();
+    }
+
+    public List<String> getPendingEmpIds() {
+        return participants.stream().filter(p -> !p.isJoined()).map(RideParticipant::getEmpId).toList();
+    }
+
+    /** Seats booked per joined employee (empId -> seats). */
+    public Map<String, Integer> getJoinedSeats() {
+        Map<String, Integer> seats = new LinkedHashMap<>();
+        for (RideParticipant p : participants) if (p.isJoined()) seats.put(p.getEmpId(), p.getSeats());
+        return seats;
+    }
+
+    public Optional<RideParticipant> findParticipant(String empId) {
+        return participants.stream().filter(p -> p.getEmpId().equals(empId)).findFirst();
+    }
+
+    public RideParticipant addParticipant(String empId, int seats, String state) {
+        RideParticipant p = RideParticipant.builder().ride(this).rideId(id).empId(empId).seats(seats).state(state).createdAt(LocalDateTime.now()).build();
+        participants.add(p);
+        return p;
+    }
+
+    public boolean removeParticipant(RideParticipant p) {
+        return participants.remove(p);
+    }
+
     @Override
     public final boolean equals(Object o) {
         if (this == o) return true;
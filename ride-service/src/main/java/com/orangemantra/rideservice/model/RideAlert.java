@@ -0,0 +1,54 @@
+package com.orangemantra.rideservice.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A saved commute: tell {@code empId} when a ride is published that goes from origin to destination (by name, or
+ * within {@code radiusMeters} of both pickup and drop points) arriving between {@code earliest} and {@code latest}
+ * on one of the weekdays.
+ */
+@Entity
+@Table(name = "ride_alerts", indexes = {
+        @Index(name = "idx_ride_alert_emp", columnList = "empId")
+})
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class RideAlert {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String empId;
+
+    // Either both place names...
+    private String origin;
+    private String destination;
+    // ...or both points with a radius
+    private Double pickupLat;
+    private Double pickupLng;
+    private Double dropLat;
+    private Double dropLng;
+    private Integer radiusMeters;
+
+    @Column(length = 5, nullable = false)
+    private String earliest; // HH:mm, compared with Ride.arrivalTime
+    @Column(length = 5, nullable = false)
+    private String latest;
+    private int weekdays;    // bit (DayOfWeek.getValue() - 1) set for each matching day
+
+    private Instant createdAt;
+}
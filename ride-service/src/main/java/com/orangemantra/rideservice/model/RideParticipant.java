@@ -0,0 +1,85 @@
+package com.orangemantra.rideservice.model;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import org.hibernate.proxy.HibernateProxy;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * One passenger on a ride, either confirmed (JOINED) or waiting for the owner (PENDING).
+ * Joining or leaving touches exactly one row; "rides I joined" is a seek on (emp_id, state).
+ */
+@Entity
+@Table(name = "ride_participant",
+        uniqueConstraints = @UniqueConstraint(name = "uk_participant_ride_emp", columnNames = {"ride_id", "emp_id"}),
+        indexes = @Index(name = "idx_participant_emp_state", columnList = "emp_id,state,ride_id"))
+@Getter
+@Setter
+@ToString(exclude = "ride")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RideParticipant {
+    public static final String JOINED = "JOINED";
+    public static final String PENDING = "PENDING";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "ride_id", nullable = false)
+    private Ride ride;
+
+    @Column(name = "ride_id", insertable = false, updatable = false)
+    private Long rideId;
+
+    @Column(name = "emp_id", nullable = false, length = 64)
+    private String empId;
+
+    private int seats;
+
+    @Column(nullable = false, length = 16)
+    private String state; // JOINED, PENDING
+
+    private LocalDateTime createdAt;
+
+    public boolean isJoined() { return JOINED.equals(state); }
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+        Class<?> oEffectiveClass = o instanceof HibernateProxy ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass() : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass() : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) return false;
+        RideParticipant that = (RideParticipant) o;
+        return getId() != null && Objects.equals(getId(), that.getId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass().hashCode() : getClass().hashCode();
+    }
+}
@@ -0,0 +1,57 @@
+package com.orangemantra.rideservice.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Basic;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * A ride's route, kept out of the ride row so loading rides never drags the polyline along.
+ * <p>
+ * {@code data} holds every resolution in {@link com.orangemantra.rideservice.util.RouteCodec} format and is only read
+ * by the route endpoint and the corridor index; ride lists read the bounding box and the short preview polyline.
+ */
+@Entity
+@Table(name = "ride_route")
+@Getter
+@Setter
+@ToString(exclude = "data")
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RideRoute {
+    public static final int PREVIEW_MAX_POINTS = 24;
+
+    @Id
+    @Column(name = "ride_id")
+    private Long rideId;
+
+    private int pointCount;
+
+    private double minLat;
+    private double minLng;
+    private double maxLat;
+    private double maxLng;
+
+    // Encoded polyline of at most PREVIEW_MAX_POINTS points
+    @Column(length = 512)
+    private String preview;
+
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @Column(nullable = false)
+    private byte[] data;
+
+    private LocalDateTime updatedAt;
+}
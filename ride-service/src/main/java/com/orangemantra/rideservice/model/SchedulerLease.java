@@ -0,0 +1,20 @@
+package com.orangemantra.rideservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Instant;
+
+/**
+ * Row-level lease so that a background job runs on exactly one ride-service replica at a time.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class SchedulerLease {
+    @Id
+    @Column(length = 64)
+    private String name;      // job name, e.g. ride-expiry
+    @Column(length = 128)
+    private String owner;     // instance id currently holding the lease
+    private Instant leaseUntil;
+}
@@ -0,0 +1,50 @@
+package com.orangemantra.rideservice.repository;
+
+import com.orangemantra.rideservice.model.ChatConversation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Writes are native so each one is a single locking statement on the pair's row (an upsert for the unread counters)
+ * and never overwrites a concurrent writer's counters; last_preview is therefore bound already encrypted
+ * (see ChatService).
+ */
+public interface ChatConversationRepository extends JpaRepository<ChatConversation, Long> {
+
+    @Query("SELECT c FROM ChatConversation c WHERE (c.participantA = :me OR c.participantB = :me) AND c.lastMessageId IS NOT NULL ORDER BY c.lastTs DESC")
+    List<ChatConversation> findInbox(@Param("me") String me);
+
+    // creates the pair's row on its first message; concurrent first messages from both sides meet on the unique key.
+    // MySQL syntax (tests run H2 in MySQL mode)
+    @Modifying
+    @Query(value = "INSERT INTO chat_conversation (ride_id, participant_a, participant_b, unread_a, unread_b) " +
+            "VALUES (:rideId, :a, :b, :toA, :toB) " +
+            "ON DUPLICATE KEY UPDATE unread_a = unread_a + :toA, unread_b = unread_b + :toB", nativeQuery = true)
+    int addUnread(@Param("rideId") Long rideId, @Param("a") String a, @Param("b") String b,
+                  @Param("toA") int toA, @Param("toB") int toB);
+
+    // messages can commit out of id order; the newest one wins
+    @Modifying
+    @Query(value = "UPDATE chat_conversation SET last_message_id = :messageId, last_ts = :ts, last_preview = :preview " +
+            "WHERE ride_id = :rideId AND participant_a = :a AND participant_b = :b " +
+            "AND (last_message_id IS NULL OR last_message_id < :messageId)", nativeQuery = true)
+    int setLastMessage(@Param("rideId") Long rideId, @Param("a") String a, @Param("b") String b,
+                       @Param("messageId") Long messageId, @Param("ts") Instant ts, @Param("preview") String encryptedPreview);
+
+    @Modifying
+    @Query(value = "UPDATE chat_conversation SET " +
+            "unread_a = CASE WHEN :readerIsA = 1 THEN GREATEST(unread_a - :n, 0) ELSE unread_a END, " +
+            "unread_b = CASE WHEN :readerIsA = 0 THEN GREATEST(unread_b - :n, 0) ELSE unread_b END " +
+            "WHERE ride_id = :rideId AND participant_a = :a AND participant_b = :b", nativeQuery = true)
+    int markRead(@Param("rideId") Long rideId, @Param("a") String a, @Param("b") String b,
+                 @Param("readerIsA") int readerIsA, @Param("n") int n);
+
+    @Modifying
+    @Query("DELETE FROM ChatConversation c WHERE c.rideId = :rideId AND c.participantA = :a AND c.participantB = :b")
+    int deletePair(@Param("rideId") Long rideId, @Param("a") String a, @Param("b") String b);
+}
@@ -25,19 +25,6 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
                                           @Param("a") String a,
                                           @Param("b") String b);
 
-    @Query(value = "SELECT ride_id AS rideId, CASE WHEN from_emp_id = :me THEN to_emp_id ELSE from_emp_id END AS otherEmpId, MAX(ts) AS lastTs, SUM(CASE WHEN to_emp_id = :me AND read_flag = 0 THEN 1 ELSE 0 END) AS unread " +
-            "FROM chat_messages WHERE from_emp_id = :me OR to_emp_id = :me GROUP BY ride_id, otherEmpId ORDER BY lastTs DESC", nativeQuery = true)
-    List<ConversationRow> listConversations(@Param("me") String me);
-
-
-    interface ConversationRow {
-        Long getRideId();
-        String getOtherEmpId();
-        Instant getLastTs();
-        Long getUnread();
-    }
-
-
     @Query("SELECT m FROM ChatMessage m WHERE m.rideId = :rideId AND ((m.fromEmpId = :a AND m.toEmpId = :b) OR (m.fromEmpId = :b AND m.toEmpId = :a)) ORDER BY m.ts DESC")
     Optional<ChatMessage> findTopByPair(@Param("rideId") Long rideId,
                                         @Param("a") String a,
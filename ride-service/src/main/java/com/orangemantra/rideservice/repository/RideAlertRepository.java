@@ -0,0 +1,11 @@
+package com.orangemantra.rideservice.repository;
+
+import com.orangemantra.rideservice.model.RideAlert;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface RideAlertRepository extends JpaRepository<RideAlert, Long> {
+    List<RideAlert> findByEmpIdOrderByIdAsc(String empId);
+    long countByEmpId(String empId);
+}
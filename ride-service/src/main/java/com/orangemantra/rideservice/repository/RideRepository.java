@@ -1,23 +1,132 @@
 package com.orangemantra.rideservice.repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.model.RideParticipant;
 
-public interface RideRepository extends JpaRepository<Ride, Long> {
+import jakarta.persistence.LockModeType;
+
+public interface RideRepository extends JpaRepository<Ride, Long>, JpaSpecificationExecutor<Ride>, RideSummaryQueries {
     List<Ride> findByOriginAndDestination(String origin, String destination);
-    List<Ride> findByOwnerEmpId(String ownerEmpId);
-    List<Ride> findByJoinedEmpIdsContaining(String empId);
-    List<Ride> findByOwnerEmpIdAndStatus(String ownerEmpId, String status);
-    List<Ride> findByJoinedEmpIdsContainingAndStatus(String empId, String status);
-    List<Ride> findByStatus(String status);
-    List<Ride> findByDateBeforeAndStatus(java.time.LocalDate date, String status);
-
-    @Query("SELECT r FROM Ride r LEFT JOIN FETCH r.joinedEmpIds WHERE r.id = :id")
-    Optional<Ride> findWithJoinedEmpIdsById(@Param("id") Long id);
+    List<Ride> findByDateBeforeAndStatus(LocalDate date, String status);
+
+    // Row lock for seat changes; bookings on one ride queue here instead of overselling
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Ride r WHERE r.id = :id")
+    Optional<Ride> findForUpdateById(@Param("id") Long id);
+
+    @Query("SELECT r FROM Ride r LEFT JOIN FETCH r.participants WHERE r.id = :id")
+    Optional<Ride> findWithParticipantsById(@Param("id") Long id);
+
+    // Narrow projection used to seed the expiry deadline queue
+    @Query("SELECT r.id AS id, r.date AS date, r.arrivalTime AS arrivalTime FROM Ride r WHERE r.status = 'Active'")
+    List<DeadlineRow> findActiveDeadlines();
+
+    // Publish conflict check: only the schedule of the owner's active rides
+    @Query("SELECT r.id AS id, r.date AS date, r.arrivalTime AS arrivalTime FROM Ride r WHERE r.status = 'Active' AND r.ownerEmpId = :ownerEmpId")
+    List<DeadlineRow> findActiveDeadlinesByOwner(@Param("ownerEmpId") String ownerEmpId);
+
+    interface DeadlineRow {
+        Long getId();
+        LocalDate getDate();
+        String getArrivalTime();
+    }
+
+    // Columns the in-memory search index needs; no participants, no route geometry
+    @Query("SELECT r.id AS id, r.origin AS origin, r.destination AS destination, r.originLat AS originLat, r.originLng AS originLng, " +
+            "r.destinationLat AS destinationLat, r.destinationLng AS destinationLng, r.date AS date, r.arrivalTime AS arrivalTime, " +
+            "r.fare AS fare, r.availableSeats AS availableSeats, r.instantBookingEnabled AS instantBookingEnabled, r.version AS version, r.ownerEmpId AS ownerEmpId FROM Ride r WHERE r.status = 'Active'")
+    List<IndexRow> findActiveIndexRows();
+
+    interface IndexRow {
+        Long getId();
+        String getOrigin();
+        String getDestination();
+        Double getOriginLat();
+        Double getOriginLng();
+        Double getDestinationLat();
+        Double getDestinationLng();
+        LocalDate getDate();
+        String getArrivalTime();
+        BigDecimal getFare();
+        int getAvailableSeats();
+        boolean isInstantBookingEnabled();
+        Long getVersion();
+        String getOwnerEmpId();
+    }
+
+    // Nearby search while the index loads: bounding boxes in SQL, exact radius check in ActiveRideIndex.nearbyAmong
+    @Query("SELECT r.id AS id, r.origin AS origin, r.destination AS destination, r.originLat AS originLat, r.originLng AS originLng, " +
+            "r.destinationLat AS destinationLat, r.destinationLng AS destinationLng, r.date AS date, r.arrivalTime AS arrivalTime, " +
+            "r.fare AS fare, r.availableSeats AS availableSeats, r.instantBookingEnabled AS instantBookingEnabled, r.version AS version, r.ownerEmpId AS ownerEmpId FROM Ride r " +
+            "WHERE r.status = 'Active' AND r.originLat BETWEEN :minLat AND :maxLat AND r.originLng BETWEEN :minLng AND :maxLng " +
+            "AND (:anyDestination = true OR (r.destinationLat BETWEEN :destMinLat AND :destMaxLat AND r.destinationLng BETWEEN :destMinLng AND :destMaxLng)) " +
+            "ORDER BY r.id")
+    List<IndexRow> findActiveIndexRowsNear(@Param("minLat") double minLat, @Param("maxLat") double maxLat,
+                                           @Param("minLng") double minLng, @Param("maxLng") double maxLng,
+                                           @Param("anyDestination") boolean anyDestination,
+                                           @Param("destMinLat") double destMinLat, @Param("destMaxLat") double destMaxLat,
+                                           @Param("destMinLng") double destMinLng, @Param("destMaxLng") double destMaxLng,
+                                           Limit limit);
+
+    // Participants of a page of rides in one query, in join order
+    @Query("SELECT p.rideId AS rideId, p.empId AS empId, p.seats AS seats, p.state AS state FROM RideParticipant p " +
+            "WHERE p.rideId IN :rideIds ORDER BY p.createdAt ASC, p.id ASC")
+    List<ParticipantRow> findParticipantRows(@Param("rideIds") Collection<Long> rideIds);
+
+    interface ParticipantRow {
+        Long getRideId();
+        String getEmpId();
+        int getSeats();
+        String getState();
+        default boolean isJoined() { return RideParticipant.JOINED.equals(getState()); }
+    }
+
+    // Change detection for the route corridor index; geometry is only read back for rides whose version moved
+    @Query("SELECT r.id AS id, r.version AS version FROM Ride r WHERE r.status = 'Active' AND r.id IN (SELECT rr.rideId FROM RideRoute rr)")
+    List<RouteVersionRow> findActiveRouteVersions();
+
+    @Query("SELECT r.id AS id, rr.data AS routeData, r.routeDistanceMeters AS routeDistanceMeters, " +
+            "r.routeDurationSeconds AS routeDurationSeconds, r.version AS version FROM Ride r JOIN RideRoute rr ON rr.rideId = r.id " +
+            "WHERE r.status = 'Active' AND r.id IN :ids")
+    List<RouteRow> findActiveRoutes(@Param("ids") Collection<Long> ids);
+
+    interface RouteVersionRow {
+        Long getId();
+        Long getVersion();
+    }
+
+    interface RouteRow {
+        Long getId();
+        byte[] getRouteData();
+        Integer getRouteDistanceMeters();
+        Integer getRouteDurationSeconds();
+        Long getVersion();
+    }
+
+    // Set-based expiry; arrivalTime is zero-padded HH:mm so string comparison is chronological
+    @Transactional @Modifying
+    @Query("UPDATE Ride r SET r.status = 'Expired', r.updatedAt = :stamp, r.version = r.version + 1 WHERE r.status = 'Active' AND r.date IS NOT NULL " +
+            "AND (r.date < :today OR (r.date = :today AND r.arrivalTime <= :nowTime))")
+    int expireDue(@Param("today") LocalDate today,
+                  @Param("nowTime") String nowTime,
+                  @Param("stamp") LocalDateTime stamp);
+
+    @Query("SELECT DISTINCT r FROM Ride r LEFT JOIN FETCH r.participants WHERE r.status = 'Expired' AND r.updatedAt = :stamp")
+    List<Ride> findExpiredAt(@Param("stamp") LocalDateTime stamp);
 }
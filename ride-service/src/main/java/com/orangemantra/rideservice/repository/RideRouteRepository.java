@@ -0,0 +1,26 @@
+package com.orangemantra.rideservice.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.orangemantra.rideservice.model.RideRoute;
+
+public interface RideRouteRepository extends JpaRepository<RideRoute, Long> {
+    // What ride lists show: bounding box and preview, never the encoded levels
+    @Query("SELECT r.rideId AS rideId, r.minLat AS minLat, r.minLng AS minLng, r.maxLat AS maxLat, r.maxLng AS maxLng, " +
+            "r.preview AS preview FROM RideRoute r WHERE r.rideId IN :ids")
+    List<SummaryRow> findSummaries(@Param("ids") Collection<Long> ids);
+
+    interface SummaryRow {
+        Long getRideId();
+        double getMinLat();
+        double getMinLng();
+        double getMaxLat();
+        double getMaxLng();
+        String getPreview();
+    }
+}
@@ -0,0 +1,130 @@
+package com.orangemantra.rideservice.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.orangemantra.rideservice.dto.RideSearchFilter;
+import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.model.RideParticipant;
+
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+/**
+ * Criteria building blocks for ride listing/search so filters, sort and paging run in SQL
+ * instead of over fully materialized DTO lists.
+ */
+public final class RideSpecifications {
+
+    public static final String STATUS_ACTIVE = "Active";
+
+    private RideSpecifications() {}
+
+    public static Specification<Ride> hasStatus(String status) {
+        return (root, q, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    // Legacy rows may carry a null status; list endpoints have always treated them as active.
+    public static Specification<Ride> activeOrUnset() {
+        return (root, q, cb) -> cb.or(cb.isNull(root.get("status")), cb.equal(root.get("status"), STATUS_ACTIVE));
+    }
+
+    public static Specification<Ride> hasStatusIn(String... statuses) {
+        return (root, q, cb) -> root.get("status").in((Object[]) statuses);
+    }
+
+    public static Specification<Ride> idIn(Collection<Long> ids) {
+        return (root, q, cb) -> root.get("id").in(ids);
+    }
+
+    public static Specification<Ride> ownedBy(String ownerEmpId) {
+        return (root, q, cb) -> cb.equal(root.get("ownerEmpId"), ownerEmpId);
+    }
+
+    public static Specification<Ride> joinedBy(String empId) {
+        return (root, q, cb) -> {
+            Subquery<Long> joined = q.subquery(Long.class);
+            Root<RideParticipant> p = joined.from(RideParticipant.class);
+            joined.select(p.get("rideId")).where(cb.equal(p.get("empId"), empId), cb.equal(p.get("state"), RideParticipant.JOINED));
+            return root.get("id").in(joined);
+        };
+    }
+
+    public static Specification<Ride> updatedSince(LocalDateTime since) {
+        return (root, q, cb) -> cb.greaterThanOrEqualTo(root.get("updatedAt"), since);
+    }
+
+    public static Specification<Ride> origin(String origin) {
+        return (root, q, cb) -> cb.equal(root.get("origin"), origin);
+    }
+
+    public static Specification<Ride> destination(String destination) {
+        return (root, q, cb) -> cb.equal(root.get("destination"), destination);
+    }
+
+    public static Specification<Ride> onDate(LocalDate date) {
+        return (root, q, cb) -> cb.equal(root.get("date"), date);
+    }
+
+    public static Specification<Ride> instantBooking(boolean instant) {
+        return (root, q, cb) -> cb.equal(root.get("instantBookingEnabled"), instant);
+    }
+
+    // arrivalTime is stored as zero-padded HH:mm, so lexical order equals chronological order.
+    public static Specification<Ride> arrivalNotBefore(LocalTime after) {
+        return (root, q, cb) -> cb.or(cb.isNull(root.get("arrivalTime")),
+                cb.greaterThanOrEqualTo(root.get("arrivalTime"), after.toString()));
+    }
+
+    public static Specification<Ride> arrivalNotAfter(LocalTime before) {
+        return (root, q, cb) -> cb.or(cb.isNull(root.get("arrivalTime")),
+                cb.lessThanOrEqualTo(root.get("arrivalTime"), before.toString()));
+    }
+
+    public static Specification<Ride> seatsAtLeast(int seats) {
+        return (root, q, cb) -> cb.greaterThanOrEqualTo(root.get("availableSeats"), seats);
+    }
+
+    // Free rides (null fare) count as 0 for the lower bound and always satisfy the upper bound.
+    public static Specification<Ride> fareAtLeast(BigDecimal min) {
+        return (root, q, cb) -> min.compareTo(BigDecimal.ZERO) <= 0
+                ? cb.or(cb.isNull(root.get("fare")), cb.greaterThanOrEqualTo(root.get("fare"), min))
+                : cb.greaterThanOrEqualTo(root.get("fare"), min);
+    }
+
+    public static Specification<Ride> fareAtMost(BigDecimal max) {
+        return (root, q, cb) -> cb.or(cb.isNull(root.get("fare")), cb.lessThanOrEqualTo(root.get("fare"), max));
+    }
+
+    /** Combines every populated filter field with the Active status constraint. */
+    public static Specification<Ride> activeMatching(RideSearchFilter f) {
+        Specification<Ride> spec = hasStatus(STATUS_ACTIVE);
+        if (f.getOrigin() != null && !f.getOrigin().isBlank()) spec = spec.and(origin(f.getOrigin()));
+        if (f.getDestination() != null && !f.getDestination().isBlank()) spec = spec.and(destination(f.getDestination()));
+        if (f.getDate() != null) spec = spec.and(onDate(f.getDate()));
+        if (f.getInstant() != null) spec = spec.and(instantBooking(f.getInstant()));
+        if (f.getAfter() != null) spec = spec.and(arrivalNotBefore(f.getAfter()));
+        if (f.getBefore() != null) spec = spec.and(arrivalNotAfter(f.getBefore()));
+        spec = spec.and(seatsAtLeast(Math.max(1, f.getPassengers())));
+        if (f.getMinFare() != null) spec = spec.and(fareAtLeast(f.getMinFare()));
+        if (f.getMaxFare() != null) spec = spec.and(fareAtMost(f.getMaxFare()));
+        return spec;
+    }
+
+    /** Maps the public sort keys to SQL ordering; id is appended so pages are stable. */
+    public static Sort sortFor(String sort) {
+        Sort byId = Sort.by(Sort.Order.asc("id"));
+        if (sort == null) return byId;
+        return switch (sort) {
+            case "earliest" -> Sort.by(Sort.Order.asc("arrivalTime").nullsLast()).and(byId);
+            case "price" -> Sort.by(Sort.Order.asc("fare").nullsFirst()).and(byId); // null fare == free == 0
+            default -> byId;
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package com.orangemantra.rideservice.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * The columns a ride list shows, read without hydrating a Ride: no participants collection, no persistence-context
+ * entry, and carDetails decrypted only for the rows actually returned. The version keys cached list views
+ * (RideViewCache). Built by {@link RideSummaryQueries}.
+ */
+public record RideSummary(Long id, String ownerEmpId, String origin, String destination,
+                          Double originLat, Double originLng, Double destinationLat, Double destinationLng,
+                          LocalDate date, String arrivalTime, String carDetails, Integer totalSeats, Integer availableSeats,
+                          BigDecimal fare, String status, Boolean instantBookingEnabled,
+                          Integer routeDistanceMeters, Integer routeDurationSeconds, String driverNote, Long version) {
+}
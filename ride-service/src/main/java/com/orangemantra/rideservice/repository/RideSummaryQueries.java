@@ -0,0 +1,13 @@
+package com.orangemantra.rideservice.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.orangemantra.rideservice.model.Ride;
+
+/** Specification queries that select {@link RideSummary} rows instead of Ride entities (fragment of RideRepository). */
+public interface RideSummaryQueries {
+    List<RideSummary> findSummaries(Specification<Ride> spec, Sort sort, long offset, int limit);
+}
@@ -0,0 +1,38 @@
+package com.orangemantra.rideservice.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import com.orangemantra.rideservice.model.Ride;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+class RideSummaryQueriesImpl implements RideSummaryQueries {
+    private final EntityManager em;
+
+    @Override
+    public List<RideSummary> findSummaries(Specification<Ride> spec, Sort sort, long offset, int limit) {
+        if (limit < 1 || offset > Integer.MAX_VALUE) return List.of();
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<RideSummary> q = cb.createQuery(RideSummary.class);
+        Root<Ride> r = q.from(Ride.class);
+        q.select(cb.construct(RideSummary.class, r.get("id"), r.get("ownerEmpId"), r.get("origin"), r.get("destination"),
+                r.get("originLat"), r.get("originLng"), r.get("destinationLat"), r.get("destinationLng"),
+                r.get("date"), r.get("arrivalTime"), r.get("carDetails"), r.get("totalSeats"), r.get("availableSeats"),
+                r.get("fare"), r.get("status"), r.get("instantBookingEnabled"),
+                r.get("routeDistanceMeters"), r.get("routeDurationSeconds"), r.get("driverNote"), r.get("version")));
+        Predicate where = spec != null ? spec.toPredicate(r, q, cb) : null;
+        if (where != null) q.where(where);
+        if (sort != null && sort.isSorted()) q.orderBy(QueryUtils.toOrders(sort, r, cb));
+        return em.createQuery(q).setFirstResult((int) offset).setMaxResults(limit).getResultList();
+    }
+}
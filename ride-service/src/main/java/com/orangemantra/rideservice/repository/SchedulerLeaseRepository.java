@@ -0,0 +1,28 @@
+package com.orangemantra.rideservice.repository;
+
+import com.orangemantra.rideservice.model.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    // Take over (or renew) the lease when we already own it or the previous holder let it lapse.
+    @Transactional @Modifying
+    @Query("UPDATE SchedulerLease l SET l.owner = :owner, l.leaseUntil = :until WHERE l.name = :name AND (l.owner = :owner OR l.leaseUntil < :now)")
+    int tryAcquire(@Param("name") String name,
+                   @Param("owner") String owner,
+                   @Param("now") Instant now,
+                   @Param("until") Instant until);
+
+    // Plain INSERT (not merge) so a concurrent first acquisition fails on the primary key instead of overwriting.
+    @Transactional @Modifying
+    @Query(value = "INSERT INTO scheduler_leases (name, owner, lease_until) VALUES (:name, :owner, :until)", nativeQuery = true)
+    int insertLease(@Param("name") String name,
+                    @Param("owner") String owner,
+                    @Param("until") Instant until);
+}
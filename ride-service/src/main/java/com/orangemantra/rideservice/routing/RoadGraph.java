@@ -0,0 +1,96 @@
+package com.orangemantra.rideservice.routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only road network mapped straight from a file written by {@link RoadGraphWriter}; nothing is copied onto
+ * the heap, so opening a metro-sized graph takes milliseconds and the OS page cache holds the data.
+ * <p>
+ * File layout (little-endian ints):
+ * <pre>
+ * header     MAGIC, VERSION, nodeCount, edgeCount, landmarkCount
+ * nodes      lat[nodeCount], lng[nodeCount]                    microdegrees
+ * adjacency  firstEdge[nodeCount + 1]                          outgoing edges of v are firstEdge[v] .. firstEdge[v+1]-1
+ * edges      target[edgeCount], meters[edgeCount], deciseconds[edgeCount]
+ * landmarks  node[landmarkCount],
+ *            from[landmarkCount * nodeCount], to[landmarkCount * nodeCount]   travel deciseconds, UNREACHABLE if none
+ * </pre>
+ * The landmark tables are the preprocessing for A* with landmarks (ALT), computed once when the file is written.
+ */
+public final class RoadGraph {
+    static final int MAGIC = 0x52475048; // "RGPH"
+    static final int VERSION = 1;
+    static final int HEADER_INTS = 5;
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final int nodeCount, edgeCount, landmarkCount;
+    private final IntBuffer lat, lng, firstEdge, target, meters, deciseconds, landmarks, fromLandmark, toLandmark;
+
+    private RoadGraph(ByteBuffer data) {
+        IntBuffer all = data.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        if (all.limit() < HEADER_INTS || all.get(0) != MAGIC) throw new IllegalArgumentException("Not a road graph file");
+        if (all.get(1) != VERSION) throw new IllegalArgumentException("Unsupported road graph version " + all.get(1));
+        nodeCount = all.get(2);
+        edgeCount = all.get(3);
+        landmarkCount = all.get(4);
+        long expected = HEADER_INTS + 3L * nodeCount + 1 + 3L * edgeCount + landmarkCount + 2L * landmarkCount * nodeCount;
+        if (nodeCount < 0 || edgeCount < 0 || landmarkCount < 0 || all.limit() != expected) {
+            throw new IllegalArgumentException("Truncated or corrupt road graph file");
+        }
+        int at = HEADER_INTS;
+        lat = section(all, at, nodeCount); at += nodeCount;
+        lng = section(all, at, nodeCount); at += nodeCount;
+        firstEdge = section(all, at, nodeCount + 1); at += nodeCount + 1;
+        target = section(all, at, edgeCount); at += edgeCount;
+        meters = section(all, at, edgeCount); at += edgeCount;
+        deciseconds = section(all, at, edgeCount); at += edgeCount;
+        landmarks = section(all, at, landmarkCount); at += landmarkCount;
+        fromLandmark = section(all, at, landmarkCount * nodeCount); at += landmarkCount * nodeCount;
+        toLandmark = section(all, at, landmarkCount * nodeCount);
+    }
+
+    /** Maps the file read-only; the mapping stays valid after the channel is closed. */
+    public static RoadGraph open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new RoadGraph(data);
+        }
+    }
+
+    private static IntBuffer section(IntBuffer all, int from, int length) {
+        return all.slice(from, length);
+    }
+
+    public int nodeCount() { return nodeCount; }
+
+    public int edgeCount() { return edgeCount; }
+
+    int landmarkCount() { return landmarkCount; }
+
+    double lat(int node) { return lat.get(node) / 1e6; }
+
+    double lng(int node) { return lng.get(node) / 1e6; }
+
+    int firstEdge(int node) { return firstEdge.get(node); }
+
+    int target(int edge) { return target.get(edge); }
+
+    int meters(int edge) { return meters.get(edge); }
+
+    int deciseconds(int edge) { return deciseconds.get(edge); }
+
+    int landmark(int i) { return landmarks.get(i); }
+
+    /** Travel time from landmark i to the node, or UNREACHABLE. */
+    int fromLandmark(int i, int node) { return fromLandmark.get(i * nodeCount + node); }
+
+    /** Travel time from the node to landmark i, or UNREACHABLE. */
+    int toLandmark(int i, int node) { return toLandmark.get(i * nodeCount + node); }
+}
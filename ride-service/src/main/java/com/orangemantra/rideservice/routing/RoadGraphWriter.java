@@ -0,0 +1,198 @@
+package com.orangemantra.rideservice.routing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the binary file {@link RoadGraph} maps: nodes, edges in adjacency (CSR) order, and the ALT landmark
+ * tables, which are the expensive part and the reason the graph is preprocessed offline instead of at startup.
+ * <p>
+ * Also runnable as a converter for a trimmed OSM extract exported to CSV (e.g. with osmium + ogr2ogr):
+ * <pre>
+ * java -cp ride-service.jar -Dloader.main=com.orangemantra.rideservice.routing.RoadGraphWriter \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher nodes.csv edges.csv gurgaon.graph [landmarks]
+ *
+ * nodes.csv  osmNodeId,lat,lng
+ * edges.csv  fromOsmNodeId,toOsmNodeId,meters,speedKmh,oneway(0|1)
+ * </pre>
+ */
+public final class RoadGraphWriter {
+    public static final int DEFAULT_LANDMARKS = 8;
+
+    private int nodeCount, edgeCount;
+    private int[] lat = new int[1024], lng = new int[1024];
+    private int[] from = new int[1024], to = new int[1024], meters = new int[1024], deciseconds = new int[1024];
+
+    /** Adds a node and returns its id (ids are dense, in insertion order). */
+    public int addNode(double latitude, double longitude) {
+        if (nodeCount == lat.length) {
+            lat = Arrays.copyOf(lat, nodeCount * 2);
+            lng = Arrays.copyOf(lng, nodeCount * 2);
+        }
+        lat[nodeCount] = (int) Math.round(latitude * 1e6);
+        lng[nodeCount] = (int) Math.round(longitude * 1e6);
+        return nodeCount++;
+    }
+
+    /** Adds a road segment driven at {@code speedKmh}; two-way roads get an edge in each direction. */
+    public void addRoad(int a, int b, int lengthMeters, double speedKmh, boolean oneway) {
+        int time = (int) Math.max(1, Math.round(lengthMeters / (speedKmh / 3.6) * 10));
+        addEdge(a, b, lengthMeters, time);
+        if (!oneway) addEdge(b, a, lengthMeters, time);
+    }
+
+    private void addEdge(int a, int b, int lengthMeters, int time) {
+        if (a < 0 || b < 0 || a >= nodeCount || b >= nodeCount) throw new IllegalArgumentException("Unknown node in edge " + a + " -> " + b);
+        if (edgeCount == from.length) {
+            from = Arrays.copyOf(from, edgeCount * 2);
+            to = Arrays.copyOf(to, edgeCount * 2);
+            meters = Arrays.copyOf(meters, edgeCount * 2);
+            deciseconds = Arrays.copyOf(deciseconds, edgeCount * 2);
+        }
+        from[edgeCount] = a;
+        to[edgeCount] = b;
+        meters[edgeCount] = Math.max(0, lengthMeters);
+        deciseconds[edgeCount] = time;
+        edgeCount++;
+    }
+
+    public void write(Path file, int landmarkCount) throws IOException {
+        int n = nodeCount, m = edgeCount;
+        Csr forward = Csr.of(n, m, from, to, new int[][]{meters, deciseconds});
+        Csr backward = Csr.of(n, m, to, from, new int[][]{deciseconds});
+        int k = Math.min(landmarkCount, n);
+        int[] landmarkNodes = new int[k];
+        int[][] fromL = new int[k][], toL = new int[k][];
+        // farthest-point selection: each new landmark is the node worst covered by the ones picked so far
+        int[] closest = new int[n];
+        Arrays.fill(closest, RoadGraph.UNREACHABLE);
+        int next = 0;
+        for (int i = 0; i < k; i++) {
+            landmarkNodes[i] = next;
+            fromL[i] = dijkstra(forward, 1, next);
+            toL[i] = dijkstra(backward, 0, next);
+            long farthest = -1;
+            for (int v = 0; v < n; v++) {
+                closest[v] = Math.min(closest[v], fromL[i][v]);
+                if (closest[v] != RoadGraph.UNREACHABLE && closest[v] > farthest) { farthest = closest[v]; next = v; }
+            }
+        }
+
+        long ints = RoadGraph.HEADER_INTS + 3L * n + 1 + 3L * m + k + 2L * k * n;
+        if (ints > Integer.MAX_VALUE / 4) throw new IllegalArgumentException("Road graph too large for one mapping");
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Ints w = new Ints(out);
+            w.put(RoadGraph.MAGIC, RoadGraph.VERSION, n, m, k);
+            w.put(lat, n);
+            w.put(lng, n);
+            w.put(forward.first, n + 1);
+            w.put(forward.target, m);
+            w.put(forward.weights[0], m);
+            w.put(forward.weights[1], m);
+            w.put(landmarkNodes, k);
+            for (int[] d : fromL) w.put(d, n);
+            for (int[] d : toL) w.put(d, n);
+            w.flush();
+        }
+    }
+
+    /** Single-source travel times over weight column {@code weight}. */
+    private static int[] dijkstra(Csr g, int weight, int source) {
+        int[] dist = new int[g.first.length - 1];
+        Arrays.fill(dist, RoadGraph.UNREACHABLE);
+        dist[source] = 0;
+        LongHeap heap = new LongHeap();
+        heap.push((long) 0 << 32 | source);
+        while (!heap.isEmpty()) {
+            long top = heap.pop();
+            int v = (int) top, d = (int) (top >>> 32);
+            if (d != dist[v]) continue;
+            for (int e = g.first[v]; e < g.first[v + 1]; e++) {
+                int u = g.target[e];
+                long nd = (long) d + g.weights[weight][e];
+                if (nd < dist[u]) {
+                    dist[u] = (int) nd;
+                    heap.push(nd << 32 | u);
+                }
+            }
+        }
+        return dist;
+    }
+
+    /** Adjacency arrays: edges grouped by source node via a counting sort, with their weight columns. */
+    private record Csr(int[] first, int[] target, int[][] weights) {
+        static Csr of(int n, int m, int[] source, int[] dest, int[][] columns) {
+            int[] first = new int[n + 1];
+            for (int e = 0; e < m; e++) first[source[e] + 1]++;
+            for (int v = 0; v < n; v++) first[v + 1] += first[v];
+            int[] fill = Arrays.copyOf(first, n);
+            int[] target = new int[m];
+            int[][] weights = new int[columns.length][m];
+            for (int e = 0; e < m; e++) {
+                int at = fill[source[e]]++;
+                target[at] = dest[e];
+                for (int c = 0; c < columns.length; c++) weights[c][at] = columns[c][e];
+            }
+            return new Csr(first, target, weights);
+        }
+    }
+
+    /** Buffered little-endian int writer. */
+    private static final class Ints {
+        private final FileChannel out;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+        Ints(FileChannel out) { this.out = out; }
+
+        void put(int... values) throws IOException { put(values, values.length); }
+
+        void put(int[] values, int length) throws IOException {
+            for (int i = 0; i < length; i++) {
+                if (!buf.hasRemaining()) flush();
+                buf.putInt(values[i]);
+            }
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) out.write(buf);
+            buf.clear();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("usage: RoadGraphWriter nodes.csv edges.csv out.graph [landmarks]");
+            System.exit(2);
+        }
+        RoadGraphWriter writer = new RoadGraphWriter();
+        Map<Long, Integer> ids = new HashMap<>();
+        try (BufferedReader in = Files.newBufferedReader(Path.of(args[0]))) {
+            for (String line; (line = in.readLine()) != null; ) {
+                String[] f = line.split(",");
+                if (f.length < 3 || !Character.isDigit(f[0].trim().charAt(0))) continue; // header
+                ids.put(Long.parseLong(f[0].trim()), writer.addNode(Double.parseDouble(f[1].trim()), Double.parseDouble(f[2].trim())));
+            }
+        }
+        try (BufferedReader in = Files.newBufferedReader(Path.of(args[1]))) {
+            for (String line; (line = in.readLine()) != null; ) {
+                String[] f = line.split(",");
+                if (f.length < 5 || !Character.isDigit(f[0].trim().charAt(0))) continue;
+                Integer a = ids.get(Long.parseLong(f[0].trim())), b = ids.get(Long.parseLong(f[1].trim()));
+                if (a == null || b == null) continue; // clipped at the extract boundary
+                writer.addRoad(a, b, (int) Math.round(Double.parseDouble(f[2].trim())), Double.parseDouble(f[3].trim()), "1".equals(f[4].trim()));
+            }
+        }
+        writer.write(Path.of(args[2]), args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_LANDMARKS);
+        System.out.printf("Wrote %s: %d nodes, %d edges%n", args[2], writer.nodeCount, writer.edgeCount);
+    }
+}
@@ -0,0 +1,227 @@
+package com.orangemantra.rideservice.routing;
+
+import com.orangemantra.rideservice.util.GeoUtils;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fastest-path queries over a {@link RoadGraph}: A* guided by the graph's landmark tables (ALT), which is exact
+ * and typically settles a small fraction of the nodes plain Dijkstra would.
+ * <p>
+ * Coordinates are snapped to the nearest graph node through a grid built when the router is created (the only
+ * per-node data on the heap); the straight-line access legs to and from those nodes are added to the result.
+ * Search scratch space (four {@code int[nodeCount]} arrays) lives in a small pool bounded by the routing concurrency:
+ * a query borrows one, resets it by a generation stamp and hands it back, so steady-state queries allocate nothing
+ * and request threads that never route hold no scratch at all. When every scratch is busy, the query waits for one.
+ */
+public final class RoadRouter {
+    static final double SNAP_MAX_METERS = 1000;
+    private static final double ACCESS_SPEED_MPS = 20 / 3.6;   // leaving/joining the road network
+    private static final double CELL_DEGREES = 0.005;
+    private static final int LNG_CELLS = (int) Math.ceil(360 / CELL_DEGREES);
+
+    /** A route between two points: driving distance and time. */
+    public record Leg(int meters, int seconds, int settledNodes) {}
+
+    private final RoadGraph graph;
+    private final boolean useLandmarks;
+    private final long[] cells; // sorted (cellKey << 32 | node)
+    private final int maxSearches;
+    private final BlockingQueue<Search> idle;
+    private final AtomicInteger created = new AtomicInteger();
+
+    public RoadRouter(RoadGraph graph) {
+        this(graph, Runtime.getRuntime().availableProcessors());
+    }
+
+    /** {@code maxConcurrentSearches} caps how many queries run at once, and so how many scratch arrays exist. */
+    public RoadRouter(RoadGraph graph, int maxConcurrentSearches) {
+        this(graph, true, maxConcurrentSearches);
+    }
+
+    /** Plain Dijkstra over the same graph, ignoring its landmarks: the baseline the benchmarks and tests compare with. */
+    public static RoadRouter dijkstraBaseline(RoadGraph graph) {
+        return new RoadRouter(graph, false, Runtime.getRuntime().availableProcessors());
+    }
+
+    private RoadRouter(RoadGraph graph, boolean useLandmarks, int maxConcurrentSearches) {
+        this.graph = graph;
+        this.useLandmarks = useLandmarks && graph.landmarkCount() > 0;
+        int n = graph.nodeCount();
+        cells = new long[n];
+        for (int v = 0; v < n; v++) cells[v] = cellKey(latIndex(graph.lat(v)), lngIndex(graph.lng(v))) << 32 | v;
+        Arrays.sort(cells);
+        maxSearches = Math.max(1, maxConcurrentSearches);
+        idle = new ArrayBlockingQueue<>(maxSearches);
+    }
+
+    public RoadGraph graph() { return graph; }
+
+    /** Driving route between two points, or empty when either is off the network or no road connects them. */
+    public Optional<Leg> route(double fromLat, double fromLng, double toLat, double toLng) {
+        int s = nearestNode(fromLat, fromLng), t = nearestNode(toLat, toLng);
+        if (s < 0 || t < 0) return Optional.empty();
+        Leg core = shortest(s, t);
+        if (core == null) return Optional.empty();
+        double access = GeoUtils.distanceMeters(fromLat, fromLng, graph.lat(s), graph.lng(s))
+                + GeoUtils.distanceMeters(graph.lat(t), graph.lng(t), toLat, toLng);
+        return Optional.of(new Leg(core.meters() + (int) Math.round(access),
+                core.seconds() + (int) Math.round(access / ACCESS_SPEED_MPS), core.settledNodes()));
+    }
+
+    /** Nearest node within {@link #SNAP_MAX_METERS}, or -1. */
+    int nearestNode(double lat, double lng) {
+        if (!GeoUtils.isValid(lat, lng)) return -1;
+        double dLat = GeoUtils.latDegrees(SNAP_MAX_METERS), dLng = GeoUtils.lngDegrees(SNAP_MAX_METERS, lat);
+        int best = -1;
+        double bestMeters = SNAP_MAX_METERS;
+        for (int la = latIndex(lat - dLat); la <= latIndex(lat + dLat); la++) {
+            for (long lo = (long) Math.floor((lng - dLng + 180) / CELL_DEGREES); lo <= (long) Math.floor((lng + dLng + 180) / CELL_DEGREES); lo++) {
+                long key = cellKey(la, Math.floorMod(lo, LNG_CELLS));
+                for (int k = lowerBound(cells, key << 32); k < cells.length && cells[k] >>> 32 == key; k++) {
+                    int v = (int) cells[k];
+                    double d = GeoUtils.distanceMeters(lat, lng, graph.lat(v), graph.lng(v));
+                    if (d <= bestMeters) { bestMeters = d; best = v; }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Fastest path between two nodes (travel time is the cost), or null if the target is unreachable
+     * (or the thread was interrupted while waiting for scratch space).
+     */
+    Leg shortest(int source, int target) {
+        Search q = borrow();
+        if (q == null) return null;
+        try {
+            return search(q, source, target);
+        } finally {
+            idle.offer(q);
+        }
+    }
+
+    /** Scratch arrays created so far; never more than the concurrency limit. */
+    int searchesCreated() { return created.get(); }
+
+    private Search borrow() {
+        Search q = idle.poll();
+        if (q != null) return q;
+        for (int c = created.get(); c < maxSearches; c = created.get()) {
+            if (created.compareAndSet(c, c + 1)) return new Search(graph.nodeCount());
+        }
+        try {
+            return idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private Leg search(Search q, int source, int target) {
+        q.start(this, target);
+        q.touch(source);
+        if (q.h[source] == RoadGraph.UNREACHABLE) return null;
+        q.g[source] = 0;
+        q.meters[source] = 0;
+        q.heap.push((long) q.h[source] << 32 | source);
+        int settled = 0;
+        while (!q.heap.isEmpty()) {
+            long top = q.heap.pop();
+            int v = (int) top;
+            if ((int) (top >>> 32) != q.g[v] + q.h[v]) continue; // superseded by a cheaper entry
+            settled++;
+            if (v == target) return new Leg(q.meters[v], (q.g[v] + 5) / 10, settled);
+            for (int e = graph.firstEdge(v), end = graph.firstEdge(v + 1); e < end; e++) {
+                int u = graph.target(e);
+                q.touch(u);
+                long g = (long) q.g[v] + graph.deciseconds(e);
+                if (g < q.g[u] && q.h[u] != RoadGraph.UNREACHABLE) {
+                    q.g[u] = (int) g;
+                    q.meters[u] = q.meters[v] + graph.meters(e);
+                    q.heap.push((g + q.h[u]) << 32 | u);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * ALT lower bound on the travel time from v to the target, by the triangle inequality over every landmark;
+     * UNREACHABLE when a landmark proves the target cannot be reached from v.
+     */
+    private int heuristic(Search q, int v) {
+        if (!useLandmarks) return 0;
+        int best = 0;
+        for (int i = 0; i < q.fromLandmarkToTarget.length; i++) {
+            int lv = graph.fromLandmark(i, v), lt = q.fromLandmarkToTarget[i];
+            if (lv != RoadGraph.UNREACHABLE && lt != RoadGraph.UNREACHABLE) best = Math.max(best, lt - lv);
+            int vl = graph.toLandmark(i, v), tl = q.targetToLandmark[i];
+            if (vl != RoadGraph.UNREACHABLE && tl != RoadGraph.UNREACHABLE) best = Math.max(best, vl - tl);
+            else if (vl == RoadGraph.UNREACHABLE && tl != RoadGraph.UNREACHABLE) return RoadGraph.UNREACHABLE; // v -> t -> L would reach L
+        }
+        return best;
+    }
+
+    /** Pooled scratch arrays; entries are only valid when {@code stamp[v] == generation}. */
+    private static final class Search {
+        final int[] g, meters, h, stamp;
+        final LongHeap heap = new LongHeap();
+        int[] fromLandmarkToTarget = new int[0], targetToLandmark = new int[0];
+        int generation;
+        RoadRouter router;
+
+        Search(int n) {
+            g = new int[n];
+            meters = new int[n];
+            h = new int[n];
+            stamp = new int[n];
+        }
+
+        void start(RoadRouter router, int target) {
+            this.router = router;
+            if (++generation == 0) { Arrays.fill(stamp, 0); generation = 1; }
+            heap.clear();
+            RoadGraph graph = router.graph;
+            int k = router.useLandmarks ? graph.landmarkCount() : 0;
+            if (fromLandmarkToTarget.length != k) { fromLandmarkToTarget = new int[k]; targetToLandmark = new int[k]; }
+            for (int i = 0; i < k; i++) {
+                fromLandmarkToTarget[i] = graph.fromLandmark(i, target);
+                targetToLandmark[i] = graph.toLandmark(i, target);
+            }
+        }
+
+        void touch(int v) {
+            if (stamp[v] == generation) return;
+            stamp[v] = generation;
+            g[v] = Integer.MAX_VALUE;
+            h[v] = router.heuristic(this, v);
+        }
+    }
+
+    private static int lowerBound(long[] a, long key) {
+        int lo = 0, hi = a.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static long cellKey(int latIndex, int lngIndex) {
+        return (long) latIndex * LNG_CELLS + lngIndex;
+    }
+
+    private static int latIndex(double lat) {
+        return Math.max(0, Math.min((int) Math.ceil(180 / CELL_DEGREES) - 1, (int) Math.floor((lat + 90) / CELL_DEGREES)));
+    }
+
+    private static int lngIndex(double lng) {
+        return Math.floorMod((int) Math.floor((lng + 180) / CELL_DEGREES), LNG_CELLS);
+    }
+}
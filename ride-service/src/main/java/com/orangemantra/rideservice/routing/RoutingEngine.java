@@ -0,0 +1,58 @@
+package com.orangemantra.rideservice.routing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Server-side driving distance/ETA from the offline road graph at {@code ride.routing.graph-file}.
+ * <p>
+ * Optional: without a configured (or readable) graph file every estimate is empty and callers keep using
+ * whatever the client sent. No network access is involved at any point.
+ */
+@Slf4j
+@Component
+public class RoutingEngine {
+    private final RoadRouter router;
+    private final Timer queryTimer;
+
+    public RoutingEngine(@Value("${ride.routing.graph-file:}") String graphFile,
+                         @Value("${ride.routing.max-concurrent:0}") int maxConcurrent,
+                         MeterRegistry meterRegistry) {
+        this.router = load(graphFile, maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors());
+        this.queryTimer = Timer.builder("ride.routing.query").register(meterRegistry);
+    }
+
+    private static RoadRouter load(String graphFile, int maxConcurrent) {
+        if (graphFile == null || graphFile.isBlank()) return null;
+        Path path = Path.of(graphFile);
+        if (!Files.isReadable(path)) {
+            log.warn("Road graph {} not found; server-side routing disabled", path);
+            return null;
+        }
+        try {
+            long started = System.nanoTime();
+            RoadRouter router = new RoadRouter(RoadGraph.open(path), maxConcurrent);
+            log.info("Mapped road graph {} ({} nodes, {} edges) in {} ms", path, router.graph().nodeCount(),
+                    router.graph().edgeCount(), (System.nanoTime() - started) / 1_000_000);
+            return router;
+        } catch (Exception e) {
+            log.warn("Could not load road graph {}; server-side routing disabled: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    public boolean isAvailable() { return router != null; }
+
+    /** Driving distance and time between two points; empty when routing is off or no road connects them. */
+    public Optional<RoadRouter.Leg> estimate(double fromLat, double fromLng, double toLat, double toLng) {
+        if (router == null) return Optional.empty();
+        return queryTimer.record(() -> router.route(fromLat, fromLng, toLat, toLng));
+    }
+}
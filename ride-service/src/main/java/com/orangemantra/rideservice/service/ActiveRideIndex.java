@@ -0,0 +1,764 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.dto.NearbyQuery;
+import com.orangemantra.rideservice.dto.RideSearchFilter;
+import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.repository.RideRepository;
+import com.orangemantra.rideservice.util.GeoUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory, column-oriented copy of every Active ride, used to answer /ride/active searches
+ * without touching MySQL.
+ * <p>
+ * Each field the search filters or sorts on lives in its own primitive array (fare in cents, arrival
+ * minute-of-day, available seats, dictionary-encoded origin/destination), and origin, destination, date
+ * and instant booking have BitSet indexes so a filter combination is a few word-wise ANDs followed by a
+ * scan over the surviving rows only. Pickup/drop coordinates are held the same way and pickups are
+ * bucketed into a multi-level grid, which backs the /ride/nearby radius search.
+ * <p>
+ * Readers work on an immutable {@link Snapshot} and never lock. Writers derive the next snapshot and swap
+ * it in: a new ride is appended, a changed ride is patched in its slot, a closed ride is only cleared from
+ * the live bitmap, and only the touched columns/bitmaps are copied. Dead slots are compacted away once
+ * they pile up, and on every resync.
+ * <p>
+ * Kept current by RideService/RideExpiryService on this replica and by a periodic resync from the
+ * database, which also picks up rides changed on other replicas.
+ * <p>
+ * Every write that changes a row bumps the "ride set version", globally, for the origin/destination pair of the
+ * row before and after the change, and for its owner; cached search results and response ETags are valid while
+ * their version is unchanged (see {@link #versionOf}, {@link #versionOfOwner}). Once loaded, each of those
+ * versions is also recorded in a bounded {@link RideChangeLog} that backs the /ride/active/changes feed, and
+ * handed to {@link ChangeListener}s once the write lock is released.
+ */
+@Slf4j
+@Component
+public class ActiveRideIndex {
+    static final int NO_FARE = -1;            // null fare == free ride
+    static final short NO_TIME = -1;          // missing/malformed arrivalTime
+    static final int NO_DAY = Integer.MIN_VALUE;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int COMPACT_MIN_DEAD = 64;
+
+    /** One indexed ride; also the writer-side source of truth the snapshots are built from. */
+    record Row(long id, String origin, String destination, double originLat, double originLng, double destinationLat,
+               double destinationLng, LocalDate date, short minute, long deadline, int fareCents, byte seats,
+               boolean instant, long version, String ownerEmpId) {
+
+        static Row of(Long id, String origin, String destination, Double originLat, Double originLng, Double destinationLat,
+                      Double destinationLng, LocalDate date, String arrivalTime, BigDecimal fare, int availableSeats,
+                      boolean instant, Long version, String ownerEmpId) {
+            short minute = NO_TIME;
+            if (arrivalTime != null) {
+                try {
+                    LocalTime t = LocalTime.parse(arrivalTime);
+                    minute = (short) (t.getHour() * 60 + t.getMinute());
+                } catch (Exception ignored) {}
+            }
+            LocalDateTime due = RideExpiryService.deadlineOf(date, arrivalTime);
+            return new Row(id, origin, destination, coord(originLat), coord(originLng), coord(destinationLat), coord(destinationLng),
+                    date, minute, due == null ? Long.MAX_VALUE : epochMinute(due),
+                    toCents(fare), (byte) Math.max(0, Math.min(Byte.MAX_VALUE, availableSeats)), instant, version == null ? 0 : version,
+                    ownerEmpId);
+        }
+
+        static Row of(RideRepository.IndexRow r) {
+            return of(r.getId(), r.getOrigin(), r.getDestination(), r.getOriginLat(), r.getOriginLng(), r.getDestinationLat(),
+                    r.getDestinationLng(), r.getDate(), r.getArrivalTime(), r.getFare(), r.getAvailableSeats(),
+                    r.isInstantBookingEnabled(), r.getVersion(), r.getOwnerEmpId());
+        }
+
+        static Row of(Ride r) {
+            return of(r.getId(), r.getOrigin(), r.getDestination(), r.getOriginLat(), r.getOriginLng(), r.getDestinationLat(),
+                    r.getDestinationLng(), r.getDate(), r.getArrivalTime(), r.getFare(), r.getAvailableSeats(),
+                    r.isInstantBookingEnabled(), r.getVersion(), r.getOwnerEmpId());
+        }
+
+        private static double coord(Double v) { return v == null ? Double.NaN : v; }
+
+        boolean sameExceptSeats(Row o) {
+            // record equals compares doubles bitwise, so NaN (no coordinate) matches NaN
+            return o.equals(new Row(id, origin, destination, originLat, originLng, destinationLat, destinationLng,
+                    date, minute, deadline, fareCents, o.seats, instant, o.version, ownerEmpId));
+        }
+    }
+
+    public record Nearby(long rideId, int pickupMeters, Integer dropMeters) {}
+
+    /**
+     * Told about every changed row after the write that changed it; either row may be null (added / removed).
+     * {@code version} is the ride's version after the change: the new row's, or for a removal the committed version
+     * that removed it (the version before plus one when only the id is known, as after a set-based expiry).
+     */
+    interface ChangeListener {
+        void rowChanged(Row before, Row after, long version);
+    }
+
+    private record Change(Row before, Row after, long version) {}
+
+    private final RideRepository rideRepository;
+    private final Object writeLock = new Object();
+    private final Map<Long, Row> rows = new HashMap<>(); // guarded by writeLock
+    private Set<Long> touchedDuringResync;                // guarded by writeLock; non-null while a resync is loading
+    private volatile Snapshot snapshot = Snapshot.build(List.of());
+    private volatile boolean ready;
+    private final AtomicLong version = new AtomicLong();
+    private final Map<String, Long> routeVersions = new ConcurrentHashMap<>(); // origin + '\n' + destination -> version
+    private final Map<String, Long> ownerVersions = new ConcurrentHashMap<>();
+    private final RideChangeLog changes;
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<Change> unannounced = new ArrayList<>(); // guarded by writeLock; drained after each write
+
+    public ActiveRideIndex(RideRepository rideRepository, MeterRegistry meterRegistry) {
+        this(rideRepository, meterRegistry, 10_000);
+    }
+
+    @Autowired
+    public ActiveRideIndex(RideRepository rideRepository, MeterRegistry meterRegistry,
+                           @Value("${ride.feed.capacity:10000}") int changeLogCapacity) {
+        this.rideRepository = rideRepository;
+        this.changes = new RideChangeLog(changeLogCapacity);
+        Gauge.builder("ride.index.active.size", this, i -> i.snapshot.size()).register(meterRegistry);
+    }
+
+    /** False until the first load from the database succeeded; callers fall back to SQL meanwhile. */
+    public boolean isReady() { return ready; }
+
+    public int size() { return snapshot.size(); }
+
+    /**
+     * Ids of the active rides matching the filter, sorted and paged exactly like the SQL search,
+     * except that rides already past their departure deadline are left out.
+     */
+    public List<Long> search(RideSearchFilter filter, int page, int size) {
+        if (page < 0 || size < 1) return List.of();
+        return snapshot.search(filter, page, size, epochMinute(LocalDateTime.now()));
+    }
+
+    /**
+     * Active rides whose pickup lies within {@code radiusMeters} of (lat, lng) and, when a destination is given,
+     * whose drop lies within {@code destRadiusMeters} of it; nearest first (pickup + drop distance), then by id.
+     */
+    public List<Nearby> nearby(NearbyQuery query, int page, int size) {
+        if (page < 0 || size < 1) return List.of();
+        return snapshot.nearby(query, page, size, epochMinute(LocalDateTime.now()));
+    }
+
+    /** Keeps, in order, the ids of indexed active rides that pass every filter in {@code filter} (sort is ignored). */
+    public List<Long> retain(RideSearchFilter filter, List<Long> rideIds) {
+        return snapshot.retain(filter, rideIds, epochMinute(LocalDateTime.now()));
+    }
+
+    /** Same ranking over an ad-hoc set of rides (used while the index is still loading). */
+    public static List<Nearby> nearbyAmong(Collection<RideRepository.IndexRow> rides, NearbyQuery query, int page, int size) {
+        if (page < 0 || size < 1) return List.of();
+        return Snapshot.build(rides.stream().map(Row::of).toList()).nearby(query, page, size, epochMinute(LocalDateTime.now()));
+    }
+
+    /**
+     * Version of the rides a search for this origin/destination can see: the pair's own version when both are
+     * given, otherwise the global one. Read it before searching, so a result is never filed under a newer version.
+     */
+    public long versionOf(String origin, String destination) {
+        if (origin == null || origin.isBlank() || destination == null || destination.isBlank()) return version.get();
+        return routeVersions.getOrDefault(routeKey(origin, destination), 0L);
+    }
+
+    /** Version of the owner's active rides (edits, bookings, cancellation and expiry of any of them). */
+    public long versionOfOwner(String ownerEmpId) {
+        return ownerEmpId == null ? 0 : ownerVersions.getOrDefault(ownerEmpId, 0L);
+    }
+
+    /**
+     * Up to {@code limit} changes after ride set version {@code since}, oldest first; null when they are no
+     * longer all held in the change log (or the version was not handed out by this instance).
+     */
+    List<RideChangeLog.Change> changesSince(long since, int limit) {
+        return changes.since(since, limit);
+    }
+
+    void addListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    // Outside writeLock, so listeners never hold up writers; rows of concurrent writes may arrive out of order
+    private void announce() {
+        if (listeners.isEmpty()) return;
+        List<Change> batch;
+        synchronized (writeLock) {
+            if (unannounced.isEmpty()) return;
+            batch = new ArrayList<>(unannounced);
+            unannounced.clear();
+        }
+        for (Change change : batch) {
+            for (ChangeListener l : listeners) {
+                try {
+                    l.rowChanged(change.before(), change.after(), change.version());
+                } catch (Exception e) {
+                    log.warn("Ride change listener failed for ride {}: {}", change.after() != null ? change.after().id() : change.before().id(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static String routeKey(String origin, String destination) {
+        return origin + '\n' + destination;
+    }
+
+    // Under writeLock: rows that changed (either may be null) move their routes and the global version forward
+    private void bump(Row before, Row after, long rideVersion) {
+        long v = version.incrementAndGet();
+        changes.append(v, after != null ? after.id() : before.id(), before == null ? RideChangeLog.Type.CREATED
+                : after == null ? RideChangeLog.Type.REMOVED
+                : before.seats() != after.seats() && before.sameExceptSeats(after) ? RideChangeLog.Type.SEATS_CHANGED
+                : RideChangeLog.Type.UPDATED);
+        if (ready && !listeners.isEmpty()) unannounced.add(new Change(before, after, rideVersion));
+        for (Row r : new Row[]{before, after}) {
+            if (r == null) continue;
+            routeVersions.put(routeKey(r.origin(), r.destination()), v);
+            if (r.ownerEmpId() != null) ownerVersions.put(r.ownerEmpId(), v);
+        }
+    }
+
+    // WRITES ---------------------------------------------------------------------------------
+    /** Records the current state of a ride; anything not Active is dropped from the index. */
+    public void upsert(Ride ride) {
+        if (ride == null || ride.getId() == null) return;
+        if (!"Active".equalsIgnoreCase(ride.getStatus())) {
+            remove(List.of(ride.getId()), ride.getVersion());
+            return;
+        }
+        Row row = Row.of(ride);
+        synchronized (writeLock) {
+            Row old = rows.get(row.id());
+            if (old != null && old.version() > row.version()) return; // a later commit already got here first
+            rows.put(row.id(), row);
+            if (!row.equals(old)) bump(old, row, row.version());
+            if (touchedDuringResync != null) touchedDuringResync.add(row.id());
+            Snapshot current = snapshot;
+            int pos = current.position(row.id());
+            if (pos >= 0) {
+                snapshot = old != null && current.isLive(pos) && old.sameExceptSeats(row) ? current.withSeats(pos, row.seats()) : current.put(pos, row);
+            } else if (current.slots() == 0 || row.id() > current.lastId()) {
+                snapshot = current.put(current.slots(), row); // ids grow, so new rides append
+            } else {
+                snapshot = Snapshot.build(rows.values());
+            }
+        }
+        announce();
+    }
+
+    /** Drops rides whose committed versions are unknown here, e.g. after a set-based UPDATE: each was one write. */
+    public void remove(Collection<Long> rideIds) {
+        remove(rideIds, null);
+    }
+
+    private void remove(Collection<Long> rideIds, Long committedVersion) {
+        if (rideIds.isEmpty()) return;
+        synchronized (writeLock) {
+            Snapshot next = snapshot;
+            for (Long id : rideIds) {
+                if (touchedDuringResync != null) touchedDuringResync.add(id);
+                Row old = rows.remove(id);
+                if (old == null) continue;
+                bump(old, null, committedVersion != null ? committedVersion : old.version() + 1);
+                int pos = next.position(id);
+                if (pos >= 0 && next.isLive(pos)) next = next.without(pos);
+            }
+            if (next.dead() > Math.max(COMPACT_MIN_DEAD, next.slots() / 4)) next = Snapshot.build(rows.values());
+            snapshot = next;
+        }
+        announce();
+    }
+
+    /** Reloads all active rides (narrow projection, no participants) and replaces the index. */
+    @Scheduled(initialDelayString = "${ride.index.initial-delay-ms:0}", fixedDelayString = "${ride.index.resync-ms:30000}")
+    public void resync() {
+        synchronized (writeLock) { touchedDuringResync = new HashSet<>(); }
+        Map<Long, Row> fresh = new HashMap<>();
+        try {
+            for (RideRepository.IndexRow r : rideRepository.findActiveIndexRows()) {
+                fresh.put(r.getId(), Row.of(r));
+            }
+        } catch (Exception e) {
+            synchronized (writeLock) { touchedDuringResync = null; }
+            log.warn("Active ride index resync failed (ready={}): {}", ready, e.getMessage());
+            return;
+        }
+        synchronized (writeLock) {
+            // local writes that landed while the query ran are newer than what it returned
+            for (Long id : touchedDuringResync) {
+                Row live = rows.get(id);
+                if (live != null) fresh.put(id, live); else fresh.remove(id);
+            }
+            touchedDuringResync = null;
+            for (Map.Entry<Long, Row> e : fresh.entrySet()) {
+                Row old = rows.get(e.getKey());
+                if (!e.getValue().equals(old)) bump(old, e.getValue(), e.getValue().version());
+            }
+            for (Row old : rows.values()) if (!fresh.containsKey(old.id())) bump(old, null, old.version() + 1);
+            rows.clear();
+            rows.putAll(fresh);
+            snapshot = Snapshot.build(rows.values());
+            if (!ready) changes.start(version.get()); // the initial load is not a change anyone has missed
+            ready = true;
+        }
+        announce();
+    }
+
+    static long epochMinute(LocalDateTime t) {
+        return t.toLocalDate().toEpochDay() * MINUTES_PER_DAY + t.getHour() * 60L + t.getMinute();
+    }
+
+    static int toCents(BigDecimal fare) {
+        if (fare == null) return NO_FARE;
+        BigDecimal cents = fare.movePointRight(2).setScale(0, RoundingMode.HALF_UP);
+        return cents.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) >= 0 ? Integer.MAX_VALUE : Math.max(0, cents.intValue());
+    }
+
+    /**
+     * Column store. Slots are ordered by ride id, so slot order is the default sort order and ties in the
+     * other sort keys fall back to id for free. Never mutated once published: every write method returns
+     * a new snapshot that shares whatever it did not touch.
+     * <p>
+     * Pickups are also kept in a grid at three cell sizes (~1 km, ~11 km, ~111 km). Each level is one sorted
+     * long[] of (cellKey << 32 | slot), so a cell lookup is a binary search and a radius query visits only
+     * the few cells covering its bounding box at the finest level that keeps that number small.
+     */
+    static final class Snapshot {
+        private static final double[] CELL_DEGREES = {0.01, 0.1, 1.0};
+        private static final int MAX_CELLS_PER_QUERY = 256;
+
+        private long[] ids;
+        private int[] origin;
+        private int[] destination;
+        private int[] day;              // epoch day, NO_DAY when unset
+        private short[] minute;
+        private long[] deadline;
+        private int[] fareCents;
+        private byte[] seats;
+        private double[] originLat, originLng, destinationLat, destinationLng;
+        private BitSet live;
+        private BitSet instant;
+        private int dead;
+        private Map<String, Integer> places;        // origin/destination dictionary
+        private Map<Integer, BitSet> byOrigin;
+        private Map<Integer, BitSet> byDestination;
+        private Map<Integer, BitSet> byDay;
+        private long[][] cells;
+
+        private Snapshot() {}
+
+        private Snapshot(Snapshot s) {
+            ids = s.ids; origin = s.origin; destination = s.destination; day = s.day; minute = s.minute;
+            deadline = s.deadline; fareCents = s.fareCents; seats = s.seats;
+            originLat = s.originLat; originLng = s.originLng; destinationLat = s.destinationLat; destinationLng = s.destinationLng;
+            live = s.live; instant = s.instant; dead = s.dead;
+            places = s.places; byOrigin = s.byOrigin; byDestination = s.byDestination; byDay = s.byDay; cells = s.cells;
+        }
+
+        static Snapshot build(Collection<Row> source) {
+            Row[] sorted = source.toArray(new Row[0]);
+            Arrays.sort(sorted, (a, b) -> Long.compare(a.id(), b.id()));
+            int n = sorted.length;
+            Snapshot s = new Snapshot();
+            s.ids = new long[n];
+            s.origin = new int[n];
+            s.destination = new int[n];
+            s.day = new int[n];
+            s.minute = new short[n];
+            s.deadline = new long[n];
+            s.fareCents = new int[n];
+            s.seats = new byte[n];
+            s.originLat = new double[n];
+            s.originLng = new double[n];
+            s.destinationLat = new double[n];
+            s.destinationLng = new double[n];
+            s.live = new BitSet(n);
+            s.live.set(0, n);
+            s.instant = new BitSet(n);
+            s.places = new HashMap<>();
+            s.byOrigin = new HashMap<>();
+            s.byDestination = new HashMap<>();
+            s.byDay = new HashMap<>();
+            int located = 0;
+            for (int i = 0; i < n; i++) {
+                s.fill(i, sorted[i]);
+                s.byOrigin.computeIfAbsent(s.origin[i], k -> new BitSet(n)).set(i);
+                s.byDestination.computeIfAbsent(s.destination[i], k -> new BitSet(n)).set(i);
+                s.byDay.computeIfAbsent(s.day[i], k -> new BitSet(n)).set(i);
+                if (GeoUtils.isValid(s.originLat[i], s.originLng[i])) located++;
+            }
+            s.cells = new long[CELL_DEGREES.length][];
+            for (int level = 0; level < CELL_DEGREES.length; level++) {
+                long[] entries = new long[located];
+                int k = 0;
+                for (int i = 0; i < n; i++) {
+                    if (GeoUtils.isValid(s.originLat[i], s.originLng[i])) entries[k++] = cellEntry(level, s.originLat[i], s.originLng[i], i);
+                }
+                Arrays.sort(entries);
+                s.cells[level] = entries;
+            }
+            return s;
+        }
+
+        // Columns only; the caller owns the arrays (fresh or copied) and maintains bitmaps/cells
+        private void fill(int i, Row r) {
+            ids[i] = r.id();
+            origin[i] = encode(places, r.origin());
+            destination[i] = encode(places, r.destination());
+            day[i] = r.date() == null ? NO_DAY : (int) r.date().toEpochDay();
+            minute[i] = r.minute();
+            deadline[i] = r.deadline();
+            fareCents[i] = r.fareCents();
+            seats[i] = r.seats();
+            originLat[i] = r.originLat();
+            originLng[i] = r.originLng();
+            destinationLat[i] = r.destinationLat();
+            destinationLng[i] = r.destinationLng();
+            instant.set(i, r.instant());
+        }
+
+        private static int encode(Map<String, Integer> places, String place) {
+            return place == null ? -1 : places.computeIfAbsent(place, k -> places.size());
+        }
+
+        int size() { return ids.length - dead; }
+
+        int slots() { return ids.length; }
+
+        int dead() { return dead; }
+
+        long lastId() { return ids[ids.length - 1]; }
+
+        boolean isLive(int pos) { return live.get(pos); }
+
+        int position(long id) { return Arrays.binarySearch(ids, id); }
+
+        // COPY-ON-WRITE UPDATES ---------------------------------------------------------------
+        /** Same snapshot with one seat count changed; every other column is shared. */
+        Snapshot withSeats(int pos, byte value) {
+            Snapshot s = new Snapshot(this);
+            s.seats = seats.clone();
+            s.seats[pos] = value;
+            return s;
+        }
+
+        /** Writes a row into an existing slot (live or dead) or, with pos == slots(), appends it. */
+        Snapshot put(int pos, Row row) {
+            boolean append = pos == ids.length;
+            int n = append ? pos + 1 : ids.length;
+            // what the slot is indexed under right now; an appended slot is indexed under nothing yet
+            Integer oldOrigin = append ? null : origin[pos];
+            Integer oldDestination = append ? null : destination[pos];
+            Integer oldDay = append ? null : day[pos];
+            long[] oldCells = new long[CELL_DEGREES.length];
+            for (int level = 0; level < oldCells.length; level++) {
+                oldCells[level] = append || !GeoUtils.isValid(originLat[pos], originLng[pos]) ? -1 : cellEntry(level, originLat[pos], originLng[pos], pos);
+            }
+
+            Snapshot s = new Snapshot(this);
+            s.ids = Arrays.copyOf(ids, n);
+            s.origin = Arrays.copyOf(origin, n);
+            s.destination = Arrays.copyOf(destination, n);
+            s.day = Arrays.copyOf(day, n);
+            s.minute = Arrays.copyOf(minute, n);
+            s.deadline = Arrays.copyOf(deadline, n);
+            s.fareCents = Arrays.copyOf(fareCents, n);
+            s.seats = Arrays.copyOf(seats, n);
+            s.originLat = Arrays.copyOf(originLat, n);
+            s.originLng = Arrays.copyOf(originLng, n);
+            s.destinationLat = Arrays.copyOf(destinationLat, n);
+            s.destinationLng = Arrays.copyOf(destinationLng, n);
+            s.instant = (BitSet) instant.clone();
+            if (!places.containsKey(row.origin()) || !places.containsKey(row.destination())) s.places = new HashMap<>(places);
+            s.fill(pos, row);
+            if (!live.get(pos)) {
+                s.live = (BitSet) live.clone();
+                s.live.set(pos);
+                if (!append) s.dead--;
+            }
+            s.byOrigin = moveBit(byOrigin, oldOrigin, s.origin[pos], pos);
+            s.byDestination = moveBit(byDestination, oldDestination, s.destination[pos], pos);
+            s.byDay = moveBit(byDay, oldDay, s.day[pos], pos);
+            boolean located = GeoUtils.isValid(row.originLat(), row.originLng());
+            s.cells = cells.clone();
+            for (int level = 0; level < CELL_DEGREES.length; level++) {
+                long entry = located ? cellEntry(level, row.originLat(), row.originLng(), pos) : -1;
+                if (entry != oldCells[level]) s.cells[level] = moveEntry(cells[level], oldCells[level], entry);
+            }
+            return s;
+        }
+
+        /** Marks a slot dead; its stale bitmap/cell entries are masked by the live bitmap until compaction. */
+        Snapshot without(int pos) {
+            Snapshot s = new Snapshot(this);
+            s.live = (BitSet) live.clone();
+            s.live.clear(pos);
+            s.dead++;
+            return s;
+        }
+
+        /** Moves slot {@code pos} from one posting list to another; {@code from} is null for a new slot. */
+        private static Map<Integer, BitSet> moveBit(Map<Integer, BitSet> index, Integer from, int to, int pos) {
+            if (from != null && from == to) return index;
+            Map<Integer, BitSet> copy = new HashMap<>(index);
+            BitSet old = from == null ? null : copy.get(from);
+            if (old != null) {
+                BitSet cleared = (BitSet) old.clone();
+                cleared.clear(pos);
+                copy.put(from, cleared);
+            }
+            BitSet target = copy.get(to);
+            BitSet set = target == null ? new BitSet() : (BitSet) target.clone();
+            set.set(pos);
+            copy.put(to, set);
+            return copy;
+        }
+
+        /** Sorted array with {@code remove} taken out and {@code add} put in; -1 means none. */
+        private static long[] moveEntry(long[] entries, long remove, long add) {
+            long[] out = entries;
+            if (remove >= 0) {
+                int at = Arrays.binarySearch(out, remove);
+                if (at >= 0) {
+                    long[] shorter = new long[out.length - 1];
+                    System.arraycopy(out, 0, shorter, 0, at);
+                    System.arraycopy(out, at + 1, shorter, at, out.length - at - 1);
+                    out = shorter;
+                }
+            }
+            if (add >= 0) {
+                int at = lowerBound(out, add);
+                long[] longer = new long[out.length + 1];
+                System.arraycopy(out, 0, longer, 0, at);
+                longer[at] = add;
+                System.arraycopy(out, at, longer, at + 1, out.length - at);
+                out = longer;
+            }
+            return out;
+        }
+
+        // SEARCH ------------------------------------------------------------------------------
+        List<Long> search(RideSearchFilter f, int page, int size, long nowMinute) {
+            BitSet candidates = candidates(f);
+            if (candidates == null) return List.of();
+            RowFilter rows = new RowFilter(f, nowMinute);
+            int[] matches = new int[candidates.cardinality()];
+            int count = 0;
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                if (rows.test(this, i)) matches[count++] = i;
+            }
+
+            int from = (int) Math.min((long) page * size, count);
+            int to = (int) Math.min((long) from + size, count);
+            if (from >= to) return List.of();
+            int[] ordered = sortBy(f.getSort(), matches, count);
+            List<Long> result = new ArrayList<>(to - from);
+            for (int k = from; k < to; k++) result.add(ids[ordered[k]]);
+            return result;
+        }
+
+        /** The given ids, in their order, that are indexed and pass every filter; sort and paging are ignored. */
+        List<Long> retain(RideSearchFilter f, List<Long> rideIds, long nowMinute) {
+            BitSet candidates = candidates(f);
+            if (candidates == null) return List.of();
+            RowFilter rows = new RowFilter(f, nowMinute);
+            List<Long> result = new ArrayList<>();
+            for (Long id : rideIds) {
+                int i = position(id);
+                if (i >= 0 && candidates.get(i) && rows.test(this, i)) result.add(id);
+            }
+            return result;
+        }
+
+        /** Live slots passing the bitmap-indexed filters, or null when one of them matches nothing. */
+        private BitSet candidates(RideSearchFilter f) {
+            BitSet candidates = (BitSet) live.clone();
+            if (f.getOrigin() != null && !f.getOrigin().isBlank() && !narrow(candidates, byOrigin.get(places.get(f.getOrigin())))) return null;
+            if (f.getDestination() != null && !f.getDestination().isBlank() && !narrow(candidates, byDestination.get(places.get(f.getDestination())))) return null;
+            if (f.getDate() != null && !narrow(candidates, byDay.get((int) f.getDate().toEpochDay()))) return null;
+            if (f.getInstant() != null) {
+                if (f.getInstant()) candidates.and(instant); else candidates.andNot(instant);
+            }
+            return candidates;
+        }
+
+        /** The per-row filters (seats, deadline, time window, fare), with the bounds converted once. */
+        private static final class RowFilter {
+            private final long nowMinute;
+            private final int needed, after, before, minCents, maxCents;
+            private final boolean paidOnly, capped;
+
+            RowFilter(RideSearchFilter f, long nowMinute) {
+                this.nowMinute = nowMinute;
+                needed = Math.max(1, f.getPassengers());
+                after = f.getAfter() == null ? -1 : ceilMinute(f.getAfter());
+                before = f.getBefore() == null ? Integer.MAX_VALUE : f.getBefore().getHour() * 60 + f.getBefore().getMinute();
+                paidOnly = f.getMinFare() != null && f.getMinFare().signum() > 0;
+                minCents = paidOnly ? boundCents(f.getMinFare(), RoundingMode.CEILING) : 0;
+                capped = f.getMaxFare() != null;
+                maxCents = capped ? boundCents(f.getMaxFare(), RoundingMode.FLOOR) : 0;
+            }
+
+            /** A fare bound in cents, clamped to the int range like {@link #toCents} so huge bounds cannot wrap. */
+            private static int boundCents(BigDecimal fare, RoundingMode rounding) {
+                BigDecimal cents = fare.movePointRight(2).setScale(0, rounding);
+                if (cents.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) >= 0) return Integer.MAX_VALUE;
+                if (cents.compareTo(BigDecimal.valueOf(Integer.MIN_VALUE)) <= 0) return Integer.MIN_VALUE;
+                return cents.intValue();
+            }
+
+            boolean test(Snapshot s, int i) {
+                if (s.seats[i] < needed || s.deadline[i] <= nowMinute) return false;
+                int m = s.minute[i];
+                if (m != NO_TIME && (m < after || m > before)) return false;
+                int fare = s.fareCents[i];
+                if (paidOnly && (fare == NO_FARE || fare < minCents)) return false;
+                return !capped || fare == NO_FARE || fare <= maxCents;
+            }
+        }
+
+        private static boolean narrow(BitSet candidates, BitSet index) {
+            if (index == null) return false;
+            candidates.and(index);
+            return true;
+        }
+
+        private static int ceilMinute(LocalTime t) {
+            return t.getHour() * 60 + t.getMinute() + (t.getSecond() > 0 || t.getNano() > 0 ? 1 : 0);
+        }
+
+        /** Sorts slots on a packed (key, slot) long; slot order is id order, which breaks ties. */
+        private int[] sortBy(String sort, int[] matches, int count) {
+            if (!"earliest".equals(sort) && !"price".equals(sort)) return matches; // already in id order
+            long[] keyed = new long[count];
+            for (int k = 0; k < count; k++) {
+                int i = matches[k];
+                long key = "earliest".equals(sort)
+                        ? (minute[i] == NO_TIME ? MINUTES_PER_DAY : minute[i])  // missing times last
+                        : (long) fareCents[i] + 1;                               // free rides (NO_FARE) first
+                keyed[k] = (key << 32) | i;
+            }
+            Arrays.sort(keyed);
+            int[] ordered = new int[count];
+            for (int k = 0; k < count; k++) ordered[k] = (int) keyed[k];
+            return ordered;
+        }
+
+        List<Nearby> nearby(NearbyQuery q, int page, int size, long nowMinute) {
+            boolean withDrop = q.getDestLat() != null && q.getDestLng() != null;
+            double destRadius = q.getDestRadiusMeters() != null ? q.getDestRadiusMeters() : q.getRadiusMeters();
+            int needed = Math.max(1, q.getPassengers());
+            BitSet onDate = q.getDate() == null ? null : byDay.get((int) q.getDate().toEpochDay());
+            if (q.getDate() != null && onDate == null) return List.of();
+            int[] candidates = pickupCandidates(q.getLat(), q.getLng(), q.getRadiusMeters());
+            Arrays.sort(candidates); // cells come in grid order; slot order is id order, the tie-break
+            // per surviving candidate k: slot, distances and a packed (total distance << 32 | k) sort key
+            int[] pos = new int[candidates.length], pickup = new int[candidates.length], drop = new int[candidates.length];
+            long[] ranked = new long[candidates.length];
+            int count = 0;
+            for (int i : candidates) {
+                if (!live.get(i) || seats[i] < needed || deadline[i] <= nowMinute || (onDate != null && !onDate.get(i))) continue;
+                double p = GeoUtils.distanceMeters(q.getLat(), q.getLng(), originLat[i], originLng[i]);
+                if (p > q.getRadiusMeters()) continue;
+                double d = 0;
+                if (withDrop) {
+                    d = GeoUtils.distanceMeters(q.getDestLat(), q.getDestLng(), destinationLat[i], destinationLng[i]);
+                    if (!(d <= destRadius)) continue; // NaN (ride without drop coordinates) fails too
+                }
+                pos[count] = i;
+                pickup[count] = (int) Math.round(p);
+                drop[count] = (int) Math.round(d);
+                ranked[count] = ((long) (pickup[count] + drop[count]) << 32) | count;
+                count++;
+            }
+            int from = (int) Math.min((long) page * size, count);
+            int to = (int) Math.min((long) from + size, count);
+            if (from >= to) return List.of();
+            Arrays.sort(ranked, 0, count);
+            List<Nearby> result = new ArrayList<>(to - from);
+            for (int r = from; r < to; r++) {
+                int k = (int) ranked[r];
+                result.add(new Nearby(ids[pos[k]], pickup[k], withDrop ? drop[k] : null));
+            }
+            return result;
+        }
+
+        /** Slots whose pickup cell intersects the query's bounding box (a superset of the final matches). */
+        private int[] pickupCandidates(double lat, double lng, double radiusMeters) {
+            double dLat = GeoUtils.latDegrees(radiusMeters);
+            double dLng = GeoUtils.lngDegrees(radiusMeters, lat);
+            int level = 0;
+            while (level < CELL_DEGREES.length - 1 && cellsCovering(level, dLat, dLng) > MAX_CELLS_PER_QUERY) level++;
+            double size = CELL_DEGREES[level];
+            int lngCells = (int) Math.ceil(360 / size);
+            int latLo = latIndex(size, lat - dLat), latHi = latIndex(size, lat + dLat);
+            long lngLo = (long) Math.floor((lng - dLng + 180) / size), lngHi = (long) Math.floor((lng + dLng + 180) / size);
+            if (lngHi - lngLo + 1 >= lngCells) { lngLo = 0; lngHi = lngCells - 1; } // box spans every longitude
+            long[] entries = cells[level];
+            int[] out = new int[16];
+            int count = 0;
+            for (int la = latLo; la <= latHi; la++) {
+                for (long lo = lngLo; lo <= lngHi; lo++) {
+                    long key = (long) la * lngCells + Math.floorMod(lo, lngCells); // wraps across the antimeridian
+                    for (int k = lowerBound(entries, key << 32); k < entries.length && (entries[k] >>> 32) == key; k++) {
+                        if (count == out.length) out = Arrays.copyOf(out, count * 2);
+                        out[count++] = (int) entries[k];
+                    }
+                }
+            }
+            return Arrays.copyOf(out, count);
+        }
+
+        private static long cellsCovering(int level, double dLat, double dLng) {
+            double size = CELL_DEGREES[level];
+            return (long) (Math.ceil(2 * dLat / size) + 1) * (long) (Math.ceil(2 * dLng / size) + 1);
+        }
+
+        private static long cellEntry(int level, double lat, double lng, int pos) {
+            double size = CELL_DEGREES[level];
+            int lngCells = (int) Math.ceil(360 / size);
+            long key = (long) latIndex(size, lat) * lngCells + Math.floorMod((int) Math.floor((lng + 180) / size), lngCells);
+            return (key << 32) | pos;
+        }
+
+        private static int latIndex(double size, double lat) {
+            int max = (int) Math.ceil(180 / size) - 1;
+            return Math.max(0, Math.min(max, (int) Math.floor((lat + 90) / size)));
+        }
+
+        private static int lowerBound(long[] a, long key) {
+            int lo = 0, hi = a.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (a[mid] < key) lo = mid + 1; else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
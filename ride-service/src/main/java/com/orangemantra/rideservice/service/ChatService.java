@@ -1,23 +1,20 @@
 package com.orangemantra.rideservice.service;
 
 import com.orangemantra.rideservice.dto.ChatDtos;
+import com.orangemantra.rideservice.dto.EmployeeProfile;
+import com.orangemantra.rideservice.messaging.ChatDelivery;
+import com.orangemantra.rideservice.model.ChatConversation;
 import com.orangemantra.rideservice.model.ChatMessage;
 import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.repository.ChatConversationRepository;
 import com.orangemantra.rideservice.repository.ChatMessageRepository;
 import com.orangemantra.rideservice.repository.RideRepository;
+import com.orangemantra.rideservice.util.CryptoUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -27,13 +24,14 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ChatService {
     private final ChatMessageRepository chatRepo;
+    private final ChatConversationRepository conversationRepo;
     private final RideRepository rideRepo;
-    private final RestTemplate restTemplate;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ChatDelivery chatDelivery;
+    private final EmployeeDirectoryService employeeDirectory;
 
     @Transactional
     public ChatDtos.MessageDTO sendMessage(String fromEmpId, ChatDtos.SendRequest req) {
-        Ride ride = rideRepo.findWithJoinedEmpIdsById(req.getRideId()).orElseThrow(() -> new RuntimeException("Ride not found"));
+        Ride ride = rideRepo.findWithParticipantsById(req.getRideId()).orElseThrow(() -> new RuntimeException("Ride not found"));
         if (!"Active".equalsIgnoreCase(ride.getStatus())) throw new RuntimeException("Ride not active; chat closed");
         if (!isOwnerPassengerPair(ride, fromEmpId, req.getToEmpId())) {
             log.warn("Chat denied: rideId={}, owner={}, joinedCount={}, from={}, to={}",
@@ -49,34 +47,38 @@ public class ChatService {
                 .ts(Instant.now())
                 .readFlag(false)
                 .build());
+        String[] pair = pair(fromEmpId, req.getToEmpId());
+        boolean toA = pair[0].equals(req.getToEmpId());
+        conversationRepo.addUnread(req.getRideId(), pair[0], pair[1], toA ? 1 : 0, toA ? 0 : 1);
+        conversationRepo.setLastMessage(req.getRideId(), pair[0], pair[1], saved.getId(), saved.getTs(), CryptoUtils.encrypt(saved.getContent()));
 
         ChatDtos.MessageDTO dto = toDto(saved);
         // send to recipient and echo back to sender
-        messagingTemplate.convertAndSendToUser(req.getToEmpId(), "/topic/chat", dto);
-        messagingTemplate.convertAndSendToUser(fromEmpId, "/topic/chat", dto);
+        chatDelivery.toUser(req.getToEmpId(), "/topic/chat", dto);
+        chatDelivery.toUser(fromEmpId, "/topic/chat", dto);
         return dto;
     }
 
-    @Transactional(readOnly = true)
+    // Not transactional: one indexed read of the summaries, then the directory lookup (possibly a remote call) with
+    // no connection held.
     public List<ChatDtos.ConversationDTO> listConversations(String me) {
-        List<ChatMessageRepository.ConversationRow> rows = chatRepo.listConversations(me);
+        List<ChatConversation> rows = conversationRepo.findInbox(me);
         if (rows.isEmpty()) return List.of();
-        Map<String, String> nameCache = new HashMap<>();
+        // resolve every conversation partner's name in one directory round trip
+        Set<String> others = rows.stream().map(c -> c.otherThan(me)).collect(Collectors.toSet());
+        Map<String, EmployeeProfile> profiles = employeeDirectory.getProfiles(others);
         List<ChatDtos.ConversationDTO> result = new ArrayList<>(rows.size());
-        HttpHeaders headers = authHeaders();
-        for (ChatMessageRepository.ConversationRow r : rows) {
-            String other = r.getOtherEmpId();
-            String otherName = nameCache.computeIfAbsent(other, id -> fetchName(id, headers));
-            // fetch latest message preview efficiently
-            List<ChatMessage> top = chatRepo.findConversation(r.getRideId(), me, other, PageRequest.of(0, 1));
-            String preview = top.isEmpty() ? "" : top.get(0).getContent();
+        for (ChatConversation c : rows) {
+            String other = c.otherThan(me);
+            EmployeeProfile p = profiles.get(other);
+            String otherName = p != null && p.getName() != null ? p.getName() : "Unknown";
             result.add(ChatDtos.ConversationDTO.builder()
-                    .rideId(r.getRideId())
+                    .rideId(c.getRideId())
                     .otherEmpId(other)
                     .otherName(otherName)
-                    .unread(Optional.ofNullable(r.getUnread()).orElse(0L))
-                    .lastTs(r.getLastTs())
-                    .lastPreview(preview)
+                    .unread(c.unreadFor(me))
+                    .lastTs(c.getLastTs())
+                    .lastPreview(Optional.ofNullable(c.getLastPreview()).orElse(""))
                     .build());
         }
         return result;
@@ -84,7 +86,7 @@ public class ChatService {
 
     @Transactional(readOnly = true)
     public List<ChatDtos.MessageDTO> listMessages(String me, Long rideId, String otherEmpId, int page, int size) {
-        Ride ride = rideRepo.findWithJoinedEmpIdsById(rideId).orElseThrow(() -> new RuntimeException("Ride not found"));
+        Ride ride = rideRepo.findWithParticipantsById(rideId).orElseThrow(() -> new RuntimeException("Ride not found"));
         if (!isOwnerPassengerPair(ride, me, otherEmpId)) throw new RuntimeException("Not a valid chat pair for this ride");
         List<ChatMessage> msgs = chatRepo.findConversation(rideId, me, otherEmpId, PageRequest.of(page, size));
         // return chronological (oldest first)
@@ -92,40 +94,53 @@ public class ChatService {
         return msgs.stream().map(this::toDto).toList();
     }
 
+    @Transactional
     public void markRead(String me, ChatDtos.ReadRequest req) {
         Instant upTo = Optional.ofNullable(req.getUpTo()).orElse(Instant.now());
         int n = chatRepo.markReadUpTo(req.getRideId(), me, req.getOtherEmpId(), upTo);
         if (n > 0) {
+            // exactly the messages flipped above; ones still being sent add themselves afterwards
+            String[] pair = pair(me, req.getOtherEmpId());
+            conversationRepo.markRead(req.getRideId(), pair[0], pair[1], pair[0].equals(me) ? 1 : 0, n);
             Map<String, Object> evt = new HashMap<>();
             evt.put("type", "read");
             evt.put("rideId", req.getRideId());
             evt.put("reader", me);
             evt.put("upTo", upTo.toEpochMilli());
-            messagingTemplate.convertAndSendToUser(req.getOtherEmpId(), "/topic/chat", evt);
+            chatDelivery.toUser(req.getOtherEmpId(), "/topic/chat", evt);
         }
     }
 
     public void notifyRideClosed(Ride ride) {
         Map<String, Object> evt = Map.of("type", "closed", "rideId", ride.getId());
         // owner
-        messagingTemplate.convertAndSendToUser(ride.getOwnerEmpId(), "/topic/chat", evt);
+        chatDelivery.toUser(ride.getOwnerEmpId(), "/topic/chat", evt);
         // joined passengers
         if (ride.getJoinedEmpIds() != null) {
             for (String p : ride.getJoinedEmpIds()) {
-                messagingTemplate.convertAndSendToUser(p, "/topic/chat", evt);
+                chatDelivery.toUser(p, "/topic/chat", evt);
             }
         }
     }
 
+    /** Batch variant used by the expiry engine; one failing ride does not stop the rest. */
+    public void notifyRidesClosed(Collection<Ride> rides) {
+        for (Ride r : rides) {
+            try { notifyRideClosed(r); } catch (Exception e) { log.warn("Closure broadcast failed rideId={}: {}", r.getId(), e.getMessage()); }
+        }
+    }
+
     @Transactional
     public void deleteConversation(String requesterEmpId, Long rideId, String otherEmpId) {
-        Ride ride = rideRepo.findWithJoinedEmpIdsById(rideId).orElseThrow(() -> new RuntimeException("Ride not found"));
+        Ride ride = rideRepo.findWithParticipantsById(rideId).orElseThrow(() -> new RuntimeException("Ride not found"));
         if (!isOwnerPassengerPair(ride, requesterEmpId, otherEmpId)) {
             log.warn("Delete denied: rideId={}, owner={}, joinedCount={}, requester={}, other={}",
                     ride.getId(), ride.getOwnerEmpId(), ride.getJoinedEmpIds() == null ? 0 : ride.getJoinedEmpIds().size(), requesterEmpId, otherEmpId);
             throw new RuntimeException("Delete allowed only between owner and joined passenger");
         }
         int n = chatRepo.deleteConversationForPair(rideId, requesterEmpId, otherEmpId);
+        String[] pair = pair(requesterEmpId, otherEmpId);
+        conversationRepo.deletePair(rideId, pair[0], pair[1]);
         log.info("Deleted {} chat messages for rideId={}, pair=({}, {})", n, rideId, requesterEmpId, otherEmpId);
         // notify both parties to refresh UI
         Map<String, Object> evt = new HashMap<>();
@@ -133,8 +148,8 @@ public class ChatService {
         evt.put("rideId", rideId);
         evt.put("by", requesterEmpId);
         evt.put("other", otherEmpId);
-        messagingTemplate.convertAndSendToUser(requesterEmpId, "/topic/chat", evt);
-        messagingTemplate.convertAndSendToUser(otherEmpId, "/topic/chat", evt);
+        chatDelivery.toUser(requesterEmpId, "/topic/chat", evt);
+        chatDelivery.toUser(otherEmpId, "/topic/chat", evt);
     }
 
     private boolean isOwnerPassengerPair(Ride ride, String a, String b) {
@@ -145,6 +160,11 @@ public class ChatService {
         return (A.equals(owner) && joined.contains(B)) || (B.equals(owner) && joined.contains(A));
     }
 
+    /** The pair as stored in chat_conversation: lesser empId first. */
+    private static String[] pair(String x, String y) {
+        return x.compareTo(y) <= 0 ? new String[]{x, y} : new String[]{y, x};
+    }
+
     private String norm(String s) { return s == null ? null : s.trim().toLowerCase(); }
 
     private ChatDtos.MessageDTO toDto(ChatMessage m) {
@@ -158,24 +178,4 @@ public class ChatService {
                 .read(m.isReadFlag())
                 .build();
     }
-
-    private HttpHeaders authHeaders() {
-        HttpHeaders headers = new HttpHeaders();
-        ServletRequestAttributes attrs = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-        if (attrs != null) {
-            String auth = attrs.getRequest().getHeader("Authorization");
-            if (auth != null) headers.set("Authorization", auth);
-        }
-        return headers;
-    }
-
-    private String fetchName(String empId, HttpHeaders headers) {
-        try {
-            ResponseEntity<String> resp = restTemplate.exchange("http://employee-service/employee/" + empId + "/name", HttpMethod.GET, new HttpEntity<>(headers), String.class);
-            return Optional.ofNullable(resp.getBody()).orElse("Unknown");
-        } catch (Exception e) {
-            log.warn("Failed fetching name for {}: {}", empId, e.getMessage());
-            return "Unknown";
-        }
-    }
 }
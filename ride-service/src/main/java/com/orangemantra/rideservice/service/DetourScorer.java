@@ -0,0 +1,121 @@
+package com.orangemantra.rideservice.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Ranks corridor matches by what picking the passenger up costs the driver: the extra distance and time of
+ * leaving the route to the pickup and drop points and coming back, plus a short stop at each.
+ * <p>
+ * The detour is the straight-line length the route gains by visiting the stops between the ends of the segments they
+ * matched ({@link RouteCorridorIndex.Match#insertionMeters()}), scaled by a road factor. It is timed at the
+ * ride's own average speed (routeDistanceMeters / routeDurationSeconds), so a stop off a highway costs less time than
+ * the same distance downtown. Scores are computed over primitive columns (in parallel for large candidate sets)
+ * and the best K are kept in a bounded max-heap, so ranking 10k candidates for one page never sorts all of them.
+ */
+public final class DetourScorer {
+    static final double ROAD_FACTOR = 1.3;           // road distance vs straight line, typical for city grids
+    static final double STOP_SECONDS = 60;           // pulling over, boarding or alighting
+    static final double DEFAULT_SPEED_MPS = 8.0;     // ~29 km/h when the route has no usable duration
+    private static final double MIN_SPEED_MPS = 2.0, MAX_SPEED_MPS = 30.0;
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    /** One ranked match with its estimated detour. */
+    public record Scored(RouteCorridorIndex.Match match, int detourMeters, int detourSeconds) {}
+
+    private DetourScorer() {}
+
+    /** The k cheapest matches for the driver, cheapest first; ties keep the order of {@code matches}. */
+    public static List<Scored> topK(List<RouteCorridorIndex.Match> matches, int k) {
+        int n = matches.size();
+        if (n == 0 || k < 1) return List.of();
+        int[] insertion = new int[n], stops = new int[n], routeMeters = new int[n], routeSeconds = new int[n];
+        for (int i = 0; i < n; i++) {
+            RouteCorridorIndex.Match m = matches.get(i);
+            insertion[i] = m.insertionMeters();
+            stops[i] = m.dropMeters() == null ? 1 : 2;
+            routeMeters[i] = m.routeMeters();
+            routeSeconds[i] = m.routeSeconds();
+        }
+        long[] keys = score(insertion, stops, routeMeters, routeSeconds);
+        long[] best = smallest(keys, k);
+        List<Scored> result = new ArrayList<>(best.length);
+        for (long key : best) {
+            int i = (int) key;
+            double meters = detourMeters(insertion[i]);
+            result.add(new Scored(matches.get(i), (int) Math.round(meters), (int) Math.round((key >>> 32) / 10.0)));
+        }
+        return result;
+    }
+
+    /**
+     * Sort keys packed as (detour deciseconds << 32 | index), so comparing longs orders by cost and then by input
+     * position. Columns are read-only and each slot of the output is written by one task, so the parallel pass
+     * needs no synchronization.
+     */
+    static long[] score(int[] insertion, int[] stops, int[] routeMeters, int[] routeSeconds) {
+        int n = insertion.length;
+        long[] keys = new long[n];
+        IntStream range = IntStream.range(0, n);
+        (n >= PARALLEL_THRESHOLD ? range.parallel() : range).forEach(i -> {
+            double seconds = detourMeters(insertion[i]) / speed(routeMeters[i], routeSeconds[i]) + stops[i] * STOP_SECONDS;
+            keys[i] = (Math.min((long) Math.round(seconds * 10), Integer.MAX_VALUE) << 32) | i;
+        });
+        return keys;
+    }
+
+    /** The k smallest keys in ascending order, via a max-heap that never holds more than k entries. */
+    static long[] smallest(long[] keys, int k) {
+        int size = 0;
+        long[] heap = new long[Math.min(k, keys.length)];
+        for (long key : keys) {
+            if (size < heap.length) {
+                heap[size] = key;
+                siftUp(heap, size++);
+            } else if (key < heap[0]) {
+                heap[0] = key;
+                siftDown(heap, size);
+            }
+        }
+        Arrays.sort(heap, 0, size);
+        return heap;
+    }
+
+    private static double detourMeters(int insertionMeters) {
+        return insertionMeters * ROAD_FACTOR;
+    }
+
+    private static double speed(int routeMeters, int routeSeconds) {
+        if (routeMeters <= 0 || routeSeconds <= 0) return DEFAULT_SPEED_MPS;
+        return Math.max(MIN_SPEED_MPS, Math.min(MAX_SPEED_MPS, (double) routeMeters / routeSeconds));
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] >= heap[i]) return;
+            swap(heap, parent, i);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1, right = left + 1, largest = i;
+            if (left < size && heap[left] > heap[largest]) largest = left;
+            if (right < size && heap[right] > heap[largest]) largest = right;
+            if (largest == i) return;
+            swap(heap, i, largest);
+            i = largest;
+        }
+    }
+
+    private static void swap(long[] a, int i, int j) {
+        long t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+}
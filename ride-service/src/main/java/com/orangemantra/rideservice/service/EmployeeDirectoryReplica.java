@@ -0,0 +1,202 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.dto.EmployeeProfile;
+import com.orangemantra.rideservice.util.JwtUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local read model of the employee directory (empId, name, email, phone).
+ * <p>
+ * Bootstrapped from the paged GET /employee/directory snapshot and kept current by the
+ * EmployeeChanged / EmployeeDeleted events on the directory-changes topic. The events only name the employee;
+ * a change is applied by re-reading that one profile through POST /employee/batch. Each entry is packed
+ * into a single byte[] (length-prefixed UTF-8 fields) so the whole company fits in a few MB.
+ * A periodic full resync heals any events lost while the consumer was down.
+ */
+@Slf4j
+@Component
+public class EmployeeDirectoryReplica {
+    private static final String DIRECTORY_URL = "http://employee-service/employee/directory?page={page}&size={size}";
+    private static final String BATCH_URL = "http://employee-service/employee/batch";
+    private static final ParameterizedTypeReference<List<EmployeeProfile>> PROFILE_LIST = new ParameterizedTypeReference<>() {};
+    private static final int NULL_FIELD = 0xFFFF;
+
+    private final RestTemplate restTemplate;
+    private final JwtUtil jwtUtil;
+    private final long resyncMillis;
+    private final int pageSize;
+
+    private volatile Map<String, byte[]> entries = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    private volatile long lastSnapshotAt;
+    private final Object lock = new Object();
+    private Set<String> touchedDuringSnapshot; // guarded by lock; non-null while a snapshot is being built
+
+    public EmployeeDirectoryReplica(RestTemplate restTemplate,
+                                    JwtUtil jwtUtil,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${ride.directory.replica.resync:6h}") Duration resync,
+                                    @Value("${ride.directory.replica.page-size:500}") int pageSize) {
+        this.restTemplate = restTemplate;
+        this.jwtUtil = jwtUtil;
+        this.resyncMillis = resync.toMillis();
+        this.pageSize = pageSize;
+        Gauge.builder("ride.directory.replica.size", this, r -> r.entries.size()).register(meterRegistry);
+    }
+
+    public boolean isReady() { return ready; }
+
+    /** Profiles held locally for the given ids; ids without an entry are absent. */
+    public Map<String, EmployeeProfile> lookup(Collection<String> empIds) {
+        Map<String, byte[]> snapshot = entries;
+        Map<String, EmployeeProfile> result = new HashMap<>(empIds.size() * 2);
+        for (String id : empIds) {
+            byte[] packed = id == null ? null : snapshot.get(id);
+            if (packed != null) result.put(id, unpack(id, packed));
+        }
+        return result;
+    }
+
+    public void upsert(String empId, String name, String email, String phone) {
+        if (empId == null || empId.isBlank()) return;
+        synchronized (lock) {
+            entries.put(empId, pack(name, email, phone));
+            if (touchedDuringSnapshot != null) touchedDuringSnapshot.add(empId);
+        }
+    }
+
+    /**
+     * Re-reads one employee after an EmployeeChanged event: upserts the current profile, or removes the entry if the
+     * directory no longer knows the id. A failed read keeps the old entry until the next resync.
+     */
+    public void refresh(String empId) {
+        if (empId == null || empId.isBlank()) return;
+        List<EmployeeProfile> rows;
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Authorization", jwtUtil.serviceAuthHeader());
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            rows = restTemplate.exchange(BATCH_URL, HttpMethod.POST, new HttpEntity<>(List.of(empId), headers), PROFILE_LIST).getBody();
+        } catch (RuntimeException e) {
+            log.warn("Directory refresh for {} failed, keeping the current entry: {}", empId, e.getMessage());
+            return;
+        }
+        EmployeeProfile current = rows == null ? null
+                : rows.stream().filter(p -> p != null && empId.equals(p.getEmpId())).findFirst().orElse(null);
+        if (current != null) upsert(empId, current.getName(), current.getEmail(), current.getPhone());
+        else remove(empId);
+    }
+
+    public void remove(String empId) {
+        if (empId == null) return;
+        synchronized (lock) {
+            entries.remove(empId);
+            if (touchedDuringSnapshot != null) touchedDuringSnapshot.add(empId);
+        }
+    }
+
+    /** Bootstraps on startup, retries until the first snapshot succeeds, then resyncs on the configured interval. */
+    @Scheduled(initialDelayString = "${ride.directory.replica.initial-delay-ms:5000}", fixedDelayString = "${ride.directory.replica.check-ms:60000}")
+    public void maintain() {
+        if (ready && System.currentTimeMillis() - lastSnapshotAt < resyncMillis) return;
+        try {
+            int n = snapshot();
+            log.info("Employee directory replica loaded {} entries", n);
+        } catch (Exception e) {
+            log.warn("Employee directory snapshot failed (ready={}): {}", ready, e.getMessage());
+        }
+    }
+
+    int snapshot() {
+        synchronized (lock) { touchedDuringSnapshot = new HashSet<>(); }
+        Map<String, byte[]> fresh = new ConcurrentHashMap<>();
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Authorization", jwtUtil.serviceAuthHeader());
+            HttpEntity<Void> entity = new HttpEntity<>(headers);
+            for (int page = 0; ; page++) {
+                List<EmployeeProfile> rows = restTemplate.exchange(DIRECTORY_URL, HttpMethod.GET, entity, PROFILE_LIST, page, pageSize).getBody();
+                if (rows == null) break;
+                for (EmployeeProfile p : rows) {
+                    if (p != null && p.getEmpId() != null) fresh.putIfAbsent(p.getEmpId(), pack(p.getName(), p.getEmail(), p.getPhone()));
+                }
+                if (rows.size() < pageSize) break;
+            }
+        } catch (RuntimeException e) {
+            synchronized (lock) { touchedDuringSnapshot = null; }
+            throw e;
+        }
+        synchronized (lock) {
+            // events that arrived while paging are newer than the snapshot rows
+            for (String id : touchedDuringSnapshot) {
+                byte[] live = entries.get(id);
+                if (live != null) fresh.put(id, live); else fresh.remove(id);
+            }
+            touchedDuringSnapshot = null;
+            entries = fresh;
+            lastSnapshotAt = System.currentTimeMillis();
+            ready = true;
+        }
+        return fresh.size();
+    }
+
+    // ENCODING: per field a 2-byte length (0xFFFF = null) followed by UTF-8 bytes ---------------------
+    static byte[] pack(String... fields) {
+        byte[][] parts = new byte[fields.length][];
+        int len = 0;
+        for (int i = 0; i < fields.length; i++) {
+            parts[i] = fields[i] == null ? null : truncate(fields[i].getBytes(StandardCharsets.UTF_8));
+            len += 2 + (parts[i] == null ? 0 : parts[i].length);
+        }
+        byte[] out = new byte[len];
+        int pos = 0;
+        for (byte[] part : parts) {
+            int n = part == null ? NULL_FIELD : part.length;
+            out[pos++] = (byte) (n >>> 8);
+            out[pos++] = (byte) n;
+            if (part != null) { System.arraycopy(part, 0, out, pos, part.length); pos += part.length; }
+        }
+        return out;
+    }
+
+    static EmployeeProfile unpack(String empId, byte[] packed) {
+        String[] f = new String[3];
+        int pos = 0;
+        for (int i = 0; i < f.length; i++) {
+            int n = ((packed[pos] & 0xFF) << 8) | (packed[pos + 1] & 0xFF);
+            pos += 2;
+            if (n == NULL_FIELD) continue;
+            f[i] = new String(packed, pos, n, StandardCharsets.UTF_8);
+            pos += n;
+        }
+        return new EmployeeProfile(empId, f[0], f[1], f[2]);
+    }
+
+    private static byte[] truncate(byte[] b) {
+        if (b.length < NULL_FIELD) return b;
+        byte[] t = new byte[NULL_FIELD - 1];
+        System.arraycopy(b, 0, t, 0, t.length);
+        return t;
+    }
+}
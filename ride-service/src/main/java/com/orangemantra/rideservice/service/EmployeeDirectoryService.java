@@ -0,0 +1,197 @@
+package com.orangemantra.rideservice.service;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.orangemantra.rideservice.dto.EmployeeProfile;
+import com.orangemantra.rideservice.dto.VehicleInfo;
+import com.orangemantra.rideservice.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Employee directory and vehicle lookups backed by bounded Caffeine caches.
+ * <p>
+ * Profiles are answered from the local {@link EmployeeDirectoryReplica} once it has loaded; the remote
+ * cache below only serves ids the replica does not know yet (e.g. before bootstrap or a brand-new hire).
+ * <p>
+ * Entries are loaded asynchronously (misses of a whole page go out as one POST /employee/batch),
+ * refreshed ahead of expiry, and "not found" answers are remembered only for a short negative TTL.
+ * Failed remote calls are never cached, so a transient employee-service blip cannot poison entries;
+ * a failed refresh keeps serving the previous value. Changes made in employee-service arrive over Kafka
+ * (DirectoryChangeListener), which is what lets the TTLs run to hours. Hit/miss/eviction/load metrics are published
+ * as {@code cache.*} meters tagged {@code cache=employeeProfile|vehicleInfo}.
+ */
+@Slf4j
+@Service
+public class EmployeeDirectoryService {
+    static final int BATCH_CHUNK = 200;
+    private static final String BATCH_URL = "http://employee-service/employee/batch";
+    private static final String VEHICLE_URL = "http://employee-service/vehicle/";
+    private static final ParameterizedTypeReference<List<EmployeeProfile>> PROFILE_LIST = new ParameterizedTypeReference<>() {};
+
+    /** Cached lookup outcome; a null value is a remembered "not found". */
+    record Lookup<T>(T value) {
+        boolean found() { return value != null; }
+    }
+
+    private final RestTemplate restTemplate;
+    private final JwtUtil jwtUtil;
+    private final EmployeeDirectoryReplica replica;
+    private final Duration lookupTimeout;
+    private final AsyncLoadingCache<String, Lookup<EmployeeProfile>> profiles;
+    private final AsyncLoadingCache<String, Lookup<VehicleInfo>> vehicles;
+
+    public EmployeeDirectoryService(RestTemplate restTemplate,
+                                    JwtUtil jwtUtil,
+                                    EmployeeDirectoryReplica replica,
+                                    MeterRegistry meterRegistry,
+                                    @Qualifier("directoryExecutor") Executor executor,
+                                    @Value("${ride.cache.employee.max-size:20000}") long employeeMaxSize,
+                                    @Value("${ride.cache.employee.ttl:6h}") Duration employeeTtl,
+                                    @Value("${ride.cache.employee.refresh:1h}") Duration employeeRefresh,
+                                    @Value("${ride.cache.vehicle.max-size:5000}") long vehicleMaxSize,
+                                    @Value("${ride.cache.vehicle.ttl:2h}") Duration vehicleTtl,
+                                    @Value("${ride.cache.vehicle.refresh:30m}") Duration vehicleRefresh,
+                                    @Value("${ride.cache.negative-ttl:30s}") Duration negativeTtl,
+                                    @Value("${ride.cache.lookup-timeout:3s}") Duration lookupTimeout) {
+        this.restTemplate = restTemplate;
+        this.jwtUtil = jwtUtil;
+        this.replica = replica;
+        this.lookupTimeout = lookupTimeout;
+        this.profiles = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(employeeMaxSize)
+                .expireAfter(EmployeeDirectoryService.<EmployeeProfile>ttl(employeeTtl, negativeTtl))
+                .refreshAfterWrite(employeeRefresh)
+                .executor(executor)
+                .recordStats()
+                .buildAsync(CacheLoader.<String, Lookup<EmployeeProfile>>bulk(this::loadProfiles)), "employeeProfile");
+        this.vehicles = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(vehicleMaxSize)
+                .expireAfter(EmployeeDirectoryService.<VehicleInfo>ttl(vehicleTtl, negativeTtl))
+                .refreshAfterWrite(vehicleRefresh)
+                .executor(executor)
+                .recordStats()
+                .buildAsync(this::loadVehicle), "vehicleInfo");
+    }
+
+    private static <T> Expiry<String, Lookup<T>> ttl(Duration found, Duration missing) {
+        return Expiry.writing((id, lookup) -> lookup.found() ? found : missing);
+    }
+
+    /**
+     * Profiles for the given ids, keyed by empId. Unknown ids are absent; if the directory is slow or down
+     * the entries already cached are returned and the rest are left for the caller's fallback.
+     */
+    public Map<String, EmployeeProfile> getProfiles(Collection<String> empIds) {
+        Set<String> ids = new LinkedHashSet<>(empIds);
+        ids.removeIf(id -> id == null || id.isBlank());
+        if (ids.isEmpty()) return Map.of();
+        Map<String, EmployeeProfile> result = new HashMap<>(ids.size() * 2);
+        if (replica.isReady()) {
+            result.putAll(replica.lookup(ids));
+            ids.removeAll(result.keySet());
+            if (ids.isEmpty()) return result;
+        }
+        Map<String, Lookup<EmployeeProfile>> lookups;
+        try {
+            lookups = profiles.getAll(ids).get(lookupTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            lookups = profiles.synchronous().getAllPresent(ids);
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("Employee lookup failed ({} ids): {}", ids.size(), e.getCause() != null ? e.getCause().getMessage() : e.toString());
+            lookups = profiles.synchronous().getAllPresent(ids);
+        }
+        lookups.forEach((id, l) -> { if (l.found()) result.put(id, l.value()); });
+        return result;
+    }
+
+    /**
+     * Vehicle registered by the employee, or null when none was submitted.
+     * Remote failures propagate so callers can tell "no vehicle" from "cannot verify right now".
+     */
+    public VehicleInfo getVehicle(String empId) {
+        try {
+            return vehicles.get(empId).get(lookupTimeout.toMillis(), TimeUnit.MILLISECONDS).value();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching vehicle", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Vehicle lookup timed out", e);
+        }
+    }
+
+    /** A profile changed upstream: reload it in the background if we hold it, keep serving the old copy meanwhile. */
+    public void employeeChanged(String empId) {
+        if (profiles.getIfPresent(empId) != null) profiles.synchronous().refresh(empId);
+    }
+
+    /** Approval state matters for offerRide, so drop the entry and let the next lookup read it fresh. */
+    public void vehicleChanged(String empId) {
+        vehicles.synchronous().invalidate(empId);
+    }
+
+    // LOADERS (run on directoryExecutor with a service token; there is no user request on refresh) --------
+    private Map<String, Lookup<EmployeeProfile>> loadProfiles(Set<? extends String> keys) {
+        List<String> ids = new ArrayList<>(keys);
+        HttpHeaders headers = serviceHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        Map<String, Lookup<EmployeeProfile>> result = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += BATCH_CHUNK) {
+            List<String> chunk = ids.subList(from, Math.min(from + BATCH_CHUNK, ids.size()));
+            ResponseEntity<List<EmployeeProfile>> resp = restTemplate.exchange(BATCH_URL, HttpMethod.POST, new HttpEntity<>(chunk, headers), PROFILE_LIST);
+            if (resp.getBody() != null) {
+                for (EmployeeProfile p : resp.getBody()) {
+                    if (p != null && p.getEmpId() != null) result.put(p.getEmpId(), new Lookup<>(p));
+                }
+            }
+        }
+        for (String id : ids) result.putIfAbsent(id, new Lookup<>(null));
+        return result;
+    }
+
+    private Lookup<VehicleInfo> loadVehicle(String empId) {
+        try {
+            ResponseEntity<VehicleInfo> resp = restTemplate.exchange(VEHICLE_URL + empId, HttpMethod.GET, new HttpEntity<>(serviceHeaders()), VehicleInfo.class);
+            return new Lookup<>(resp.getBody());
+        } catch (HttpClientErrorException.NotFound nf) {
+            return new Lookup<>(null);
+        }
+    }
+
+    private HttpHeaders serviceHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Authorization", jwtUtil.serviceAuthHeader());
+        return headers;
+    }
+}
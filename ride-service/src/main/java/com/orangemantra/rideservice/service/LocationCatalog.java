@@ -0,0 +1,39 @@
+package com.orangemantra.rideservice.service;
+
+import java.util.List;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.orangemantra.rideservice.model.Location;
+import com.orangemantra.rideservice.repository.LocationRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The pickup/drop location list, held in memory. Locations are only written at startup (LocationLoader), so the
+ * list is reloaded after seeding and then on a slow schedule. The ETag is derived from the content, so every
+ * replica hands out the same tag for the same list and a revalidation never needs the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class LocationCatalog {
+    private final LocationRepository locationRepository;
+
+    public record Snapshot(List<Location> locations, String etag) {}
+
+    private volatile Snapshot snapshot;
+
+    public Snapshot get() {
+        Snapshot s = snapshot;
+        return s != null ? s : refresh();
+    }
+
+    @Scheduled(initialDelayString = "${ride.locations.refresh-ms:300000}", fixedDelayString = "${ride.locations.refresh-ms:300000}")
+    public Snapshot refresh() {
+        List<Location> locations = List.copyOf(locationRepository.findAll());
+        Snapshot s = new Snapshot(locations, "W/\"loc-" + Integer.toHexString(locations.hashCode()) + '"');
+        snapshot = s;
+        return s;
+    }
+}
@@ -1,32 +1,25 @@
   package com.orangemantra.rideservice.service;
 
+import com.orangemantra.rideservice.dto.EmployeeProfile;
 import com.orangemantra.rideservice.messaging.NotificationProducer;
 import com.orangemantra.rideservice.model.Ride;
 import com.orangemantra.rideservice.model.Notification;
 import com.orangemantra.rideservice.repository.RideRepository;
 import com.orangemantra.rideservice.repository.NotificationRepository;
-import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 
-import java.util.Objects;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class NotificationService {
     private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
 
-    private final RestTemplate restTemplate;
+    private final EmployeeDirectoryService employeeDirectory;
     private final RideRepository rideRepository;
     private final NotificationProducer notificationProducer;
     private final NotificationRepository notificationRepository;
@@ -34,21 +27,9 @@ public class NotificationService {
     @Async
     public void notifyRideOwnerOnJoin(Long rideId, String empId) {
         try {
-            ServletRequestAttributes attrs = (ServletRequestAttributes) Objects.requireNonNull(RequestContextHolder.getRequestAttributes());
-            HttpServletRequest currentRequest = attrs.getRequest();
-            String authHeader = currentRequest.getHeader("Authorization");
-
-            HttpHeaders headers = new HttpHeaders();
-            if (authHeader != null && authHeader.startsWith("Bearer ")) headers.set("Authorization", authHeader);
-            HttpEntity<Void> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    "http://employee-service/employee/" + empId + "/name",
-                    HttpMethod.GET,
-                    entity,
-                    String.class
-            );
-            String employeeName = response.getBody();
+            // resolved from the local directory replica; runs fine off the request thread and during employee-service outages
+            EmployeeProfile p = employeeDirectory.getProfiles(List.of(empId)).get(empId);
+            String employeeName = p != null && p.getName() != null ? p.getName() : empId;
 
             Ride ride = rideRepository.findById(rideId)
                     .orElseThrow(() -> new RuntimeException("Ride not found"));
@@ -31,7 +31,7 @@ public class RatingService {
         if (req.getLabel() != null && !req.getLabel().isBlank() && !ALLOWED_LABELS.contains(req.getLabel()))
             throw new IllegalArgumentException("Invalid label");
 
-        Ride ride = rideRepo.findWithJoinedEmpIdsById(req.getRideId())
+        Ride ride = rideRepo.findWithParticipantsById(req.getRideId())
                 .orElseThrow(() -> new IllegalArgumentException("Ride not found"));
         // allow rating once ride date is in past OR status != Active
         if (ride.getDate() != null && ride.getDate().isAfter(LocalDate.now()))
@@ -0,0 +1,55 @@
+package com.orangemantra.rideservice.service;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.orangemantra.rideservice.dto.RideSearchFilter;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Weak ETags for the ride list reads, derived from counters that are already in memory so a revalidation can be
+ * answered with 304 before any query runs or any DTO is built. A tag names everything the response depends on:
+ * <ul>
+ *   <li>this instance (the counters are per replica, so another replica never matches and answers in full),</li>
+ *   <li>the ride set version of the rides shown (ActiveRideIndex),</li>
+ *   <li>the directory generation (names and phones on the DTOs), moved by DirectoryChangeListener,</li>
+ *   <li>the viewer, since phones are masked per viewer, and for /ride/active the current minute, since rides drop
+ *       out at their departure time.</li>
+ * </ul>
+ * No tag (null) means "answer in full": the index has not loaded yet, or the read is not served from it.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResponseETags {
+    private final String instance = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong directoryGeneration = new AtomicLong();
+    private final ActiveRideIndex activeRides;
+
+    /** Some employee's name, phone or account changed; every ride list may show them. */
+    public void directoryChanged() {
+        directoryGeneration.incrementAndGet();
+    }
+
+    /** ETag of a /ride/active page, or null for mode=route and while the index is loading. */
+    public String activeRides(RideSearchFilter filter, String viewerEmpId) {
+        if (filter.isAlongRoute() || !activeRides.isReady()) return null;
+        long minute = Instant.now().getEpochSecond() / 60;
+        return tag(activeRides.versionOf(filter.getOrigin(), filter.getDestination()), minute, viewerEmpId);
+    }
+
+    /** ETag of the owner's /ride/my-rides pages, or null while the index is loading. */
+    public String myRides(String ownerEmpId) {
+        if (!activeRides.isReady()) return null;
+        return tag(activeRides.versionOfOwner(ownerEmpId), 0, ownerEmpId);
+    }
+
+    private String tag(long version, long minute, String viewerEmpId) {
+        return "W/\"" + instance + '.' + version + '.' + directoryGeneration.get() + '.' + minute + '.'
+                + Integer.toHexString(Objects.hashCode(viewerEmpId)) + '"';
+    }
+}
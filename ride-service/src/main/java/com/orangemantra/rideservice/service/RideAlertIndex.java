@@ -0,0 +1,198 @@
+package com.orangemantra.rideservice.service;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.model.RideAlert;
+import com.orangemantra.rideservice.repository.RideAlertRepository;
+import com.orangemantra.rideservice.util.GeoUtils;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Every saved ride alert, held in memory as an inverted index so a published ride is matched in time proportional
+ * to the alerts it can match, not to the number of alerts stored.
+ * <p>
+ * An alert is filed under each (weekday, arrival hour) its window covers, once per route: by place names, or by
+ * every pickup grid cell its pickup circle overlaps. A ride looks up the two buckets of its own route, weekday and
+ * hour, and only those candidates are checked exactly (minute window, drop distance).
+ * <p>
+ * Loaded at startup; local creates and deletes apply immediately, and a periodic resync picks up alerts changed on
+ * other replicas. The resync loads and files every alert without the lock and only takes it to fold in local writes
+ * made meanwhile and swap the new maps in, so matching never waits on the reload.
+ */
+@Slf4j
+@Component
+public class RideAlertIndex {
+    static final int MAX_RADIUS_METERS = 3_000;
+    private static final double CELL_DEGREES = GeoUtils.latDegrees(MAX_RADIUS_METERS); // a pickup circle spans at most 2 cells per axis at the equator
+
+    /** One indexed alert; minutes are minutes of day, weekdays a DayOfWeek bitmask. */
+    record Alert(long id, String empId, String origin, String destination, double pickupLat, double pickupLng,
+                 double dropLat, double dropLng, int radiusMeters, int fromMinute, int toMinute, int weekdays) {
+
+        static Alert of(RideAlert a) {
+            return new Alert(a.getId(), a.getEmpId(), a.getOrigin(), a.getDestination(), coord(a.getPickupLat()), coord(a.getPickupLng()),
+                    coord(a.getDropLat()), coord(a.getDropLng()), a.getRadiusMeters() == null ? 0 : a.getRadiusMeters(),
+                    minuteOf(a.getEarliest()), minuteOf(a.getLatest()), a.getWeekdays() == 0 ? 0x7f : a.getWeekdays());
+        }
+
+        boolean byPlace() { return origin != null && destination != null; }
+
+        boolean matches(Ride r, int minute) {
+            if (minute < fromMinute || minute > toMinute) return false;
+            if (byPlace()) return origin.equals(r.getOrigin()) && destination.equals(r.getDestination());
+            return r.getOriginLat() != null && r.getDestinationLat() != null
+                    && GeoUtils.distanceMeters(pickupLat, pickupLng, r.getOriginLat(), r.getOriginLng()) <= radiusMeters
+                    && GeoUtils.distanceMeters(dropLat, dropLng, r.getDestinationLat(), r.getDestinationLng()) <= radiusMeters;
+        }
+
+        private static double coord(Double v) { return v == null ? Double.NaN : v; }
+    }
+
+    private final RideAlertRepository alertRepository;
+    private final Object writeLock = new Object();
+    private Map<Long, Alert> alerts = new HashMap<>();                // guarded by writeLock
+    private Map<String, Set<Alert>> buckets = new HashMap<>();        // guarded by writeLock
+    private Set<Long> touchedDuringResync;                            // guarded by writeLock; non-null while a resync is loading
+
+    public RideAlertIndex(RideAlertRepository alertRepository, MeterRegistry meterRegistry) {
+        this.alertRepository = alertRepository;
+        Gauge.builder("ride.alerts.indexed", this, RideAlertIndex::size).register(meterRegistry);
+    }
+
+    public int size() {
+        synchronized (writeLock) { return alerts.size(); }
+    }
+
+    /** Alerts (of anyone but the owner) the ride matches. */
+    public List<Alert> match(Ride ride) {
+        if (ride.getDate() == null) return List.of();
+        int minute = minuteOf(ride.getArrivalTime());
+        if (minute < 0) return List.of();
+        int day = ride.getDate().getDayOfWeek().getValue() - 1, hour = minute / 60;
+        List<String> keys = new ArrayList<>(2);
+        if (ride.getOrigin() != null && ride.getDestination() != null) keys.add(placeKey(ride.getOrigin(), ride.getDestination(), day, hour));
+        if (ride.getOriginLat() != null && ride.getOriginLng() != null) keys.add(cellKey(cell(ride.getOriginLat()), cell(ride.getOriginLng()), day, hour));
+        List<Alert> matched = new ArrayList<>();
+        synchronized (writeLock) {
+            for (String key : keys) {
+                for (Alert a : buckets.getOrDefault(key, Set.of())) {
+                    if (!a.empId().equals(ride.getOwnerEmpId()) && a.matches(ride, minute)) matched.add(a);
+                }
+            }
+        }
+        return matched;
+    }
+
+    public void upsert(RideAlert alert) {
+        Alert next = Alert.of(alert);
+        synchronized (writeLock) {
+            if (touchedDuringResync != null) touchedDuringResync.add(next.id());
+            unfile(buckets, alerts.put(next.id(), next));
+            file(buckets, next);
+        }
+    }
+
+    public void remove(long alertId) {
+        synchronized (writeLock) {
+            if (touchedDuringResync != null) touchedDuringResync.add(alertId);
+            unfile(buckets, alerts.remove(alertId));
+        }
+    }
+
+    /** Reloads every alert into a new index built off-lock, then swaps it in. */
+    @Scheduled(initialDelayString = "${ride.alerts.initial-delay-ms:0}", fixedDelayString = "${ride.alerts.resync-ms:60000}")
+    public void resync() {
+        synchronized (writeLock) { touchedDuringResync = new HashSet<>(); }
+        Map<Long, Alert> fresh = new HashMap<>();
+        Map<String, Set<Alert>> freshBuckets = new HashMap<>();
+        try {
+            for (RideAlert a : alertRepository.findAll()) {
+                Alert next = Alert.of(a);
+                fresh.put(next.id(), next);
+                file(freshBuckets, next);
+            }
+        } catch (Exception e) {
+            synchronized (writeLock) { touchedDuringResync = null; }
+            log.warn("Ride alert resync failed: {}", e.getMessage());
+            return;
+        }
+        synchronized (writeLock) {
+            // local writes that landed while the query ran are newer than what it returned
+            for (Long id : touchedDuringResync) {
+                Alert live = alerts.get(id);
+                unfile(freshBuckets, live != null ? fresh.put(id, live) : fresh.remove(id));
+                if (live != null) file(freshBuckets, live);
+            }
+            touchedDuringResync = null;
+            alerts = fresh;
+            buckets = freshBuckets;
+        }
+    }
+
+    // Callers hold writeLock for the live maps; a resync files into its own maps before publishing them
+    private static void file(Map<String, Set<Alert>> buckets, Alert a) {
+        for (String key : keysOf(a)) buckets.computeIfAbsent(key, k -> new HashSet<>()).add(a);
+    }
+
+    private static void unfile(Map<String, Set<Alert>> buckets, Alert a) {
+        if (a == null) return;
+        for (String key : keysOf(a)) {
+            Set<Alert> bucket = buckets.get(key);
+            if (bucket != null && bucket.remove(a) && bucket.isEmpty()) buckets.remove(key);
+        }
+    }
+
+    private static List<String> keysOf(Alert a) {
+        List<String> keys = new ArrayList<>();
+        if (a.fromMinute() < 0 || a.toMinute() < a.fromMinute()) return keys;
+        for (int day = 0; day < 7; day++) {
+            if ((a.weekdays() & (1 << day)) == 0) continue;
+            for (int hour = a.fromMinute() / 60; hour <= a.toMinute() / 60; hour++) {
+                if (a.byPlace()) {
+                    keys.add(placeKey(a.origin(), a.destination(), day, hour));
+                } else if (GeoUtils.isValid(a.pickupLat(), a.pickupLng())) {
+                    double dLat = GeoUtils.latDegrees(a.radiusMeters()), dLng = GeoUtils.lngDegrees(a.radiusMeters(), a.pickupLat());
+                    for (long y = cell(a.pickupLat() - dLat); y <= cell(a.pickupLat() + dLat); y++) {
+                        for (long x = cell(a.pickupLng() - dLng); x <= cell(a.pickupLng() + dLng); x++) keys.add(cellKey(y, x, day, hour));
+                    }
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static String placeKey(String origin, String destination, int day, int hour) {
+        return origin + '\n' + destination + '\n' + day + '\n' + hour;
+    }
+
+    private static String cellKey(long y, long x, int day, int hour) {
+        return "@" + y + ',' + x + '\n' + day + '\n' + hour;
+    }
+
+    private static long cell(double degrees) {
+        return (long) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    /** Minute of day of an HH:mm time, or -1. */
+    static int minuteOf(String time) {
+        if (time == null) return -1;
+        try {
+            return LocalTime.parse(time).toSecondOfDay() / 60;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
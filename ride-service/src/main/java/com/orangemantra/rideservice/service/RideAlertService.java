@@ -0,0 +1,105 @@
+package com.orangemantra.rideservice.service;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.orangemantra.rideservice.dto.RideAlertDtos;
+import com.orangemantra.rideservice.model.RideAlert;
+import com.orangemantra.rideservice.repository.RideAlertRepository;
+import com.orangemantra.rideservice.util.GeoUtils;
+
+/** Saved ride alerts of the signed-in employee; matching against published rides lives in RideAlertIndex. */
+@Service
+public class RideAlertService {
+    private static final int DEFAULT_RADIUS_METERS = 1_000;
+
+    private final RideAlertRepository alertRepository;
+    private final RideAlertIndex alertIndex;
+    private final int maxPerEmployee;
+
+    public RideAlertService(RideAlertRepository alertRepository, RideAlertIndex alertIndex,
+                            @Value("${ride.alerts.max-per-employee:10}") int maxPerEmployee) {
+        this.alertRepository = alertRepository;
+        this.alertIndex = alertIndex;
+        this.maxPerEmployee = maxPerEmployee;
+    }
+
+    public RideAlertDtos.AlertDTO create(String empId, RideAlertDtos.CreateRequest req) {
+        boolean byPlace = notBlank(req.getOrigin()) && notBlank(req.getDestination());
+        boolean byPoints = req.getPickupLat() != null && req.getPickupLng() != null && req.getDropLat() != null && req.getDropLng() != null;
+        if (byPlace == byPoints) throw bad("Give either origin and destination, or pickup and drop coordinates");
+        Integer radius = null;
+        if (byPoints) {
+            if (!GeoUtils.isValid(req.getPickupLat(), req.getPickupLng()) || !GeoUtils.isValid(req.getDropLat(), req.getDropLng())) throw bad("Invalid coordinates");
+            radius = req.getRadiusMeters() == null ? DEFAULT_RADIUS_METERS : req.getRadiusMeters();
+            if (radius < 1 || radius > RideAlertIndex.MAX_RADIUS_METERS) throw bad("radiusMeters must be between 1 and " + RideAlertIndex.MAX_RADIUS_METERS);
+        }
+        int from = RideAlertIndex.minuteOf(req.getEarliest()), to = RideAlertIndex.minuteOf(req.getLatest());
+        if (from < 0 || to < 0 || to < from) throw bad("earliest and latest must be HH:mm times with earliest <= latest");
+        int weekdays = 0;
+        if (req.getWeekdays() != null) for (DayOfWeek d : req.getWeekdays()) if (d != null) weekdays |= 1 << (d.getValue() - 1);
+        if (alertRepository.countByEmpId(empId) >= maxPerEmployee) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "You can keep at most " + maxPerEmployee + " ride alerts");
+        }
+
+        RideAlert alert = alertRepository.save(RideAlert.builder()
+                .empId(empId)
+                .origin(byPlace ? req.getOrigin().trim() : null)
+                .destination(byPlace ? req.getDestination().trim() : null)
+                .pickupLat(byPoints ? req.getPickupLat() : null)
+                .pickupLng(byPoints ? req.getPickupLng() : null)
+                .dropLat(byPoints ? req.getDropLat() : null)
+                .dropLng(byPoints ? req.getDropLng() : null)
+                .radiusMeters(radius)
+                .earliest(hhmm(from))
+                .latest(hhmm(to))
+                .weekdays(weekdays)
+                .createdAt(Instant.now())
+                .build());
+        alertIndex.upsert(alert);
+        return toDto(alert);
+    }
+
+    public List<RideAlertDtos.AlertDTO> list(String empId) {
+        return alertRepository.findByEmpIdOrderByIdAsc(empId).stream().map(RideAlertService::toDto).toList();
+    }
+
+    public void delete(String empId, Long alertId) {
+        RideAlert alert = alertRepository.findById(alertId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ride alert not found"));
+        if (!alert.getEmpId().equals(empId)) throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Not your ride alert");
+        alertRepository.delete(alert);
+        alertIndex.remove(alertId);
+    }
+
+    private static RideAlertDtos.AlertDTO toDto(RideAlert a) {
+        List<DayOfWeek> days = new ArrayList<>();
+        for (DayOfWeek d : DayOfWeek.values()) if (a.getWeekdays() == 0 || (a.getWeekdays() & (1 << (d.getValue() - 1))) != 0) days.add(d);
+        return RideAlertDtos.AlertDTO.builder()
+                .id(a.getId())
+                .origin(a.getOrigin()).destination(a.getDestination())
+                .pickupLat(a.getPickupLat()).pickupLng(a.getPickupLng()).dropLat(a.getDropLat()).dropLng(a.getDropLng())
+                .radiusMeters(a.getRadiusMeters())
+                .earliest(a.getEarliest()).latest(a.getLatest())
+                .weekdays(days)
+                .createdAt(a.getCreatedAt())
+                .build();
+    }
+
+    private static boolean notBlank(String s) { return s != null && !s.isBlank(); }
+
+    // parsing accepts any ISO time ("08:00:30.5"); the column holds HH:mm, as Ride.arrivalTime does
+    private static String hhmm(int minuteOfDay) { return LocalTime.ofSecondOfDay(minuteOfDay * 60L).toString(); }
+
+    private static ResponseStatusException bad(String message) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+    }
+}
@@ -0,0 +1,112 @@
+package com.orangemantra.rideservice.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import com.orangemantra.rideservice.dto.RideAvailabilityDelta;
+
+/**
+ * Live seat/status deltas for open search screens. A client subscribes to the topic returned with its search
+ * (the X-Ride-Availability-Topic header of /ride/active), {@code /topic/rides/{key}} where the key is a hash of the
+ * search's origin, destination and date, and receives a {@link RideAvailabilityDelta} whenever a ride of that search
+ * is offered, booked, left, edited, cancelled or expires, on this replica or, after the next index resync, on another
+ * one. Clients never build the key themselves, so no client-side encoding has to agree with the server's.
+ * <p>
+ * Fed by ActiveRideIndex, which sees every change. Subscriptions are counted per destination from the STOMP
+ * session events, so a change costs two map lookups (the ride's search before and after) plus one send per
+ * subscribed search; changes nobody watches never reach the broker.
+ */
+@Component
+public class RideAvailabilityPublisher implements ActiveRideIndex.ChangeListener {
+    static final String PREFIX = "/topic/rides/";
+    private static final int KEY_BYTES = 16;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final Map<String, Integer> watched = new ConcurrentHashMap<>();                 // destination -> subscriptions
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();   // session -> subscription id -> destination
+
+    public RideAvailabilityPublisher(SimpMessagingTemplate messagingTemplate, ActiveRideIndex activeRides) {
+        this.messagingTemplate = messagingTemplate;
+        activeRides.addListener(this);
+    }
+
+    /** Topic of the search (origin, destination, date), compared exactly as the search compares them. */
+    public static String destination(String origin, String destination, LocalDate date) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{origin, destination, date.toString()}) {
+                byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+                sha256.update(ByteBuffer.allocate(4).putInt(bytes.length).array()); // length-prefixed: no separator can be faked
+                sha256.update(bytes);
+            }
+            return PREFIX + HexFormat.of().formatHex(sha256.digest(), 0, KEY_BYTES);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public void rowChanged(ActiveRideIndex.Row before, ActiveRideIndex.Row after, long version) {
+        String from = before == null ? null : destinationOf(before);
+        String to = after == null ? null : destinationOf(after);
+        if (from != null && !from.equals(to) && watched.containsKey(from)) {
+            // the version of the write that took it out, above every delta sent for the state it left
+            send(from, new RideAvailabilityDelta(before.id(), version, "REMOVED", null));
+        }
+        if (to != null && watched.containsKey(to)) {
+            String type = !to.equals(from) ? "CREATED"
+                    : before.seats() != after.seats() && before.sameExceptSeats(after) ? "SEATS_CHANGED" : "UPDATED";
+            send(to, new RideAvailabilityDelta(after.id(), version, type, (int) after.seats()));
+        }
+    }
+
+    private static String destinationOf(ActiveRideIndex.Row row) {
+        return row.origin() == null || row.destination() == null || row.date() == null ? null : destination(row.origin(), row.destination(), row.date());
+    }
+
+    private void send(String destination, RideAvailabilityDelta delta) {
+        messagingTemplate.convertAndSend(destination, delta);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor h = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = h.getDestination();
+        if (destination == null || !destination.startsWith(PREFIX) || h.getSessionId() == null || h.getSubscriptionId() == null) return;
+        String previous = sessions.computeIfAbsent(h.getSessionId(), s -> new ConcurrentHashMap<>()).put(h.getSubscriptionId(), destination);
+        if (previous != null) unwatch(previous);
+        watched.merge(destination, 1, Integer::sum);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor h = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subs = h.getSessionId() == null ? null : sessions.get(h.getSessionId());
+        String destination = subs == null || h.getSubscriptionId() == null ? null : subs.remove(h.getSubscriptionId());
+        if (destination != null) unwatch(destination);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subs = sessions.remove(event.getSessionId());
+        if (subs != null) subs.values().forEach(this::unwatch);
+    }
+
+    private void unwatch(String destination) {
+        watched.computeIfPresent(destination, (d, n) -> n > 1 ? n - 1 : null);
+    }
+}
@@ -0,0 +1,105 @@
+package com.orangemantra.rideservice.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import com.orangemantra.rideservice.repository.RideRepository;
+import com.orangemantra.rideservice.repository.RideSpecifications;
+import com.orangemantra.rideservice.repository.RideSummary;
+
+/**
+ * Cursors and change sets for /ride/active/changes. A cursor is {@code instance.version.millis}: the ride set
+ * version on this instance's ActiveRideIndex plus the wall-clock time it was handed out.
+ * <ul>
+ *   <li>Same instance and the version still in the index's change log: the changes are read from memory.</li>
+ *   <li>Otherwise (another replica, a restart, or a cursor older than the log) rides whose updatedAt is at or after
+ *       the cursor time, less {@code ride.feed.db-overlap}, are read from the database, as long as the cursor is
+ *       younger than {@code ride.feed.db-window} and the rides fit in one response. The overlap covers clock skew
+ *       and changes made on other replicas that had not reached the issuing instance's index yet.</li>
+ *   <li>Anything else: the client has to reload /ride/active.</li>
+ * </ul>
+ * Changes may repeat across responses; each carries the ride's current state, so applying one twice is harmless.
+ */
+@Component
+public class RideChangeFeed {
+
+    /** Ride ids with what happened to them (oldest first, one entry per ride), and the cursor to continue from. */
+    record Delta(String cursor, boolean resyncRequired, boolean hasMore, Map<Long, RideChangeLog.Type> changes) {}
+
+    private final String instance = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final ActiveRideIndex activeRides;
+    private final RideRepository rideRepository;
+    private final Duration dbWindow;
+    private final Duration dbOverlap;
+
+    public RideChangeFeed(ActiveRideIndex activeRides, RideRepository rideRepository,
+                          @Value("${ride.feed.db-window:24h}") Duration dbWindow,
+                          @Value("${ride.feed.db-overlap:60s}") Duration dbOverlap) {
+        this.activeRides = activeRides;
+        this.rideRepository = rideRepository;
+        this.dbWindow = dbWindow;
+        this.dbOverlap = dbOverlap;
+    }
+
+    /** A cursor for "now"; take it before reading the state it goes with. */
+    public String currentCursor() {
+        return cursor(activeRides.versionOf(null, null), System.currentTimeMillis());
+    }
+
+    Delta since(String cursor, int limit) {
+        long nowMillis = System.currentTimeMillis();
+        long head = activeRides.versionOf(null, null);
+        String[] parts = cursor == null ? new String[0] : cursor.split("\\.");
+        long seq, millis;
+        try {
+            if (parts.length != 3) return resync(head, nowMillis);
+            seq = Long.parseLong(parts[1]);
+            millis = Long.parseLong(parts[2]);
+        } catch (NumberFormatException e) {
+            return resync(head, nowMillis);
+        }
+
+        if (instance.equals(parts[0])) {
+            List<RideChangeLog.Change> logged = activeRides.changesSince(seq, limit);
+            if (logged != null) {
+                Map<Long, RideChangeLog.Type> changes = new LinkedHashMap<>();
+                for (RideChangeLog.Change c : logged) {
+                    RideChangeLog.Type earlier = changes.remove(c.rideId());
+                    // a ride created within the window is still new to the client unless it is gone again
+                    changes.put(c.rideId(), earlier == RideChangeLog.Type.CREATED && c.type() != RideChangeLog.Type.REMOVED ? earlier : c.type());
+                }
+                long reached = logged.isEmpty() ? seq : logged.get(logged.size() - 1).seq();
+                boolean hasMore = reached < head;
+                // a partial answer keeps the old time: everything after it has not been delivered yet
+                return new Delta(cursor(reached, hasMore ? millis : nowMillis), false, hasMore, changes);
+            }
+        }
+
+        if (millis > nowMillis || nowMillis - millis > dbWindow.toMillis()) return resync(head, nowMillis);
+        LocalDateTime from = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis - dbOverlap.toMillis()), ZoneId.systemDefault());
+        List<RideSummary> changed = rideRepository.findSummaries(RideSpecifications.updatedSince(from),
+                Sort.by(Sort.Order.asc("updatedAt"), Sort.Order.asc("id")), 0, limit + 1);
+        if (changed.size() > limit) return resync(head, nowMillis);
+        Map<Long, RideChangeLog.Type> changes = new LinkedHashMap<>();
+        for (RideSummary r : changed) changes.put(r.id(), RideChangeLog.Type.UPDATED); // the status decides the final type
+        return new Delta(cursor(head, nowMillis), false, false, changes);
+    }
+
+    private Delta resync(long head, long nowMillis) {
+        return new Delta(cursor(head, nowMillis), true, false, Map.of());
+    }
+
+    private String cursor(long seq, long millis) {
+        return instance + '.' + seq + '.' + millis;
+    }
+}
@@ -0,0 +1,52 @@
+package com.orangemantra.rideservice.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded ring of the active ride index's changes, one entry per ride set version (see ActiveRideIndex), so a
+ * client holding a version can be told exactly what changed since. The oldest entries are overwritten; a version
+ * older than what the ring still holds can no longer be answered from here.
+ * <p>
+ * Appended under the index's write lock; all access is synchronized on the log itself.
+ */
+final class RideChangeLog {
+
+    /** The log records REMOVED; readers resolve it to CANCELLED or EXPIRED from the ride's status. */
+    enum Type { CREATED, SEATS_CHANGED, UPDATED, CANCELLED, EXPIRED, REMOVED }
+
+    record Change(long seq, long rideId, Type type) {}
+
+    private final Change[] ring;
+    private long floor = -1; // every change after this seq is held; -1 until started
+    private long last;       // seq of the newest change (== floor while empty)
+
+    RideChangeLog(int capacity) {
+        this.ring = new Change[Math.max(1, capacity)];
+    }
+
+    /** Begins recording: changes up to {@code seq} are not known here. */
+    synchronized void start(long seq) {
+        floor = seq;
+        last = seq;
+    }
+
+    synchronized void append(long seq, long rideId, Type type) {
+        if (floor < 0) return;
+        ring[(int) (seq % ring.length)] = new Change(seq, rideId, type);
+        last = seq;
+        floor = Math.max(floor, seq - ring.length);
+    }
+
+    /**
+     * Up to {@code limit} changes after {@code since}, oldest first; null if some of them are no longer (or were
+     * never) held here, including versions this instance never handed out.
+     */
+    synchronized List<Change> since(long since, int limit) {
+        if (floor < 0 || since < floor || since > last) return null;
+        int n = (int) Math.min(limit, last - since);
+        List<Change> out = new ArrayList<>(n);
+        for (long seq = since + 1; out.size() < n; seq++) out.add(ring[(int) (seq % ring.length)]);
+        return out;
+    }
+}
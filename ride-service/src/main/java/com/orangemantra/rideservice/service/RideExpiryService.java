@@ -0,0 +1,137 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.repository.RideRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Background ride expiry. Upcoming ride deadlines sit in a time-ordered queue; when the head is due
+ * the replica contends for the lease, and the lease holder flips every overdue ride to Expired with
+ * one UPDATE and broadcasts chat closure for the affected rides. Request paths never trigger expiry.
+ * <p>
+ * A ride published on another replica is only in that replica's queue until the next resync, so once
+ * a replica holds the lease it runs the UPDATE on every tick, due head or not, and keeps doing so while
+ * it renews the lease. The others just drop their due deadlines: the holder's next tick covers them.
+ */
+@Slf4j
+@Service
+public class RideExpiryService {
+    static final String LEASE_NAME = "ride-expiry";
+    private static final DateTimeFormatter HH_MM = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final RideRepository rideRepository;
+    private final ChatService chatService;
+    private final SchedulerLeaseService leaseService;
+    private final ActiveRideIndex activeRides;
+    private final Duration leaseTtl;
+
+    private record Deadline(LocalDateTime due, long rideId) {}
+
+    // Guarded by this; offer/update paths add entries while the scheduler drains them
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<>((a, b) -> a.due().compareTo(b.due()));
+    private volatile boolean leading; // held the lease on the last tick
+
+    public RideExpiryService(RideRepository rideRepository,
+                             ChatService chatService,
+                             SchedulerLeaseService leaseService,
+                             ActiveRideIndex activeRides,
+                             @Value("${ride.expiry.lease-seconds:60}") long leaseSeconds) {
+        this.rideRepository = rideRepository;
+        this.chatService = chatService;
+        this.leaseService = leaseService;
+        this.activeRides = activeRides;
+        this.leaseTtl = Duration.ofSeconds(leaseSeconds);
+    }
+
+    /**
+     * Moment a ride stops being joinable: date + arrivalTime. A missing or malformed time keeps the
+     * ride alive for its whole date, matching the previous in-Java expiry rules.
+     */
+    public static LocalDateTime deadlineOf(LocalDate date, String arrivalTime) {
+        if (date == null) return null;
+        if (arrivalTime != null) {
+            try { return LocalDateTime.of(date, LocalTime.parse(arrivalTime)); } catch (Exception ignored) {}
+        }
+        return date.plusDays(1).atStartOfDay();
+    }
+
+    public static boolean isPastDeadline(Ride ride) {
+        LocalDateTime due = deadlineOf(ride.getDate(), ride.getArrivalTime());
+        return due != null && !LocalDateTime.now().isBefore(due);
+    }
+
+    /** Registers (or re-registers after an edit) the deadline of an active ride. */
+    public void track(Ride ride) {
+        if (ride == null || ride.getId() == null || !"Active".equalsIgnoreCase(ride.getStatus())) return;
+        LocalDateTime due = deadlineOf(ride.getDate(), ride.getArrivalTime());
+        if (due == null) return;
+        synchronized (this) { deadlines.add(new Deadline(due, ride.getId())); }
+    }
+
+    /** Rebuilds the queue from the database so rides published on other replicas are covered too. */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${ride.expiry.resync-ms:300000}")
+    public void resync() {
+        try {
+            List<RideRepository.DeadlineRow> rows = rideRepository.findActiveDeadlines();
+            PriorityQueue<Deadline> fresh = new PriorityQueue<>(Math.max(1, rows.size()), deadlines.comparator());
+            for (RideRepository.DeadlineRow r : rows) {
+                LocalDateTime due = deadlineOf(r.getDate(), r.getArrivalTime());
+                if (due != null) fresh.add(new Deadline(due, r.getId()));
+            }
+            synchronized (this) {
+                deadlines.clear();
+                deadlines.addAll(fresh);
+            }
+        } catch (Exception e) {
+            log.warn("Ride expiry resync failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ride.expiry.tick-ms:15000}")
+    public void tick() {
+        LocalDateTime now = LocalDateTime.now();
+        boolean due;
+        synchronized (this) {
+            Deadline head = deadlines.peek();
+            due = head != null && !head.due().isAfter(now);
+        }
+        if (!due && !leading) return;
+        // The holder scans every tick; the others drop their due deadlines, which the holder's scan covers.
+        leading = leaseService.tryAcquire(LEASE_NAME, leaseTtl);
+        if (leading) {
+            try {
+                expireDue(now);
+            } catch (Exception e) {
+                log.warn("Ride expiry run failed: {}", e.getMessage());
+                return; // keep deadlines queued so the next tick retries
+            }
+        }
+        synchronized (this) {
+            while (!deadlines.isEmpty() && !deadlines.peek().due().isAfter(now)) deadlines.poll();
+        }
+    }
+
+    /** Expires all overdue active rides in one statement and returns how many were closed. */
+    public int expireDue(LocalDateTime now) {
+        LocalDateTime stamp = now.truncatedTo(ChronoUnit.MICROS); // DATETIME(6) precision
+        int n = rideRepository.expireDue(now.toLocalDate(), now.toLocalTime().format(HH_MM), stamp);
+        if (n == 0) return 0;
+        List<Ride> expired = rideRepository.findExpiredAt(stamp);
+        activeRides.remove(expired.stream().map(Ride::getId).toList());
+        chatService.notifyRidesClosed(expired);
+        log.info("Expired {} rides", n);
+        return n;
+    }
+}
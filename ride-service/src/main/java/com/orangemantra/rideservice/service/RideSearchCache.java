@@ -0,0 +1,65 @@
+package com.orangemantra.rideservice.service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.orangemantra.rideservice.dto.RideSearchFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Ride ids of recent /ride/active result pages, keyed by the normalized filter, the page and the ride set version
+ * it was computed at (ActiveRideIndex#versionOf). Offers, joins, approvals, leaves, edits, cancellations, expiry
+ * and index resyncs move that version, so later lookups simply miss and the outdated entries age out; there is no
+ * eviction bookkeeping. The short TTL also bounds how long a page can lag the clock (rides passing their departure
+ * time).
+ * <p>
+ * Hit/miss metrics are published as {@code cache.*} meters tagged {@code cache=rideSearch}.
+ */
+@Component
+public class RideSearchCache {
+
+    /** The filter fields /ride/active matches on; blank places and fare scale differences normalize away. */
+    record Key(String origin, String destination, LocalDate date, Boolean instant, LocalTime after, LocalTime before,
+               BigDecimal minFare, BigDecimal maxFare, int passengers, String sort, int page, int size, long version) {
+
+        static Key of(RideSearchFilter f, int page, int size, long version) {
+            return new Key(place(f.getOrigin()), place(f.getDestination()), f.getDate(), f.getInstant(), f.getAfter(), f.getBefore(),
+                    fare(f.getMinFare()), fare(f.getMaxFare()), f.getPassengers(), f.getSort(), page, size, version);
+        }
+
+        private static String place(String p) { return p == null || p.isBlank() ? null : p; }
+
+        private static BigDecimal fare(BigDecimal f) { return f == null ? null : f.stripTrailingZeros(); }
+    }
+
+    private final Cache<Key, List<Long>> pages;
+
+    public RideSearchCache(MeterRegistry meterRegistry,
+                           @Value("${ride.cache.search.max-size:10000}") long maxSize,
+                           @Value("${ride.cache.search.ttl:60s}") Duration ttl) {
+        this.pages = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(), "rideSearch");
+    }
+
+    /** The page's ride ids as computed at this version, or null. */
+    public List<Long> get(RideSearchFilter filter, int page, int size, long version) {
+        return pages.getIfPresent(Key.of(filter, page, size, version));
+    }
+
+    public void put(RideSearchFilter filter, int page, int size, long version, List<Long> rideIds) {
+        pages.put(Key.of(filter, page, size, version), List.copyOf(rideIds));
+    }
+}
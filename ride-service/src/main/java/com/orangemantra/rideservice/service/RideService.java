@@ -4,62 +4,84 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.orangemantra.rideservice.dto.JoinedEmployeeDTO;
+import com.orangemantra.rideservice.dto.NearbyQuery;
+import com.orangemantra.rideservice.dto.RideChangesDTO;
+import com.orangemantra.rideservice.dto.RideDetailDTO;
 import com.orangemantra.rideservice.dto.RideResponseDTO;
+import com.orangemantra.rideservice.dto.RideRouteDTO;
+import com.orangemantra.rideservice.dto.RideSearchFilter;
+import com.orangemantra.rideservice.dto.VehicleInfo;
 import com.orangemantra.rideservice.messaging.NotificationProducer;
 import com.orangemantra.rideservice.model.Ride;
 import com.orangemantra.rideservice.repository.RideRepository;
+import com.orangemantra.rideservice.repository.RideRouteRepository;
+import com.orangemantra.rideservice.repository.RideSpecifications;
+import com.orangemantra.rideservice.repository.RideSummary;
+import com.orangemantra.rideservice.routing.RoutingEngine;
+import com.orangemantra.rideservice.util.GeoUtils;
 import com.orangemantra.rideservice.util.JwtUtil;
 
 import jakarta.servlet.http.HttpServletRequest;
-import lombok.Data;
 import lombok.RequiredArgsConstructor;
 
 @Service
 @RequiredArgsConstructor
 public class RideService {
     private final RideRepository rideRepository;
-    private final RestTemplate restTemplate;
     private final JwtUtil jwtUtil;
     private final ChatService chatService;
     private final NotificationProducer notificationProducer;
+    private final RideExpiryService rideExpiryService;
+    private final EmployeeDirectoryService employeeDirectory;
+    private final SeatReservationService seatReservations;
+    private final ActiveRideIndex activeRides;
+    private final RouteCorridorIndex corridors;
+    private final RoutingEngine routing;
+    private final RouteGeometryService routeGeometry;
+    private final RideViewCache rideViews;
+    private final RideSearchCache searchCache;
+    private final RideChangeFeed changeFeed;
+    private final RideAlertIndex rideAlerts;
     private static final Logger log = LoggerFactory.getLogger(RideService.class);
+    private static final int SEAT_RETRY_ATTEMPTS = 5;
+    private static final int NEARBY_FALLBACK_LIMIT = 2000;
+    private static final int READ_TX_TIMEOUT_SECONDS = 5;
     private static final String ACTIVE_RIDE_CONFLICT_MSG = "You already have a published ride. Please publish a new ride after the active ride ends.";
 
     // OFFER RIDE --------------------------------------------------
-    public Ride offerRide(Ride ride) {
+    public RideDetailDTO offerRide(Ride ride) {
         if (ride.getTotalSeats() > 8) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Total seats cannot exceed 8");
         }
         try {
-            ServletRequestAttributes attrs = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-            String authHeader = null;
-            if (attrs != null) {
-                HttpServletRequest req = attrs.getRequest();
-                authHeader = req.getHeader("Authorization");
+            VehicleInfo v = employeeDirectory.getVehicle(ride.getOwnerEmpId());
+            if (v == null) {
+                throw new ResponseStatusException(HttpStatus.FORBIDDEN, "No vehicle submitted. Please add your vehicle first.");
             }
-            VehicleInfo v = fetchVehicleInfoCached(ride.getOwnerEmpId(), authHeader);
-            if (v == null || v.getStatus() == null || !"APPROVED".equalsIgnoreCase(v.getStatus())) {
+            if (v.getStatus() == null || !"APPROVED".equalsIgnoreCase(v.getStatus())) {
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Vehicle not approved. Please submit vehicle details and wait for approval before offering rides.");
             }
             if (v.getCapacity() != null && ride.getTotalSeats() > v.getCapacity()) {
@@ -86,11 +108,10 @@ public class RideService {
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Unable to verify vehicle status. Try again later.");
         }
 
-        expirePastRidesInternal();
         // Conflict check: stop early on first active future ride (reduces iterations)
-        List<Ride> activeOwned = rideRepository.findByOwnerEmpIdAndStatus(ride.getOwnerEmpId(), "Active");
+        List<RideRepository.DeadlineRow> activeOwned = rideRepository.findActiveDeadlinesByOwner(ride.getOwnerEmpId());
         LocalDateTime now = LocalDateTime.now();
-        for (Ride r : activeOwned) {
+        for (RideRepository.DeadlineRow r : activeOwned) {
             if (r.getDate() == null || r.getArrivalTime() == null) throw new ResponseStatusException(HttpStatus.CONFLICT, ACTIVE_RIDE_CONFLICT_MSG);
             try {
                 LocalTime at = LocalTime.parse(r.getArrivalTime());
@@ -105,24 +126,45 @@ public class RideService {
         ride.setStatus("Active");
         ride.setCreatedAt(now);
         ride.setUpdatedAt(now);
-        if (ride.getJoinedEmpIds() == null) ride.setJoinedEmpIds(new ArrayList<>());
-        if (ride.getPendingEmpIds() == null) ride.setPendingEmpIds(new ArrayList<>());
-        return rideRepository.save(ride);
+        fillRouteEstimate(ride);
+        Ride saved = rideRepository.save(ride);
+        routeGeometry.store(saved.getId(), ride.getRouteGeometry());
+        rideExpiryService.track(saved);
+        activeRides.upsert(saved);
+        corridors.upsert(saved);
+        notifyAlertMatches(saved);
+        return toDetail(saved);
     }
 
     // BASIC CRUD HELPERS ------------------------------------------
-    public List<Ride> getRidesByOwner(String ownerEmpId) { return rideRepository.findByOwnerEmpId(ownerEmpId); }
-    public List<Ride> getRidesByOriginAndDestination(String origin, String destination) { return rideRepository.findByOriginAndDestination(origin, destination); }
-    public List<Ride> getAllRides() { return rideRepository.findAll(); }
-    public Ride getRideById(Long id) { return rideRepository.findById(id).orElseThrow(() -> new RuntimeException("Ride not found")); }
-    public List<Ride> getJoinedRides(String empId) { return rideRepository.findByJoinedEmpIdsContaining(empId); }
+    // Open-session-in-view is off: reads that return a ride map it inside their own short read-only transaction,
+    // and nothing remote (directory lookups, Kafka) runs while one is open.
+    @Transactional(readOnly = true, timeout = READ_TX_TIMEOUT_SECONDS)
+    public List<RideDetailDTO> getRidesByOriginAndDestination(String origin, String destination) {
+        return rideRepository.findByOriginAndDestination(origin, destination).stream().map(this::toDetail).toList();
+    }
+
+    private Ride loadWithParticipants(Long id) {
+        return rideRepository.findWithParticipantsById(id).orElseThrow(() -> new RuntimeException("Ride not found"));
+    }
+
+    // The edit form sends the route back on save, so it gets the full-resolution geometry
+    @Transactional(readOnly = true, timeout = READ_TX_TIMEOUT_SECONDS)
+    public RideDetailDTO getRideForEdit(Long id) {
+        Ride ride = loadWithParticipants(id);
+        ride.setRouteGeometry(routeGeometry.fullGeometry(id));
+        return toDetail(ride);
+    }
+
+    public RideRouteDTO getRoute(Long rideId, Integer zoom) {
+        return routeGeometry.forZoom(rideId, zoom).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ride has no route"));
+    }
 
     public boolean hasActiveRide(String ownerEmpId) {
-        expirePastRidesInternal();
-        List<Ride> activeOwned = rideRepository.findByOwnerEmpIdAndStatus(ownerEmpId, "Active");
+        List<RideRepository.DeadlineRow> activeOwned = rideRepository.findActiveDeadlinesByOwner(ownerEmpId);
         if (activeOwned.isEmpty()) return false;
         java.time.LocalDateTime now = java.time.LocalDateTime.now();
-        for (Ride r : activeOwned) {
+        for (RideRepository.DeadlineRow r : activeOwned) {
             if (r.getDate() == null || r.getArrivalTime() == null) return true; // treat malformed as active
             try {
                 java.time.LocalTime at = java.time.LocalTime.parse(r.getArrivalTime());
@@ -133,57 +175,64 @@ public class RideService {
     }
 
     // JOIN / APPROVAL FLOW ----------------------------------------
+    // Seat changes run in SeatReservationService under the ride row lock; lost optimistic races are retried here.
+    // The committed ride is pushed into the search index so the new seat count is visible immediately.
     public void joinRide(Long rideId, String empId, int passengers) {
-        Ride ride = getRideById(rideId);
-        if (!"Active".equalsIgnoreCase(ride.getStatus())) throw new RuntimeException("Ride is not active");
-        expirePastRidesInternal();
-        if (passengers < 1) passengers = 1;
-        if (ride.getAvailableSeats() < passengers) throw new RuntimeException("Not enough seats available");
-        if (ride.getJoinedEmpIds().contains(empId)) return; // already joined; future enhancement: allow increment? currently skip
-        if (ride.getPendingEmpIds() != null && ride.getPendingEmpIds().contains(empId)) return;
-        if (ride.isInstantBookingEnabled()) {
-            ride.getJoinedEmpIds().add(empId);
-            if (ride.getJoinedSeats() == null) ride.setJoinedSeats(new java.util.HashMap<>());
-            ride.getJoinedSeats().put(empId, passengers);
-            ride.setAvailableSeats(ride.getAvailableSeats() - passengers);
-        } else {
-            assert ride.getPendingEmpIds() != null;
-            ride.getPendingEmpIds().add(empId);
-        }
-        ride.setUpdatedAt(LocalDateTime.now());
-        rideRepository.save(ride);
+        int seats = Math.max(passengers, 1);
+        activeRides.upsert(withSeatRetry(() -> seatReservations.join(rideId, empId, seats)));
     }
 
     public void approveJoin(Long rideId, String ownerEmpId, String empId, int passengers) {
-        Ride ride = getRideById(rideId);
-        if (!ride.getOwnerEmpId().equals(ownerEmpId)) throw new RuntimeException("Not ride owner");
-        if (ride.isInstantBookingEnabled()) return; // nothing to approve
-        if (passengers < 1) passengers = 1;
-        if (ride.getAvailableSeats() < passengers) throw new RuntimeException("Not enough seats available");
-        if (ride.getPendingEmpIds().remove(empId)) {
-            if (!ride.getJoinedEmpIds().contains(empId)) {
-                ride.getJoinedEmpIds().add(empId);
-                if (ride.getJoinedSeats() == null) ride.setJoinedSeats(new java.util.HashMap<>());
-                ride.getJoinedSeats().put(empId, passengers);
-                ride.setAvailableSeats(ride.getAvailableSeats() - passengers);
+        int seats = Math.max(passengers, 1);
+        activeRides.upsert(withSeatRetry(() -> seatReservations.approve(rideId, ownerEmpId, empId, seats)));
+    }
+
+    public void declineJoin(Long rideId, String ownerEmpId, String empId) {
+        activeRides.upsert(withSeatRetry(() -> seatReservations.decline(rideId, ownerEmpId, empId)));
+    }
+
+    private <T> T withSeatRetry(Supplier<T> op) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return op.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= SEAT_RETRY_ATTEMPTS) {
+                    log.warn("Seat update gave up after {} attempts: {}", attempt, e.getMessage());
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Ride is busy right now. Please try again.");
+                }
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(5, 20L * attempt));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+                }
             }
-            ride.setUpdatedAt(LocalDateTime.now());
-            rideRepository.save(ride);
         }
     }
 
-    public void declineJoin(Long rideId, String ownerEmpId, String empId) {
-        Ride ride = getRideById(rideId);
-        if (!ride.getOwnerEmpId().equals(ownerEmpId)) throw new RuntimeException("Not ride owner");
-        if (ride.isInstantBookingEnabled()) return;
-        if (ride.getPendingEmpIds().remove(empId)) {
-            ride.setUpdatedAt(LocalDateTime.now());
-            rideRepository.save(ride);
+    public RideDetailDTO updateRide(Long rideId, Ride updatedRide) {
+        Ride saved = withSeatRetry(() -> applyRideUpdate(rideId, updatedRide));
+        rideExpiryService.track(saved);
+        activeRides.upsert(saved);
+        corridors.upsert(saved);
+        boolean beforeArrival = false;
+        try {
+            if (saved.getStatus() != null && "Active".equalsIgnoreCase(saved.getStatus()) && saved.getDate() != null && saved.getArrivalTime() != null) {
+                LocalTime at = LocalTime.parse(saved.getArrivalTime());
+                LocalDateTime scheduled = LocalDateTime.of(saved.getDate(), at);
+                beforeArrival = LocalDateTime.now().isBefore(scheduled);
+            }
+        } catch (Exception ignored) {}
+        if (beforeArrival && saved.getJoinedEmpIds() != null && !saved.getJoinedEmpIds().isEmpty()) {
+            notifyJoinedOnUpdate(saved, new ArrayList<>(saved.getJoinedEmpIds()));
         }
+        return toDetail(saved);
     }
 
-    public Ride updateRide(Long rideId, Ride updatedRide) {
-        Ride existing = getRideById(rideId);
+    // Read-modify-write guarded by @Version; seats already booked are kept, never taken from the request.
+    // Participants are fetched up front so the merged copy carries them after the transaction is gone.
+    private Ride applyRideUpdate(Long rideId, Ride updatedRide) {
+        Ride existing = loadWithParticipants(rideId);
         existing.setOrigin(updatedRide.getOrigin());
         existing.setDestination(updatedRide.getDestination());
         existing.setOriginLat(updatedRide.getOriginLat());
@@ -193,33 +242,44 @@ public class RideService {
         existing.setDate(updatedRide.getDate());
         existing.setArrivalTime(updatedRide.getArrivalTime());
         existing.setCarDetails(updatedRide.getCarDetails());
+        int booked = existing.getTotalSeats() - existing.getAvailableSeats();
+        if (updatedRide.getTotalSeats() < booked) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Total seats cannot be less than seats already booked (" + booked + ")");
+        }
         existing.setTotalSeats(updatedRide.getTotalSeats());
-        existing.setAvailableSeats(updatedRide.getAvailableSeats());
+        existing.setAvailableSeats(updatedRide.getTotalSeats() - booked);
         existing.setInstantBookingEnabled(updatedRide.isInstantBookingEnabled());
         existing.setFare(updatedRide.getFare());
-        existing.setRouteGeometry(updatedRide.getRouteGeometry());
         existing.setRouteDistanceMeters(updatedRide.getRouteDistanceMeters());
         existing.setRouteDurationSeconds(updatedRide.getRouteDurationSeconds());
         existing.setDriverNote(updatedRide.getDriverNote());
         existing.setUpdatedAt(LocalDateTime.now());
+        fillRouteEstimate(existing);
         Ride saved = rideRepository.save(existing);
-        boolean beforeArrival = false;
-        try {
-            if (saved.getStatus() != null && "Active".equalsIgnoreCase(saved.getStatus()) && saved.getDate() != null && saved.getArrivalTime() != null) {
-                LocalTime at = LocalTime.parse(saved.getArrivalTime());
-                LocalDateTime scheduled = LocalDateTime.of(saved.getDate(), at);
-                beforeArrival = LocalDateTime.now().isBefore(scheduled);
-            }
-        } catch (Exception ignored) {}
-        if (beforeArrival && saved.getJoinedEmpIds() != null && !saved.getJoinedEmpIds().isEmpty()) {
-            notifyJoinedOnUpdate(saved, new ArrayList<>(saved.getJoinedEmpIds()));
-        }
+        routeGeometry.store(rideId, updatedRide.getRouteGeometry());
+        saved.setRouteGeometry(updatedRide.getRouteGeometry()); // not persistent, so the merged copy lacks it
         return saved;
     }
 
+    // Client-supplied route metrics win; otherwise estimate them from the offline road graph when one is configured
+    private void fillRouteEstimate(Ride ride) {
+        if (ride.getRouteDistanceMeters() != null && ride.getRouteDurationSeconds() != null) return;
+        if (ride.getOriginLat() == null || ride.getOriginLng() == null || ride.getDestinationLat() == null || ride.getDestinationLng() == null) return;
+        routing.estimate(ride.getOriginLat(), ride.getOriginLng(), ride.getDestinationLat(), ride.getDestinationLng()).ifPresent(leg -> {
+            if (ride.getRouteDistanceMeters() == null) ride.setRouteDistanceMeters(leg.meters());
+            if (ride.getRouteDurationSeconds() == null) ride.setRouteDurationSeconds(leg.seconds());
+        });
+    }
+
     public void deleteRide(Long rideId) {
-        expirePastRidesInternal();
-        Ride existing = getRideById(rideId);
+        Ride existing = withSeatRetry(() -> {
+            Ride r = loadWithParticipants(rideId);
+            r.setStatus("Cancelled");
+            r.setUpdatedAt(LocalDateTime.now());
+            return rideRepository.save(r);
+        });
+        activeRides.upsert(existing); // no longer Active: dropped from the indexes
+        corridors.upsert(existing);
         boolean beforeArrival = false;
         try {
             if (existing.getDate() != null && existing.getArrivalTime() != null) {
@@ -231,72 +291,23 @@ public class RideService {
             beforeArrival = existing.getDate() != null && existing.getDate().isAfter(LocalDate.now());
         }
         List<String> joined = new ArrayList<>(existing.getJoinedEmpIds());
-        existing.setStatus("Cancelled");
-        existing.setUpdatedAt(LocalDateTime.now());
-        rideRepository.save(existing);
         // notify chat closure for this ride
         try { chatService.notifyRideClosed(existing); } catch (Exception ignored) {}
         if (beforeArrival && !joined.isEmpty()) notifyJoinedOnCancel(existing, joined);
     }
 
     public void leaveRide(Long rideId, String empId) {
-        Ride ride = getRideById(rideId);
-        if (ride.getJoinedEmpIds().remove(empId)) {
-            int seats = 1;
-            if (ride.getJoinedSeats() != null) {
-                seats = ride.getJoinedSeats().getOrDefault(empId, 1);
-                ride.getJoinedSeats().remove(empId);
-            }
-            ride.setAvailableSeats(ride.getAvailableSeats() + seats);
-            ride.setUpdatedAt(LocalDateTime.now());
-            rideRepository.save(ride);
-        } else if (ride.getPendingEmpIds().remove(empId)) { // allow withdrawal of pending request
-            ride.setUpdatedAt(LocalDateTime.now());
-            rideRepository.save(ride);
-        } else {
-            throw new RuntimeException("Employee not in this ride");
-        }
-    }
-
-    // EXPIRY & HISTORY --------------------------------------------
-    public void expirePastRidesInternal() {
-        List<Ride> activeRides = rideRepository.findByStatus("Active");
-        if (activeRides.isEmpty()) return;
-        LocalDate today = LocalDate.now();
-        LocalTime nowTime = LocalTime.now();
-        List<Ride> toExpire = new ArrayList<>();
-        for (Ride r : activeRides) {
-            if (r.getDate() == null) continue;
-            boolean expire = r.getDate().isBefore(today);
-            if (!expire && r.getDate().isEqual(today) && r.getArrivalTime() != null) {
-                try {
-                    expire = !LocalTime.parse(r.getArrivalTime()).isAfter(nowTime);
-                } catch (Exception ignored) {}
-            }
-            if (expire) {
-                r.setStatus("Expired");
-                r.setUpdatedAt(LocalDateTime.now());
-                toExpire.add(r);
-            }
-        }
-        if (!toExpire.isEmpty()) {
-            rideRepository.saveAll(toExpire);
-            // broadcast closure events
-            for (Ride r : toExpire) { try { chatService.notifyRideClosed(r); } catch (Exception ignored) {} }
-        }
+        activeRides.upsert(withSeatRetry(() -> seatReservations.leave(rideId, empId)));
     }
 
+    // HISTORY -----------------------------------------------------
     public List<RideResponseDTO> getPublishedRideHistory(String ownerEmpId) {
-        expirePastRidesInternal();
-        List<Ride> allOwner = rideRepository.findByOwnerEmpId(ownerEmpId);
-        List<Ride> history = allOwner.stream()
-                .filter(r -> r.getStatus() != null && ("Expired".equalsIgnoreCase(r.getStatus()) || "Cancelled".equalsIgnoreCase(r.getStatus())))
-                .toList();
-        return mapRidesToDtoWithEmployees(history, "Expired");
+        Specification<Ride> spec = RideSpecifications.ownedBy(ownerEmpId).and(RideSpecifications.hasStatusIn("Expired", "Cancelled"));
+        return mapRidesToDtoWithEmployees(rideRepository.findSummaries(spec, RideSpecifications.sortFor(null), 0, Integer.MAX_VALUE), "Expired");
     }
     public List<RideResponseDTO> getJoinedRideHistory(String empId) {
-        expirePastRidesInternal();
-        return mapRidesToDtoWithEmployees(rideRepository.findByJoinedEmpIdsContainingAndStatus(empId, "Expired"), "Expired");
+        Specification<Ride> spec = RideSpecifications.joinedBy(empId).and(RideSpecifications.hasStatus("Expired"));
+        return mapRidesToDtoWithEmployees(rideRepository.findSummaries(spec, RideSpecifications.sortFor(null), 0, Integer.MAX_VALUE), "Expired");
     }
 
     // NOTIFICATIONS ----------------------------------------------
@@ -310,6 +321,20 @@ public class RideService {
             }
         } catch (Exception e) { log.error("Failed to send cancellation notifications: {}", e.getMessage()); }
     }
+    // One notification per employee, however many of their alerts the ride matches
+    private void notifyAlertMatches(Ride ride) {
+        try {
+            Set<String> told = new HashSet<>();
+            for (RideAlertIndex.Alert alert : rideAlerts.match(ride)) {
+                if (!told.add(alert.empId())) continue;
+                notificationProducer.send(
+                        alert.empId(),
+                        "A ride from " + ride.getOrigin() + " to " + ride.getDestination() + " on " + ride.getDate()
+                                + " at " + ride.getArrivalTime() + " was just published and matches your ride alert."
+                );
+            }
+        } catch (Exception e) { log.error("Failed to send ride alert notifications: {}", e.getMessage()); }
+    }
     private void notifyJoinedOnUpdate(Ride ride, List<String> joinedEmpIds) {
         try {
             for (String je : joinedEmpIds) {
@@ -322,155 +347,334 @@ public class RideService {
     }
 
     // DTO MAPPING -------------------------------------------------
-    private List<RideResponseDTO> mapRidesToDtoWithEmployees(List<Ride> rides, String defaultStatus) {
-        ServletRequestAttributes attrs = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-        final String jwt;
-        if (attrs != null) {
-            HttpServletRequest req = attrs.getRequest();
-            String authHeader = req.getHeader("Authorization");
-            jwt = (authHeader != null && authHeader.startsWith("Bearer ")) ? authHeader : null;
-        } else jwt = null;
-        if (rides.isEmpty()) return List.of();
-        return buildDtosBatch(rides, defaultStatus, jwt);
+    // Callers pass a ride whose participants are loaded (fetch-joined, or initialized by the merge in save)
+    private RideDetailDTO toDetail(Ride r) {
+        return RideDetailDTO.builder()
+                .id(r.getId())
+                .ownerEmpId(r.getOwnerEmpId())
+                .origin(r.getOrigin())
+                .destination(r.getDestination())
+                .originLat(r.getOriginLat())
+                .originLng(r.getOriginLng())
+                .destinationLat(r.getDestinationLat())
+                .destinationLng(r.getDestinationLng())
+                .routeGeometry(r.getRouteGeometry())
+                .routeDistanceMeters(r.getRouteDistanceMeters())
+                .routeDurationSeconds(r.getRouteDurationSeconds())
+                .date(r.getDate())
+                .arrivalTime(r.getArrivalTime())
+                .carDetails(r.getCarDetails())
+                .totalSeats(r.getTotalSeats())
+                .availableSeats(r.getAvailableSeats())
+                .fare(r.getFare())
+                .driverNote(r.getDriverNote())
+                .instantBookingEnabled(r.isInstantBookingEnabled())
+                .status(r.getStatus())
+                .createdAt(r.getCreatedAt())
+                .updatedAt(r.getUpdatedAt())
+                .version(r.getVersion())
+                .joinedEmpIds(r.getJoinedEmpIds())
+                .pendingEmpIds(r.getPendingEmpIds())
+                .joinedSeats(r.getJoinedSeats())
+                .build();
     }
 
-    private RideResponseDTO buildDto(Ride ride, String defaultStatus, String jwt) {
-        String ownerName = "Unknown";
-        String ownerPhone = null;
-        String viewerEmpId = null;
-        if (jwt != null) {
-            try {
-                String token = jwt.replace("Bearer ", "").trim();
-                viewerEmpId = jwtUtil.extractEmpId(token);
-            } catch (Exception ignored) {}
+    // List responses are built from RideSummary rows (one query). Rides whose version is in RideViewCache reuse their
+    // viewer-neutral DTO; the rest cost one query for their participants and one for their route outlines, however
+    // many there are. The viewer is resolved once per request and their phone rules applied on a copy.
+    private List<RideResponseDTO> mapRidesToDtoWithEmployees(List<RideSummary> rides, String defaultStatus) {
+        if (rides.isEmpty()) return List.of();
+        Map<Long, RideResponseDTO> bases = new HashMap<>(rides.size() * 2);
+        List<RideSummary> misses = new ArrayList<>();
+        for (RideSummary ride : rides) {
+            RideResponseDTO base = rideViews.get(ride.id(), ride.version());
+            if (base != null) bases.put(ride.id(), base);
+            else misses.add(ride);
         }
+        if (!misses.isEmpty()) bases.putAll(buildBasesBatch(misses, defaultStatus));
+        String viewerEmpId = currentViewer();
+        List<RideResponseDTO> result = new ArrayList<>(rides.size());
+        for (RideSummary ride : rides) result.add(RideViewCache.forViewer(bases.get(ride.id()), viewerEmpId));
+        return result;
+    }
+
+    private String currentViewer() {
+        ServletRequestAttributes attrs = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if (attrs == null) return null;
+        HttpServletRequest req = attrs.getRequest();
+        String authHeader = req.getHeader("Authorization");
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) return null;
         try {
-            String url = "http://employee-service/employee/" + ride.getOwnerEmpId();
-            HttpHeaders headers = new HttpHeaders();
-            if (jwt != null) headers.set("Authorization", jwt);
-            ResponseEntity<EmployeeProfile> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), EmployeeProfile.class);
-            EmployeeProfile owner = response.getBody();
-            if (owner != null) {
-                ownerName = owner.getName();
-                ownerPhone = owner.getPhone();
-            }
-        } catch (Exception e) { log.error("Failed to fetch owner {}: {}", ride.getOwnerEmpId(), e.getMessage()); }
-
-        boolean viewerIsOwner = viewerEmpId != null && viewerEmpId.equals(ride.getOwnerEmpId());
-        boolean viewerJoined = viewerEmpId != null && ride.getJoinedEmpIds().contains(viewerEmpId);
-        boolean canSeeOwnerPhone = viewerIsOwner || viewerJoined; // joined implies approved already
-
-        List<JoinedEmployeeDTO> joinedEmployees = ride.getJoinedEmpIds().stream().map(empId -> {
-            JoinedEmployeeDTO dto = mapEmployeeCached(empId, jwt);
-            Integer seats = ride.getJoinedSeats() != null ? ride.getJoinedSeats().get(empId) : null;
-            dto.setSeats(seats != null ? seats : 1);
-            return dto;
-        }).toList();
-        List<JoinedEmployeeDTO> pendingEmployees = mapPending(ride.getPendingEmpIds(), jwt);
-
-        // Apply phone visibility rules
-        if (!canSeeOwnerPhone) ownerPhone = null; // hide owner's phone if not joined/owner
-
-        for (JoinedEmployeeDTO je : joinedEmployees) {
-            if (viewerIsOwner) {
-                // owner sees all joined employees' phones
-                continue;
-            }
-            // Non-owner viewers: only show their own phone (optional) and hide others
-            if (viewerEmpId == null || !viewerEmpId.equals(je.getEmpId())) {
-                je.setPhone(null);
+            return jwtUtil.extractEmpId(authHeader.replace("Bearer ", "").trim());
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+
+    // Viewer-neutral: every resolved phone is kept, RideViewCache.forViewer masks them per caller
+    private RideResponseDTO buildBase(RideSummary ride, String defaultStatus, Map<String, JoinedEmployeeDTO> people,
+                                      List<RideRepository.ParticipantRow> participants, RideRouteRepository.SummaryRow route) {
+        JoinedEmployeeDTO owner = people.get(ride.ownerEmpId());
+        String ownerName = owner != null ? owner.getName() : "Unknown";
+        String ownerPhone = owner != null ? owner.getPhone() : null;
+
+        // Copies: the resolved entries are shared across rides and must not be mutated
+        List<JoinedEmployeeDTO> joinedEmployees = new ArrayList<>();
+        List<JoinedEmployeeDTO> pendingEmployees = new ArrayList<>();
+        for (RideRepository.ParticipantRow p : participants) {
+            JoinedEmployeeDTO dto = copyOf(people, p.getEmpId());
+            if (p.isJoined()) {
+                dto.setSeats(p.getSeats() > 0 ? p.getSeats() : 1);
+                joinedEmployees.add(dto);
+            } else {
+                pendingEmployees.add(dto);
             }
         }
-        // Pending employees' phones never shown until approved
-        for (JoinedEmployeeDTO pe : pendingEmployees) { pe.setPhone(null); }
 
         return RideResponseDTO.builder()
-                .id(ride.getId())
-                .ownerEmpId(ride.getOwnerEmpId())
+                .id(ride.id())
+                .ownerEmpId(ride.ownerEmpId())
                 .ownerName(ownerName)
                 .ownerPhone(ownerPhone)
-                .origin(ride.getOrigin())
-                .destination(ride.getDestination())
-                .originLat(ride.getOriginLat())
-                .originLng(ride.getOriginLng())
-                .destinationLat(ride.getDestinationLat())
-                .destinationLng(ride.getDestinationLng())
-                .date(ride.getDate() != null ? ride.getDate().toString() : null)
-                .arrivalTime(ride.getArrivalTime())
-                .carDetails(ride.getCarDetails())
-                .totalSeats(ride.getTotalSeats())
-                .availableSeats(ride.getAvailableSeats())
-                .fare(ride.getFare() != null ? ride.getFare().toPlainString() : null)
-                .status(ride.getStatus() != null ? ride.getStatus() : defaultStatus)
+                .origin(ride.origin())
+                .destination(ride.destination())
+                .originLat(ride.originLat())
+                .originLng(ride.originLng())
+                .destinationLat(ride.destinationLat())
+                .destinationLng(ride.destinationLng())
+                .date(ride.date() != null ? ride.date().toString() : null)
+                .arrivalTime(ride.arrivalTime())
+                .carDetails(ride.carDetails())
+                .totalSeats(ride.totalSeats() != null ? ride.totalSeats() : 0)
+                .availableSeats(ride.availableSeats() != null ? ride.availableSeats() : 0)
+                .fare(ride.fare() != null ? ride.fare().toPlainString() : null)
+                .status(ride.status() != null ? ride.status() : defaultStatus)
                 .joinedEmployees(joinedEmployees)
-                .instantBookingEnabled(ride.isInstantBookingEnabled())
+                .instantBookingEnabled(Boolean.TRUE.equals(ride.instantBookingEnabled()))
                 .pendingEmployees(pendingEmployees)
-                .routeDistanceMeters(ride.getRouteDistanceMeters())
-                .routeDurationSeconds(ride.getRouteDurationSeconds())
-                .routeGeometry(ride.getRouteGeometry())
-                .driverNote(ride.getDriverNote())
+                .routeDistanceMeters(ride.routeDistanceMeters())
+                .routeDurationSeconds(ride.routeDurationSeconds())
+                .routeBounds(route != null ? new double[]{route.getMinLat(), route.getMinLng(), route.getMaxLat(), route.getMaxLng()} : null)
+                .routePreview(route != null ? route.getPreview() : null)
+                .driverNote(ride.driverNote())
                 .build();
     }
 
-    private final Map<String, JoinedEmployeeDTO> employeeCache = new ConcurrentHashMap<>();
-    private final Map<String, VehicleInfo> vehicleCache = new ConcurrentHashMap<>();
+    private static JoinedEmployeeDTO copyOf(Map<String, JoinedEmployeeDTO> people, String empId) {
+        JoinedEmployeeDTO p = people.get(empId);
+        return p != null ? new JoinedEmployeeDTO(p.getEmpId(), p.getName(), p.getEmail(), p.getPhone())
+                : new JoinedEmployeeDTO(empId, "Unknown", "", null);
+    }
 
-    private JoinedEmployeeDTO mapEmployeeCached(String empId, String jwt) {
-        return employeeCache.computeIfAbsent(empId, id -> fetchEmployee(id, jwt));
+    /** Resolves every id through the directory cache; ids that cannot be resolved right now are left out. */
+    private Map<String, JoinedEmployeeDTO> resolveEmployees(Set<String> empIds) {
+        Map<String, JoinedEmployeeDTO> resolved = new HashMap<>(empIds.size() * 2);
+        employeeDirectory.getProfiles(empIds).forEach((id, emp) ->
+                resolved.put(id, new JoinedEmployeeDTO(emp.getEmpId(), emp.getName(), emp.getEmail(), emp.getPhone())));
+        return resolved;
     }
 
-    private JoinedEmployeeDTO fetchEmployee(String empId, String jwt) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            if (jwt != null) headers.set("Authorization", jwt);
-            ResponseEntity<EmployeeProfile> response = restTemplate.exchange("http://employee-service/employee/" + empId, HttpMethod.GET, new HttpEntity<>(headers), EmployeeProfile.class);
-            EmployeeProfile emp = response.getBody();
-            if (emp != null) return new JoinedEmployeeDTO(emp.getEmpId(), emp.getName(), emp.getEmail(), emp.getPhone());
-        } catch (Exception e) { log.error("Failed to fetch employee {}: {}", empId, e.getMessage()); }
-        return new JoinedEmployeeDTO(empId, "Unknown", "", null);
+    private Map<Long, RideResponseDTO> buildBasesBatch(List<RideSummary> rides, String defaultStatus) {
+        List<Long> rideIds = rides.stream().map(RideSummary::id).toList();
+        Map<Long, List<RideRepository.ParticipantRow>> participants = new HashMap<>(rides.size() * 2);
+        for (RideRepository.ParticipantRow p : rideRepository.findParticipantRows(rideIds)) {
+            participants.computeIfAbsent(p.getRideId(), k -> new ArrayList<>()).add(p);
+        }
+        // Collect owners, joined and pending passengers of the whole page, then resolve them together
+        Set<String> ids = new HashSet<>();
+        for (RideSummary ride : rides) {
+            if (ride.ownerEmpId() != null) ids.add(ride.ownerEmpId());
+        }
+        participants.values().forEach(ps -> ps.forEach(p -> ids.add(p.getEmpId())));
+        Map<String, JoinedEmployeeDTO> people = resolveEmployees(ids);
+        // Lists only show a route's outline; the full geometry is fetched per ride from /ride/{id}/route
+        Map<Long, RideRouteRepository.SummaryRow> routes = routeGeometry.summaries(rideIds);
+        Map<Long, RideResponseDTO> result = new HashMap<>(rides.size() * 2);
+        for (RideSummary ride : rides) {
+            List<RideRepository.ParticipantRow> ps = participants.getOrDefault(ride.id(), List.of());
+            RideResponseDTO base = buildBase(ride, defaultStatus, people, ps, routes.get(ride.id()));
+            result.put(ride.id(), base);
+            // "Unknown" placeholders (directory unreachable) are not cached, so the next request retries them
+            Set<String> shown = new HashSet<>();
+            if (ride.ownerEmpId() != null) shown.add(ride.ownerEmpId());
+            ps.forEach(p -> shown.add(p.getEmpId()));
+            if (people.keySet().containsAll(shown)) rideViews.put(ride.id(), ride.version(), base, shown);
+        }
+        return result;
     }
 
-    private List<JoinedEmployeeDTO> mapPending(List<String> pendingIds, String jwt) {
-        if (pendingIds == null || pendingIds.isEmpty()) return List.of();
-        return pendingIds.stream().map(id -> mapEmployeeCached(id, jwt)).toList();
+    // PUBLIC LIST METHODS (using unified mapper) ------------------
+    // Filtering, sorting and paging run in SQL; DTOs (and employee lookups) are built for the returned page only.
+    public List<RideResponseDTO> getRidesWithEmployeeDetailsByOwner(String ownerEmpId, int page, int size) {
+        Specification<Ride> spec = RideSpecifications.ownedBy(ownerEmpId).and(RideSpecifications.activeOrUnset());
+        return mapRidesToDtoWithEmployees(findPage(spec, page, size, RideSpecifications.sortFor(null)), "Active");
+    }
+    public List<RideResponseDTO> getAllRidesWithEmployeeDetails(int page, int size) {
+        return mapRidesToDtoWithEmployees(findPage(null, page, size, RideSpecifications.sortFor(null)), "Active");
+    }
+    // Served from the in-memory index once it has loaded; only the page's rides are read from the database.
+    // Popular searches reuse the page's ride ids from RideSearchCache until the ride set version moves.
+    public List<RideResponseDTO> searchActiveRides(RideSearchFilter filter, int page, int size) {
+        if (filter.isAlongRoute()) return searchAlongRoute(filter, page, size);
+        if (activeRides.isReady()) {
+            long version = activeRides.versionOf(filter.getOrigin(), filter.getDestination());
+            List<Long> cached = searchCache.get(filter, page, size, version);
+            if (cached != null) return mapRidesToDtoWithEmployees(stillBookable(findActiveInOrder(cached), filter.getPassengers()), "Active");
+            List<Long> ids = activeRides.search(filter, page, size);
+            searchCache.put(filter, page, size, version, ids);
+            return mapRidesToDtoWithEmployees(findActiveInOrder(ids), "Active");
+        }
+        return mapRidesToDtoWithEmployees(findPage(RideSpecifications.activeMatching(filter), page, size, RideSpecifications.sortFor(filter.getSort())), "Active");
+    }
+    /**
+     * mode=route: rides whose route passes the pickup and then the drop, least off-route distance first (or cheapest
+     * detour for the driver with sort=best), with the other filters applied by the search index. Until both indexes
+     * have loaded, rides are matched on their start and end points instead (the /ride/nearby rules), which misses rides
+     * only passing by.
+     */
+    private List<RideResponseDTO> searchAlongRoute(RideSearchFilter filter, int page, int size) {
+        double corridor = filter.getCorridorMeters() != null ? filter.getCorridorMeters() : 1000;
+        if (!corridors.isReady() || !activeRides.isReady()) {
+            return nearbyActiveRides(NearbyQuery.builder()
+                    .lat(filter.getPickupLat()).lng(filter.getPickupLng()).radiusMeters(corridor)
+                    .destLat(filter.getDropLat()).destLng(filter.getDropLng()).destRadiusMeters(corridor)
+                    .date(filter.getDate()).passengers(filter.getPassengers())
+                    .build(), page, size);
+        }
+        if (page < 0 || size < 1) return List.of();
+        List<RouteCorridorIndex.Match> matches = corridors.match(filter.getPickupLat(), filter.getPickupLng(), filter.getDropLat(), filter.getDropLng(), corridor);
+        Map<Long, RouteCorridorIndex.Match> byId = new HashMap<>(matches.size() * 2);
+        for (RouteCorridorIndex.Match m : matches) byId.put(m.rideId(), m);
+        List<Long> kept = activeRides.retain(filter, matches.stream().map(RouteCorridorIndex.Match::rideId).toList());
+        Map<Long, DetourScorer.Scored> detours = Map.of();
+        if ("best".equals(filter.getSort())) {
+            // cheapest detour for the driver first; only the first (page + 1) * size are ranked
+            List<RouteCorridorIndex.Match> candidates = new ArrayList<>(kept.size());
+            for (Long id : kept) candidates.add(byId.get(id));
+            List<DetourScorer.Scored> ranked = DetourScorer.topK(candidates, (int) Math.min((long) (page + 1) * size, kept.size()));
+            detours = new HashMap<>(ranked.size() * 2);
+            kept = new ArrayList<>(ranked.size());
+            for (DetourScorer.Scored s : ranked) {
+                detours.put(s.match().rideId(), s);
+                kept.add(s.match().rideId());
+            }
+        }
+        int from = (int) Math.min((long) page * size, kept.size());
+        int to = (int) Math.min((long) from + size, kept.size());
+        List<RideResponseDTO> dtos = mapRidesToDtoWithEmployees(findActiveInOrder(kept.subList(from, to)), "Active");
+        for (RideResponseDTO dto : dtos) {
+            RouteCorridorIndex.Match m = byId.get(dto.getId());
+            dto.setPickupDistanceMeters(m.pickupMeters());
+            dto.setDropDistanceMeters(m.dropMeters());
+            DetourScorer.Scored d = detours.get(dto.getId());
+            if (d != null) {
+                dto.setDetourMeters(d.detourMeters());
+                dto.setDetourSeconds(d.detourSeconds());
+            }
+        }
+        return dtos;
     }
 
-    private VehicleInfo fetchVehicleInfoCached(String empId, String jwt) {
-        return vehicleCache.computeIfAbsent(empId, id -> {
-            try {
-                HttpHeaders headers = new HttpHeaders();
-                if (jwt != null) headers.set("Authorization", jwt);
-                ResponseEntity<VehicleInfo> resp = restTemplate.exchange("http://employee-service/vehicle/" + empId, HttpMethod.GET, new HttpEntity<>(headers), VehicleInfo.class);
-                return resp.getBody();
-            } catch (Exception e) {
-                log.error("Failed vehicle fetch {}: {}", empId, e.getMessage());
-                return null;
+    /** Active rides near a pickup (and optionally a drop) point, nearest first, with the distances filled in. */
+    public List<RideResponseDTO> nearbyActiveRides(NearbyQuery query, int page, int size) {
+        List<ActiveRideIndex.Nearby> hits = activeRides.isReady()
+                ? activeRides.nearby(query, page, size)
+                : ActiveRideIndex.nearbyAmong(findNearbyCandidates(query), query, page, size);
+        List<RideResponseDTO> dtos = mapRidesToDtoWithEmployees(findActiveInOrder(hits.stream().map(ActiveRideIndex.Nearby::rideId).toList()), "Active");
+        Map<Long, ActiveRideIndex.Nearby> byId = new HashMap<>(hits.size() * 2);
+        for (ActiveRideIndex.Nearby h : hits) byId.put(h.rideId(), h);
+        for (RideResponseDTO dto : dtos) {
+            ActiveRideIndex.Nearby h = byId.get(dto.getId());
+            dto.setPickupDistanceMeters(h.pickupMeters());
+            dto.setDropDistanceMeters(h.dropMeters());
+        }
+        return dtos;
+    }
+
+    // Bounding-box prefilter in SQL while the index loads; does not wrap across the antimeridian
+    private List<RideRepository.IndexRow> findNearbyCandidates(NearbyQuery q) {
+        double dLat = GeoUtils.latDegrees(q.getRadiusMeters()), dLng = GeoUtils.lngDegrees(q.getRadiusMeters(), q.getLat());
+        boolean anyDestination = q.getDestLat() == null || q.getDestLng() == null;
+        double ddLat = 0, ddLng = 0;
+        if (!anyDestination) {
+            double r = q.getDestRadiusMeters() != null ? q.getDestRadiusMeters() : q.getRadiusMeters();
+            ddLat = GeoUtils.latDegrees(r);
+            ddLng = GeoUtils.lngDegrees(r, q.getDestLat());
+        }
+        double destLat = anyDestination ? 0 : q.getDestLat(), destLng = anyDestination ? 0 : q.getDestLng();
+        return rideRepository.findActiveIndexRowsNear(q.getLat() - dLat, q.getLat() + dLat, q.getLng() - dLng, q.getLng() + dLng,
+                anyDestination, destLat - ddLat, destLat + ddLat, destLng - ddLng, destLng + ddLng, Limit.of(NEARBY_FALLBACK_LIMIT));
+    }
+
+    // CHANGE FEED -------------------------------------------------
+    // What happened to which ride since the cursor (see RideChangeFeed), with the current DTO of rides still active.
+    // One summary query for the changed rides whatever their status; removals are typed by the status found.
+    public RideChangesDTO activeRideChanges(String since, int limit) {
+        RideChangeFeed.Delta delta = changeFeed.since(since, limit);
+        RideChangesDTO.RideChangesDTOBuilder out = RideChangesDTO.builder()
+                .cursor(delta.cursor()).resyncRequired(delta.resyncRequired()).hasMore(delta.hasMore());
+        if (delta.changes().isEmpty()) return out.changes(List.of()).build();
+
+        List<Long> ids = new ArrayList<>(delta.changes().keySet());
+        Map<Long, RideSummary> byId = new HashMap<>(ids.size() * 2);
+        for (RideSummary r : rideRepository.findSummaries(RideSpecifications.idIn(ids), Sort.unsorted(), 0, ids.size())) byId.put(r.id(), r);
+        List<RideSummary> active = new ArrayList<>();
+        for (Long id : ids) {
+            RideSummary r = byId.get(id);
+            if (r != null && "Active".equalsIgnoreCase(r.status())) active.add(r);
+        }
+        Map<Long, RideResponseDTO> dtos = new HashMap<>(active.size() * 2);
+        for (RideResponseDTO dto : mapRidesToDtoWithEmployees(active, "Active")) dtos.put(dto.getId(), dto);
+
+        List<RideChangesDTO.Change> changes = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            RideChangeLog.Type type = delta.changes().get(id);
+            RideResponseDTO dto = dtos.get(id);
+            if (dto != null) {
+                if (type == RideChangeLog.Type.REMOVED) type = RideChangeLog.Type.UPDATED; // back in the active set
+            } else {
+                RideSummary r = byId.get(id);
+                type = r == null ? RideChangeLog.Type.REMOVED
+                        : "Cancelled".equalsIgnoreCase(r.status()) ? RideChangeLog.Type.CANCELLED
+                        : "Expired".equalsIgnoreCase(r.status()) ? RideChangeLog.Type.EXPIRED
+                        : RideChangeLog.Type.REMOVED;
             }
-        });
+            changes.add(new RideChangesDTO.Change(id, type.name(), dto));
+        }
+        return out.changes(changes).build();
     }
 
-    private List<RideResponseDTO> buildDtosBatch(List<Ride> rides, String defaultStatus, String jwt) {
-        // Pre-fetch owner profiles distinct to minimize remote calls
-        Set<String> ownerIds = rides.stream().map(Ride::getOwnerEmpId).collect(Collectors.toSet());
-        for (String ownerId : ownerIds) { employeeCache.computeIfAbsent(ownerId, id -> fetchEmployee(id, jwt)); }
-        List<RideResponseDTO> result = new ArrayList<>(rides.size());
-        for (Ride ride : rides) { result.add(buildDto(ride, defaultStatus, jwt)); }
-        return result;
+    public List<RideResponseDTO> getJoinedRidesWithEmployeeDetails(String empId, int page, int size) {
+        Specification<Ride> spec = RideSpecifications.joinedBy(empId).and(RideSpecifications.activeOrUnset());
+        return mapRidesToDtoWithEmployees(findPage(spec, page, size, RideSpecifications.sortFor(null)), "Active");
     }
 
-    // PUBLIC LIST METHODS (using unified mapper) ------------------
-    public List<RideResponseDTO> getRidesWithEmployeeDetailsByOwner(String ownerEmpId) {
-        List<Ride> rides = getRidesByOwner(ownerEmpId).stream().filter(r -> r.getStatus() == null || "Active".equalsIgnoreCase(r.getStatus())).toList();
-        return mapRidesToDtoWithEmployees(rides, "Active");
+    // Keeps the index order; a ride closed on another replica since the last index resync is skipped
+    private List<RideSummary> findActiveInOrder(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, RideSummary> byId = new HashMap<>(ids.size() * 2);
+        for (RideSummary r : rideRepository.findSummaries(RideSpecifications.idIn(ids), Sort.unsorted(), 0, ids.size())) byId.put(r.id(), r);
+        List<RideSummary> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            RideSummary r = byId.get(id);
+            if (r != null && "Active".equalsIgnoreCase(r.status())) ordered.add(r);
+        }
+        return ordered;
     }
-    public List<RideResponseDTO> getAllRidesWithEmployeeDetails() { return mapRidesToDtoWithEmployees(getAllRides(), "Active"); }
-    public List<RideResponseDTO> getActiveRidesWithEmployeeDetails() { return mapRidesToDtoWithEmployees(rideRepository.findByStatus("Active"), "Active"); }
-    public List<RideResponseDTO> getJoinedRidesWithEmployeeDetails(String empId) {
-        List<Ride> rides = getJoinedRides(empId).stream().filter(r -> r.getStatus() == null || "Active".equalsIgnoreCase(r.getStatus())).toList();
-        return mapRidesToDtoWithEmployees(rides, "Active");
+
+    // Re-checks a cached page against the rows just read: a ride filled up or departed since is left out
+    private static List<RideSummary> stillBookable(List<RideSummary> rides, int passengers) {
+        LocalDateTime now = LocalDateTime.now();
+        List<RideSummary> kept = new ArrayList<>(rides.size());
+        for (RideSummary r : rides) {
+            LocalDateTime due = RideExpiryService.deadlineOf(r.date(), r.arrivalTime());
+            if (r.availableSeats() != null && r.availableSeats() >= passengers && (due == null || now.isBefore(due))) kept.add(r);
+        }
+        return kept;
     }
 
-    // HELPER DTO CLASSES -----------------------------------------
-    @Data static class EmployeeProfile { private String empId; private String name; private String email; private String phone; }
-    @Data static class VehicleInfo { private Long id; private String status; private Integer capacity; private String registrationNumber; private String make; private String model; private String color; }
+    private List<RideSummary> findPage(Specification<Ride> spec, int page, int size, Sort sort) {
+        if (page < 0 || size < 1) return List.of();
+        return rideRepository.findSummaries(spec, sort, (long) page * size, size);
+    }
 }
@@ -0,0 +1,84 @@
+package com.orangemantra.rideservice.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.orangemantra.rideservice.dto.JoinedEmployeeDTO;
+import com.orangemantra.rideservice.dto.RideResponseDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Viewer-neutral list DTOs, one per ride, keyed by the ride's @Version. Every participant change, edit and expiry
+ * bumps the version, so a cached view is reused only while the row it was built from is unchanged; a directory
+ * change for anyone shown on a view drops that view. Views hold every phone number and are never returned as-is:
+ * {@link #forViewer} applies the phone rules for the caller on a copy.
+ * <p>
+ * Hit/miss metrics are published as {@code cache.*} meters tagged {@code cache=rideView}.
+ */
+@Component
+public class RideViewCache {
+
+    /** A base DTO plus the employees it shows, for directory-change eviction. */
+    record View(long version, RideResponseDTO base, Set<String> people) {}
+
+    private final Cache<Long, View> views;
+
+    public RideViewCache(MeterRegistry meterRegistry,
+                         @Value("${ride.cache.ride-view.max-size:20000}") long maxSize,
+                         @Value("${ride.cache.ride-view.ttl:30m}") Duration ttl) {
+        this.views = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(), "rideView");
+    }
+
+    /** The cached base DTO of the ride at exactly this version, or null. */
+    RideResponseDTO get(Long rideId, Long version) {
+        if (version == null) return null;
+        View v = views.getIfPresent(rideId);
+        return v != null && v.version() == version ? v.base() : null;
+    }
+
+    void put(Long rideId, Long version, RideResponseDTO base, Set<String> people) {
+        if (version != null) views.put(rideId, new View(version, base, Set.copyOf(people)));
+    }
+
+    /** Names and phones on views showing this employee are stale; rare enough to afford a scan. */
+    public void employeeChanged(String empId) {
+        views.asMap().values().removeIf(v -> v.people().contains(empId));
+    }
+
+    /**
+     * A copy of the base DTO as this viewer may see it: the owner sees every joined passenger's phone, a joined
+     * passenger sees the owner's and their own, anyone else no phone at all. Pending passengers' phones are never shown.
+     */
+    static RideResponseDTO forViewer(RideResponseDTO base, String viewerEmpId) {
+        boolean viewerIsOwner = viewerEmpId != null && viewerEmpId.equals(base.getOwnerEmpId());
+        boolean viewerJoined = false;
+        List<JoinedEmployeeDTO> joined = new ArrayList<>(base.getJoinedEmployees().size());
+        for (JoinedEmployeeDTO je : base.getJoinedEmployees()) {
+            boolean self = viewerEmpId != null && viewerEmpId.equals(je.getEmpId());
+            viewerJoined |= self;
+            joined.add(new JoinedEmployeeDTO(je.getEmpId(), je.getName(), je.getEmail(), viewerIsOwner || self ? je.getPhone() : null, je.getSeats()));
+        }
+        List<JoinedEmployeeDTO> pending = new ArrayList<>(base.getPendingEmployees().size());
+        for (JoinedEmployeeDTO pe : base.getPendingEmployees()) {
+            pending.add(new JoinedEmployeeDTO(pe.getEmpId(), pe.getName(), pe.getEmail(), null, pe.getSeats()));
+        }
+        return base.toBuilder()
+                .ownerPhone(viewerIsOwner || viewerJoined ? base.getOwnerPhone() : null) // joined implies approved already
+                .joinedEmployees(joined)
+                .pendingEmployees(pending)
+                .build();
+    }
+}
@@ -0,0 +1,392 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.repository.RideRepository;
+import com.orangemantra.rideservice.util.GeoUtils;
+import com.orangemantra.rideservice.util.RouteCodec;
+import com.orangemantra.rideservice.util.RoutePolyline;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Spatial index over the route polylines of active rides, answering "which rides pass within N meters of my
+ * pickup, and later along the route within N meters of my drop".
+ * <p>
+ * Every route segment is rasterized into a fixed ~1 km grid (sampled at half a cell, so a segment is registered
+ * in each cell it crosses or one next to it). A cell maps to an immutable sorted long[] of
+ * (rideId << SEGMENT_BITS | segment) entries, so a query reads the few cells around the point, measures the exact
+ * point-to-segment distance for the segments found there and keeps each ride's nearest position along its route.
+ * <p>
+ * Writers replace one ride's postings at a time under a lock; readers never lock and may see a route that is
+ * mid-replacement as briefly missing. Only route membership is tracked here: seats, dates and the other search
+ * filters are applied afterwards by {@link ActiveRideIndex}. A periodic resync compares versions and re-reads
+ * only the routes that changed (full resolution, from ride_route), which also picks up rides offered or closed on
+ * other replicas.
+ */
+@Slf4j
+@Component
+public class RouteCorridorIndex {
+    static final double CELL_DEGREES = 0.01;
+    private static final int LAT_CELLS = (int) Math.ceil(180 / CELL_DEGREES);
+    private static final int LNG_CELLS = (int) Math.ceil(360 / CELL_DEGREES);
+    private static final int SEGMENT_BITS = 20;
+    private static final int MAX_SEGMENTS = (1 << SEGMENT_BITS) - 1;
+    private static final int FETCH_BATCH = 500;
+
+    /**
+     * A decoded route: points, meters from the start at every point, and its (cell << SEGMENT_BITS | segment) postings,
+     * plus the routing engine's length and duration when the driver's app sent them (0 when unknown).
+     */
+    record Route(long rideId, long version, int geometryHash, double[] latLng, double[] along, long[] postings,
+                 int distanceMeters, int durationSeconds) {
+
+        static Route build(long rideId, long version, double[] pts, Integer distanceMeters, Integer durationSeconds) {
+            int n = pts.length / 2;
+            if (n < 2 || n - 1 > MAX_SEGMENTS) return null;
+            double[] along = new double[n];
+            for (int i = 1; i < n; i++) {
+                along[i] = along[i - 1] + GeoUtils.distanceMeters(pts[2 * i - 2], pts[2 * i - 1], pts[2 * i], pts[2 * i + 1]);
+            }
+            long[] postings = new long[16];
+            int count = 0;
+            for (int s = 0; s < n - 1; s++) {
+                double lat0 = pts[2 * s], lng0 = pts[2 * s + 1];
+                double dLat = pts[2 * s + 2] - lat0, dLng = wrap(pts[2 * s + 3] - lng0);
+                int steps = (int) Math.ceil(Math.max(Math.abs(dLat), Math.abs(dLng)) / (CELL_DEGREES / 2));
+                long last = -1;
+                for (int k = 0; k <= steps; k++) {
+                    double t = steps == 0 ? 0 : (double) k / steps;
+                    long cell = cellKey(latIndex(lat0 + t * dLat), lngIndex(lng0 + t * dLng));
+                    if (cell == last) continue;
+                    last = cell;
+                    if (count == postings.length) postings = Arrays.copyOf(postings, count * 2);
+                    postings[count++] = (cell << SEGMENT_BITS) | s;
+                }
+            }
+            Arrays.sort(postings, 0, count);
+            int distinct = 0;
+            for (int k = 0; k < count; k++) {
+                if (distinct == 0 || postings[k] != postings[distinct - 1]) postings[distinct++] = postings[k];
+            }
+            return new Route(rideId, version, Arrays.hashCode(pts), pts, along, Arrays.copyOf(postings, distinct),
+                    positive(distanceMeters), positive(durationSeconds));
+        }
+
+        Route withVersion(long version, Integer distanceMeters, Integer durationSeconds) {
+            return new Route(rideId, version, geometryHash, latLng, along, postings, positive(distanceMeters), positive(durationSeconds));
+        }
+
+        private static int positive(Integer v) { return v == null || v < 0 ? 0 : v; }
+
+        int segments() { return along.length - 1; }
+
+        /** The routing engine's length when known, else the length of the polyline. */
+        int lengthMeters() { return distanceMeters > 0 ? distanceMeters : (int) Math.round(along[along.length - 1]); }
+    }
+
+    /**
+     * A ride passing the pickup (and drop) point: distances off the route, the matching positions along it, the
+     * straight-line meters the route gains by stopping there, and the route's length and duration (routeSeconds is 0
+     * when unknown).
+     */
+    public record Match(long rideId, int pickupMeters, Integer dropMeters, int pickupAlongMeters, Integer dropAlongMeters,
+                        int insertionMeters, int routeMeters, int routeSeconds) {
+        int offRouteMeters() { return pickupMeters + (dropMeters == null ? 0 : dropMeters); }
+    }
+
+    private final RideRepository rideRepository;
+    private final Object writeLock = new Object();
+    private final Map<Long, Route> routes = new ConcurrentHashMap<>();
+    private final Map<Long, long[]> cells = new ConcurrentHashMap<>(); // cell key -> sorted (rideId << SEGMENT_BITS | segment)
+    private Set<Long> touchedDuringResync;                            // guarded by writeLock; non-null while a resync is loading
+    private volatile boolean ready;
+
+    public RouteCorridorIndex(RideRepository rideRepository, MeterRegistry meterRegistry) {
+        this.rideRepository = rideRepository;
+        Gauge.builder("ride.corridor.routes", routes, Map::size).register(meterRegistry);
+        Gauge.builder("ride.corridor.cells", cells, Map::size).register(meterRegistry);
+    }
+
+    /** False until the first load from the database succeeded. */
+    public boolean isReady() { return ready; }
+
+    public int size() { return routes.size(); }
+
+    /**
+     * Every indexed ride whose route passes within {@code corridorMeters} of the pickup and, when a drop is given,
+     * within {@code corridorMeters} of the drop further along the route. Ordered by total distance off the route
+     * (pickup + drop), then ride id; paging is left to the caller, which still has to apply the other filters.
+     */
+    public List<Match> match(double pickupLat, double pickupLng, Double dropLat, Double dropLng, double corridorMeters) {
+        Map<Long, List<double[]>> pickups = near(pickupLat, pickupLng, corridorMeters);
+        boolean withDrop = dropLat != null && dropLng != null;
+        Map<Long, List<double[]>> drops = withDrop ? near(dropLat, dropLng, corridorMeters) : Map.of();
+        List<Match> matches = new ArrayList<>();
+        for (Map.Entry<Long, List<double[]>> e : pickups.entrySet()) {
+            Route route = routes.get(e.getKey());
+            if (route == null) continue;
+            int routeMeters = route.lengthMeters(), routeSeconds = route.durationSeconds();
+            if (!withDrop) {
+                double[] best = null;
+                for (double[] p : e.getValue()) if (best == null || p[0] < best[0]) best = p;
+                double insertion = insertion(route.latLng(), (int) best[2], pickupLat, pickupLng);
+                matches.add(new Match(e.getKey(), (int) Math.round(best[0]), null, (int) Math.round(best[1]), null,
+                        (int) Math.round(insertion), routeMeters, routeSeconds));
+                continue;
+            }
+            List<double[]> dropHits = drops.get(e.getKey());
+            if (dropHits == null) continue;
+            double[] bestPickup = null, bestDrop = null;
+            for (double[] p : e.getValue()) {
+                for (double[] d : dropHits) {
+                    if (d[1] <= p[1]) continue; // drop has to come after the pickup along the route
+                    if (bestPickup == null || p[0] + d[0] < bestPickup[0] + bestDrop[0]) { bestPickup = p; bestDrop = d; }
+                }
+            }
+            if (bestPickup != null) {
+                int pickupSegment = (int) bestPickup[2], dropSegment = (int) bestDrop[2];
+                double insertion = pickupSegment == dropSegment
+                        ? insertion(route.latLng(), pickupSegment, pickupLat, pickupLng, dropLat, dropLng)
+                        : insertion(route.latLng(), pickupSegment, pickupLat, pickupLng) + insertion(route.latLng(), dropSegment, dropLat, dropLng);
+                matches.add(new Match(e.getKey(), (int) Math.round(bestPickup[0]), (int) Math.round(bestDrop[0]),
+                        (int) Math.round(bestPickup[1]), (int) Math.round(bestDrop[1]), (int) Math.round(insertion), routeMeters, routeSeconds));
+            }
+        }
+        matches.sort((a, b) -> a.offRouteMeters() != b.offRouteMeters()
+                ? Integer.compare(a.offRouteMeters(), b.offRouteMeters()) : Long.compare(a.rideId(), b.rideId()));
+        return matches;
+    }
+
+    /**
+     * Straight-line meters added to segment s of the route by visiting the stops (lat, lng pairs, in order) between its
+     * two ends: |A P| + |P B| - |A B| for a single stop. Unlike twice the distance off the route, this is small for a
+     * point beside a long straight segment and close to the full out-and-back for a point beside a vertex.
+     */
+    static double insertion(double[] p, int s, double... stops) {
+        double lat = p[2 * s], lng = p[2 * s + 1], meters = 0;
+        for (int i = 0; i < stops.length; i += 2) {
+            meters += GeoUtils.distanceMeters(lat, lng, stops[i], stops[i + 1]);
+            lat = stops[i];
+            lng = stops[i + 1];
+        }
+        meters += GeoUtils.distanceMeters(lat, lng, p[2 * s + 2], p[2 * s + 3]);
+        return Math.max(0, meters - GeoUtils.distanceMeters(p[2 * s], p[2 * s + 1], p[2 * s + 2], p[2 * s + 3]));
+    }
+
+    /** Per ride, {distance, meters along the route, segment} for every segment passing within the radius of the point. */
+    private Map<Long, List<double[]>> near(double lat, double lng, double radiusMeters) {
+        double dLat = GeoUtils.latDegrees(radiusMeters), dLng = GeoUtils.lngDegrees(radiusMeters, lat);
+        // one extra cell on each side: a segment is only guaranteed to be registered within a cell of where it passes
+        int latLo = Math.max(0, latIndex(lat - dLat) - 1), latHi = Math.min(LAT_CELLS - 1, latIndex(lat + dLat) + 1);
+        long lngLo = (long) Math.floor((lng - dLng + 180) / CELL_DEGREES) - 1, lngHi = (long) Math.floor((lng + dLng + 180) / CELL_DEGREES) + 1;
+        if (lngHi - lngLo + 1 >= LNG_CELLS) { lngLo = 0; lngHi = LNG_CELLS - 1; }
+        Set<Long> seen = new HashSet<>();
+        Map<Long, List<double[]>> hits = new HashMap<>();
+        double cosLat = Math.cos(Math.toRadians(lat));
+        for (int la = latLo; la <= latHi; la++) {
+            for (long lo = lngLo; lo <= lngHi; lo++) {
+                long[] entries = cells.get(cellKey(la, Math.floorMod(lo, LNG_CELLS)));
+                if (entries == null) continue;
+                for (long entry : entries) {
+                    if (!seen.add(entry)) continue; // long segments are posted in several cells
+                    long rideId = entry >>> SEGMENT_BITS;
+                    int s = (int) (entry & MAX_SEGMENTS);
+                    Route route = routes.get(rideId);
+                    if (route == null || s >= route.segments()) continue; // replaced or removed since the cell was read
+                    double[] hit = nearestOnSegment(route, s, lat, lng, cosLat);
+                    if (hit[0] <= radiusMeters) hits.computeIfAbsent(rideId, k -> new ArrayList<>()).add(hit);
+                }
+            }
+        }
+        return hits;
+    }
+
+    // Local equirectangular projection around the query point; accurate to well under 1% at corridor distances
+    private static double[] nearestOnSegment(Route route, int s, double lat, double lng, double cosLat) {
+        double[] p = route.latLng();
+        double ax = wrap(p[2 * s + 1] - lng) * cosLat, ay = p[2 * s] - lat;
+        double bx = wrap(p[2 * s + 3] - lng) * cosLat, by = p[2 * s + 2] - lat;
+        double dx = bx - ax, dy = by - ay;
+        double len2 = dx * dx + dy * dy;
+        double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / len2));
+        double x = ax + t * dx, y = ay + t * dy;
+        double meters = Math.sqrt(x * x + y * y) / GeoUtils.latDegrees(1);
+        double along = route.along()[s] + t * (route.along()[s + 1] - route.along()[s]);
+        return new double[]{meters, along, s};
+    }
+
+    // WRITES ---------------------------------------------------------------------------------
+    /** Indexes the ride's current route; rides that are not Active or have no usable geometry are dropped. */
+    public void upsert(Ride ride) {
+        if (ride == null || ride.getId() == null) return;
+        long version = ride.getVersion() == null ? 0 : ride.getVersion();
+        boolean active = "Active".equalsIgnoreCase(ride.getStatus());
+        double[] pts = active ? RoutePolyline.decode(ride.getRouteGeometry()) : null;
+        synchronized (writeLock) {
+            Route old = routes.get(ride.getId());
+            if (old != null && old.version() > version) return; // a later commit already got here first
+            if (touchedDuringResync != null) touchedDuringResync.add(ride.getId());
+            if (pts != null && old != null && old.geometryHash() == Arrays.hashCode(pts)) {
+                routes.put(old.rideId(), old.withVersion(version, ride.getRouteDistanceMeters(), ride.getRouteDurationSeconds()));
+                return; // same route, nothing to re-rasterize
+            }
+        }
+        Route route = pts != null
+                ? Route.build(ride.getId(), version, pts, ride.getRouteDistanceMeters(), ride.getRouteDurationSeconds()) : null;
+        synchronized (writeLock) {
+            Route current = routes.get(ride.getId());
+            if (current != null && current.version() > version) return;
+            if (route == null) unindex(ride.getId()); else index(route);
+        }
+    }
+
+    public void remove(Collection<Long> rideIds) {
+        synchronized (writeLock) {
+            for (Long id : rideIds) {
+                if (touchedDuringResync != null) touchedDuringResync.add(id);
+                unindex(id);
+            }
+        }
+    }
+
+    /** Re-reads the routes whose version changed since they were indexed and drops rides no longer active. */
+    @Scheduled(initialDelayString = "${ride.corridor.initial-delay-ms:0}", fixedDelayString = "${ride.corridor.resync-ms:60000}")
+    public void resync() {
+        synchronized (writeLock) { touchedDuringResync = new HashSet<>(); }
+        Map<Long, Long> versions = new HashMap<>();
+        List<Route> loaded = new ArrayList<>();
+        try {
+            for (RideRepository.RouteVersionRow r : rideRepository.findActiveRouteVersions()) {
+                versions.put(r.getId(), r.getVersion() == null ? 0 : r.getVersion());
+            }
+            List<Long> stale = new ArrayList<>();
+            versions.forEach((id, version) -> {
+                Route current = routes.get(id);
+                if (current == null || current.version() < version) stale.add(id);
+            });
+            for (int from = 0; from < stale.size(); from += FETCH_BATCH) {
+                for (RideRepository.RouteRow r : rideRepository.findActiveRoutes(stale.subList(from, Math.min(stale.size(), from + FETCH_BATCH)))) {
+                    Route route = Route.build(r.getId(), r.getVersion() == null ? 0 : r.getVersion(), storedPoints(r),
+                            r.getRouteDistanceMeters(), r.getRouteDurationSeconds());
+                    if (route != null) loaded.add(route);
+                    else versions.remove(r.getId()); // unusable geometry: not indexed
+                }
+            }
+        } catch (Exception e) {
+            synchronized (writeLock) { touchedDuringResync = null; }
+            log.warn("Route corridor index resync failed (ready={}): {}", ready, e.getMessage());
+            return;
+        }
+        synchronized (writeLock) {
+            // local writes that landed while the queries ran are newer than what they returned
+            Set<Long> touched = touchedDuringResync;
+            touchedDuringResync = null;
+            for (Route route : loaded) {
+                if (!touched.contains(route.rideId())) index(route);
+            }
+            for (Long id : new ArrayList<>(routes.keySet())) {
+                if (!versions.containsKey(id) && !touched.contains(id)) unindex(id);
+            }
+            ready = true;
+        }
+    }
+
+    private static double[] storedPoints(RideRepository.RouteRow r) {
+        try {
+            return RouteCodec.decode(r.getRouteData(), 0);
+        } catch (IllegalArgumentException e) {
+            log.warn("Stored route of ride {} is unreadable: {}", r.getId(), e.getMessage());
+            return new double[0];
+        }
+    }
+
+    // guarded by writeLock
+    private void index(Route route) {
+        unindex(route.rideId());
+        routes.put(route.rideId(), route);
+        forEachCell(route, (cell, entries) -> cells.merge(cell, entries, RouteCorridorIndex::union));
+    }
+
+    // guarded by writeLock
+    private void unindex(long rideId) {
+        Route old = routes.remove(rideId);
+        if (old == null) return;
+        forEachCell(old, (cell, entries) -> cells.computeIfPresent(cell, (k, current) -> without(current, rideId)));
+    }
+
+    private interface CellVisitor { void visit(long cell, long[] entries); }
+
+    /** Calls back once per cell of the route with its (rideId << SEGMENT_BITS | segment) entries, sorted. */
+    private static void forEachCell(Route route, CellVisitor visitor) {
+        long[] postings = route.postings();
+        long rideBits = route.rideId() << SEGMENT_BITS;
+        for (int from = 0; from < postings.length; ) {
+            long cell = postings[from] >>> SEGMENT_BITS;
+            int to = from;
+            while (to < postings.length && postings[to] >>> SEGMENT_BITS == cell) to++;
+            long[] entries = new long[to - from];
+            for (int k = from; k < to; k++) entries[k - from] = rideBits | (postings[k] & MAX_SEGMENTS);
+            visitor.visit(cell, entries);
+            from = to;
+        }
+    }
+
+    // One ride's entries are contiguous in a cell, so both edits are a single block copy
+    private static long[] union(long[] current, long[] added) {
+        int at = lowerBound(current, added[0]);
+        long[] out = new long[current.length + added.length];
+        System.arraycopy(current, 0, out, 0, at);
+        System.arraycopy(added, 0, out, at, added.length);
+        System.arraycopy(current, at, out, at + added.length, current.length - at);
+        return out;
+    }
+
+    private static long[] without(long[] current, long rideId) {
+        int from = lowerBound(current, rideId << SEGMENT_BITS), to = lowerBound(current, (rideId + 1) << SEGMENT_BITS);
+        if (from == to) return current;
+        if (to - from == current.length) return null; // computeIfPresent drops the empty cell
+        long[] out = new long[current.length - (to - from)];
+        System.arraycopy(current, 0, out, 0, from);
+        System.arraycopy(current, to, out, from, current.length - to);
+        return out;
+    }
+
+    private static int lowerBound(long[] a, long key) {
+        int lo = 0, hi = a.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static long cellKey(int latIndex, int lngIndex) {
+        return (long) latIndex * LNG_CELLS + lngIndex;
+    }
+
+    private static int latIndex(double lat) {
+        return Math.max(0, Math.min(LAT_CELLS - 1, (int) Math.floor((lat + 90) / CELL_DEGREES)));
+    }
+
+    private static int lngIndex(double lng) {
+        return Math.floorMod((int) Math.floor((lng + 180) / CELL_DEGREES), LNG_CELLS);
+    }
+
+    /** Longitude difference folded into [-180, 180), so segments crossing the antimeridian stay short. */
+    private static double wrap(double dLng) {
+        return dLng - 360 * Math.floor((dLng + 180) / 360);
+    }
+}
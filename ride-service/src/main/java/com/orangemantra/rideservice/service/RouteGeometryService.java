@@ -0,0 +1,74 @@
+package com.orangemantra.rideservice.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+
+import com.orangemantra.rideservice.dto.RideRouteDTO;
+import com.orangemantra.rideservice.model.RideRoute;
+import com.orangemantra.rideservice.repository.RideRouteRepository;
+import com.orangemantra.rideservice.util.RouteCodec;
+import com.orangemantra.rideservice.util.RoutePolyline;
+
+import lombok.RequiredArgsConstructor;
+
+/** Stores ride routes in {@link RouteCodec} form and serves them at the resolution a map zoom needs. */
+@Service
+@RequiredArgsConstructor
+public class RouteGeometryService {
+    private final RideRouteRepository routes;
+
+    /** Replaces the ride's stored route; geometry that decodes to fewer than two points removes it. */
+    public void store(Long rideId, String geometry) {
+        double[] pts = RoutePolyline.decode(geometry);
+        if (pts.length < 4) {
+            routes.deleteById(rideId);
+            return;
+        }
+        routes.save(compact(rideId, pts));
+    }
+
+    private static RideRoute compact(Long rideId, double[] pts) {
+        double[] b = RouteCodec.bounds(pts);
+        return RideRoute.builder()
+                .rideId(rideId)
+                .pointCount(pts.length / 2)
+                .minLat(b[0]).minLng(b[1]).maxLat(b[2]).maxLng(b[3])
+                .preview(RoutePolyline.encode(RouteCodec.preview(pts, RideRoute.PREVIEW_MAX_POINTS)))
+                .data(RouteCodec.encode(pts))
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    /** The route simplified for the given web-map zoom (full resolution when zoom is null). */
+    public Optional<RideRouteDTO> forZoom(Long rideId, Integer zoom) {
+        return routes.findById(rideId).map(r -> {
+            int level = zoom == null ? 0 : RouteCodec.levelForZoom(zoom, (r.getMinLat() + r.getMaxLat()) / 2);
+            double[] pts = RouteCodec.decode(r.getData(), level);
+            return RideRouteDTO.builder()
+                    .rideId(rideId)
+                    .level(level)
+                    .toleranceMeters(RouteCodec.LEVEL_TOLERANCE_METERS[level])
+                    .pointCount(pts.length / 2)
+                    .bounds(new double[]{r.getMinLat(), r.getMinLng(), r.getMaxLat(), r.getMaxLng()})
+                    .polyline(RoutePolyline.encode(pts))
+                    .build();
+        });
+    }
+
+    /** Full-resolution route as an encoded polyline, or null; what the edit form round-trips. */
+    public String fullGeometry(Long rideId) {
+        return routes.findById(rideId).map(r -> RoutePolyline.encode(RouteCodec.decode(r.getData(), 0))).orElse(null);
+    }
+
+    public Map<Long, RideRouteRepository.SummaryRow> summaries(Collection<Long> rideIds) {
+        Map<Long, RideRouteRepository.SummaryRow> byRide = new HashMap<>();
+        if (rideIds.isEmpty()) return byRide;
+        for (RideRouteRepository.SummaryRow row : routes.findSummaries(rideIds)) byRide.put(row.getRideId(), row);
+        return byRide;
+    }
+}
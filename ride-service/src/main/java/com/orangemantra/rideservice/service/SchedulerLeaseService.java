@@ -0,0 +1,34 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.repository.SchedulerLeaseRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SchedulerLeaseService {
+    private final SchedulerLeaseRepository leaseRepo;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /** Returns true when this instance holds {@code name} for at least {@code ttl} from now. */
+    public boolean tryAcquire(String name, Duration ttl) {
+        Instant now = Instant.now();
+        try {
+            if (leaseRepo.tryAcquire(name, instanceId, now, now.plus(ttl)) > 0) return true;
+            if (leaseRepo.existsById(name)) return false;
+            return leaseRepo.insertLease(name, instanceId, now.plus(ttl)) > 0;
+        } catch (DataIntegrityViolationException race) {
+            return false; // another replica created the row first
+        } catch (Exception e) {
+            log.warn("Lease acquisition failed name={}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.model.RideParticipant;
+import com.orangemantra.rideservice.repository.RideRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Seat inventory changes for one ride, each in its own transaction.
+ * <p>
+ * Every method starts by taking the ride row lock (SELECT ... FOR UPDATE), so bookings on the same ride
+ * are serialized in the database across all replicas while different rides proceed in parallel. The seat
+ * check, the participant row and the seat counter are then written together under that lock, and the
+ * {@code @Version} bump makes non-locking writers (updateRide, cancel) fail fast instead of overwriting.
+ * A join or leave writes a single ride_participant row. Callers retry on
+ * {@link org.springframework.dao.ConcurrencyFailureException}.
+ */
+@Service
+@RequiredArgsConstructor
+public class SeatReservationService {
+    private final RideRepository rideRepository;
+
+    /** @return the saved ride, or null if the employee was already on it (joined or pending) */
+    @Transactional
+    public Ride join(Long rideId, String empId, int passengers) {
+        Ride ride = lock(rideId);
+        if (!"Active".equalsIgnoreCase(ride.getStatus()) || RideExpiryService.isPastDeadline(ride)) throw new RuntimeException("Ride is not active");
+        if (ride.getAvailableSeats() < passengers) throw new RuntimeException("Not enough seats available");
+        if (ride.findParticipant(empId).isPresent()) return null;
+        if (ride.isInstantBookingEnabled()) {
+            ride.addParticipant(empId, passengers, RideParticipant.JOINED);
+            ride.setAvailableSeats(ride.getAvailableSeats() - passengers);
+        } else {
+            ride.addParticipant(empId, passengers, RideParticipant.PENDING);
+        }
+        ride.setUpdatedAt(LocalDateTime.now());
+        return rideRepository.save(ride);
+    }
+
+    /** @return the saved ride, or null if there was nothing to approve */
+    @Transactional
+    public Ride approve(Long rideId, String ownerEmpId, String empId, int passengers) {
+        Ride ride = lock(rideId);
+        if (!ride.getOwnerEmpId().equals(ownerEmpId)) throw new RuntimeException("Not ride owner");
+        if (ride.isInstantBookingEnabled()) return null; // nothing to approve
+        if (ride.getAvailableSeats() < passengers) throw new RuntimeException("Not enough seats available");
+        Optional<RideParticipant> pending = ride.findParticipant(empId).filter(p -> !p.isJoined());
+        if (pending.isPresent()) {
+            pending.get().setState(RideParticipant.JOINED);
+            pending.get().setSeats(passengers);
+            ride.setAvailableSeats(ride.getAvailableSeats() - passengers);
+            ride.setUpdatedAt(LocalDateTime.now());
+            return rideRepository.save(ride);
+        }
+        return null;
+    }
+
+    @Transactional
+    public Ride decline(Long rideId, String ownerEmpId, String empId) {
+        Ride ride = lock(rideId);
+        if (!ride.getOwnerEmpId().equals(ownerEmpId)) throw new RuntimeException("Not ride owner");
+        if (ride.isInstantBookingEnabled()) return null;
+        Optional<RideParticipant> pending = ride.findParticipant(empId).filter(p -> !p.isJoined());
+        if (pending.isPresent()) {
+            ride.removeParticipant(pending.get());
+            ride.setUpdatedAt(LocalDateTime.now());
+            return rideRepository.save(ride);
+        }
+        return null;
+    }
+
+    /** Leaving returns booked seats; a pending passenger may also withdraw their request. */
+    @Transactional
+    public Ride leave(Long rideId, String empId) {
+        Ride ride = lock(rideId);
+        RideParticipant p = ride.findParticipant(empId).orElseThrow(() -> new RuntimeException("Employee not in this ride"));
+        ride.removeParticipant(p);
+        if (p.isJoined()) {
+            int seats = p.getSeats() > 0 ? p.getSeats() : 1;
+            ride.setAvailableSeats(Math.min(ride.getAvailableSeats() + seats, ride.getTotalSeats()));
+        }
+        ride.setUpdatedAt(LocalDateTime.now());
+        return rideRepository.save(ride);
+    }
+
+    private Ride lock(Long rideId) {
+        return rideRepository.findForUpdateById(rideId).orElseThrow(() -> new RuntimeException("Ride not found"));
+    }
+}
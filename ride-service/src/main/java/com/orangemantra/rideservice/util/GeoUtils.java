@@ -0,0 +1,35 @@
+package com.orangemantra.rideservice.util;
+
+/**
+ * Great-circle distance and degree/metre conversions for WGS84 coordinates.
+ */
+public final class GeoUtils {
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    private static final double METERS_PER_DEGREE = Math.PI * EARTH_RADIUS_METERS / 180;
+
+    private GeoUtils() {}
+
+    public static boolean isValid(double lat, double lng) {
+        return lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180; // false for NaN
+    }
+
+    /** Haversine distance; NaN when either point is missing. */
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /** Latitude span covering the given distance. */
+    public static double latDegrees(double meters) {
+        return meters / METERS_PER_DEGREE;
+    }
+
+    /** Longitude span covering the given distance at a latitude; the whole circle near the poles. */
+    public static double lngDegrees(double meters, double lat) {
+        double cos = Math.cos(Math.toRadians(Math.min(89.9, Math.abs(lat) + latDegrees(meters))));
+        return Math.min(180, meters / (METERS_PER_DEGREE * cos));
+    }
+}
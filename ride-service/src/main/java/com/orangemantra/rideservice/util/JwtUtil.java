@@ -9,6 +9,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.util.Date;
 
 /**
  * Optimized JWT utility: builds parser & key once (bean lifecycle) to avoid repeated
@@ -34,4 +35,31 @@ public class JwtUtil implements InitializingBean {
     }
 
     public String extractEmpId(String token) { return extractAllClaims(token).get("empId", String.class); }
+
+    private static final long SERVICE_TOKEN_TTL_MS = 15 * 60 * 1000L;
+    static final String SERVICE_ROLE = "SERVICE";
+    static final String SERVICE_AUDIENCE = "employee-service";
+    private volatile String serviceToken;
+    private volatile long serviceTokenRenewAt;
+
+    /**
+     * "Bearer ..." header for calls made outside a user request (cache refresh, startup sync).
+     * A service credential, not a user: role SERVICE, audience employee-service and no empId, so employee-service
+     * only honours it on the directory endpoints. Signed with the shared secret; re-minted at two thirds of its lifetime.
+     */
+    public String serviceAuthHeader() {
+        long now = System.currentTimeMillis();
+        if (serviceToken == null || now >= serviceTokenRenewAt) {
+            serviceToken = Jwts.builder()
+                    .subject("ride-service")
+                    .audience().add(SERVICE_AUDIENCE).and()
+                    .claim("role", SERVICE_ROLE)
+                    .issuedAt(new Date(now))
+                    .expiration(new Date(now + SERVICE_TOKEN_TTL_MS))
+                    .signWith(key)
+                    .compact();
+            serviceTokenRenewAt = now + SERVICE_TOKEN_TTL_MS * 2 / 3;
+        }
+        return "Bearer " + serviceToken;
+    }
 }
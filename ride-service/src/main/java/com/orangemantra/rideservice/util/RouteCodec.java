@@ -0,0 +1,224 @@
+package com.orangemantra.rideservice.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact stored form of a route polyline: the full route plus Douglas-Peucker simplifications at the tolerances
+ * in {@link #LEVEL_TOLERANCE_METERS}, each as zigzag-varint deltas of 1e-5 degree coordinates (the precision of an
+ * encoded polyline, ~1 m), the whole blob deflated.
+ * <p>
+ * Layout: format byte, varint inflated length, zlib stream of [varint level count, per level: varint byte length,
+ * varint point count, delta pairs]. The per-level lengths let {@link #decode} skip straight to the level it wants.
+ */
+public final class RouteCodec {
+    /** Douglas-Peucker tolerance of each stored level; level 0 keeps every point. */
+    public static final double[] LEVEL_TOLERANCE_METERS = {0, 5, 20, 80, 320};
+    private static final byte FORMAT = 1;
+    private static final double SCALE = 1e5;
+    private static final double[] EMPTY = new double[0];
+
+    private RouteCodec() {}
+
+    public static byte[] encode(double[] latLng) {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(latLng.length * 2 + 16);
+        writeVarint(raw, LEVEL_TOLERANCE_METERS.length);
+        double[] level = quantize(latLng);
+        for (double tolerance : LEVEL_TOLERANCE_METERS) {
+            if (tolerance > 0) level = simplify(level, tolerance); // each level simplifies the previous one
+            byte[] body = deltas(level);
+            writeVarint(raw, body.length);
+            raw.writeBytes(body);
+        }
+        byte[] inflated = raw.toByteArray();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(inflated);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(inflated.length / 2 + 16);
+            out.write(FORMAT);
+            writeVarint(out, inflated.length);
+            byte[] buf = new byte[1024];
+            while (!deflater.finished()) out.write(buf, 0, deflater.deflate(buf));
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /** The points of one stored level (clamped to the coarsest); throws IllegalArgumentException on a corrupt blob. */
+    public static double[] decode(byte[] data, int level) {
+        if (data == null || data.length < 2 || data[0] != FORMAT) throw new IllegalArgumentException("Not an encoded route");
+        int[] at = {1};
+        byte[] raw = new byte[readVarint(data, at)];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, at[0], data.length - at[0]);
+            int n = 0;
+            while (n < raw.length && !inflater.finished()) {
+                int read = inflater.inflate(raw, n, raw.length - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                n += read;
+            }
+            if (n != raw.length) throw new IllegalArgumentException("Truncated route data");
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt route data", e);
+        } finally {
+            inflater.end();
+        }
+        int[] pos = {0};
+        int levels = readVarint(raw, pos);
+        int wanted = Math.max(0, Math.min(levels - 1, level));
+        for (int l = 0; l < wanted; l++) {
+            int length = readVarint(raw, pos);
+            pos[0] += length;
+        }
+        readVarint(raw, pos); // byte length of the wanted level
+        int count = readVarint(raw, pos);
+        double[] out = new double[count * 2];
+        int lat = 0, lng = 0;
+        for (int i = 0; i < count; i++) {
+            lat += unzigzag(readVarint(raw, pos));
+            lng += unzigzag(readVarint(raw, pos));
+            out[2 * i] = lat / SCALE;
+            out[2 * i + 1] = lng / SCALE;
+        }
+        return out;
+    }
+
+    /**
+     * Coarsest level that still draws the route to within about a pixel at the given web-map zoom, using the
+     * Web Mercator ground resolution at the route's latitude.
+     */
+    public static int levelForZoom(int zoom, double lat) {
+        double metersPerPixel = 156_543.03 * Math.cos(Math.toRadians(lat)) / Math.pow(2, zoom);
+        int level = 0;
+        while (level + 1 < LEVEL_TOLERANCE_METERS.length && LEVEL_TOLERANCE_METERS[level + 1] <= metersPerPixel) level++;
+        return level;
+    }
+
+    /** {minLat, minLng, maxLat, maxLng}; callers check for at least one point. */
+    public static double[] bounds(double[] latLng) {
+        double[] b = {latLng[0], latLng[1], latLng[0], latLng[1]};
+        for (int i = 2; i < latLng.length; i += 2) {
+            b[0] = Math.min(b[0], latLng[i]);
+            b[1] = Math.min(b[1], latLng[i + 1]);
+            b[2] = Math.max(b[2], latLng[i]);
+            b[3] = Math.max(b[3], latLng[i + 1]);
+        }
+        return b;
+    }
+
+    /** The coarsest stored level, simplified further (doubling the tolerance) until it has at most maxPoints points. */
+    public static double[] preview(double[] latLng, int maxPoints) {
+        double tolerance = LEVEL_TOLERANCE_METERS[LEVEL_TOLERANCE_METERS.length - 1];
+        double[] pts = simplify(quantize(latLng), tolerance);
+        while (pts.length / 2 > maxPoints && pts.length > 4) {
+            tolerance *= 2;
+            pts = simplify(pts, tolerance);
+        }
+        return pts;
+    }
+
+    /**
+     * Douglas-Peucker: keeps the end points and every point farther than the tolerance from the line through the
+     * points kept around it. Distances are measured in a local equirectangular projection, fine at city scale.
+     */
+    public static double[] simplify(double[] latLng, double toleranceMeters) {
+        int n = latLng.length / 2;
+        if (n <= 2) return latLng;
+        double cosLat = Math.cos(Math.toRadians(latLng[0]));
+        double toleranceDegrees = GeoUtils.latDegrees(toleranceMeters);
+        double limit = toleranceDegrees * toleranceDegrees;
+        boolean[] keep = new boolean[n];
+        keep[0] = keep[n - 1] = true;
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int last = stack[--top], first = stack[--top];
+            double ax = latLng[2 * first + 1] * cosLat, ay = latLng[2 * first];
+            double dx = latLng[2 * last + 1] * cosLat - ax, dy = latLng[2 * last] - ay;
+            double len2 = dx * dx + dy * dy;
+            int farthest = -1;
+            double farthestDistance = limit;
+            for (int i = first + 1; i < last; i++) {
+                double px = latLng[2 * i + 1] * cosLat - ax, py = latLng[2 * i] - ay;
+                double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, (px * dx + py * dy) / len2));
+                double ex = px - t * dx, ey = py - t * dy;
+                double d = ex * ex + ey * ey;
+                if (d > farthestDistance) { farthestDistance = d; farthest = i; }
+            }
+            if (farthest < 0) continue;
+            keep[farthest] = true;
+            if (top + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[top++] = first;
+            stack[top++] = farthest;
+            stack[top++] = farthest;
+            stack[top++] = last;
+        }
+        int kept = 0;
+        for (boolean k : keep) if (k) kept++;
+        double[] out = new double[kept * 2];
+        for (int i = 0, j = 0; i < n; i++) {
+            if (!keep[i]) continue;
+            out[j++] = latLng[2 * i];
+            out[j++] = latLng[2 * i + 1];
+        }
+        return out;
+    }
+
+    /** Rounds to the stored precision and drops points that become repeats of their predecessor. */
+    private static double[] quantize(double[] latLng) {
+        double[] out = new double[latLng.length];
+        int size = 0;
+        for (int i = 0; i + 1 < latLng.length; i += 2) {
+            double lat = Math.round(latLng[i] * SCALE) / SCALE, lng = Math.round(latLng[i + 1] * SCALE) / SCALE;
+            if (size > 0 && out[size - 2] == lat && out[size - 1] == lng) continue;
+            out[size++] = lat;
+            out[size++] = lng;
+        }
+        return size == 0 ? EMPTY : Arrays.copyOf(out, size);
+    }
+
+    private static byte[] deltas(double[] latLng) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(latLng.length * 2 + 4);
+        writeVarint(out, latLng.length / 2);
+        long lat = 0, lng = 0;
+        for (int i = 0; i < latLng.length; i += 2) {
+            long la = Math.round(latLng[i] * SCALE), lo = Math.round(latLng[i + 1] * SCALE);
+            writeVarint(out, zigzag((int) (la - lat)));
+            writeVarint(out, zigzag((int) (lo - lng)));
+            lat = la;
+            lng = lo;
+        }
+        return out.toByteArray();
+    }
+
+    private static int zigzag(int v) { return (v << 1) ^ (v >> 31); }
+
+    private static int unzigzag(int v) { return (v >>> 1) ^ -(v & 1); }
+
+    private static void writeVarint(ByteArrayOutputStream out, int v) {
+        while ((v & ~0x7f) != 0) {
+            out.write((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    private static int readVarint(byte[] in, int[] pos) {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (pos[0] >= in.length) throw new IllegalArgumentException("Truncated route data");
+            byte b = in[pos[0]++];
+            result |= (b & 0x7f) << shift;
+            if (b >= 0) return result;
+        }
+        throw new IllegalArgumentException("Malformed varint in route data");
+    }
+}
@@ -0,0 +1,114 @@
+package com.orangemantra.rideservice.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Arrays;
+
+/**
+ * Decodes the route geometry drivers submit with an offer into a flat {lat0, lng0, lat1, lng1, ...} array.
+ * <p>
+ * Accepts what the frontend may send: an encoded polyline (precision 5, as produced by Google/OSRM), a GeoJSON
+ * LineString/MultiLineString (bare, or wrapped in a Feature/FeatureCollection), or a bare [[lng, lat], ...] array.
+ * Anything unreadable decodes to an empty array; invalid points are dropped.
+ */
+public final class RoutePolyline {
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final double[] EMPTY = new double[0];
+
+    private RoutePolyline() {}
+
+    public static double[] decode(String geometry) {
+        if (geometry == null || geometry.isBlank()) return EMPTY;
+        String g = geometry.trim();
+        try {
+            return g.startsWith("{") || g.startsWith("[") ? decodeGeoJson(JSON.readTree(g)) : decodeEncoded(g);
+        } catch (Exception e) {
+            return EMPTY;
+        }
+    }
+
+    /** Encoded polyline (precision 5) of a flat {lat0, lng0, lat1, lng1, ...} array; the inverse of {@link #decode}. */
+    public static String encode(double[] latLng) {
+        StringBuilder out = new StringBuilder(latLng.length * 3);
+        long lat = 0, lng = 0;
+        for (int i = 0; i + 1 < latLng.length; i += 2) {
+            long la = Math.round(latLng[i] * 1e5), lo = Math.round(latLng[i + 1] * 1e5);
+            appendSigned(out, la - lat);
+            appendSigned(out, lo - lng);
+            lat = la;
+            lng = lo;
+        }
+        return out.toString();
+    }
+
+    private static void appendSigned(StringBuilder out, long delta) {
+        long v = delta < 0 ? ~(delta << 1) : delta << 1;
+        while (v >= 0x20) {
+            out.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>= 5;
+        }
+        out.append((char) (v + 63));
+    }
+
+    static double[] decodeEncoded(String encoded) {
+        Points out = new Points();
+        int index = 0, lat = 0, lng = 0;
+        while (index < encoded.length()) {
+            int[] next = new int[2];
+            for (int c = 0; c < 2; c++) {
+                int result = 0, shift = 0, b;
+                do {
+                    if (index >= encoded.length()) return out.toArray(); // truncated input: keep what decoded cleanly
+                    b = encoded.charAt(index++) - 63;
+                    if (b < 0 || b > 63) throw new IllegalArgumentException("Not an encoded polyline");
+                    result |= (b & 0x1f) << shift;
+                    shift += 5;
+                } while (b >= 0x20);
+                next[c] = (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+            }
+            lat += next[0];
+            lng += next[1];
+            out.add(lat / 1e5, lng / 1e5);
+        }
+        return out.toArray();
+    }
+
+    private static double[] decodeGeoJson(JsonNode node) {
+        Points out = new Points();
+        collect(node, out);
+        return out.toArray();
+    }
+
+    private static void collect(JsonNode node, Points out) {
+        if (node == null) return;
+        if (node.isArray()) {
+            if (node.size() >= 2 && node.get(0).isNumber() && node.get(1).isNumber()) {
+                out.add(node.get(1).asDouble(), node.get(0).asDouble()); // GeoJSON positions are [lng, lat]
+            } else {
+                for (JsonNode child : node) collect(child, out);
+            }
+            return;
+        }
+        if (node.has("coordinates")) collect(node.get("coordinates"), out);
+        else if (node.has("geometry")) collect(node.get("geometry"), out);
+        else if (node.has("features")) collect(node.get("features"), out);
+    }
+
+    private static final class Points {
+        private double[] values = new double[64];
+        private int size;
+
+        void add(double lat, double lng) {
+            if (!GeoUtils.isValid(lat, lng)) return;
+            if (size > 0 && values[size - 2] == lat && values[size - 1] == lng) return; // repeated point, zero-length segment
+            if (size + 2 > values.length) values = Arrays.copyOf(values, values.length * 2);
+            values[size++] = lat;
+            values[size++] = lng;
+        }
+
+        double[] toArray() {
+            return size == 0 ? EMPTY : Arrays.copyOf(values, size);
+        }
+    }
+}
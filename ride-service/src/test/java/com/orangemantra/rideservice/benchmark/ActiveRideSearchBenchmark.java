@@ -0,0 +1,208 @@
+package com.orangemantra.rideservice.benchmark;
+
+import com.orangemantra.rideservice.dto.NearbyQuery;
+import com.orangemantra.rideservice.dto.RideSearchFilter;
+import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.repository.RideRepository;
+import com.orangemantra.rideservice.service.ActiveRideIndex;
+import com.orangemantra.rideservice.service.RouteCorridorIndex;
+import com.orangemantra.rideservice.util.GeoUtils;
+import com.orangemantra.rideservice.util.RoutePolyline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /ride/active search: the columnar ActiveRideIndex against the in-memory stream filter the
+ * controller used before search moved to SQL (same predicates, applied to Ride entities), and
+ * /ride/nearby: the grid index against a haversine scan over every ride, and mode=route: the corridor
+ * index against measuring every segment of every route.
+ * <p>
+ * Run with: mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * then java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.orangemantra.rideservice.benchmark.ActiveRideSearchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActiveRideSearchBenchmark {
+    private static final int PLACES = 40;
+    private static final int DAYS = 14;
+
+    @Param({"1000", "10000", "50000"})
+    public int rides;
+
+    private List<Ride> all;
+    private ActiveRideIndex index;
+    private RideSearchFilter routeAndDate;
+    private RideSearchFilter broadSortedByPrice;
+    private NearbyQuery nearPickupAndDrop;
+    private RouteCorridorIndex corridors;
+    private List<double[]> decodedRoutes;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42);
+        LocalDate today = LocalDate.now().plusDays(1);
+        all = new ArrayList<>(rides);
+        for (long id = 1; id <= rides; id++) {
+            all.add(Ride.builder().id(id).status("Active")
+                    .origin("P" + rnd.nextInt(PLACES)).destination("P" + rnd.nextInt(PLACES))
+                    // pickups and drops spread over a ~60 km metro area
+                    .originLat(28.4 + rnd.nextDouble() * 0.5).originLng(76.9 + rnd.nextDouble() * 0.6)
+                    .destinationLat(28.4 + rnd.nextDouble() * 0.5).destinationLng(76.9 + rnd.nextDouble() * 0.6)
+                    .date(today.plusDays(rnd.nextInt(DAYS)))
+                    .arrivalTime(LocalTime.of(6 + rnd.nextInt(14), rnd.nextInt(60)).toString())
+                    .fare(rnd.nextInt(5) == 0 ? null : BigDecimal.valueOf(50 + rnd.nextInt(450)))
+                    .totalSeats(4).availableSeats(rnd.nextInt(5)).instantBookingEnabled(rnd.nextBoolean())
+                    .version(0L).build());
+        }
+        // routes: 40-point GeoJSON lines from pickup to drop with a random sideways wobble
+        decodedRoutes = new ArrayList<>(rides);
+        corridors = new RouteCorridorIndex(Mockito.mock(RideRepository.class), new SimpleMeterRegistry());
+        for (Ride r : all) {
+            StringBuilder line = new StringBuilder("[");
+            for (int k = 0; k < 40; k++) {
+                double t = k / 39.0, wobble = (rnd.nextDouble() - 0.5) * 0.01;
+                double lat = r.getOriginLat() + t * (r.getDestinationLat() - r.getOriginLat()) + wobble;
+                double lng = r.getOriginLng() + t * (r.getDestinationLng() - r.getOriginLng()) - wobble;
+                line.append(k == 0 ? "" : ",").append('[').append(lng).append(',').append(lat).append(']');
+            }
+            r.setRouteGeometry(line.append(']').toString());
+            decodedRoutes.add(RoutePolyline.decode(r.getRouteGeometry()));
+            corridors.upsert(r); // incremental inserts, one route at a time
+        }
+        RideRepository repo = Mockito.mock(RideRepository.class);
+        Mockito.when(repo.findActiveIndexRows()).thenReturn(all.stream().map(ActiveRideSearchBenchmark::indexRow).toList());
+        index = new ActiveRideIndex(repo, new SimpleMeterRegistry());
+        index.resync(); // one bulk load, like startup
+
+        routeAndDate = RideSearchFilter.builder().origin("P3").destination("P7").date(today.plusDays(2)).passengers(1).build();
+        broadSortedByPrice = RideSearchFilter.builder().after(LocalTime.of(8, 0)).before(LocalTime.of(18, 0))
+                .maxFare(BigDecimal.valueOf(300)).passengers(2).sort("price").build();
+        nearPickupAndDrop = NearbyQuery.builder().lat(28.62).lng(77.21).radiusMeters(3000).destLat(28.50).destLng(77.05).destRadiusMeters(5000.0).build();
+    }
+
+    @Benchmark
+    public List<Long> streamRouteAndDate() { return streamSearch(routeAndDate, 0, 50); }
+
+    @Benchmark
+    public List<Long> indexRouteAndDate() { return index.search(routeAndDate, 0, 50); }
+
+    @Benchmark
+    public List<Long> streamBroadSortedByPrice() { return streamSearch(broadSortedByPrice, 0, 50); }
+
+    @Benchmark
+    public List<Long> indexBroadSortedByPrice() { return index.search(broadSortedByPrice, 0, 50); }
+
+    @Benchmark
+    public List<Long> scanNearby() {
+        NearbyQuery q = nearPickupAndDrop;
+        record Hit(long id, double total) {}
+        return all.stream().map(r -> {
+            double p = GeoUtils.distanceMeters(q.getLat(), q.getLng(), r.getOriginLat(), r.getOriginLng());
+            double d = GeoUtils.distanceMeters(q.getDestLat(), q.getDestLng(), r.getDestinationLat(), r.getDestinationLng());
+            return p <= q.getRadiusMeters() && d <= q.getDestRadiusMeters() && r.getAvailableSeats() >= 1 ? new Hit(r.getId(), p + d) : null;
+        }).filter(Objects::nonNull).sorted(Comparator.comparingDouble(Hit::total).thenComparingLong(Hit::id)).limit(50).map(Hit::id).toList();
+    }
+
+    @Benchmark
+    public List<ActiveRideIndex.Nearby> indexNearby() { return index.nearby(nearPickupAndDrop, 0, 50); }
+
+    @Benchmark
+    public List<Long> scanCorridor() {
+        NearbyQuery q = nearPickupAndDrop;
+        List<Long> hits = new ArrayList<>();
+        for (int r = 0; r < decodedRoutes.size(); r++) {
+            double[] p = decodedRoutes.get(r);
+            boolean pickup = false;
+            for (int k = 0; k + 3 < p.length; k += 2) {
+                if (!pickup) pickup = segmentMeters(p, k, q.getLat(), q.getLng()) <= 1000;
+                else if (segmentMeters(p, k, q.getDestLat(), q.getDestLng()) <= 1000) { hits.add(all.get(r).getId()); break; }
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public List<RouteCorridorIndex.Match> indexCorridor() {
+        NearbyQuery q = nearPickupAndDrop;
+        return corridors.match(q.getLat(), q.getLng(), q.getDestLat(), q.getDestLng(), 1000);
+    }
+
+    private static double segmentMeters(double[] p, int k, double lat, double lng) {
+        double cos = Math.cos(Math.toRadians(lat)), m = 1 / GeoUtils.latDegrees(1);
+        double ax = (p[k + 1] - lng) * cos * m, ay = (p[k] - lat) * m, bx = (p[k + 3] - lng) * cos * m, by = (p[k + 2] - lat) * m;
+        double dx = bx - ax, dy = by - ay, len2 = dx * dx + dy * dy;
+        double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / len2));
+        return Math.hypot(ax + t * dx, ay + t * dy);
+    }
+
+    private List<Long> streamSearch(RideSearchFilter f, int page, int size) {
+        Comparator<Ride> order = Comparator.comparing(Ride::getId);
+        if ("price".equals(f.getSort())) order = Comparator.comparing((Ride r) -> r.getFare() == null ? BigDecimal.ZERO : r.getFare()).thenComparing(order);
+        if ("earliest".equals(f.getSort())) order = Comparator.comparing(Ride::getArrivalTime, Comparator.nullsLast(String::compareTo)).thenComparing(order);
+        return all.stream().filter(r -> {
+            if (f.getOrigin() != null && !f.getOrigin().equals(r.getOrigin())) return false;
+            if (f.getDestination() != null && !f.getDestination().equals(r.getDestination())) return false;
+            if (f.getDate() != null && !f.getDate().equals(r.getDate())) return false;
+            if (f.getInstant() != null && f.getInstant() != r.isInstantBookingEnabled()) return false;
+            if (r.getArrivalTime() != null) {
+                LocalTime t = LocalTime.parse(r.getArrivalTime());
+                if (f.getAfter() != null && t.isBefore(f.getAfter())) return false;
+                if (f.getBefore() != null && t.isAfter(f.getBefore())) return false;
+            }
+            if (r.getAvailableSeats() < f.getPassengers()) return false;
+            if (r.getFare() == null) return f.getMinFare() == null || f.getMinFare().signum() <= 0;
+            if (f.getMinFare() != null && r.getFare().compareTo(f.getMinFare()) < 0) return false;
+            return f.getMaxFare() == null || r.getFare().compareTo(f.getMaxFare()) <= 0;
+        }).sorted(order).skip((long) page * size).limit(size).map(Ride::getId).toList();
+    }
+
+    private static RideRepository.IndexRow indexRow(Ride r) {
+        return new RideRepository.IndexRow() {
+            public Long getId() { return r.getId(); }
+            public String getOrigin() { return r.getOrigin(); }
+            public String getDestination() { return r.getDestination(); }
+            public Double getOriginLat() { return r.getOriginLat(); }
+            public Double getOriginLng() { return r.getOriginLng(); }
+            public Double getDestinationLat() { return r.getDestinationLat(); }
+            public Double getDestinationLng() { return r.getDestinationLng(); }
+            public LocalDate getDate() { return r.getDate(); }
+            public String getArrivalTime() { return r.getArrivalTime(); }
+            public BigDecimal getFare() { return r.getFare(); }
+            public int getAvailableSeats() { return r.getAvailableSeats(); }
+            public boolean isInstantBookingEnabled() { return r.isInstantBookingEnabled(); }
+            public Long getVersion() { return r.getVersion(); }
+            public String getOwnerEmpId() { return r.getOwnerEmpId(); }
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ActiveRideSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,74 @@
+package com.orangemantra.rideservice.benchmark;
+
+import com.orangemantra.rideservice.service.DetourScorer;
+import com.orangemantra.rideservice.service.RouteCorridorIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * sort=best: DetourScorer's primitive-column scoring plus bounded heap against scoring every candidate into an
+ * object and sorting the whole list, for one 20-ride page out of 10k corridor matches.
+ * <p>
+ * Run like ActiveRideSearchBenchmark, with DetourRankingBenchmark as the class name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DetourRankingBenchmark {
+    @Param({"10000"})
+    public int candidates;
+
+    @Param({"20"})
+    public int k;
+
+    private List<RouteCorridorIndex.Match> matches;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42);
+        matches = new ArrayList<>(candidates);
+        for (long id = 1; id <= candidates; id++) {
+            int pickupAlong = rnd.nextInt(20_000);
+            matches.add(new RouteCorridorIndex.Match(id, rnd.nextInt(1000), rnd.nextInt(1000), pickupAlong,
+                    pickupAlong + 1 + rnd.nextInt(10_000), rnd.nextInt(2000), 10_000 + rnd.nextInt(30_000), rnd.nextInt(4) == 0 ? 0 : 900 + rnd.nextInt(2700)));
+        }
+    }
+
+    @Benchmark
+    public List<DetourScorer.Scored> boundedHeap() {
+        return DetourScorer.topK(matches, k);
+    }
+
+    @Benchmark
+    public List<Long> fullSort() {
+        record Cost(long rideId, double seconds) {}
+        return matches.stream().map(m -> {
+            double speed = m.routeSeconds() > 0 ? Math.max(2, Math.min(30, (double) m.routeMeters() / m.routeSeconds())) : 8;
+            return new Cost(m.rideId(), m.insertionMeters() * 1.3 / speed + (m.dropMeters() == null ? 60 : 120));
+        }).sorted(Comparator.comparingDouble(Cost::seconds)).limit(k).map(Cost::rideId).toList();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(DetourRankingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
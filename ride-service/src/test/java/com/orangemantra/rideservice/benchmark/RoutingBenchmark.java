@@ -0,0 +1,124 @@
+package com.orangemantra.rideservice.benchmark;
+
+import com.orangemantra.rideservice.LocationLoader;
+import com.orangemantra.rideservice.routing.RoadGraph;
+import com.orangemantra.rideservice.routing.RoadGraphWriter;
+import com.orangemantra.rideservice.routing.RoadRouter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routing queries per second between every ordered pair of LocationLoader's Gurgaon presets (72 routes).
+ * <p>
+ * No OSM extract ships with the repo, so the graph is a synthetic street grid over the presets' area:
+ * ~50 m blocks (~95k nodes, ~370k edges), 60 km/h arterials every 10th street, 25 km/h elsewhere, 5% one-way.
+ * Point -Dbench.graph at a real RoadGraphWriter file to measure that instead. Compares ALT against plain
+ * Dijkstra on the same mapped graph, single-threaded and with 4 threads.
+ * <p>
+ * Run like ActiveRideSearchBenchmark, with RoutingBenchmark as the class name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutingBenchmark {
+    private static final double SOUTH = 28.40, NORTH = 28.53, WEST = 76.98, EAST = 77.12, STEP = 0.0005;
+
+    private Path file;
+    private RoadRouter alt;
+    private RoadRouter dijkstra;
+    private double[][] pairs;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        String given = System.getProperty("bench.graph");
+        if (given != null) {
+            file = Path.of(given);
+        } else {
+            file = Files.createTempFile("gurgaon-synthetic", ".graph");
+            writeSyntheticGrid(file);
+        }
+        RoadGraph graph = RoadGraph.open(file);
+        alt = new RoadRouter(graph);
+        dijkstra = RoadRouter.dijkstraBaseline(graph);
+
+        List<LocationLoader.Preset> presets = LocationLoader.PRESETS;
+        pairs = new double[presets.size() * (presets.size() - 1)][];
+        int k = 0;
+        for (LocationLoader.Preset a : presets) {
+            for (LocationLoader.Preset b : presets) {
+                if (a != b) pairs[k++] = new double[]{a.lat(), a.lng(), b.lat(), b.lng()};
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (System.getProperty("bench.graph") == null) Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Optional<RoadRouter.Leg> alt(Cursor c) { return query(alt, c); }
+
+    @Benchmark
+    public Optional<RoadRouter.Leg> dijkstra(Cursor c) { return query(dijkstra, c); }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<RoadRouter.Leg> alt4Threads(Cursor c) { return query(alt, c); }
+
+    private Optional<RoadRouter.Leg> query(RoadRouter router, Cursor c) {
+        double[] p = pairs[c.next++ % pairs.length];
+        return router.route(p[0], p[1], p[2], p[3]);
+    }
+
+    private static void writeSyntheticGrid(Path out) throws IOException {
+        Random rnd = new Random(42);
+        int rows = (int) Math.round((NORTH - SOUTH) / STEP) + 1, cols = (int) Math.round((EAST - WEST) / STEP) + 1;
+        RoadGraphWriter writer = new RoadGraphWriter();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) writer.addNode(SOUTH + r * STEP + (rnd.nextDouble() - 0.5) * STEP / 4, WEST + c * STEP);
+        }
+        int eastWest = (int) Math.round(STEP * 111_320 * Math.cos(Math.toRadians(28.46))), northSouth = (int) Math.round(STEP * 111_320);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int v = r * cols + c;
+                if (c + 1 < cols) writer.addRoad(v, v + 1, eastWest, r % 10 == 0 ? 60 : 25, r % 10 != 0 && rnd.nextInt(20) == 0);
+                if (r + 1 < rows) writer.addRoad(v, v + cols, northSouth, c % 10 == 0 ? 60 : 25, c % 10 != 0 && rnd.nextInt(20) == 0);
+            }
+        }
+        writer.write(out, RoadGraphWriter.DEFAULT_LANDMARKS);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(RoutingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,128 @@
+package com.orangemantra.rideservice.config;
+
+import com.orangemantra.rideservice.repository.RideRouteRepository;
+import com.orangemantra.rideservice.service.RouteGeometryService;
+import com.orangemantra.rideservice.service.SchedulerLeaseService;
+import com.orangemantra.rideservice.util.RoutePolyline;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// DDL commits in H2, so this runs without the test transaction and cleans up after itself
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SchemaMigratorTest {
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private PlatformTransactionManager txManager;
+    @Autowired
+    private RideRouteRepository routeRepo;
+    @Autowired
+    private EntityManager em;
+
+    private final SchedulerLeaseService leases = Mockito.mock(SchedulerLeaseService.class);
+    private final ReleaseRegistry releases = Mockito.mock(ReleaseRegistry.class);
+
+    @BeforeEach
+    void setup() {
+        when(leases.tryAcquire(anyString(), any())).thenReturn(true);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS ride_joined_emp_ids (ride_id BIGINT, joined_emp_ids VARCHAR(64))");
+        jdbc.execute("CREATE TABLE IF NOT EXISTS ride_pending_emp_ids (ride_id BIGINT, pending_emp_ids VARCHAR(64))");
+        jdbc.update("INSERT INTO ride (id, available_seats, total_seats, instant_booking_enabled, status) VALUES (900, 2, 4, false, 'Active')");
+        jdbc.update("INSERT INTO ride_joined_emp_ids VALUES (900, 'P1'), (900, 'P1'), (900, 'P2')");
+        jdbc.update("INSERT INTO ride_pending_emp_ids VALUES (900, 'P3'), (900, 'P2')");
+    }
+
+    @AfterEach
+    void cleanup() {
+        jdbc.update("DELETE FROM ride_participant WHERE ride_id = 900");
+        jdbc.update("DELETE FROM ride_route WHERE ride_id IN (900, 901)");
+        jdbc.update("DELETE FROM ride WHERE id IN (900, 901)");
+        jdbc.execute("ALTER TABLE ride DROP COLUMN IF EXISTS route_geometry");
+        jdbc.execute("DROP TABLE ride_joined_emp_ids");
+        jdbc.execute("DROP TABLE ride_pending_emp_ids");
+        jdbc.execute("DROP TABLE IF EXISTS schema_migration");
+    }
+
+    private SchemaMigrator migrator(List<SchemaMigration> migrations) {
+        return new SchemaMigrator(jdbc, new TransactionTemplate(txManager), leases, migrations, releases);
+    }
+
+    @Test
+    void copiesLegacyParticipantsOnceAndKeepsTheLegacyTables() throws Exception {
+        migrator(List.of(new RideParticipantMigration())).afterPropertiesSet();
+
+        assertEquals(List.of("P1:JOINED", "P2:JOINED", "P3:PENDING"), jdbc.queryForList(
+                "SELECT emp_id || ':' || state FROM ride_participant WHERE ride_id = 900 ORDER BY emp_id", String.class));
+        assertTrue(SchemaMigrator.tableExists(jdbc, "ride_joined_emp_ids"));
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM schema_migration WHERE version = '0001'", Integer.class));
+
+        jdbc.update("DELETE FROM ride_participant WHERE ride_id = 900");
+        migrator(List.of(new RideParticipantMigration())).afterPropertiesSet(); // recorded: not run again
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM ride_participant WHERE ride_id = 900", Integer.class));
+    }
+
+    @Test
+    void participantCopyWaitsForThePreviousReleaseToStop() throws Exception {
+        when(releases.replicasBelow("0001")).thenAnswer(inv -> {
+            // the last old replica takes one more join before it goes away
+            jdbc.update("INSERT INTO ride_joined_emp_ids VALUES (900, 'P4')");
+            return List.of("ride-service:old-1");
+        }).thenReturn(List.of());
+
+        migrator(List.of(new RideParticipantMigration())).afterPropertiesSet();
+
+        verify(releases, times(2)).replicasBelow("0001");
+        assertEquals(List.of("P1", "P2", "P4"), jdbc.queryForList(
+                "SELECT emp_id FROM ride_participant WHERE ride_id = 900 AND state = 'JOINED' ORDER BY emp_id", String.class));
+        verify(releases).publish("0001");
+
+        migrator(List.of(new RideParticipantMigration())).afterPropertiesSet(); // recorded: nothing left to wait for
+        verify(releases, times(2)).replicasBelow(any());
+    }
+
+    @Test
+    void routeCopyCountsAndKeepsWhatItCannotDecode() throws Exception {
+        jdbc.execute("ALTER TABLE ride ADD COLUMN route_geometry CLOB");
+        jdbc.update("UPDATE ride SET route_geometry = ? WHERE id = 900", RoutePolyline.encode(new double[]{28.40, 77.00, 28.45, 77.05, 28.49, 77.09}));
+        jdbc.update("INSERT INTO ride (id, available_seats, total_seats, instant_booking_enabled, status, route_geometry) "
+                + "VALUES (901, 2, 4, false, 'Active', 'not a polyline')");
+
+        migrator(List.of(new RouteGeometryMigration(new RouteGeometryService(routeRepo), em))).afterPropertiesSet();
+
+        assertEquals(3, routeRepo.findById(900L).orElseThrow().getPointCount());
+        assertTrue(routeRepo.findById(901L).isEmpty());
+        assertTrue(SchemaMigrator.columnExists(jdbc, "ride", "route_geometry"));
+        assertEquals("not a polyline", jdbc.queryForObject("SELECT route_geometry FROM ride WHERE id = 901", String.class));
+    }
+
+    @Test
+    void failingMigrationFailsStartupAndStaysPending() {
+        SchemaMigration broken = new SchemaMigration() {
+            public String version() { return "9999"; }
+            public String description() { return "broken"; }
+            public void apply(JdbcTemplate jdbc) { jdbc.execute("SELECT * FROM no_such_table"); }
+        };
+        assertThrows(IllegalStateException.class, () -> migrator(List.of(broken)).afterPropertiesSet());
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM schema_migration WHERE version = '9999'", Integer.class));
+    }
+}
@@ -0,0 +1,133 @@
+package com.orangemantra.rideservice.messaging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/** Two replicas whose Kafka topics are replaced by direct hand-off to every consumer, as a per-instance group sees them. */
+public class ChatDeliveryTest {
+
+    private class Replica {
+        final Set<String> connected = new HashSet<>();
+        final SimpUserRegistry users = Mockito.mock(SimpUserRegistry.class);
+        final SimpMessagingTemplate broker = Mockito.mock(SimpMessagingTemplate.class);
+        final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        final ChatPresence presence;
+        final ChatDelivery delivery;
+
+        @SuppressWarnings("unchecked")
+        Replica() {
+            when(users.getUser(anyString())).thenAnswer(inv -> connected.contains(inv.<String>getArgument(0)) ? Mockito.mock(SimpUser.class) : null);
+            when(users.getUsers()).thenAnswer(inv -> {
+                Set<SimpUser> out = new HashSet<>();
+                for (String id : connected) {
+                    SimpUser u = Mockito.mock(SimpUser.class);
+                    when(u.getName()).thenReturn(id);
+                    out.add(u);
+                }
+                return out;
+            });
+            KafkaTemplate<String, ChatPresenceEvent> presenceTopic = Mockito.mock(KafkaTemplate.class);
+            when(presenceTopic.send(anyString(), anyString(), any())).thenAnswer(inv -> {
+                for (Replica r : replicas) r.presence.onPresence(inv.getArgument(2));
+                return CompletableFuture.completedFuture(null);
+            });
+            KafkaTemplate<String, ChatDeliveryEvent> deliveryTopic = Mockito.mock(KafkaTemplate.class);
+            when(deliveryTopic.send(anyString(), anyString(), any())).thenAnswer(inv -> {
+                relayed++;
+                for (Replica r : replicas) r.delivery.onDelivery(inv.getArgument(2));
+                return CompletableFuture.completedFuture(null);
+            });
+            presence = new ChatPresence(users, presenceTopic, meters, true, "chat-presence", 10_000);
+            delivery = new ChatDelivery(broker, deliveryTopic, presence, mapper, meters, "chat-delivery");
+        }
+
+        void connect(String empId) {
+            connected.add(empId);
+            presence.announce();
+        }
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+    private final List<Replica> replicas = new ArrayList<>();
+    private int relayed;
+    private Replica a, b;
+
+    @BeforeEach
+    void setUp() {
+        a = new Replica();
+        b = new Replica();
+        replicas.addAll(List.of(a, b));
+    }
+
+    @Test
+    void frameReachesARecipientConnectedToAnotherReplica() {
+        a.connect("E1");
+        b.connect("E2");
+
+        a.delivery.toUser("E2", "/topic/chat", Map.of("type", "read", "rideId", 7));
+
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(b.broker).convertAndSendToUser(eq("E2"), eq("/topic/chat"), sent.capture());
+        assertEquals(7, ((JsonNode) sent.getValue()).get("rideId").asInt());
+        verify(a.broker, never()).convertAndSendToUser(anyString(), anyString(), any());
+        assertEquals(1, relayed);
+    }
+
+    @Test
+    void localOnlyAndOfflineRecipientsSkipTheRelay() {
+        a.connect("E1");
+
+        a.delivery.toUser("E1", "/topic/chat", Map.of("type", "closed"));
+        a.delivery.toUser("E9", "/topic/chat", Map.of("type", "closed"));
+
+        verify(a.broker).convertAndSendToUser(eq("E1"), eq("/topic/chat"), any());
+        verifyNoInteractions(b.broker);
+        assertEquals(0, relayed);
+        assertEquals(1.0, a.meters.get("ride.chat.deliveries").tag("route", "offline").counter().count());
+    }
+
+    @Test
+    void recipientOnBothReplicasGetsOneFramePerReplica() {
+        a.connect("E1");
+        b.connect("E1");
+
+        b.delivery.toUser("E1", "/topic/chat", Map.of("type", "deleted"));
+
+        verify(a.broker, times(1)).convertAndSendToUser(eq("E1"), eq("/topic/chat"), any());
+        verify(b.broker, times(1)).convertAndSendToUser(eq("E1"), eq("/topic/chat"), any());
+    }
+
+    @Test
+    void replicaThatLeavesIsForgotten() {
+        b.connect("E2");
+        assertTrue(a.presence.isRemote("E2"));
+
+        b.presence.leave();
+
+        assertFalse(a.presence.isRemote("E2"));
+        a.delivery.toUser("E2", "/topic/chat", Map.of("type", "closed"));
+        assertEquals(0, relayed);
+    }
+}
@@ -0,0 +1,112 @@
+package com.orangemantra.rideservice.routing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RoadRouterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void landmarkSearchFindsTheSameFastestPathsAsDijkstraWhileSettlingFewerNodes() throws Exception {
+        // 30 x 30 grid ~110 m apart; every 5th street is a 60 km/h arterial, the rest 20 km/h, some one-way
+        RoadGraphWriter writer = new RoadGraphWriter();
+        Random rnd = new Random(3);
+        int side = 30;
+        for (int r = 0; r < side; r++) for (int c = 0; c < side; c++) writer.addNode(28.40 + r * 0.001, 77.00 + c * 0.001);
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                int v = r * side + c;
+                if (c + 1 < side) writer.addRoad(v, v + 1, 98, r % 5 == 0 ? 60 : 20, rnd.nextInt(10) == 0);
+                if (r + 1 < side) writer.addRoad(v, v + side, 111, c % 5 == 0 ? 60 : 20, rnd.nextInt(10) == 0);
+            }
+        }
+        Path file = dir.resolve("grid.graph");
+        writer.write(file, 6);
+        RoadGraph graph = RoadGraph.open(file);
+        assertEquals(side * side, graph.nodeCount());
+
+        RoadRouter alt = new RoadRouter(graph), dijkstra = RoadRouter.dijkstraBaseline(graph);
+        long altSettled = 0, dijkstraSettled = 0;
+        for (int i = 0; i < 200; i++) {
+            int s = rnd.nextInt(graph.nodeCount()), t = rnd.nextInt(graph.nodeCount());
+            RoadRouter.Leg a = alt.shortest(s, t), d = dijkstra.shortest(s, t);
+            assertEquals(d == null, a == null);
+            if (d == null) continue;
+            assertEquals(d.seconds(), a.seconds(), "travel time " + s + " -> " + t);
+            altSettled += a.settledNodes();
+            dijkstraSettled += d.settledNodes();
+        }
+        assertTrue(altSettled * 2 < dijkstraSettled, altSettled + " vs " + dijkstraSettled);
+    }
+
+    @Test
+    void oneWayRoadsSnappingAndUnreachableTargets() throws Exception {
+        RoadGraphWriter writer = new RoadGraphWriter();
+        int a = writer.addNode(28.4600, 77.0300), b = writer.addNode(28.4700, 77.0300), c = writer.addNode(28.4700, 77.0400);
+        int island = writer.addNode(28.4800, 77.0500);
+        writer.addRoad(a, b, 1112, 36, true);   // 10 m/s, a -> b only
+        writer.addRoad(b, c, 978, 36, false);
+        Path file = dir.resolve("tiny.graph");
+        writer.write(file, 2);
+        RoadRouter router = new RoadRouter(RoadGraph.open(file));
+
+        RoadRouter.Leg forward = router.route(28.4600, 77.0301, 28.4700, 77.0400).orElseThrow(); // ~10 m off node a
+        assertEquals(2090 + 10, forward.meters(), 2);
+        assertEquals(209 + 2, forward.seconds(), 1);
+        assertTrue(router.route(28.4700, 77.0400, 28.4600, 77.0300).isEmpty());  // against the one-way
+        assertTrue(router.route(28.4600, 77.0300, 28.4800, 77.0500).isEmpty());  // island node has no roads
+        assertTrue(router.route(28.6000, 77.3000, 28.4700, 77.0400).isEmpty());  // nowhere near the network
+        assertEquals(island, router.nearestNode(28.4801, 77.0500));
+    }
+
+    @Test
+    void concurrentQueriesShareABoundedPoolOfScratchSpace() throws Exception {
+        RoadGraphWriter writer = new RoadGraphWriter();
+        int side = 12;
+        for (int r = 0; r < side; r++) for (int c = 0; c < side; c++) writer.addNode(28.40 + r * 0.001, 77.00 + c * 0.001);
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                int v = r * side + c;
+                if (c + 1 < side) writer.addRoad(v, v + 1, 98, 30, false);
+                if (r + 1 < side) writer.addRoad(v, v + side, 111, 30, false);
+            }
+        }
+        Path file = dir.resolve("pool.graph");
+        writer.write(file, 2);
+        RoadGraph graph = RoadGraph.open(file);
+        RoadRouter reference = new RoadRouter(graph, 1), pooled = new RoadRouter(graph, 2);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                int s = (i * 37) % graph.nodeCount(), t = (i * 91 + 5) % graph.nodeCount();
+                results.add(pool.submit(() -> pooled.shortest(s, t).seconds() == reference.shortest(s, t).seconds()));
+            }
+            for (Future<Boolean> r : results) assertTrue(r.get());
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(pooled.searchesCreated() <= 2, "scratch arrays: " + pooled.searchesCreated());
+        assertEquals(1, reference.searchesCreated());
+    }
+
+    @Test
+    void rejectsFilesThatAreNotRoadGraphs() throws Exception {
+        Path junk = dir.resolve("junk.graph");
+        Files.write(junk, new byte[64]);
+        assertThrows(IllegalArgumentException.class, () -> RoadGraph.open(junk));
+    }
+}
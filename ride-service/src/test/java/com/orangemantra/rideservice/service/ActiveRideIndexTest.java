@@ -0,0 +1,191 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.dto.NearbyQuery;
+import com.orangemantra.rideservice.dto.RideSearchFilter;
+import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.repository.RideRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ActiveRideIndexTest {
+    private static final LocalDate DAY = LocalDate.now().plusDays(2);
+
+    private RideRepository rideRepo = Mockito.mock(RideRepository.class);
+    private SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ActiveRideIndex index;
+
+    @BeforeEach
+    void setup() {
+        when(rideRepo.findActiveIndexRows()).thenReturn(List.of());
+        index = new ActiveRideIndex(rideRepo, registry);
+        index.resync();
+        index.upsert(ride(1L, "A", "B", DAY, "09:00", "50.00", 3, true));
+        index.upsert(ride(2L, "A", "B", DAY, "08:15", null, 1, false));
+        index.upsert(ride(3L, "A", "C", DAY, null, "20.50", 4, true));
+        index.upsert(ride(4L, "A", "B", DAY.plusDays(1), "07:00", "10.00", 2, true));
+        index.upsert(ride(5L, "X", "B", LocalDate.now().minusDays(1), "07:00", "10.00", 2, true)); // already past its deadline
+    }
+
+    @Test
+    void filterCombinationsFollowTheSqlSearchRules() {
+        assertTrue(index.isReady());
+        assertEquals(List.of(1L, 2L, 3L, 4L), index.search(filter().build(), 0, 50));
+        assertEquals(List.of(1L, 2L), index.search(filter().origin("A").destination("B").date(DAY).build(), 0, 50));
+        assertEquals(List.of(), index.search(filter().origin("nowhere").build(), 0, 50));
+        assertEquals(List.of(2L), index.search(filter().instant(false).build(), 0, 50));
+        assertEquals(List.of(1L, 3L), index.search(filter().passengers(3).build(), 0, 50));
+        // rides without a time pass both time bounds
+        assertEquals(List.of(1L, 3L), index.search(filter().after(LocalTime.of(8, 15, 30)).build(), 0, 50));
+        assertEquals(List.of(2L, 3L, 4L), index.search(filter().before(LocalTime.of(8, 15)).build(), 0, 50));
+        // free rides satisfy any upper bound and a lower bound of zero, but no positive lower bound
+        assertEquals(List.of(2L, 3L, 4L), index.search(filter().maxFare(new BigDecimal("20.50")).build(), 0, 50));
+        assertEquals(List.of(1L, 3L), index.search(filter().minFare(new BigDecimal("20.001")).build(), 0, 50));
+        assertEquals(List.of(1L, 2L, 3L, 4L), index.search(filter().minFare(BigDecimal.ZERO).build(), 0, 50));
+        // bounds beyond the int cents range saturate instead of wrapping
+        assertEquals(List.of(1L, 2L, 3L, 4L), index.search(filter().maxFare(new BigDecimal("30000000")).build(), 0, 50));
+        assertEquals(List.of(), index.search(filter().minFare(new BigDecimal("30000000")).build(), 0, 50));
+        assertEquals(List.of(2L), index.search(filter().maxFare(new BigDecimal("-30000000")).build(), 0, 50));
+    }
+
+    @Test
+    void sortsAndPagesWithIdAsTieBreaker() {
+        assertEquals(List.of(4L, 2L, 1L, 3L), index.search(filter().sort("earliest").build(), 0, 50));
+        assertEquals(List.of(2L, 4L, 3L, 1L), index.search(filter().sort("price").build(), 0, 50));
+        assertEquals(List.of(3L, 1L), index.search(filter().sort("price").build(), 1, 2));
+        assertEquals(List.of(), index.search(filter().build(), 3, 2));
+        assertEquals(List.of(), index.search(filter().build(), -1, 2));
+    }
+
+    @Test
+    void seatChangesApplyInPlaceAndStaleWritesAreIgnored() {
+        Ride booked = ride(1L, "A", "B", DAY, "09:00", "50.00", 0, true);
+        booked.setVersion(2L);
+        index.upsert(booked);
+        assertEquals(List.of(2L, 3L, 4L), index.search(filter().build(), 0, 50));
+
+        index.upsert(ride(1L, "A", "B", DAY, "09:00", "50.00", 3, true)); // version 1 arriving late
+        assertEquals(List.of(2L, 3L, 4L), index.search(filter().build(), 0, 50));
+
+        Ride cancelled = ride(3L, "A", "C", DAY, null, "20.50", 4, true);
+        cancelled.setStatus("Cancelled");
+        index.upsert(cancelled);
+        index.remove(List.of(4L));
+        assertEquals(List.of(2L), index.search(filter().build(), 0, 50));
+        assertEquals(3.0, registry.get("ride.index.active.size").gauge().value());
+    }
+
+    @Test
+    void writesMoveTheRideSetVersionOfTheRoutesTheyTouch() {
+        long ab = index.versionOf("A", "B"), ac = index.versionOf("A", "C"), all = index.versionOf("A", null);
+        index.upsert(ride(1L, "A", "B", DAY, "09:00", "50.00", 3, true)); // unchanged row
+        assertEquals(ab, index.versionOf("A", "B"));
+        assertEquals(all, index.versionOf(" ", "B"));
+
+        Ride booked = ride(1L, "A", "B", DAY, "09:00", "50.00", 2, true);
+        booked.setVersion(2L);
+        index.upsert(booked);
+        assertTrue(index.versionOf("A", "B") > ab);
+        assertEquals(ac, index.versionOf("A", "C"));
+        assertTrue(index.versionOf(null, null) > all);
+
+        Ride moved = ride(1L, "A", "C", DAY, "09:00", "50.00", 2, true);
+        moved.setVersion(3L);
+        ab = index.versionOf("A", "B");
+        index.upsert(moved); // leaves A->B and joins A->C
+        assertTrue(index.versionOf("A", "B") > ab);
+        assertTrue(index.versionOf("A", "C") > ac);
+
+        ac = index.versionOf("A", "C");
+        index.remove(List.of(3L));
+        assertTrue(index.versionOf("A", "C") > ac);
+        assertEquals(0, index.versionOf("never", "seen"));
+    }
+
+    @Test
+    void routeAndLocationChangesMoveTheRideBetweenIndexes() {
+        Ride moved = located(2L, 28.600, 77.200, null, null);
+        moved.setVersion(2L);
+        index.upsert(moved);
+        assertEquals(List.of(1L), index.search(filter().origin("A").destination("B").date(DAY).build(), 0, 50));
+        assertEquals(List.of(2L), index.search(filter().origin("P").build(), 0, 50));
+        assertEquals(List.of(2L), index.nearby(near(28.600, 77.200, 500).build(), 0, 50).stream().map(ActiveRideIndex.Nearby::rideId).toList());
+
+        index.remove(List.of(2L));
+        assertEquals(List.of(), index.search(filter().origin("P").build(), 0, 50));
+        assertEquals(List.of(), index.nearby(near(28.600, 77.200, 500).build(), 0, 50));
+
+        // a removed ride coming back reuses its slot under its new values
+        Ride back = located(2L, 10.000, 10.000, null, null);
+        back.setVersion(3L);
+        index.upsert(back);
+        assertEquals(List.of(), index.nearby(near(28.600, 77.200, 500).build(), 0, 50));
+        assertEquals(List.of(2L), index.nearby(near(10.000, 10.000, 500).build(), 0, 50).stream().map(ActiveRideIndex.Nearby::rideId).toList());
+        assertEquals(5, index.size()); // ride 5 stays indexed until expiry removes it
+    }
+
+    @Test
+    void nearbyRanksByPickupPlusDropDistanceWithinBothRadii() {
+        // pickups around (28.6, 77.2); ~0.009 deg latitude is ~1 km
+        index.upsert(located(10L, 28.600, 77.200, 28.500, 77.300));
+        index.upsert(located(11L, 28.609, 77.200, 28.500, 77.300));
+        index.upsert(located(12L, 28.600, 77.200, 28.700, 77.300)); // drop far from the requested one
+        index.upsert(located(13L, 28.640, 77.200, 28.500, 77.300)); // pickup ~4.4 km away
+        index.upsert(located(14L, 28.601, 77.200, null, null));     // no drop coordinates
+
+        List<ActiveRideIndex.Nearby> pickupOnly = index.nearby(near(28.600, 77.200, 2000).build(), 0, 50);
+        assertEquals(List.of(10L, 12L, 14L, 11L), pickupOnly.stream().map(ActiveRideIndex.Nearby::rideId).toList());
+        assertNull(pickupOnly.get(0).dropMeters());
+        assertEquals(1001, pickupOnly.get(3).pickupMeters(), 5);
+
+        List<ActiveRideIndex.Nearby> both = index.nearby(near(28.600, 77.200, 5000).destLat(28.500).destLng(77.300).destRadiusMeters(1000.0).build(), 0, 50);
+        assertEquals(List.of(10L, 11L, 13L), both.stream().map(ActiveRideIndex.Nearby::rideId).toList());
+        assertEquals(0, both.get(0).dropMeters());
+
+        assertEquals(List.of(11L), index.nearby(near(28.600, 77.200, 5000).destLat(28.500).destLng(77.300).build(), 1, 1)
+                .stream().map(ActiveRideIndex.Nearby::rideId).toList());
+        assertEquals(List.of(), index.nearby(near(28.600, 77.200, 2000).date(DAY.plusDays(5)).build(), 0, 50));
+    }
+
+    @Test
+    void nearbyCoarseLevelsAndAntimeridianStillFindEveryRideInRadius() {
+        index.upsert(located(20L, 0.0, 179.99, null, null));
+        index.upsert(located(21L, 0.0, -179.99, null, null));
+        index.upsert(located(22L, 0.3, 179.70, null, null)); // ~46 km away, only reachable with a wide radius
+
+        assertEquals(List.of(20L, 21L), index.nearby(near(0.0, 179.999, 3000).build(), 0, 50).stream().map(ActiveRideIndex.Nearby::rideId).toList());
+        assertEquals(List.of(20L, 21L, 22L), index.nearby(near(0.0, 179.999, 50_000).build(), 0, 50).stream().map(ActiveRideIndex.Nearby::rideId).toList());
+    }
+
+    private static NearbyQuery.NearbyQueryBuilder near(double lat, double lng, double radius) {
+        return NearbyQuery.builder().lat(lat).lng(lng).radiusMeters(radius);
+    }
+
+    private static Ride located(Long id, double lat, double lng, Double destLat, Double destLng) {
+        Ride r = ride(id, "P", "Q", DAY, "09:00", null, 2, true);
+        r.setOriginLat(lat);
+        r.setOriginLng(lng);
+        r.setDestinationLat(destLat);
+        r.setDestinationLng(destLng);
+        return r;
+    }
+
+    private static RideSearchFilter.RideSearchFilterBuilder filter() {
+        return RideSearchFilter.builder();
+    }
+
+    private static Ride ride(Long id, String origin, String destination, LocalDate date, String time, String fare, int seats, boolean instant) {
+        return Ride.builder().id(id).origin(origin).destination(destination).date(date).arrivalTime(time)
+                .fare(fare == null ? null : new BigDecimal(fare)).totalSeats(4).availableSeats(seats)
+                .instantBookingEnabled(instant).status("Active").version(1L).build();
+    }
+}
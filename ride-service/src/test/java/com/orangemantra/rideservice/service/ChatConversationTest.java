@@ -0,0 +1,128 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.config.ChatConversationMigration;
+import com.orangemantra.rideservice.dto.ChatDtos;
+import com.orangemantra.rideservice.messaging.ChatDelivery;
+import com.orangemantra.rideservice.model.ChatMessage;
+import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.repository.ChatConversationRepository;
+import com.orangemantra.rideservice.repository.ChatMessageRepository;
+import com.orangemantra.rideservice.repository.RideRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+// MySQL mode for the ON DUPLICATE KEY upsert the repository uses in production
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.datasource.url=jdbc:h2:mem:chat;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class ChatConversationTest {
+    @Autowired
+    private ChatMessageRepository chatRepo;
+    @Autowired
+    private ChatConversationRepository conversationRepo;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private RideRepository rideRepo;
+    @Autowired
+    private EntityManager em;
+
+    private ChatService chat;
+    private Long rideId;
+
+    @BeforeEach
+    void setup() {
+        EmployeeDirectoryService directory = Mockito.mock(EmployeeDirectoryService.class);
+        when(directory.getProfiles(anyCollection())).thenReturn(Map.of());
+        chat = new ChatService(chatRepo, conversationRepo, rideRepo, Mockito.mock(ChatDelivery.class), directory);
+        Ride ride = Ride.builder().ownerEmpId("OWNER").origin("Office").destination("Cyber City")
+                .date(LocalDate.now().plusDays(1)).arrivalTime("09:00").totalSeats(4).availableSeats(3)
+                .fare(BigDecimal.valueOf(50)).status("Active").build();
+        ride.addParticipant("PAX", 1, "JOINED");
+        rideId = rideRepo.save(ride).getId();
+        em.flush();
+    }
+
+    private ChatDtos.ConversationDTO inbox(String me) {
+        em.flush();
+        em.clear();
+        List<ChatDtos.ConversationDTO> list = chat.listConversations(me).stream().filter(c -> rideId.equals(c.getRideId())).toList();
+        assertTrue(list.size() <= 1);
+        return list.isEmpty() ? null : list.get(0);
+    }
+
+    @Test
+    void summaryFollowsSendsReadsAndDeletes() {
+        chat.sendMessage("PAX", new ChatDtos.SendRequest(rideId, "OWNER", "On my way"));
+        chat.sendMessage("PAX", new ChatDtos.SendRequest(rideId, "OWNER", "At the gate"));
+        chat.sendMessage("OWNER", new ChatDtos.SendRequest(rideId, "PAX", "Coming"));
+
+        ChatDtos.ConversationDTO owner = inbox("OWNER");
+        assertEquals("PAX", owner.getOtherEmpId());
+        assertEquals(2, owner.getUnread());
+        assertEquals("Coming", owner.getLastPreview());
+        assertEquals(1, inbox("PAX").getUnread());
+
+        chat.markRead("OWNER", new ChatDtos.ReadRequest(rideId, "PAX", null));
+        assertEquals(0, inbox("OWNER").getUnread());
+        assertEquals(1, inbox("PAX").getUnread());
+
+        chat.deleteConversation("PAX", rideId, "OWNER");
+        assertNull(inbox("OWNER"));
+    }
+
+    @Test
+    void backfillMergesCountsFromTheMessages() {
+        // history written before the summary table, plus a summary row that only saw the newest message
+        chatRepo.save(message("PAX", "OWNER", "On my way", false));
+        chatRepo.save(message("PAX", "OWNER", "At the gate", true));
+        chatRepo.save(message("OWNER", "PAX", "Coming", false));
+        em.flush();
+        jdbc.update("INSERT INTO chat_conversation (ride_id, participant_a, participant_b, unread_a, unread_b) VALUES (?, 'OWNER', 'PAX', 1, 0)", rideId);
+
+        new ChatConversationMigration().apply(jdbc);
+
+        ChatDtos.ConversationDTO owner = inbox("OWNER");
+        assertEquals(1, owner.getUnread());
+        assertEquals("Coming", owner.getLastPreview());
+        assertEquals(1, inbox("PAX").getUnread());
+        assertEquals(1, conversationRepo.count());
+    }
+
+    private ChatMessage message(String from, String to, String content, boolean read) {
+        return ChatMessage.builder().rideId(rideId).fromEmpId(from).toEmpId(to).content(content).ts(Instant.now()).readFlag(read).build();
+    }
+
+    @Test
+    void inboxIsOneQuery() {
+        chat.sendMessage("PAX", new ChatDtos.SendRequest(rideId, "OWNER", "Hi"));
+        em.flush();
+        em.clear();
+        Statistics stats = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        assertFalse(chat.listConversations("OWNER").isEmpty());
+        assertEquals(1, stats.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,52 @@
+package com.orangemantra.rideservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DetourScorerTest {
+
+    @Test
+    void ranksByExtraDriverTimeAtEachRidesOwnSpeed() {
+        List<RouteCorridorIndex.Match> matches = List.of(
+                match(1L, 1000, 500, 20_000, 2_000),  // city: 10 m/s -> 1300 m detour 130 s + 2 stops
+                match(2L, 1000, 500, 20_000, 800),    // highway: 25 m/s -> 52 s + 2 stops
+                match(3L, 200, null, 20_000, 0),      // pickup only, unknown duration: default speed, 1 stop
+                match(4L, 1000, 500, 20_000, 800));   // same cost as 2: input order breaks the tie
+
+        List<DetourScorer.Scored> ranked = DetourScorer.topK(matches, 3);
+        assertEquals(List.of(3L, 2L, 4L), ranked.stream().map(s -> s.match().rideId()).toList());
+        assertEquals(260, ranked.get(0).detourMeters());
+        assertEquals(93, ranked.get(0).detourSeconds());   // 260 m / 8 m/s + 60 s
+        assertEquals(1300, ranked.get(1).detourMeters());
+        assertEquals(172, ranked.get(1).detourSeconds());  // 1300 m / 25 m/s + 120 s
+        assertEquals(List.of(), DetourScorer.topK(matches, 0));
+    }
+
+    @Test
+    void boundedHeapAgreesWithAFullSortOnLargeParallelInputs() {
+        Random rnd = new Random(7);
+        int n = 20_000;
+        int[] insertion = new int[n], stops = new int[n], meters = new int[n], seconds = new int[n];
+        for (int i = 0; i < n; i++) {
+            insertion[i] = rnd.nextInt(2000);
+            stops[i] = 1 + rnd.nextInt(2);
+            meters[i] = 5_000 + rnd.nextInt(40_000);
+            seconds[i] = rnd.nextInt(4) == 0 ? 0 : 600 + rnd.nextInt(3000);
+        }
+        long[] keys = DetourScorer.score(insertion, stops, meters, seconds);
+        long[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(Arrays.copyOf(sorted, 50), DetourScorer.smallest(keys, 50));
+        assertArrayEquals(sorted, DetourScorer.smallest(keys, n + 5));
+    }
+
+    private static RouteCorridorIndex.Match match(long id, int insertion, Integer drop, int routeMeters, int routeSeconds) {
+        return new RouteCorridorIndex.Match(id, 500, drop, 0, drop == null ? null : 1000, insertion, routeMeters, routeSeconds);
+    }
+}
@@ -0,0 +1,111 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.dto.EmployeeProfile;
+import com.orangemantra.rideservice.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class EmployeeDirectoryReplicaTest {
+    private RestTemplate restTemplate = Mockito.mock(RestTemplate.class);
+    private JwtUtil jwtUtil = Mockito.mock(JwtUtil.class);
+    private SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private EmployeeDirectoryReplica replica;
+
+    @BeforeEach
+    void setup() {
+        when(jwtUtil.serviceAuthHeader()).thenReturn("Bearer svc");
+        replica = new EmployeeDirectoryReplica(restTemplate, jwtUtil, registry, Duration.ofHours(6), 2);
+    }
+
+    @Test
+    void packedEntriesRoundTripNullsAndUnicode() {
+        byte[] packed = EmployeeDirectoryReplica.pack("Zoë Ångström", null, "");
+        assertEquals(new EmployeeProfile("e1", "Zoë Ångström", null, ""), EmployeeDirectoryReplica.unpack("e1", packed));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void snapshotPagesUntilShortPageAndKeepsEventsThatArriveMeanwhile() {
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), any(ParameterizedTypeReference.class), eq(0), eq(2)))
+                .thenAnswer(inv -> {
+                    // events racing the snapshot: e2 renamed, e3 deleted
+                    replica.upsert("e2", "B2", null, null);
+                    replica.remove("e3");
+                    return ResponseEntity.ok(List.of(new EmployeeProfile("e1", "A", "a@x", "1"), new EmployeeProfile("e2", "B", null, null)));
+                });
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), any(ParameterizedTypeReference.class), eq(1), eq(2)))
+                .thenReturn(ResponseEntity.ok(List.of(new EmployeeProfile("e3", "C", null, null))));
+
+        assertFalse(replica.isReady());
+        replica.maintain();
+
+        assertTrue(replica.isReady());
+        Map<String, EmployeeProfile> res = replica.lookup(List.of("e1", "e2", "e3", "e4"));
+        assertEquals("1", res.get("e1").getPhone());
+        assertEquals("B2", res.get("e2").getName());
+        assertFalse(res.containsKey("e3"));
+        assertEquals(2.0, registry.get("ride.directory.replica.size").gauge().value());
+
+        replica.maintain(); // fresh snapshot: no second bootstrap
+        verify(restTemplate, times(2)).exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), any(ParameterizedTypeReference.class), anyInt(), anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedSnapshotLeavesReplicaNotReady() {
+        when(restTemplate.exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), any(ParameterizedTypeReference.class), anyInt(), anyInt()))
+                .thenThrow(new RuntimeException("down"));
+        replica.upsert("e9", "Z", null, null);
+
+        replica.maintain();
+
+        assertFalse(replica.isReady());
+        assertEquals("Z", replica.lookup(List.of("e9")).get("e9").getName());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void refreshReadsTheProfileFromTheDirectory() {
+        replica.upsert("e1", "Old", "old@x", "0");
+        replica.upsert("e2", "Gone", null, null);
+        when(restTemplate.exchange(eq("http://employee-service/employee/batch"), eq(HttpMethod.POST), any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenAnswer(inv -> {
+                    List<String> ids = (List<String>) ((HttpEntity<?>) inv.getArgument(2)).getBody();
+                    return ResponseEntity.ok(ids.contains("e1") ? List.of(new EmployeeProfile("e1", "New", "new@x", "1")) : List.of());
+                });
+
+        replica.refresh("e1");
+        replica.refresh("e2");
+
+        Map<String, EmployeeProfile> res = replica.lookup(List.of("e1", "e2"));
+        assertEquals(new EmployeeProfile("e1", "New", "new@x", "1"), res.get("e1"));
+        assertFalse(res.containsKey("e2"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedRefreshKeepsTheCurrentEntry() {
+        replica.upsert("e1", "Old", null, null);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenThrow(new RuntimeException("down"));
+
+        replica.refresh("e1");
+
+        assertEquals("Old", replica.lookup(List.of("e1")).get("e1").getName());
+    }
+}
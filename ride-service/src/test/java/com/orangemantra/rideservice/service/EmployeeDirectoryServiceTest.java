@@ -0,0 +1,130 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.dto.EmployeeProfile;
+import com.orangemantra.rideservice.dto.VehicleInfo;
+import com.orangemantra.rideservice.util.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class EmployeeDirectoryServiceTest {
+    private RestTemplate restTemplate = Mockito.mock(RestTemplate.class);
+    private JwtUtil jwtUtil = Mockito.mock(JwtUtil.class);
+    private EmployeeDirectoryReplica replica = Mockito.mock(EmployeeDirectoryReplica.class);
+    private SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private EmployeeDirectoryService service;
+
+    @BeforeEach
+    void setup() {
+        when(jwtUtil.serviceAuthHeader()).thenReturn("Bearer svc");
+        service = new EmployeeDirectoryService(restTemplate, jwtUtil, replica, registry, Runnable::run,
+                100, Duration.ofMinutes(30), Duration.ofMinutes(10),
+                100, Duration.ofMinutes(5), Duration.ofMinutes(1),
+                Duration.ofSeconds(30), Duration.ofSeconds(3));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resolvesWholePageInOneBatchCallAndServesRepeatsFromCache() {
+        when(restTemplate.exchange(eq("http://employee-service/employee/batch"), eq(HttpMethod.POST), any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(List.of(new EmployeeProfile("e1", "A", "a@x", "1"), new EmployeeProfile("e2", "B", "b@x", "2"))));
+
+        Map<String, EmployeeProfile> res = service.getProfiles(List.of("e1", "e2", "e1", "e3"));
+        Map<String, EmployeeProfile> again = service.getProfiles(List.of("e2", "e3"));
+
+        assertEquals(2, res.size());
+        assertEquals("B", res.get("e2").getName());
+        assertEquals(1, again.size()); // e3 remembered as not found
+        verify(restTemplate, times(1)).exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), any(ParameterizedTypeReference.class));
+        assertEquals(2.0, registry.get("cache.gets").tag("cache", "employeeProfile").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedBatchIsNotCached() {
+        List<String> ids = IntStream.range(0, EmployeeDirectoryService.BATCH_CHUNK + 1).mapToObj(i -> "e" + i).toList();
+        when(restTemplate.exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenThrow(new RuntimeException("down"))
+                .thenReturn(ResponseEntity.ok(List.of(new EmployeeProfile("e200", "Z", null, null))));
+
+        assertTrue(service.getProfiles(ids).isEmpty());
+        Map<String, EmployeeProfile> res = service.getProfiles(List.of("e200"));
+
+        assertEquals(Map.of("e200", new EmployeeProfile("e200", "Z", null, null)), res);
+        verify(restTemplate, times(2)).exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), any(ParameterizedTypeReference.class));
+    }
+
+    @Test
+    void missingVehicleIsNegativeCachedButErrorsPropagate() {
+        when(restTemplate.exchange(eq("http://employee-service/vehicle/e1"), eq(HttpMethod.GET), any(HttpEntity.class), eq(VehicleInfo.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "nf", null, null, null));
+        when(restTemplate.exchange(eq("http://employee-service/vehicle/e2"), eq(HttpMethod.GET), any(HttpEntity.class), eq(VehicleInfo.class)))
+                .thenThrow(new RuntimeException("down"));
+
+        assertNull(service.getVehicle("e1"));
+        assertNull(service.getVehicle("e1"));
+        assertThrows(RuntimeException.class, () -> service.getVehicle("e2"));
+        assertThrows(RuntimeException.class, () -> service.getVehicle("e2"));
+
+        verify(restTemplate, times(1)).exchange(eq("http://employee-service/vehicle/e1"), any(HttpMethod.class), any(HttpEntity.class), eq(VehicleInfo.class));
+        verify(restTemplate, times(2)).exchange(eq("http://employee-service/vehicle/e2"), any(HttpMethod.class), any(HttpEntity.class), eq(VehicleInfo.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void changeEventsRefreshProfilesAndDropVehicles() {
+        when(restTemplate.exchange(eq("http://employee-service/employee/batch"), eq(HttpMethod.POST), any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(List.of(new EmployeeProfile("e1", "A", "a@x", "1"))))
+                .thenReturn(ResponseEntity.ok(List.of(new EmployeeProfile("e1", "A", "a@x", "999"))));
+        VehicleInfo pending = new VehicleInfo();
+        pending.setStatus("PENDING");
+        VehicleInfo approved = new VehicleInfo();
+        approved.setStatus("APPROVED");
+        when(restTemplate.exchange(eq("http://employee-service/vehicle/e1"), eq(HttpMethod.GET), any(HttpEntity.class), eq(VehicleInfo.class)))
+                .thenReturn(ResponseEntity.ok(pending))
+                .thenReturn(ResponseEntity.ok(approved));
+
+        assertEquals("1", service.getProfiles(List.of("e1")).get("e1").getPhone());
+        assertEquals("PENDING", service.getVehicle("e1").getStatus());
+
+        service.employeeChanged("e1");
+        service.employeeChanged("e2"); // not cached: nothing to refresh
+        service.vehicleChanged("e1");
+
+        assertEquals("999", service.getProfiles(List.of("e1")).get("e1").getPhone());
+        assertEquals("APPROVED", service.getVehicle("e1").getStatus());
+        verify(restTemplate, times(2)).exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), any(ParameterizedTypeReference.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void readyReplicaAnswersLocallyAndOnlyMissesGoRemote() {
+        when(replica.isReady()).thenReturn(true);
+        when(replica.lookup(any())).thenReturn(Map.of("e1", new EmployeeProfile("e1", "A", null, null)));
+        when(restTemplate.exchange(anyString(), any(HttpMethod.class), any(HttpEntity.class), any(ParameterizedTypeReference.class)))
+                .thenReturn(ResponseEntity.ok(List.of(new EmployeeProfile("e2", "B", null, null))));
+
+        Map<String, EmployeeProfile> res = service.getProfiles(List.of("e1", "e2"));
+
+        assertEquals(Set.of("e1", "e2"), res.keySet());
+        verify(restTemplate).exchange(anyString(), any(HttpMethod.class), argThat(e -> List.of("e2").equals(e.getBody())), any(ParameterizedTypeReference.class));
+    }
+}
@@ -28,7 +28,7 @@ public class RatingServiceTest {
     @Test
     void createRejectsFutureRide() {
         Ride ride = Ride.builder().id(1L).date(LocalDate.now().plusDays(1)).ownerEmpId("d1").status("Active").build();
-        when(rideRepo.findWithJoinedEmpIdsById(1L)).thenReturn(Optional.of(ride));
+        when(rideRepo.findWithParticipantsById(1L)).thenReturn(Optional.of(ride));
         RatingDtos.CreateRequest req = RatingDtos.CreateRequest.builder().rideId(1L).targetEmpId("d1").stars(5).build();
         assertThrows(IllegalStateException.class, () -> service.create("p1", req));
     }
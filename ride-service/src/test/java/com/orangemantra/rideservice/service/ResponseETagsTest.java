@@ -0,0 +1,74 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.dto.RideSearchFilter;
+import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.repository.RideRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ResponseETagsTest {
+    private RideRepository rideRepo = Mockito.mock(RideRepository.class);
+    private ActiveRideIndex index;
+    private ResponseETags etags;
+
+    @BeforeEach
+    void setup() {
+        when(rideRepo.findActiveIndexRows()).thenReturn(List.of());
+        index = new ActiveRideIndex(rideRepo, new SimpleMeterRegistry());
+        etags = new ResponseETags(index);
+    }
+
+    @Test
+    void noTagUntilTheIndexHasLoadedNorForRouteSearches() {
+        RideSearchFilter filter = RideSearchFilter.builder().origin("A").destination("B").build();
+        assertNull(etags.activeRides(filter, "V1"));
+        assertNull(etags.myRides("OWNER"));
+
+        index.resync();
+        assertNotNull(etags.activeRides(filter, "V1"));
+        assertNotNull(etags.myRides("OWNER"));
+        filter.setPickupLat(28.4);
+        filter.setPickupLng(77.0);
+        assertNull(etags.activeRides(filter, "V1"));
+    }
+
+    @Test
+    void tagsMoveWithTheRidesShownTheDirectoryAndTheViewer() {
+        index.resync();
+        index.upsert(ride(1L, "OWNER", "A", "B", 1L));
+        RideSearchFilter ab = RideSearchFilter.builder().origin("A").destination("B").build();
+        RideSearchFilter ac = RideSearchFilter.builder().origin("A").destination("C").build();
+        String abTag = etags.activeRides(ab, "V1"), acTag = etags.activeRides(ac, "V1");
+        String mine = etags.myRides("OWNER"), theirs = etags.myRides("OTHER");
+        assertTrue(abTag.startsWith("W/\""));
+        assertNotEquals(abTag, etags.activeRides(ab, "V2")); // phones are masked per viewer
+        assertNotEquals(mine, etags.myRides("OTHER"));
+
+        index.upsert(ride(1L, "OWNER", "A", "B", 2L)); // e.g. a seat booked
+        assertNotEquals(abTag, etags.activeRides(ab, "V1"));
+        assertEquals(acTag, etags.activeRides(ac, "V1"));
+        assertNotEquals(mine, etags.myRides("OWNER"));
+        assertEquals(theirs, etags.myRides("OTHER"));
+
+        mine = etags.myRides("OWNER");
+        etags.directoryChanged();
+        assertNotEquals(mine, etags.myRides("OWNER"));
+        assertNotEquals(theirs, etags.myRides("OTHER"));
+
+        assertNotEquals(etags.myRides("OWNER"), new ResponseETags(index).myRides("OWNER")); // never shared across instances
+    }
+
+    private static Ride ride(Long id, String owner, String origin, String destination, Long version) {
+        return Ride.builder().id(id).ownerEmpId(owner).origin(origin).destination(destination)
+                .date(LocalDate.now().plusDays(1)).arrivalTime("09:00").totalSeats(4).availableSeats(2)
+                .status("Active").version(version).build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.model.RideAlert;
+import com.orangemantra.rideservice.repository.RideAlertRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class RideAlertIndexTest {
+    private static final LocalDate MONDAY = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+    private static final int WEEKDAYS = 0b0011111;
+
+    private RideAlertRepository repo = Mockito.mock(RideAlertRepository.class);
+    private RideAlertIndex index;
+
+    @BeforeEach
+    void setup() {
+        when(repo.findAll()).thenReturn(List.of(
+                placeAlert(1L, "E1", "Sector 29", "Dlf CyberHub", "08:30", "09:30", WEEKDAYS),
+                placeAlert(2L, "E2", "Sector 29", "Dlf CyberHub", "18:00", "19:00", WEEKDAYS),
+                placeAlert(3L, "E3", "Sector 29", "Dlf CyberHub", "08:00", "10:00", 1 << 5), // Saturdays
+                pointAlert(4L, "E4", 28.4595, 77.0266, 28.4941, 77.0918, 1000, "08:00", "10:00")));
+        index = new RideAlertIndex(repo, new SimpleMeterRegistry());
+        index.resync();
+    }
+
+    @Test
+    void matchesByPlaceOrPointsWithinTheWindowAndWeekday() {
+        assertEquals(List.of(1L, 4L), ids(index.match(ride("OWNER", MONDAY, "09:00"))));
+        assertEquals(List.of(4L), ids(index.match(ride("OWNER", MONDAY, "09:31")))); // past E1's window
+        assertEquals(List.of(3L, 4L), ids(index.match(ride("OWNER", MONDAY.plusDays(5), "09:00"))));
+        assertEquals(List.of(4L), ids(index.match(ride("E1", MONDAY, "09:00")))); // never the owner's own alert
+
+        Ride farPickup = ride("OWNER", MONDAY, "09:00");
+        farPickup.setOrigin("Somewhere else");
+        farPickup.setOriginLat(28.4595 + 0.02); // ~2.2 km north
+        assertEquals(List.of(), ids(index.match(farPickup)));
+    }
+
+    @Test
+    void localWritesApplyImmediatelyAndSurviveAResync() {
+        index.remove(1L);
+        index.upsert(placeAlert(5L, "E5", "Sector 29", "Dlf CyberHub", "09:00", "09:00", 0)); // every day
+        assertEquals(List.of(4L, 5L), ids(index.match(ride("OWNER", MONDAY, "09:00"))));
+        index.resync(); // the mocked table still has 1 and lacks 5: a real resync would load the committed rows
+        assertEquals(List.of(1L, 4L), ids(index.match(ride("OWNER", MONDAY, "09:00"))));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void matchingDoesNotWaitForAResyncInProgress() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1), release = new CountDownLatch(1);
+        when(repo.findAll()).thenAnswer(inv -> {
+            loading.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return List.of(placeAlert(6L, "E6", "Sector 29", "Dlf CyberHub", "09:00", "09:00", 0));
+        });
+        ExecutorService resync = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> done = resync.submit(index::resync);
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            // the reload is stuck in the query: the old index still answers
+            assertEquals(List.of(1L, 4L), ids(index.match(ride("OWNER", MONDAY, "09:00"))));
+            index.upsert(placeAlert(7L, "E7", "Sector 29", "Dlf CyberHub", "09:00", "09:00", 0));
+            release.countDown();
+            done.get(10, TimeUnit.SECONDS);
+        } finally {
+            resync.shutdownNow();
+        }
+        assertEquals(List.of(6L, 7L), ids(index.match(ride("OWNER", MONDAY, "09:00"))));
+    }
+
+    private static List<Long> ids(List<RideAlertIndex.Alert> alerts) {
+        List<Long> ids = new ArrayList<>();
+        for (RideAlertIndex.Alert a : alerts) ids.add(a.id());
+        ids.sort(null);
+        return ids;
+    }
+
+    private static Ride ride(String owner, LocalDate date, String time) {
+        return Ride.builder().id(100L).ownerEmpId(owner).origin("Sector 29").destination("Dlf CyberHub")
+                .originLat(28.4600).originLng(77.0270).destinationLat(28.4945).destinationLng(77.0915)
+                .date(date).arrivalTime(time).totalSeats(4).availableSeats(4).status("Active").build();
+    }
+
+    private static RideAlert placeAlert(Long id, String emp, String origin, String destination, String from, String to, int weekdays) {
+        return RideAlert.builder().id(id).empId(emp).origin(origin).destination(destination).earliest(from).latest(to).weekdays(weekdays).build();
+    }
+
+    private static RideAlert pointAlert(Long id, String emp, double pLat, double pLng, double dLat, double dLng, int radius, String from, String to) {
+        return RideAlert.builder().id(id).empId(emp).pickupLat(pLat).pickupLng(pLng).dropLat(dLat).dropLng(dLng).radiusMeters(radius)
+                .earliest(from).latest(to).weekdays(WEEKDAYS | (1 << 5)).build();
+    }
+}
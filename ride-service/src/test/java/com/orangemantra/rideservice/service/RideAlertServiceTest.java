@@ -0,0 +1,42 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.dto.RideAlertDtos;
+import com.orangemantra.rideservice.model.RideAlert;
+import com.orangemantra.rideservice.repository.RideAlertRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class RideAlertServiceTest {
+    private RideAlertRepository repo = Mockito.mock(RideAlertRepository.class);
+    private RideAlertService service;
+
+    @BeforeEach
+    void setup() {
+        when(repo.save(any(RideAlert.class))).thenAnswer(inv -> inv.getArgument(0));
+        service = new RideAlertService(repo, Mockito.mock(RideAlertIndex.class), 10);
+    }
+
+    @Test
+    void storesTimesAsHourAndMinute() {
+        RideAlertDtos.AlertDTO alert = service.create("E1", request("08:00:30.5", "09:15:00"));
+        assertEquals("08:00", alert.getEarliest());
+        assertEquals("09:15", alert.getLatest());
+    }
+
+    @Test
+    void rejectsUnparsableTimesAsBadRequests() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> service.create("E1", request("8am", "09:00")));
+        assertEquals(400, e.getStatusCode().value());
+        verify(repo, never()).save(any());
+    }
+
+    private static RideAlertDtos.CreateRequest request(String earliest, String latest) {
+        return RideAlertDtos.CreateRequest.builder().origin("Sector 29").destination("Dlf CyberHub").earliest(earliest).latest(latest).build();
+    }
+}
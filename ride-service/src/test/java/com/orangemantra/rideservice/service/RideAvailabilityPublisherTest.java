@@ -0,0 +1,115 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.dto.RideAvailabilityDelta;
+import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.repository.RideRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class RideAvailabilityPublisherTest {
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+    private static final String SECTOR_TO_HUB = RideAvailabilityPublisher.destination("Sector 29", "Dlf CyberHub", DAY);
+
+    private RideRepository rideRepo = Mockito.mock(RideRepository.class);
+    private SimpMessagingTemplate template = Mockito.mock(SimpMessagingTemplate.class);
+    private ActiveRideIndex index;
+    private RideAvailabilityPublisher publisher;
+
+    @BeforeEach
+    void setup() {
+        when(rideRepo.findActiveIndexRows()).thenReturn(List.of());
+        index = new ActiveRideIndex(rideRepo, new SimpleMeterRegistry());
+        publisher = new RideAvailabilityPublisher(template, index);
+        index.resync();
+    }
+
+    @Test
+    void pushesDeltasOnlyToWatchedSearches() {
+        index.upsert(ride(1L, "Sector 29", 3, 1L));
+        verifyNoInteractions(template); // nobody watching
+
+        publisher.onSubscribe(new SessionSubscribeEvent(this, frame(StompCommand.SUBSCRIBE, "s1", "sub-0", SECTOR_TO_HUB)));
+        index.upsert(ride(1L, "Sector 29", 2, 2L));
+        verify(template).convertAndSend(SECTOR_TO_HUB, new RideAvailabilityDelta(1L, 2L, "SEATS_CHANGED", 2));
+
+        index.upsert(ride(1L, "Sector 30", 2, 3L)); // edited away from this search: the edit's version
+        verify(template).convertAndSend(SECTOR_TO_HUB, new RideAvailabilityDelta(1L, 3L, "REMOVED", null));
+        index.upsert(ride(2L, "Sector 29", 4, 1L));
+        verify(template).convertAndSend(SECTOR_TO_HUB, new RideAvailabilityDelta(2L, 1L, "CREATED", 4));
+        index.remove(List.of(2L)); // expired by one UPDATE that bumped the version once
+        verify(template).convertAndSend(SECTOR_TO_HUB, new RideAvailabilityDelta(2L, 2L, "REMOVED", null));
+        verifyNoMoreInteractions(template);
+    }
+
+    @Test
+    void cancellationOutranksTheLastUpdateOfTheRide() {
+        publisher.onSubscribe(new SessionSubscribeEvent(this, frame(StompCommand.SUBSCRIBE, "s1", "sub-0", SECTOR_TO_HUB)));
+        index.upsert(ride(1L, "Sector 29", 3, 1L));
+        index.upsert(ride(1L, "Sector 29", 2, 2L)); // booked
+        Ride cancelled = ride(1L, "Sector 29", 2, 3L);
+        cancelled.setStatus("Cancelled");
+        index.upsert(cancelled);
+
+        ArgumentCaptor<RideAvailabilityDelta> sent = ArgumentCaptor.forClass(RideAvailabilityDelta.class);
+        verify(template, times(3)).convertAndSend(eq(SECTOR_TO_HUB), sent.capture());
+        RideAvailabilityDelta booked = sent.getAllValues().get(1), removed = sent.getAllValues().get(2);
+        assertEquals(new RideAvailabilityDelta(1L, 3L, "REMOVED", null), removed);
+        // a client that sees the two in either order keeps the removal
+        assertTrue(removed.getVersion() > booked.getVersion());
+    }
+
+    @Test
+    void topicKeyIsAPlainHashOfTheExactSearch() {
+        assertTrue(SECTOR_TO_HUB.matches("/topic/rides/[0-9a-f]{32}"), SECTOR_TO_HUB);
+        assertEquals(SECTOR_TO_HUB, RideAvailabilityPublisher.destination("Sector 29", "Dlf CyberHub", DAY));
+        assertNotEquals(SECTOR_TO_HUB, RideAvailabilityPublisher.destination("Sector 29", "Dlf CyberHub", DAY.plusDays(1)));
+        assertNotEquals(RideAvailabilityPublisher.destination("A B", "C", DAY), RideAvailabilityPublisher.destination("A", "B C", DAY));
+        // characters encoders disagree on still give a path-safe key
+        assertTrue(RideAvailabilityPublisher.destination("Gate (North)!", "St. John's *Hub*", DAY).matches("/topic/rides/[0-9a-f]{32}"));
+    }
+
+    @Test
+    void unsubscribeAndDisconnectStopThePushes() {
+        publisher.onSubscribe(new SessionSubscribeEvent(this, frame(StompCommand.SUBSCRIBE, "s1", "sub-0", SECTOR_TO_HUB)));
+        publisher.onSubscribe(new SessionSubscribeEvent(this, frame(StompCommand.SUBSCRIBE, "s2", "sub-0", SECTOR_TO_HUB)));
+        publisher.onUnsubscribe(new SessionUnsubscribeEvent(this, frame(StompCommand.UNSUBSCRIBE, "s1", "sub-0", null)));
+        index.upsert(ride(1L, "Sector 29", 3, 1L));
+        verify(template).convertAndSend(eq(SECTOR_TO_HUB), any(RideAvailabilityDelta.class)); // s2 still watches
+
+        publisher.onDisconnect(new SessionDisconnectEvent(this, frame(StompCommand.DISCONNECT, "s2", null, null), "s2", CloseStatus.NORMAL));
+        index.upsert(ride(1L, "Sector 29", 2, 2L));
+        verifyNoMoreInteractions(template);
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String session, String subscription, String destination) {
+        StompHeaderAccessor h = StompHeaderAccessor.create(command);
+        h.setSessionId(session);
+        if (subscription != null) h.setSubscriptionId(subscription);
+        if (destination != null) h.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], h.getMessageHeaders());
+    }
+
+    private static Ride ride(Long id, String origin, int seats, Long version) {
+        return Ride.builder().id(id).ownerEmpId("OWNER").origin(origin).destination("Dlf CyberHub").date(DAY).arrivalTime("09:00")
+                .totalSeats(4).availableSeats(seats).status("Active").version(version).build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.orangemantra.rideservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RideChangeLogTest {
+    private final RideChangeLog log = new RideChangeLog(3);
+
+    @Test
+    void answersOnlyVersionsWhoseChangesAreAllStillHeld() {
+        assertNull(log.since(0, 10)); // not started
+        log.start(10);
+        assertEquals(List.of(), log.since(10, 10));
+        assertNull(log.since(9, 10));  // before recording began
+        assertNull(log.since(11, 10)); // never handed out
+
+        for (long seq = 11; seq <= 14; seq++) log.append(seq, seq * 100, RideChangeLog.Type.UPDATED);
+        assertNull(log.since(10, 10)); // 11 was overwritten
+        assertEquals(List.of(1200L, 1300L, 1400L), log.since(11, 10).stream().map(RideChangeLog.Change::rideId).toList());
+        assertEquals(List.of(12L, 13L), log.since(11, 2).stream().map(RideChangeLog.Change::seq).toList());
+        assertEquals(List.of(), log.since(14, 10));
+    }
+}
@@ -0,0 +1,93 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.dto.RideDetailDTO;
+import com.orangemantra.rideservice.messaging.NotificationProducer;
+import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.repository.RideRepository;
+import com.orangemantra.rideservice.repository.RideRouteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Open-session-in-view is off, so nothing may touch a lazy association after the repository call returned.
+ * No test transaction either: every repository call commits and closes its session, as in production.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class RideDetachedAccessTest {
+    @Autowired
+    private RideRepository rideRepo;
+    @Autowired
+    private RideRouteRepository routeRepo;
+
+    private RideService rideService;
+    private NotificationProducer notifications;
+    private ChatService chat;
+    private Long rideId;
+
+    @BeforeEach
+    void setup() {
+        notifications = Mockito.mock(NotificationProducer.class);
+        chat = Mockito.mock(ChatService.class);
+        RouteGeometryService routes = new RouteGeometryService(routeRepo);
+        rideService = RideServiceFixture.over(rideRepo).chat(chat).notifications(notifications).routes(routes).build();
+        Ride ride = Ride.builder().ownerEmpId("OWNER").origin("Sector 29").destination("Cyber City")
+                .originLat(28.46).originLng(77.06).destinationLat(28.49).destinationLng(77.09)
+                .date(LocalDate.now().plusDays(1)).arrivalTime("09:00").carDetails("Swift")
+                .totalSeats(4).availableSeats(1).fare(BigDecimal.TEN).status("Active").build();
+        ride.addParticipant("P1", 2, "JOINED");
+        ride.addParticipant("P2", 1, "JOINED");
+        ride.addParticipant("W1", 1, "PENDING");
+        rideId = rideRepo.save(ride).getId();
+        routes.store(rideId, "[[77.06,28.46],[77.08,28.47],[77.09,28.49]]");
+    }
+
+    @AfterEach
+    void cleanup() {
+        routeRepo.deleteAll();
+        rideRepo.deleteAll();
+    }
+
+    @Test
+    void editFormCarriesParticipantsAndFullRoute() {
+        RideDetailDTO dto = rideService.getRideForEdit(rideId);
+        assertEquals(List.of("P1", "P2"), dto.getJoinedEmpIds());
+        assertEquals(List.of("W1"), dto.getPendingEmpIds());
+        assertEquals(Map.of("P1", 2, "P2", 1), dto.getJoinedSeats());
+        assertNotNull(dto.getRouteGeometry());
+    }
+
+    @Test
+    void updateAndDeleteReadParticipantsAfterTheirTransaction() {
+        Ride edit = Ride.builder().origin("Sector 30").destination("Cyber City")
+                .originLat(28.46).originLng(77.06).destinationLat(28.49).destinationLng(77.09)
+                .date(LocalDate.now().plusDays(1)).arrivalTime("10:00").carDetails("Swift")
+                .totalSeats(5).fare(BigDecimal.TEN).routeDistanceMeters(4000).routeDurationSeconds(600).build();
+        RideDetailDTO updated = rideService.updateRide(rideId, edit);
+        assertEquals("Sector 30", updated.getOrigin());
+        assertEquals(2, updated.getAvailableSeats()); // 3 seats stay booked
+        assertEquals(List.of("P1", "P2"), updated.getJoinedEmpIds());
+        verify(notifications).send(eq("P1"), anyString());
+        verify(notifications).send(eq("P2"), anyString());
+
+        rideService.deleteRide(rideId);
+        assertEquals("Cancelled", rideRepo.findById(rideId).orElseThrow().getStatus());
+        verify(chat).notifyRideClosed(argThat(r -> r.getJoinedEmpIds().equals(List.of("P1", "P2"))));
+        verify(notifications, times(2)).send(eq("P1"), anyString()); // update + cancellation
+    }
+}
@@ -0,0 +1,88 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.repository.RideRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class RideExpiryServiceTest {
+    private RideRepository rideRepo = Mockito.mock(RideRepository.class);
+    private ChatService chatService = Mockito.mock(ChatService.class);
+    private SchedulerLeaseService leaseService = Mockito.mock(SchedulerLeaseService.class);
+    private RideExpiryService service;
+
+    @BeforeEach
+    void setup() {
+        service = new RideExpiryService(rideRepo, chatService, leaseService, Mockito.mock(ActiveRideIndex.class), 60);
+    }
+
+    @Test
+    void deadlineFallsBackToEndOfDayForMissingTime() {
+        LocalDate d = LocalDate.of(2025, 1, 10);
+        assertEquals(LocalDateTime.of(2025, 1, 10, 9, 30), RideExpiryService.deadlineOf(d, "09:30"));
+        assertEquals(LocalDateTime.of(2025, 1, 11, 0, 0), RideExpiryService.deadlineOf(d, null));
+        assertEquals(LocalDateTime.of(2025, 1, 11, 0, 0), RideExpiryService.deadlineOf(d, "bad"));
+        assertNull(RideExpiryService.deadlineOf(null, "09:30"));
+    }
+
+    @Test
+    void tickDoesNothingUntilHeadIsDue() {
+        service.track(Ride.builder().id(1L).status("Active").date(LocalDate.now().plusDays(1)).arrivalTime("10:00").build());
+        service.tick();
+        verifyNoInteractions(leaseService);
+        verify(rideRepo, never()).expireDue(any(), any(), any());
+    }
+
+    @Test
+    void dueTickExpiresInOneUpdateAndBroadcastsBatch() {
+        Ride overdue = Ride.builder().id(2L).status("Active").date(LocalDate.now().minusDays(1)).arrivalTime("10:00").ownerEmpId("o1").build();
+        service.track(overdue);
+        when(leaseService.tryAcquire(eq(RideExpiryService.LEASE_NAME), any())).thenReturn(true);
+        when(rideRepo.expireDue(any(), any(), any())).thenReturn(1, 0);
+        when(rideRepo.findExpiredAt(any())).thenReturn(List.of(overdue));
+
+        service.tick();
+        service.tick(); // drained, but the holder keeps scanning: nothing left to close
+
+        verify(rideRepo, times(2)).expireDue(any(), any(), any());
+        verify(rideRepo, times(1)).findExpiredAt(any());
+        verify(chatService).notifyRidesClosed(List.of(overdue));
+    }
+
+    @Test
+    void leaseHolderScansEveryTickForRidesQueuedOnOtherReplicas() {
+        service.track(Ride.builder().id(4L).status("Active").date(LocalDate.now().minusDays(1)).build());
+        when(leaseService.tryAcquire(eq(RideExpiryService.LEASE_NAME), any())).thenReturn(true);
+        service.tick();
+
+        // a ride published elsewhere falls due: this replica never tracked it, the UPDATE still catches it
+        when(rideRepo.expireDue(any(), any(), any())).thenReturn(1);
+        service.tick();
+        service.tick();
+        verify(rideRepo, times(3)).expireDue(any(), any(), any());
+
+        // lost the lease: back to waiting for a deadline of its own
+        when(leaseService.tryAcquire(any(), any())).thenReturn(false);
+        service.tick();
+        service.tick();
+        verify(leaseService, times(4)).tryAcquire(any(), any());
+        verify(rideRepo, times(3)).expireDue(any(), any(), any());
+    }
+
+    @Test
+    void nonLeaderDropsDueDeadlinesWithoutWriting() {
+        service.track(Ride.builder().id(3L).status("Active").date(LocalDate.now().minusDays(1)).build());
+        when(leaseService.tryAcquire(any(), any())).thenReturn(false);
+        service.tick();
+        verify(rideRepo, never()).expireDue(any(), any(), any());
+    }
+}
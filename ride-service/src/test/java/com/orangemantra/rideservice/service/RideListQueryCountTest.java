@@ -0,0 +1,185 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.dto.EmployeeProfile;
+import com.orangemantra.rideservice.dto.RideChangesDTO;
+import com.orangemantra.rideservice.dto.RideResponseDTO;
+import com.orangemantra.rideservice.dto.RideSearchFilter;
+import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.repository.RideRepository;
+import com.orangemantra.rideservice.repository.RideRouteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class RideListQueryCountTest {
+    @Autowired
+    private RideRepository rideRepo;
+    @Autowired
+    private RideRouteRepository routeRepo;
+    @Autowired
+    private EntityManager em;
+
+    private RideService rideService;
+    private SeatReservationService seats;
+    private ActiveRideIndex index;
+    private RideChangeFeed feed;
+    private Statistics stats;
+
+    @BeforeEach
+    void setup() {
+        RouteGeometryService routes = new RouteGeometryService(routeRepo);
+        EmployeeDirectoryService directory = Mockito.mock(EmployeeDirectoryService.class);
+        when(directory.getProfiles(anyCollection())).thenAnswer(inv -> {
+            Map<String, EmployeeProfile> found = new HashMap<>();
+            for (Object id : inv.<Collection<?>>getArgument(0)) found.put((String) id, new EmployeeProfile((String) id, "Name " + id, id + "@corp", "98" + id));
+            return found;
+        });
+        seats = new SeatReservationService(rideRepo);
+        index = new ActiveRideIndex(rideRepo, new SimpleMeterRegistry());
+        feed = new RideChangeFeed(index, rideRepo, Duration.ofHours(24), Duration.ofSeconds(60));
+        rideService = RideServiceFixture.over(rideRepo).directory(directory).seats(seats).activeRides(index).routes(routes)
+                .views(new RideViewCache(new SimpleMeterRegistry(), 1000, Duration.ofMinutes(5)))
+                .searchCache(new RideSearchCache(new SimpleMeterRegistry(), 1000, Duration.ofMinutes(1)))
+                .changeFeed(feed)
+                .build();
+        for (int i = 0; i < 60; i++) {
+            Ride ride = Ride.builder().ownerEmpId("OWNER" + i).origin("Sector " + i).destination("Cyber City")
+                    .originLat(28.40 + i * 0.001).originLng(77.00).destinationLat(28.49).destinationLng(77.09)
+                    .date(LocalDate.now().plusDays(1)).arrivalTime("09:00").carDetails("Car " + i)
+                    .totalSeats(4).availableSeats(2).fare(BigDecimal.valueOf(50)).status("Active").build();
+            ride.addParticipant("P" + i, 1, "JOINED");
+            ride.addParticipant("Q" + i, 1, "JOINED");
+            ride.addParticipant("W" + i, 1, "PENDING");
+            rideRepo.save(ride);
+            routes.store(ride.getId(), "[[77.00," + (28.40 + i * 0.001) + "],[77.05,28.45],[77.09,28.49]]");
+        }
+        em.flush();
+        em.clear();
+        index.resync();
+        stats = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @Test
+    void listPageCostsThreeQueriesRegardlessOfItsSize() {
+        List<RideResponseDTO> page = rideService.getAllRidesWithEmployeeDetails(0, 50);
+        assertEquals(50, page.size());
+        long fullPage = stats.getPrepareStatementCount();
+        assertEquals(3, fullPage, "rides, participants, route outlines");
+        assertEquals(0, stats.getEntityLoadCount(), "no Ride entities hydrated");
+        assertEquals(0, stats.getCollectionFetchCount());
+
+        RideResponseDTO first = page.get(0);
+        assertEquals("Car 0", first.getCarDetails());
+        assertEquals(2, first.getJoinedEmployees().size());
+        assertEquals(1, first.getPendingEmployees().size());
+        assertNotNull(first.getRoutePreview());
+        assertEquals(4, first.getRouteBounds().length);
+
+        stats.clear();
+        assertEquals(5, rideService.getAllRidesWithEmployeeDetails(11, 5).size()); // rides 55..59, not cached yet
+        assertEquals(fullPage, stats.getPrepareStatementCount());
+    }
+
+    @Test
+    void repeatedListsReuseCachedViewsUntilTheRideChanges() {
+        List<RideResponseDTO> first = rideService.getAllRidesWithEmployeeDetails(0, 50);
+        stats.clear();
+        List<RideResponseDTO> again = rideService.getAllRidesWithEmployeeDetails(0, 50);
+        assertEquals(1, stats.getPrepareStatementCount(), "only the ride rows; participants and outlines come from the cache");
+        assertEquals(first, again);
+        assertNotSame(first.get(0), again.get(0)); // every caller gets its own copy
+
+        Long changed = first.get(3).getId();
+        seats.join(changed, "NEW", 1); // bumps the ride's version
+        em.flush();
+        em.clear();
+        stats.clear();
+        RideResponseDTO rebuilt = rideService.getAllRidesWithEmployeeDetails(0, 50).get(3);
+        assertEquals(3, stats.getPrepareStatementCount(), "the changed ride is rebuilt, the other 49 are hits");
+        assertEquals(3, rebuilt.getJoinedEmployees().size());
+        assertEquals(1, rebuilt.getAvailableSeats());
+    }
+
+    @Test
+    void repeatedSearchesReuseTheResultPageAndRecheckSeats() {
+        RideSearchFilter filter = RideSearchFilter.builder().origin("Sector 5").destination("Cyber City").passengers(2).build();
+        List<RideResponseDTO> first = rideService.searchActiveRides(filter, 0, 20);
+        assertEquals(1, first.size());
+        stats.clear();
+        assertEquals(first, rideService.searchActiveRides(filter, 0, 20));
+        assertEquals(1, stats.getPrepareStatementCount(), "ids from the search cache, DTO from the view cache");
+
+        // a booking committed elsewhere, not yet seen by this replica's index: the cached page is re-checked
+        Long id = first.get(0).getId();
+        em.createQuery("UPDATE Ride r SET r.availableSeats = 1 WHERE r.id = :id").setParameter("id", id).executeUpdate();
+        em.clear();
+        assertEquals(List.of(), rideService.searchActiveRides(filter, 0, 20));
+
+        // once the index sees the change, the route's version moves and the page is searched afresh
+        index.resync();
+        assertEquals(List.of(), rideService.searchActiveRides(filter, 0, 20));
+        assertEquals(1, rideService.searchActiveRides(RideSearchFilter.builder().origin("Sector 5").destination("Cyber City").build(), 0, 20).size());
+    }
+
+    @Test
+    void changeFeedCarriesOnlyTheRidesThatChanged() {
+        Long booked = index.search(RideSearchFilter.builder().origin("Sector 3").build(), 0, 1).get(0);
+        Long cancelled = index.search(RideSearchFilter.builder().origin("Sector 4").build(), 0, 1).get(0);
+        String cursor = feed.currentCursor();
+        rideService.joinRide(booked, "NEW", 1);
+        rideService.deleteRide(cancelled);
+        em.flush();
+        em.clear();
+
+        RideChangesDTO changes = rideService.activeRideChanges(cursor, 100);
+        assertFalse(changes.isResyncRequired());
+        assertEquals(List.of(booked, cancelled), changes.getChanges().stream().map(RideChangesDTO.Change::getRideId).toList());
+        assertEquals("SEATS_CHANGED", changes.getChanges().get(0).getType());
+        assertEquals(1, changes.getChanges().get(0).getRide().getAvailableSeats());
+        assertEquals("CANCELLED", changes.getChanges().get(1).getType());
+        assertNull(changes.getChanges().get(1).getRide());
+
+        stats.clear();
+        RideChangesDTO idle = rideService.activeRideChanges(changes.getCursor(), 100);
+        assertEquals(List.of(), idle.getChanges());
+        assertEquals(0, stats.getPrepareStatementCount(), "an idle poll never reaches the database");
+
+        // a cursor from another replica falls back to updatedAt; one from nowhere asks for a reload
+        RideChangesDTO foreign = rideService.activeRideChanges("elsewhere.3." + System.currentTimeMillis(), 100);
+        assertFalse(foreign.isResyncRequired());
+        assertEquals(Set.of(booked, cancelled), foreign.getChanges().stream().map(RideChangesDTO.Change::getRideId).collect(Collectors.toSet()));
+        assertTrue(rideService.activeRideChanges("garbage", 100).isResyncRequired());
+        assertTrue(rideService.activeRideChanges(null, 100).isResyncRequired());
+    }
+
+    @Test
+    void historyAndOwnerListsUseTheSameThreeQueries() {
+        assertEquals(1, rideService.getRidesWithEmployeeDetailsByOwner("OWNER7", 0, 50).size());
+        assertEquals(3, stats.getPrepareStatementCount());
+        stats.clear();
+        assertEquals(0, rideService.getPublishedRideHistory("OWNER7").size());
+        assertEquals(1, stats.getPrepareStatementCount()); // empty page: no follow-up queries
+    }
+}
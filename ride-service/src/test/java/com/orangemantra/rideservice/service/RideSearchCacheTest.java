@@ -0,0 +1,35 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.dto.RideSearchFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RideSearchCacheTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RideSearchCache cache = new RideSearchCache(registry, 100, Duration.ofMinutes(1));
+
+    @Test
+    void equivalentFiltersShareAnEntryWhileTheVersionHolds() {
+        LocalDate day = LocalDate.now();
+        cache.put(RideSearchFilter.builder().origin("Office").destination("Dlf CyberHub").date(day).maxFare(new BigDecimal("50.00")).build(),
+                0, 20, 7, List.of(3L, 1L));
+
+        RideSearchFilter same = RideSearchFilter.builder().origin("Office").destination("Dlf CyberHub").date(day).maxFare(new BigDecimal("50")).build();
+        assertEquals(List.of(3L, 1L), cache.get(same, 0, 20, 7));
+        assertNull(cache.get(same, 0, 20, 8)); // the ride set moved on
+        assertNull(cache.get(same, 1, 20, 7));
+        same.setPassengers(2);
+        assertNull(cache.get(same, 0, 20, 7));
+
+        cache.put(RideSearchFilter.builder().origin(" ").build(), 0, 20, 7, List.of(9L));
+        assertEquals(List.of(9L), cache.get(RideSearchFilter.builder().build(), 0, 20, 7)); // blank place == no constraint
+        assertEquals(2.0, registry.get("cache.gets").tag("cache", "rideSearch").tag("result", "hit").functionCounter().count());
+    }
+}
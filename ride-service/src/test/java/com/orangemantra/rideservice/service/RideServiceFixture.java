@@ -0,0 +1,60 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.messaging.NotificationProducer;
+import com.orangemantra.rideservice.repository.RideRepository;
+import com.orangemantra.rideservice.routing.RoutingEngine;
+import com.orangemantra.rideservice.util.JwtUtil;
+import org.mockito.Mockito;
+
+/**
+ * The one place tests construct a {@link RideService}: every collaborator is a Mockito mock unless the test hands
+ * in its own, so adding a constructor argument touches this class only.
+ */
+final class RideServiceFixture {
+    private final RideRepository rideRepository;
+    private JwtUtil jwtUtil = Mockito.mock(JwtUtil.class);
+    private ChatService chatService = Mockito.mock(ChatService.class);
+    private NotificationProducer notificationProducer = Mockito.mock(NotificationProducer.class);
+    private RideExpiryService rideExpiryService = Mockito.mock(RideExpiryService.class);
+    private EmployeeDirectoryService employeeDirectory = Mockito.mock(EmployeeDirectoryService.class);
+    private SeatReservationService seatReservations = Mockito.mock(SeatReservationService.class);
+    private ActiveRideIndex activeRides = Mockito.mock(ActiveRideIndex.class);
+    private RouteCorridorIndex corridors = Mockito.mock(RouteCorridorIndex.class);
+    private RoutingEngine routing = Mockito.mock(RoutingEngine.class);
+    private RouteGeometryService routeGeometry = Mockito.mock(RouteGeometryService.class);
+    private RideViewCache rideViews = Mockito.mock(RideViewCache.class);
+    private RideSearchCache searchCache = Mockito.mock(RideSearchCache.class);
+    private RideChangeFeed changeFeed = Mockito.mock(RideChangeFeed.class);
+    private RideAlertIndex rideAlerts = Mockito.mock(RideAlertIndex.class);
+
+    private RideServiceFixture(RideRepository rideRepository) {
+        this.rideRepository = rideRepository;
+    }
+
+    static RideServiceFixture over(RideRepository rideRepository) {
+        return new RideServiceFixture(rideRepository);
+    }
+
+    RideServiceFixture chat(ChatService chatService) { this.chatService = chatService; return this; }
+
+    RideServiceFixture notifications(NotificationProducer notificationProducer) { this.notificationProducer = notificationProducer; return this; }
+
+    RideServiceFixture directory(EmployeeDirectoryService employeeDirectory) { this.employeeDirectory = employeeDirectory; return this; }
+
+    RideServiceFixture seats(SeatReservationService seatReservations) { this.seatReservations = seatReservations; return this; }
+
+    RideServiceFixture activeRides(ActiveRideIndex activeRides) { this.activeRides = activeRides; return this; }
+
+    RideServiceFixture routes(RouteGeometryService routeGeometry) { this.routeGeometry = routeGeometry; return this; }
+
+    RideServiceFixture views(RideViewCache rideViews) { this.rideViews = rideViews; return this; }
+
+    RideServiceFixture searchCache(RideSearchCache searchCache) { this.searchCache = searchCache; return this; }
+
+    RideServiceFixture changeFeed(RideChangeFeed changeFeed) { this.changeFeed = changeFeed; return this; }
+
+    RideService build() {
+        return new RideService(rideRepository, jwtUtil, chatService, notificationProducer, rideExpiryService, employeeDirectory,
+                seatReservations, activeRides, corridors, routing, routeGeometry, rideViews, searchCache, changeFeed, rideAlerts);
+    }
+}
@@ -0,0 +1,62 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.dto.JoinedEmployeeDTO;
+import com.orangemantra.rideservice.dto.RideResponseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RideViewCacheTest {
+    private RideViewCache cache;
+    private RideResponseDTO base;
+
+    @BeforeEach
+    void setup() {
+        cache = new RideViewCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+        base = RideResponseDTO.builder().id(1L).ownerEmpId("OWNER").ownerName("Owner").ownerPhone("9000")
+                .joinedEmployees(List.of(new JoinedEmployeeDTO("J1", "Joe", "j1@corp", "9001", 2), new JoinedEmployeeDTO("J2", "Jan", "j2@corp", "9002", 1)))
+                .pendingEmployees(List.of(new JoinedEmployeeDTO("P1", "Pat", "p1@corp", "9003")))
+                .build();
+    }
+
+    @Test
+    void phonesFollowTheViewer() {
+        RideResponseDTO owner = RideViewCache.forViewer(base, "OWNER");
+        assertEquals("9000", owner.getOwnerPhone());
+        assertEquals(List.of("9001", "9002"), owner.getJoinedEmployees().stream().map(JoinedEmployeeDTO::getPhone).toList());
+        assertNull(owner.getPendingEmployees().get(0).getPhone());
+
+        RideResponseDTO joined = RideViewCache.forViewer(base, "J2");
+        assertEquals("9000", joined.getOwnerPhone());
+        assertNull(joined.getJoinedEmployees().get(0).getPhone());
+        assertEquals("9002", joined.getJoinedEmployees().get(1).getPhone());
+        assertEquals(2, joined.getJoinedEmployees().get(0).getSeats());
+
+        for (String stranger : new String[]{"P1", "SOMEONE", null}) {
+            RideResponseDTO v = RideViewCache.forViewer(base, stranger);
+            assertNull(v.getOwnerPhone(), stranger);
+            assertTrue(v.getJoinedEmployees().stream().allMatch(e -> e.getPhone() == null), stranger);
+            assertTrue(v.getPendingEmployees().stream().allMatch(e -> e.getPhone() == null), stranger);
+        }
+        assertEquals("9001", base.getJoinedEmployees().get(0).getPhone()); // the cached base is never touched
+    }
+
+    @Test
+    void hitsOnlyAtTheSameVersionAndDropsViewsOfChangedEmployees() {
+        cache.put(1L, 4L, base, Set.of("OWNER", "J1", "J2", "P1"));
+        assertSame(base, cache.get(1L, 4L));
+        assertNull(cache.get(1L, 5L));
+        assertNull(cache.get(1L, null));
+
+        cache.employeeChanged("NOBODY");
+        assertSame(base, cache.get(1L, 4L));
+        cache.employeeChanged("P1");
+        assertNull(cache.get(1L, 4L));
+    }
+}
@@ -0,0 +1,132 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.repository.RideRepository;
+import com.orangemantra.rideservice.util.RouteCodec;
+import com.orangemantra.rideservice.util.RoutePolyline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class RouteCorridorIndexTest {
+    // west -> east along latitude 28.5, 77.00 to 77.20 (~19.5 km)
+    private static final String EAST = "{\"type\":\"LineString\",\"coordinates\":[[77.0,28.5],[77.1,28.5],[77.2,28.5]]}";
+
+    private RideRepository rideRepo = Mockito.mock(RideRepository.class);
+    private RouteCorridorIndex index;
+
+    @BeforeEach
+    void setup() {
+        when(rideRepo.findActiveRouteVersions()).thenReturn(List.of());
+        index = new RouteCorridorIndex(rideRepo, new SimpleMeterRegistry());
+        index.resync();
+    }
+
+    @Test
+    void decodesEncodedPolylinesAndGeoJson() {
+        double[] encoded = RoutePolyline.decode("_p~iF~ps|U_ulLnnqC_mqNvxq`@");
+        assertArrayEquals(new double[]{38.5, -120.2, 40.7, -120.95, 43.252, -126.453}, encoded, 1e-9);
+        assertArrayEquals(new double[]{28.5, 77.0, 28.5, 77.1, 28.5, 77.2}, RoutePolyline.decode(EAST), 1e-9);
+        String feature = "{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[77.0,28.5],[77.0,28.5],[77.1,28.6]]}}";
+        assertArrayEquals(new double[]{28.5, 77.0, 28.6, 77.1}, RoutePolyline.decode(feature), 1e-9); // repeated point dropped
+        assertEquals(0, RoutePolyline.decode("{not json").length);
+        assertEquals(0, RoutePolyline.decode(null).length);
+    }
+
+    @Test
+    void matchesRidesPassingPickupThenDropInRouteOrder() {
+        index.upsert(ride(1L, EAST));
+        index.upsert(ride(2L, "[[77.2,28.5],[77.0,28.5]]"));                // same road, driven westwards
+        index.upsert(ride(3L, "[[77.05,28.45],[77.05,28.55]]"));            // crosses at 77.05 going north
+        index.upsert(ride(4L, null));                                      // no geometry: never matched
+
+        // pickup ~556 m north of the road, drop on it further east
+        List<RouteCorridorIndex.Match> eastbound = index.match(28.505, 77.05, 28.5, 77.15, 1000);
+        assertEquals(List.of(1L), eastbound.stream().map(RouteCorridorIndex.Match::rideId).toList());
+        RouteCorridorIndex.Match m = eastbound.get(0);
+        assertEquals(556, m.pickupMeters(), 5);
+        assertEquals(0, m.dropMeters());
+        assertEquals(4888, m.pickupAlongMeters(), 10);
+        assertEquals(14663, m.dropAlongMeters(), 15);
+        assertEquals(19550, m.routeMeters(), 20);
+
+        assertEquals(List.of(2L), index.match(28.5, 77.15, 28.505, 77.05, 1000).stream().map(RouteCorridorIndex.Match::rideId).toList());
+        // pickup only: every route within the corridor, least off-route first, then by id
+        assertEquals(List.of(3L, 1L, 2L), index.match(28.505, 77.05, null, null, 1000).stream().map(RouteCorridorIndex.Match::rideId).toList());
+        assertEquals(List.of(3L), index.match(28.505, 77.05, null, null, 100).stream().map(RouteCorridorIndex.Match::rideId).toList());
+    }
+
+    @Test
+    void insertionCostsTheExtraPathBetweenTheNearestVertices() {
+        index.upsert(ride(1L, EAST));
+        // 556 m beside the middle of a ~9.8 km straight segment: the driver barely bends
+        assertEquals(63, index.match(28.505, 77.05, null, null, 1000).get(0).insertionMeters(), 2);
+        // 556 m beside a vertex: nearly the whole way out, then on towards the next vertex
+        assertEquals(572, index.match(28.505, 77.1, null, null, 1000).get(0).insertionMeters(), 2);
+        // pickup and drop beside the same segment are visited in one pass, not two separate bends
+        assertEquals(104, index.match(28.505, 77.03, 28.505, 77.07, 1000).get(0).insertionMeters(), 2);
+        // on different segments each bend is added
+        assertEquals(63 + 63, index.match(28.505, 77.05, 28.505, 77.15, 1000).get(0).insertionMeters(), 3);
+    }
+
+    @Test
+    void rerouteAndRemoveUpdateOnlyThatRide() {
+        index.upsert(ride(1L, EAST));
+        index.upsert(ride(2L, EAST));
+        Ride rerouted = ride(1L, "[[77.0,28.7],[77.2,28.7]]");
+        rerouted.setVersion(2L);
+        index.upsert(rerouted);
+        index.upsert(ride(1L, EAST)); // version 1 arriving late
+        assertEquals(List.of(2L), index.match(28.5, 77.05, null, null, 500).stream().map(RouteCorridorIndex.Match::rideId).toList());
+        assertEquals(List.of(1L), index.match(28.7, 77.05, null, null, 500).stream().map(RouteCorridorIndex.Match::rideId).toList());
+
+        Ride cancelled = ride(2L, EAST);
+        cancelled.setStatus("Cancelled");
+        index.upsert(cancelled);
+        index.remove(List.of(1L));
+        assertEquals(List.of(), index.match(28.5, 77.05, null, null, 500));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void resyncReadsOnlyChangedRoutesAndDropsClosedOnes() {
+        when(rideRepo.findActiveRouteVersions()).thenReturn(List.of(versionRow(7L, 1L)));
+        when(rideRepo.findActiveRoutes(anyCollection())).thenReturn(List.of(routeRow(7L, EAST, 1L)));
+        index.resync();
+        index.resync(); // unchanged version: geometry not read again
+        verify(rideRepo, times(1)).findActiveRoutes(anyCollection());
+        assertEquals(List.of(7L), index.match(28.5, 77.05, null, null, 500).stream().map(RouteCorridorIndex.Match::rideId).toList());
+
+        when(rideRepo.findActiveRouteVersions()).thenReturn(List.of());
+        index.resync();
+        assertEquals(0, index.size());
+    }
+
+    private static Ride ride(Long id, String geometry) {
+        return Ride.builder().id(id).status("Active").routeGeometry(geometry).version(1L).build();
+    }
+
+    private static RideRepository.RouteVersionRow versionRow(Long id, Long version) {
+        return new RideRepository.RouteVersionRow() {
+            public Long getId() { return id; }
+            public Long getVersion() { return version; }
+        };
+    }
+
+    private static RideRepository.RouteRow routeRow(Long id, String geometry, Long version) {
+        return new RideRepository.RouteRow() {
+            public Long getId() { return id; }
+            public byte[] getRouteData() { return RouteCodec.encode(RoutePolyline.decode(geometry)); }
+            public Integer getRouteDistanceMeters() { return null; }
+            public Integer getRouteDurationSeconds() { return null; }
+            public Long getVersion() { return version; }
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package com.orangemantra.rideservice.service;
+
+import com.orangemantra.rideservice.model.Ride;
+import com.orangemantra.rideservice.repository.RideRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Real transactions against H2: every join takes the ride row lock (SELECT ... FOR UPDATE) and commits, so callers
+ * racing on one ride queue on the lock rather than on a mocked repository. No test transaction, rows are removed
+ * after each test.
+ */
+@DataJpaTest
+@Import(SeatReservationService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SeatReservationConcurrencyTest {
+    private static final int TOTAL_SEATS = 8;
+    private static final int CALLERS = 60;
+
+    @Autowired
+    private RideRepository rideRepo;
+    @Autowired
+    private SeatReservationService seatReservations;
+
+    private RideService rideService;
+    private Long rideId;
+
+    @BeforeEach
+    void setup() {
+        rideService = RideServiceFixture.over(rideRepo).seats(seatReservations).build();
+        rideId = rideRepo.save(Ride.builder().ownerEmpId("owner").origin("Sector 29").destination("Cyber City")
+                .date(LocalDate.now().plusDays(1)).arrivalTime("09:00").fare(BigDecimal.TEN).status("Active")
+                .totalSeats(TOTAL_SEATS).availableSeats(TOTAL_SEATS).instantBookingEnabled(true).build()).getId();
+    }
+
+    @AfterEach
+    void cleanup() {
+        rideRepo.deleteAll();
+    }
+
+    @Test
+    void parallelJoinsQueueOnTheRowLockAndNeverOversell() throws Exception {
+        AtomicInteger full = new AtomicInteger();
+        AtomicInteger gaveUp = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                String empId = "e" + i;
+                int seats = 1 + i % 2;
+                calls.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        rideService.joinRide(rideId, empId, seats);
+                    } catch (ResponseStatusException e) {
+                        gaveUp.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        if ("Not enough seats available".equals(e.getMessage())) full.incrementAndGet(); else throw e;
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> call : calls) call.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Ride end = rideRepo.findWithParticipantsById(rideId).orElseThrow();
+        int booked = end.getJoinedSeats().values().stream().mapToInt(Integer::intValue).sum();
+        assertTrue(end.getAvailableSeats() >= 0);
+        assertEquals(TOTAL_SEATS, booked + end.getAvailableSeats());
+        assertEquals(end.getJoinedEmpIds().size(), new HashSet<>(end.getJoinedEmpIds()).size());
+        assertEquals(CALLERS - end.getJoinedEmpIds().size(), full.get());
+        // waiters block on the lock instead of failing their version check, so nobody runs out of retries
+        assertEquals(0, gaveUp.get());
+    }
+
+    @Test
+    void leaveReturnsBookedSeats() {
+        rideService.joinRide(rideId, "e1", 3);
+        rideService.leaveRide(rideId, "e1");
+        Ride end = rideRepo.findWithParticipantsById(rideId).orElseThrow();
+        assertEquals(TOTAL_SEATS, end.getAvailableSeats());
+        assertTrue(end.getJoinedSeats().isEmpty());
+        assertThrows(RuntimeException.class, () -> rideService.leaveRide(rideId, "e1"));
+    }
+}
@@ -0,0 +1,102 @@
+package com.orangemantra.rideservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteCodecTest {
+
+    @Test
+    void everyLevelStaysWithinItsToleranceOfTheFullRoute() {
+        double[] route = wigglyRoute(3000, new Random(5));
+        byte[] data = RouteCodec.encode(route);
+
+        double[] full = RouteCodec.decode(data, 0);
+        assertEquals(route.length, full.length);
+        for (int i = 0; i < route.length; i++) assertEquals(route[i], full[i], 0.5e-5 + 1e-12);
+
+        int previous = full.length;
+        for (int level = 1; level < RouteCodec.LEVEL_TOLERANCE_METERS.length; level++) {
+            double[] simplified = RouteCodec.decode(data, level);
+            assertTrue(simplified.length <= previous, "level " + level);
+            assertArrayEquals(new double[]{full[0], full[1]}, new double[]{simplified[0], simplified[1]});
+            assertEquals(full[full.length - 1], simplified[simplified.length - 1]);
+            // levels are simplified from each other, so the error adds up to at most the sum of tolerances (+ rounding)
+            double budget = 0;
+            for (int l = 1; l <= level; l++) budget += RouteCodec.LEVEL_TOLERANCE_METERS[l];
+            for (int i = 0; i < full.length; i += 2) {
+                assertTrue(distanceToLine(full[i], full[i + 1], simplified) <= budget + 2, "level " + level + " point " + i / 2);
+            }
+            previous = simplified.length;
+        }
+        assertTrue(RouteCodec.decode(data, 1).length < full.length / 3);
+        assertArrayEquals(RouteCodec.decode(data, 4), RouteCodec.decode(data, 99)); // clamped to the coarsest level
+
+        String geoJson = toGeoJson(route);
+        assertTrue(data.length * 4 < geoJson.length(), data.length + " bytes vs " + geoJson.length() + " chars of GeoJSON");
+    }
+
+    @Test
+    void previewAndPolylineEncoding() {
+        double[] route = wigglyRoute(3000, new Random(9));
+        double[] preview = RouteCodec.preview(route, 24);
+        assertTrue(preview.length / 2 <= 24 && preview.length >= 4);
+        String encoded = RoutePolyline.encode(preview);
+        assertTrue(encoded.length() < 512);
+        assertArrayEquals(preview, RoutePolyline.decode(encoded), 1e-9);
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", RoutePolyline.encode(new double[]{38.5, -120.2, 40.7, -120.95, 43.252, -126.453}));
+
+        assertArrayEquals(new double[]{28.40, 76.98, 28.50, 77.10},
+                RouteCodec.bounds(new double[]{28.45, 77.10, 28.40, 77.00, 28.50, 76.98}), 1e-12);
+    }
+
+    @Test
+    void zoomPicksTheCoarsestLevelUnderAPixel() {
+        assertEquals(0, RouteCodec.levelForZoom(17, 28.5)); // ~1 m per pixel
+        assertEquals(1, RouteCodec.levelForZoom(14, 28.5)); // ~8 m
+        assertEquals(3, RouteCodec.levelForZoom(10, 28.5)); // ~134 m
+        assertEquals(4, RouteCodec.levelForZoom(2, 28.5));
+    }
+
+    @Test
+    void rejectsCorruptData() {
+        byte[] data = RouteCodec.encode(wigglyRoute(50, new Random(1)));
+        assertThrows(IllegalArgumentException.class, () -> RouteCodec.decode(new byte[]{9, 9, 9}, 0));
+        assertThrows(IllegalArgumentException.class, () -> RouteCodec.decode(java.util.Arrays.copyOf(data, data.length / 2), 0));
+    }
+
+    /** A drive of n points ~10 m apart, heading roughly east with GPS-like jitter and slow turns. */
+    private static double[] wigglyRoute(int n, Random rnd) {
+        double[] pts = new double[n * 2];
+        double lat = 28.45, lng = 77.0, heading = 0;
+        for (int i = 0; i < n; i++) {
+            heading += (rnd.nextDouble() - 0.5) * 0.2;
+            lat += Math.sin(heading) * 0.00009 + (rnd.nextDouble() - 0.5) * 0.00002;
+            lng += Math.cos(heading) * 0.0001 + (rnd.nextDouble() - 0.5) * 0.00002;
+            pts[2 * i] = Math.round(lat * 1e5) / 1e5;
+            pts[2 * i + 1] = Math.round(lng * 1e5) / 1e5;
+        }
+        return pts;
+    }
+
+    private static String toGeoJson(double[] pts) {
+        StringBuilder sb = new StringBuilder("{\"type\":\"LineString\",\"coordinates\":[");
+        for (int i = 0; i < pts.length; i += 2) sb.append(i == 0 ? "" : ",").append('[').append(pts[i + 1]).append(',').append(pts[i]).append(']');
+        return sb.append("]}").toString();
+    }
+
+    private static double distanceToLine(double lat, double lng, double[] line) {
+        double cosLat = Math.cos(Math.toRadians(lat)), best = Double.MAX_VALUE;
+        for (int s = 0; s + 3 < line.length; s += 2) {
+            double ax = (line[s + 1] - lng) * cosLat, ay = line[s] - lat;
+            double dx = (line[s + 3] - lng) * cosLat - ax, dy = line[s + 2] - lat - ay;
+            double len2 = dx * dx + dy * dy;
+            double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / len2));
+            double x = ax + t * dx, y = ay + t * dy;
+            best = Math.min(best, Math.sqrt(x * x + y * y) / GeoUtils.latDegrees(1));
+        }
+        return best;
+    }
+}